@@ -0,0 +1,75 @@
+-- 一次性回填脚本：根据现有父母关系重建祖先-后代闭包表 person_closure
+-- 适用数据库：PostgreSQL
+-- 使用方式：
+--   psql "$DATABASE_URL" -f scripts/sql/backfill_person_closure.sql
+-- 说明：
+--   应用启动时会自动回填闭包与关系表不一致的家族（DerivedDataBackfill，可用
+--   familytree.derived-data-backfill.enabled 关闭）；本脚本用于手动全量重建，
+--   会先清空闭包表再全量重建，并据此重算每位人物的后代数/祖先数，可重复执行。
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS person_closure (
+    group_id UUID REFERENCES groups(id) ON DELETE CASCADE,
+    ancestor_id UUID REFERENCES persons(id) ON DELETE CASCADE,
+    descendant_id UUID REFERENCES persons(id) ON DELETE CASCADE,
+    distance INTEGER NOT NULL,
+    PRIMARY KEY (ancestor_id, descendant_id)
+);
+CREATE INDEX IF NOT EXISTS idx_person_closure_descendant ON person_closure(descendant_id, distance);
+CREATE INDEX IF NOT EXISTS idx_person_closure_group ON person_closure(group_id);
+
+ALTER TABLE persons ADD COLUMN IF NOT EXISTS descendant_count INTEGER DEFAULT 0;
+ALTER TABLE persons ADD COLUMN IF NOT EXISTS ancestor_count INTEGER DEFAULT 0;
+
+-- 避免与应用内的增量维护并发写入
+LOCK TABLE person_closure IN EXCLUSIVE MODE;
+
+DELETE FROM person_closure;
+
+-- 兼容历史 CHILD 关系（from=子女, to=父母）；只保留两端人物都存在的关系
+-- 递归以 (后代, 祖先, 代数) 去重，代数上限为所在家族人数，数据中存在环时也会终止
+WITH RECURSIVE parent_links AS (
+    SELECT r.group_id, r.from_person_id AS parent_id, r.to_person_id AS child_id
+    FROM relationships r
+    WHERE r.type = 'PARENT'
+    UNION
+    SELECT r.group_id, r.to_person_id, r.from_person_id
+    FROM relationships r
+    WHERE r.type = 'CHILD'
+),
+live_links AS (
+    SELECT l.group_id, l.parent_id, l.child_id, g.person_count
+    FROM parent_links l
+    JOIN persons pp ON pp.id = l.parent_id AND pp.group_id = l.group_id
+    JOIN persons pc ON pc.id = l.child_id AND pc.group_id = l.group_id
+    JOIN (SELECT group_id, COUNT(*) AS person_count FROM persons GROUP BY group_id) g ON g.group_id = l.group_id
+),
+walk(group_id, descendant_id, ancestor_id, distance, person_count) AS (
+    SELECT l.group_id, l.child_id, l.parent_id, 1, l.person_count
+    FROM live_links l
+    UNION
+    SELECT w.group_id, w.descendant_id, l.parent_id, w.distance + 1, w.person_count
+    FROM walk w
+    JOIN live_links l ON l.group_id = w.group_id AND l.child_id = w.ancestor_id
+    WHERE w.distance < w.person_count
+)
+INSERT INTO person_closure (group_id, ancestor_id, descendant_id, distance)
+SELECT w.group_id, w.ancestor_id, w.descendant_id, MIN(w.distance)
+FROM walk w
+WHERE w.ancestor_id <> w.descendant_id
+GROUP BY w.group_id, w.ancestor_id, w.descendant_id;
+
+UPDATE persons p
+SET descendant_count = COALESCE((SELECT COUNT(*) FROM person_closure c WHERE c.ancestor_id = p.id), 0),
+    ancestor_count = COALESCE((SELECT COUNT(*) FROM person_closure c WHERE c.descendant_id = p.id), 0);
+
+COMMIT;
+
+-- 可选核查：各家族闭包行数与最大代数
+SELECT group_id,
+       COUNT(*) AS closure_rows,
+       MAX(distance) AS max_distance
+FROM person_closure
+GROUP BY group_id
+ORDER BY closure_rows DESC;
@@ -0,0 +1,59 @@
+-- 一次性回填脚本：根据现有关系计算每位人物在家族内的绝对代数（辈分）
+-- 适用数据库：PostgreSQL
+-- 使用方式：
+--   psql "$DATABASE_URL" -f scripts/sql/backfill_person_generation.sql
+-- 说明：
+--   上线代数字段之前创建的人物 generation 为空或为 0。为空的家族会在应用启动时自动回填
+--   （DerivedDataBackfill，可用 familytree.derived-data-backfill.enabled 关闭）；
+--   已按列默认值填成 0 的历史数据无法自动识别，需要执行一次本脚本；
+--   规则与应用内增量维护一致：没有父母的人物为第 0 代，子女至少比每位父母大一代，配偶同代；
+--   脚本按全部关系重新计算，可重复执行。
+
+BEGIN;
+
+ALTER TABLE persons ADD COLUMN IF NOT EXISTS generation INTEGER DEFAULT 0;
+CREATE INDEX IF NOT EXISTS idx_persons_group_generation ON persons(group_id, generation);
+
+-- 避免与应用内的增量维护并发写入
+LOCK TABLE persons IN SHARE ROW EXCLUSIVE MODE;
+
+-- 兼容历史 CHILD 关系（from=子女, to=父母）；只保留两端人物都存在的关系
+-- 递归以 (人物, 代数) 去重，代数上限为所在家族人数，数据中存在环时也会终止
+WITH RECURSIVE links AS (
+    SELECT r.group_id, r.from_person_id AS upper_id, r.to_person_id AS lower_id,
+           CASE r.type WHEN 'PARENT' THEN 1 ELSE 0 END AS weight
+    FROM relationships r
+    WHERE r.type IN ('PARENT', 'SPOUSE')
+    UNION ALL
+    SELECT r.group_id, r.to_person_id, r.from_person_id,
+           CASE r.type WHEN 'CHILD' THEN 1 ELSE 0 END
+    FROM relationships r
+    WHERE r.type IN ('CHILD', 'SPOUSE')
+),
+live_links AS (
+    SELECT l.group_id, l.upper_id, l.lower_id, l.weight, g.person_count
+    FROM links l
+    JOIN persons pu ON pu.id = l.upper_id AND pu.group_id = l.group_id
+    JOIN persons pl ON pl.id = l.lower_id AND pl.group_id = l.group_id
+    JOIN (SELECT group_id, COUNT(*) AS person_count FROM persons GROUP BY group_id) g ON g.group_id = l.group_id
+),
+walk(person_id, generation) AS (
+    SELECT lower_id, 1 FROM live_links WHERE weight = 1
+    UNION
+    SELECT l.lower_id, w.generation + l.weight
+    FROM walk w
+    JOIN live_links l ON l.upper_id = w.person_id
+    WHERE w.generation + l.weight < l.person_count
+)
+UPDATE persons p
+SET generation = COALESCE(x.generation, 0)
+FROM persons q
+LEFT JOIN (SELECT person_id, MAX(generation) AS generation FROM walk GROUP BY person_id) x
+    ON x.person_id = q.id
+WHERE p.id = q.id
+AND p.generation IS DISTINCT FROM COALESCE(x.generation, 0);
+
+COMMIT;
+
+-- 验证：各家族每代人数
+-- SELECT group_id, generation, COUNT(*) FROM persons GROUP BY group_id, generation ORDER BY group_id, generation;
@@ -0,0 +1,29 @@
+package com.familytree.application.dto;
+
+import com.familytree.domain.CollapseDirection;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * 树视图超出节点上限时，代替被省略分支的合成节点
+ * 客户端展开时以 anchorPersonId 为焦点重新请求树视图，或调用祖先/后代接口
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CollapsedNodeDTO {
+    private String id; // 合成节点ID：collapsed:锚点人物ID:方向
+    private UUID anchorPersonId; // 与被省略分支相连的可见人物
+    private CollapseDirection direction;
+    private Integer hiddenCount; // 视图深度内被省略的直接亲属人数
+    private Integer descendantCount; // 锚点人物的后代总数（随闭包维护，无需遍历）
+    private Integer ancestorCount; // 锚点人物的祖先总数
+    private Integer generation; // 相对于焦点人物的代数
+    private Double x;
+    private Double y;
+}
@@ -0,0 +1,66 @@
+package com.familytree.application.dto;
+
+import com.familytree.domain.LineageType;
+import com.familytree.domain.TreeViewMode;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * 树视图的紧凑列式表示，请求头 Accept 为 {@link #MEDIA_TYPE} 时返回（不含 ApiResponse 包装）
+ * 每个人物ID只下发一次，其在 ids 中的下标即本地编号；节点字段按列存放，第 i 列元素对应 ids[i]；
+ * 边以本地编号对表示；枚举列存放字典下标（-1 表示空），字典随数据一起下发
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompactTreeViewDTO {
+
+    public static final String MEDIA_TYPE = "application/vnd.familytree.tree-compact+json";
+
+    private UUID groupId;
+    private Integer version;
+    private TreeViewMode viewMode;
+    private Integer focus; // 焦点人物的本地编号，全家族视图为空
+    private String focusPersonName;
+    private Integer depth;
+    private LineageType filterLineageType;
+
+    // 枚举字典：gender / lineageType / relationshipType
+    private Map<String, List<String>> dictionaries;
+
+    // 人物ID；前 nodeCount 个为节点，其后为仅被边引用的人物
+    private List<UUID> ids;
+    private Integer nodeCount;
+
+    // 节点列
+    private List<String> firstNames;
+    private List<String> lastNames;
+    private int[] genders;
+    private List<LocalDate> birthDates;
+    private List<LocalDate> deathDates;
+    private List<String> primaryPhotoUrls;
+    private int[] generations;
+    private List<Integer> absoluteGenerations;
+    private double[] xs; // 保留一位小数
+    private double[] ys;
+    private int[] lineageTypes;
+    private List<String> kinshipTerms; // 全部为空时整列省略
+
+    // 边列
+    private List<UUID> edgeIds;
+    private int[] edgeFrom;
+    private int[] edgeTo;
+    private int[] edgeTypes;
+
+    // 超出节点上限时的折叠节点，数量很少，按原样下发
+    private Integer maxNodes;
+    private List<CollapsedNodeDTO> collapsedNodes;
+}
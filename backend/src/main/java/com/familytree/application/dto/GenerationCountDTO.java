@@ -0,0 +1,15 @@
+package com.familytree.application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GenerationCountDTO {
+    private Integer generation; // 家族内的绝对代数
+    private Long personCount;
+}
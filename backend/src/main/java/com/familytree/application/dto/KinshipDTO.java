@@ -0,0 +1,29 @@
+package com.familytree.application.dto;
+
+import com.familytree.domain.KinshipType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 两人之间的血亲关系
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class KinshipDTO {
+    private UUID groupId;
+    private UUID personAId;
+    private UUID personBId;
+    private KinshipType type; // B 相对于 A
+    private List<PersonNodeDTO> commonAncestors; // 最近共同祖先（如祖父母夫妇），generation 为相对于 A 的代数
+    private Integer distanceA; // 主共同祖先到 A 的代数
+    private Integer distanceB; // 主共同祖先到 B 的代数
+    private Integer cousinDegree; // 堂表亲等级：兄弟姐妹、叔侄为 0，堂表兄弟姐妹为 1；直系亲属为空
+    private Integer removal; // 两人相差的代数
+}
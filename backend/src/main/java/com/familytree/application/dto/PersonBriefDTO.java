@@ -0,0 +1,30 @@
+package com.familytree.application.dto;
+
+import com.familytree.domain.Person;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * 人物列表的轻量字段
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PersonBriefDTO {
+    private UUID id;
+    private String firstName;
+    private String lastName;
+    private String fullName;
+    private Person.Gender gender;
+    private LocalDate birthDate;
+    private LocalDate deathDate;
+    private String primaryPhotoUrl;
+    private Integer generation; // 家族内的绝对代数
+    private Double score; // 检索相关度，仅检索结果返回
+}
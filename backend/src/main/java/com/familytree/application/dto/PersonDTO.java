@@ -33,6 +33,7 @@ public class PersonDTO {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private Integer version;
+    private Integer generation; // 家族内的绝对代数（辈分）
     
     // 家族关系字段（用于树形展示）
     private List<UUID> parentIds;
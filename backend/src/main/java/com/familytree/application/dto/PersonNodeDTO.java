@@ -24,7 +24,9 @@ public class PersonNodeDTO {
     private LocalDate deathDate;
     private String primaryPhotoUrl;
     private Integer generation; // 相对于焦点人物的代数
+    private Integer absoluteGeneration; // 家族内的绝对代数（辈分）
     private Double x; // 用于布局的坐标
     private Double y;
     private LineageType lineageType; // 相对于焦点人物的血统线类型
+    private String kinshipTerm; // 相对于焦点人物的称谓（如 伯父、表姐），仅树视图填充
 }
@@ -0,0 +1,23 @@
+package com.familytree.application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 人物姓名检索结果（按相关度排序）
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PersonSearchResultDTO {
+    private String keyword;
+    private Integer total; // 命中总人数
+    private Integer offset;
+    private Integer limit;
+    private List<PersonBriefDTO> items;
+}
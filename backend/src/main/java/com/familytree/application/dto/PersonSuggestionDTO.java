@@ -0,0 +1,22 @@
+package com.familytree.application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * 人物选择框的补全候选
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PersonSuggestionDTO {
+    private UUID id;
+    private String fullName;
+    private Integer birthYear; // 出生年份，未知时为空
+    private String primaryPhotoUrl;
+}
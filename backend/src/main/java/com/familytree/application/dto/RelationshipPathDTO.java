@@ -0,0 +1,42 @@
+package com.familytree.application.dto;
+
+import com.familytree.domain.Relationship;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 两人之间的最短关系路径
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RelationshipPathDTO {
+    private UUID groupId;
+    private UUID fromPersonId;
+    private UUID toPersonId;
+    private Boolean found; // 两人不连通时为 false，persons/steps 为空
+    private Integer length; // 步数
+    private List<PersonNodeDTO> persons; // 途经人物（含首尾），generation 相对于起点人物
+    private List<PathStepDTO> steps;
+
+    /**
+     * 路径中的一步
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PathStepDTO {
+        private UUID fromPersonId;
+        private UUID toPersonId;
+        private UUID relationshipId;
+        // toPersonId 是 fromPersonId 的 PARENT/CHILD/SPOUSE/SIBLING
+        private Relationship.RelationshipType type;
+    }
+}
@@ -0,0 +1,25 @@
+package com.familytree.application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TreeDeltaDTO {
+    private UUID groupId;
+    private Integer sinceVersion; // 客户端已知的家族版本
+    private Integer version; // 当前家族版本
+    private Boolean full; // true 表示历史不可用，tree 为完整视图，客户端应整体替换
+    private TreeViewDTO tree;
+    private List<PersonNodeDTO> upsertedNodes; // 新增或变化的节点（不含布局坐标）
+    private List<RelationshipEdgeDTO> upsertedEdges;
+    private List<UUID> removedNodeIds; // 移除节点时其关联的边一并移除
+    private List<UUID> removedEdgeIds;
+}
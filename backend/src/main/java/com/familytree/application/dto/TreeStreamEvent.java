@@ -0,0 +1,44 @@
+package com.familytree.application.dto;
+
+import com.familytree.domain.LineageType;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+/**
+ * 流式树视图中的一行（NDJSON）
+ * 顺序为一条 HEADER、若干 NODE / EDGE 交错，最后一条 END；
+ * EDGE 总是在其两端的 NODE 都已输出之后出现
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TreeStreamEvent {
+
+    public enum Type {
+        HEADER, NODE, EDGE, END
+    }
+
+    private Type type;
+
+    // HEADER
+    private UUID groupId;
+    private UUID focusPersonId;
+    private String focusPersonName;
+    private Integer depth;
+    private LineageType filterLineageType;
+
+    // NODE / EDGE
+    private PersonNodeDTO node; // 流式输出不含布局坐标
+    private RelationshipEdgeDTO edge;
+
+    // END
+    private Integer nodeCount;
+    private Integer edgeCount;
+}
@@ -1,6 +1,7 @@
 package com.familytree.application.dto;
 
 import com.familytree.domain.LineageType;
+import com.familytree.domain.TreeViewMode;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -15,10 +16,14 @@ import java.util.UUID;
 @AllArgsConstructor
 public class TreeViewDTO {
     private UUID groupId;
+    private Integer version; // 视图对应的家族版本，用于增量同步
+    private TreeViewMode viewMode; // 视图范围，全家族视图为 GROUP
     private UUID focusPersonId;
     private String focusPersonName;
     private Integer depth;
     private LineageType filterLineageType; // 当前筛选的血统线类型
     private List<PersonNodeDTO> nodes;
     private List<RelationshipEdgeDTO> edges;
+    private Integer maxNodes; // 节点数上限，未指定时为空
+    private List<CollapsedNodeDTO> collapsedNodes; // 超出上限被省略的分支，未超出时为空列表
 }
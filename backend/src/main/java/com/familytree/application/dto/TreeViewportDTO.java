@@ -0,0 +1,25 @@
+package com.familytree.application.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TreeViewportDTO {
+    private UUID groupId;
+    private Integer version; // 布局对应的家族版本，版本变化时客户端应丢弃已加载的区域
+    private Double minX; // 家族整体布局边界
+    private Double minY;
+    private Double maxX;
+    private Double maxY;
+    private Double zoom;
+    private List<PersonNodeDTO> nodes; // 坐标落在视口内的人物
+    private List<RelationshipEdgeDTO> edges; // 至少一端在视口内的关系
+}
@@ -0,0 +1,309 @@
+package com.familytree.application.graph;
+
+import com.familytree.domain.Person;
+import com.familytree.domain.Relationship;
+import com.familytree.infrastructure.repository.projection.PersonGraphView;
+
+import java.util.*;
+
+/**
+ * 家族关系图索引（只读）
+ * 每个人物分配一个稠密的 int 序号，关系按方向/类型拆分为压缩稀疏行（CSR）数组，
+ * 遍历时只需基本类型数组，避免按 UUID 装箱的 Map/Set
+ */
+public final class GroupGraph {
+
+    private static final Person.Gender[] GENDERS = Person.Gender.values();
+    private static final Relationship.RelationshipType[] TYPES = Relationship.RelationshipType.values();
+
+    private final UUID groupId;
+
+    // 人物：序号 <-> UUID
+    private final UUID[] personIds;
+    private final Map<UUID, Integer> ordinals;
+    private final byte[] genders;
+
+    // 关系边：按原始关系顺序编号
+    private final UUID[] edgeIds;
+    private final int[] edgeFrom;
+    private final int[] edgeTo;
+    private final byte[] edgeTypes;
+
+    // 邻接表（CSR）：PARENT/CHILD 拆分为“父母”“子女”两个方向，SPOUSE/SIBLING 为无向
+    private final Adjacency parents;
+    private final Adjacency children;
+    private final Adjacency spouses;
+    private final Adjacency siblings;
+
+    private GroupGraph(UUID groupId, UUID[] personIds, Map<UUID, Integer> ordinals, byte[] genders,
+                       UUID[] edgeIds, int[] edgeFrom, int[] edgeTo, byte[] edgeTypes) {
+        this.groupId = groupId;
+        this.personIds = personIds;
+        this.ordinals = ordinals;
+        this.genders = genders;
+        this.edgeIds = edgeIds;
+        this.edgeFrom = edgeFrom;
+        this.edgeTo = edgeTo;
+        this.edgeTypes = edgeTypes;
+
+        int n = personIds.length;
+        int m = edgeIds.length;
+        Adjacency.Builder parentsBuilder = new Adjacency.Builder(n, m);
+        Adjacency.Builder childrenBuilder = new Adjacency.Builder(n, m);
+        Adjacency.Builder spousesBuilder = new Adjacency.Builder(n, 2 * m);
+        Adjacency.Builder siblingsBuilder = new Adjacency.Builder(n, 2 * m);
+
+        for (int e = 0; e < m; e++) {
+            int from = edgeFrom[e];
+            int to = edgeTo[e];
+            switch (TYPES[edgeTypes[e]]) {
+                case PARENT -> {
+                    // PARENT: from=父母, to=子女
+                    childrenBuilder.add(from, to, e);
+                    parentsBuilder.add(to, from, e);
+                }
+                case CHILD -> {
+                    // CHILD: from=子女, to=父母（兼容历史数据）
+                    parentsBuilder.add(from, to, e);
+                    childrenBuilder.add(to, from, e);
+                }
+                case SPOUSE -> {
+                    spousesBuilder.add(from, to, e);
+                    spousesBuilder.add(to, from, e);
+                }
+                case SIBLING -> {
+                    siblingsBuilder.add(from, to, e);
+                    siblingsBuilder.add(to, from, e);
+                }
+            }
+        }
+
+        this.parents = parentsBuilder.build();
+        this.children = childrenBuilder.build();
+        this.spouses = spousesBuilder.build();
+        this.siblings = siblingsBuilder.build();
+    }
+
+    /**
+     * 由家族人物与关系构建索引
+     * 关系中引用但不在人物列表中的人物同样分配序号（性别未知），保证边的两端都可寻址
+     */
+    public static GroupGraph build(UUID groupId, List<? extends PersonGraphView> persons, List<Relationship> relationships) {
+        Map<UUID, Integer> ordinals = new HashMap<>(persons.size() * 2);
+        List<UUID> ids = new ArrayList<>(persons.size());
+        List<Person.Gender> genderList = new ArrayList<>(persons.size());
+
+        for (PersonGraphView person : persons) {
+            if (ordinals.putIfAbsent(person.getId(), ids.size()) == null) {
+                ids.add(person.getId());
+                genderList.add(person.getGender());
+            }
+        }
+
+        int m = relationships.size();
+        UUID[] edgeIds = new UUID[m];
+        int[] edgeFrom = new int[m];
+        int[] edgeTo = new int[m];
+        byte[] edgeTypes = new byte[m];
+
+        for (int e = 0; e < m; e++) {
+            Relationship rel = relationships.get(e);
+            edgeIds[e] = rel.getId();
+            edgeFrom[e] = ordinalOrAdd(rel.getFromPersonId(), ordinals, ids, genderList);
+            edgeTo[e] = ordinalOrAdd(rel.getToPersonId(), ordinals, ids, genderList);
+            edgeTypes[e] = (byte) rel.getType().ordinal();
+        }
+
+        byte[] genders = new byte[ids.size()];
+        for (int i = 0; i < genders.length; i++) {
+            Person.Gender gender = genderList.get(i);
+            genders[i] = (byte) (gender != null ? gender : Person.Gender.UNKNOWN).ordinal();
+        }
+
+        return new GroupGraph(groupId, ids.toArray(new UUID[0]), ordinals, genders,
+            edgeIds, edgeFrom, edgeTo, edgeTypes);
+    }
+
+    private static int ordinalOrAdd(UUID personId, Map<UUID, Integer> ordinals,
+                                    List<UUID> ids, List<Person.Gender> genderList) {
+        Integer ordinal = ordinals.get(personId);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        ordinals.put(personId, ids.size());
+        ids.add(personId);
+        genderList.add(Person.Gender.UNKNOWN);
+        return ids.size() - 1;
+    }
+
+    public UUID getGroupId() {
+        return groupId;
+    }
+
+    /**
+     * 人物数量（序号范围为 [0, size)）
+     */
+    public int size() {
+        return personIds.length;
+    }
+
+    public int edgeCount() {
+        return edgeIds.length;
+    }
+
+    /**
+     * 人物序号，不在图中返回 -1
+     */
+    public int ordinalOf(UUID personId) {
+        Integer ordinal = ordinals.get(personId);
+        return ordinal != null ? ordinal : -1;
+    }
+
+    public UUID personId(int ordinal) {
+        return personIds[ordinal];
+    }
+
+    public Person.Gender gender(int ordinal) {
+        return GENDERS[genders[ordinal]];
+    }
+
+    public UUID edgeId(int edge) {
+        return edgeIds[edge];
+    }
+
+    public int edgeFrom(int edge) {
+        return edgeFrom[edge];
+    }
+
+    public int edgeTo(int edge) {
+        return edgeTo[edge];
+    }
+
+    public Relationship.RelationshipType edgeType(int edge) {
+        return TYPES[edgeTypes[edge]];
+    }
+
+    public Adjacency parents() {
+        return parents;
+    }
+
+    public Adjacency children() {
+        return children;
+    }
+
+    public Adjacency spouses() {
+        return spouses;
+    }
+
+    public Adjacency siblings() {
+        return siblings;
+    }
+
+    public List<UUID> getParentIds(UUID personId) {
+        return toIds(parents, ordinalOf(personId));
+    }
+
+    public List<UUID> getChildIds(UUID personId) {
+        return toIds(children, ordinalOf(personId));
+    }
+
+    public List<UUID> getSpouseIds(UUID personId) {
+        return toIds(spouses, ordinalOf(personId));
+    }
+
+    public List<UUID> getSiblingIds(UUID personId) {
+        return toIds(siblings, ordinalOf(personId));
+    }
+
+    private List<UUID> toIds(Adjacency adjacency, int ordinal) {
+        if (ordinal < 0) {
+            return List.of();
+        }
+        List<UUID> ids = new ArrayList<>(adjacency.degree(ordinal));
+        for (int i = adjacency.start(ordinal); i < adjacency.end(ordinal); i++) {
+            ids.add(personIds[adjacency.target(i)]);
+        }
+        return ids;
+    }
+
+    /**
+     * 压缩稀疏行邻接表
+     * 人物 v 的邻居位于 [start(v), end(v))，target(i) 为邻居序号，edge(i) 为对应关系边编号
+     */
+    public static final class Adjacency {
+        private final int[] offsets;
+        private final int[] targets;
+        private final int[] edges;
+
+        private Adjacency(int[] offsets, int[] targets, int[] edges) {
+            this.offsets = offsets;
+            this.targets = targets;
+            this.edges = edges;
+        }
+
+        public int start(int ordinal) {
+            return offsets[ordinal];
+        }
+
+        public int end(int ordinal) {
+            return offsets[ordinal + 1];
+        }
+
+        public int degree(int ordinal) {
+            return offsets[ordinal + 1] - offsets[ordinal];
+        }
+
+        public int target(int index) {
+            return targets[index];
+        }
+
+        public int edge(int index) {
+            return edges[index];
+        }
+
+        /**
+         * 先收集 (源, 目标, 边) 三元组，再用计数排序稳定地分桶，保留同一源内的原始关系顺序
+         */
+        private static final class Builder {
+            private final int nodeCount;
+            private final int[] sources;
+            private final int[] targets;
+            private final int[] edges;
+            private int size;
+
+            private Builder(int nodeCount, int capacity) {
+                this.nodeCount = nodeCount;
+                this.sources = new int[capacity];
+                this.targets = new int[capacity];
+                this.edges = new int[capacity];
+            }
+
+            private void add(int source, int target, int edge) {
+                sources[size] = source;
+                targets[size] = target;
+                edges[size] = edge;
+                size++;
+            }
+
+            private Adjacency build() {
+                int[] offsets = new int[nodeCount + 1];
+                for (int i = 0; i < size; i++) {
+                    offsets[sources[i] + 1]++;
+                }
+                for (int v = 0; v < nodeCount; v++) {
+                    offsets[v + 1] += offsets[v];
+                }
+
+                int[] cursor = Arrays.copyOf(offsets, nodeCount);
+                int[] sortedTargets = new int[size];
+                int[] sortedEdges = new int[size];
+                for (int i = 0; i < size; i++) {
+                    int slot = cursor[sources[i]]++;
+                    sortedTargets[slot] = targets[i];
+                    sortedEdges[slot] = edges[i];
+                }
+                return new Adjacency(offsets, sortedTargets, sortedEdges);
+            }
+        }
+    }
+}
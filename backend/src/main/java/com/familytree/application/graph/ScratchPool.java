@@ -0,0 +1,44 @@
+package com.familytree.application.graph;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 图搜索工作区的对象池
+ * 单例组件在多个请求线程间共享，每次查询借出一份工作区、用完归还；
+ * 搜索是纯计算，空闲工作区最多保留 CPU 核数份，多出的直接丢弃，避免按线程数常驻与家族人数等长的数组
+ */
+public final class ScratchPool<T> {
+
+    private final Supplier<T> factory;
+    private final int maxIdle;
+    private final ConcurrentLinkedQueue<T> idle = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger idleCount = new AtomicInteger();
+
+    public ScratchPool(Supplier<T> factory) {
+        this(factory, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ScratchPool(Supplier<T> factory, int maxIdle) {
+        this.factory = factory;
+        this.maxIdle = maxIdle;
+    }
+
+    public T acquire() {
+        T scratch = idle.poll();
+        if (scratch == null) {
+            return factory.get();
+        }
+        idleCount.decrementAndGet();
+        return scratch;
+    }
+
+    public void release(T scratch) {
+        if (idleCount.incrementAndGet() <= maxIdle) {
+            idle.offer(scratch);
+        } else {
+            idleCount.decrementAndGet();
+        }
+    }
+}
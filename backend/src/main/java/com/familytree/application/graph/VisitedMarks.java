@@ -0,0 +1,52 @@
+package com.familytree.application.graph;
+
+import java.util.Arrays;
+
+/**
+ * 可复用的访问标记（按人物序号）
+ * 每个槽记录写入时的轮次，开始新一轮搜索只需递增轮次即可使旧标记全部失效，
+ * 不必每次查询都分配并清空与家族人数等长的数组；与对应的数据数组配合时，只有已标记的槽位才有效
+ */
+public final class VisitedMarks {
+
+    private int[] stamps = new int[0];
+    private int epoch;
+
+    /**
+     * 开始新一轮搜索，容量不足 size 时扩容
+     */
+    public void reset(int size) {
+        if (stamps.length < size) {
+            stamps = new int[size];
+            epoch = 0;
+        } else if (epoch == Integer.MAX_VALUE) {
+            Arrays.fill(stamps, 0);
+            epoch = 0;
+        }
+        epoch++;
+    }
+
+    public boolean contains(int ordinal) {
+        return stamps[ordinal] == epoch;
+    }
+
+    /**
+     * 标记人物
+     *
+     * @return 本轮之前未标记时返回 true
+     */
+    public boolean add(int ordinal) {
+        if (stamps[ordinal] == epoch) {
+            return false;
+        }
+        stamps[ordinal] = epoch;
+        return true;
+    }
+
+    /**
+     * 当前容量（可直接索引的最大人数）
+     */
+    public int capacity() {
+        return stamps.length;
+    }
+}
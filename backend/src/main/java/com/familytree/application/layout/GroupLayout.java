@@ -0,0 +1,178 @@
+package com.familytree.application.layout;
+
+import com.familytree.application.graph.GroupGraph;
+
+import java.util.Arrays;
+
+/**
+ * 家族整体布局（只读）
+ * 保存某一家族结构版本下每个人物的坐标与代际，并用均匀网格建立空间索引，
+ * 视口查询只访问与查询框相交的网格单元，耗时与可见人物数量成正比
+ */
+public final class GroupLayout {
+
+    private final GroupGraph graph;
+    private final int version;
+
+    // 按人物序号索引；placed=false 的人物（如关系中引用但已不存在的人物）不参与查询
+    private final boolean[] placed;
+    private final double[] x;
+    private final double[] y;
+    private final int[] generation;
+
+    // 布局整体边界
+    private final double minX;
+    private final double minY;
+    private final double maxX;
+    private final double maxY;
+
+    // 网格索引（CSR）：单元 (col,row) 内的人物位于 cellItems[cellStart[c], cellStart[c+1])
+    private final double cellWidth;
+    private final double cellHeight;
+    private final int columns;
+    private final int rows;
+    private final int[] cellStart;
+    private final int[] cellItems;
+
+    public GroupLayout(GroupGraph graph, int version, boolean[] placed, double[] x, double[] y, int[] generation) {
+        this.graph = graph;
+        this.version = version;
+        this.placed = placed;
+        this.x = x;
+        this.y = y;
+        this.generation = generation;
+
+        double lowX = Double.POSITIVE_INFINITY;
+        double lowY = Double.POSITIVE_INFINITY;
+        double highX = Double.NEGATIVE_INFINITY;
+        double highY = Double.NEGATIVE_INFINITY;
+        int count = 0;
+        for (int v = 0; v < placed.length; v++) {
+            if (placed[v]) {
+                lowX = Math.min(lowX, x[v]);
+                lowY = Math.min(lowY, y[v]);
+                highX = Math.max(highX, x[v]);
+                highY = Math.max(highY, y[v]);
+                count++;
+            }
+        }
+        if (count == 0) {
+            lowX = lowY = highX = highY = 0;
+        }
+        this.minX = lowX;
+        this.minY = lowY;
+        this.maxX = highX;
+        this.maxY = highY;
+
+        // 每行对应一代；列宽至少为若干个节点宽度，且网格单元总数不超过人物数量的数倍
+        this.cellHeight = TreeLayoutEngine.VERTICAL_SPACING;
+        this.rows = (int) Math.floor((highY - lowY) / cellHeight) + 1;
+        int maxColumns = Math.max(1, 4 * count / rows);
+        double minCellWidth = 4 * TreeLayoutEngine.HORIZONTAL_SPACING;
+        int wantedColumns = (int) Math.floor((highX - lowX) / minCellWidth) + 1;
+        this.columns = Math.min(wantedColumns, maxColumns);
+        this.cellWidth = Math.max(minCellWidth, (highX - lowX) / columns + 1);
+
+        this.cellStart = new int[columns * rows + 1];
+        this.cellItems = new int[count];
+        for (int v = 0; v < placed.length; v++) {
+            if (placed[v]) {
+                cellStart[cellOf(v) + 1]++;
+            }
+        }
+        for (int c = 0; c < columns * rows; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        int[] cursor = Arrays.copyOf(cellStart, columns * rows);
+        for (int v = 0; v < placed.length; v++) {
+            if (placed[v]) {
+                cellItems[cursor[cellOf(v)]++] = v;
+            }
+        }
+    }
+
+    private int cellOf(int v) {
+        return row(y[v]) * columns + column(x[v]);
+    }
+
+    private int column(double value) {
+        return Math.max(0, Math.min(columns - 1, (int) Math.floor((value - minX) / cellWidth)));
+    }
+
+    private int row(double value) {
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor((value - minY) / cellHeight)));
+    }
+
+    /**
+     * 查询坐标落在矩形内的人物
+     *
+     * @return 人物序号数组
+     */
+    public int[] query(double queryMinX, double queryMinY, double queryMaxX, double queryMaxY) {
+        if (cellItems.length == 0 || queryMaxX < minX || queryMinX > maxX || queryMaxY < minY || queryMinY > maxY) {
+            return new int[0];
+        }
+        int fromColumn = column(queryMinX);
+        int toColumn = column(queryMaxX);
+        int fromRow = row(queryMinY);
+        int toRow = row(queryMaxY);
+
+        int[] result = new int[16];
+        int size = 0;
+        for (int r = fromRow; r <= toRow; r++) {
+            for (int c = fromColumn; c <= toColumn; c++) {
+                int cell = r * columns + c;
+                for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+                    int v = cellItems[i];
+                    if (x[v] >= queryMinX && x[v] <= queryMaxX && y[v] >= queryMinY && y[v] <= queryMaxY) {
+                        if (size == result.length) {
+                            result = Arrays.copyOf(result, size * 2);
+                        }
+                        result[size++] = v;
+                    }
+                }
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    public GroupGraph getGraph() {
+        return graph;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public boolean isPlaced(int ordinal) {
+        return placed[ordinal];
+    }
+
+    public double x(int ordinal) {
+        return x[ordinal];
+    }
+
+    public double y(int ordinal) {
+        return y[ordinal];
+    }
+
+    public int generation(int ordinal) {
+        return generation[ordinal];
+    }
+
+    public double getMinX() {
+        return minX;
+    }
+
+    public double getMinY() {
+        return minY;
+    }
+
+    public double getMaxX() {
+        return maxX;
+    }
+
+    public double getMaxY() {
+        return maxY;
+    }
+}
@@ -0,0 +1,144 @@
+package com.familytree.application.layout;
+
+import com.familytree.application.graph.GroupGraph;
+import com.familytree.infrastructure.repository.projection.PersonNodeView;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 分层布局（原有实现）
+ * 自最深一代向上逐代放置：有子女的人物居中于子女上方，其余按出生顺序均匀分布，
+ * 每代结束后做一次防重叠调整；不保证不同家庭的子树互不交叠
+ */
+@Component
+@ConditionalOnProperty(name = "familytree.tree-layout.engine", havingValue = "layered")
+public class LayeredTreeLayoutEngine implements TreeLayoutEngine {
+
+    @Override
+    public double[] layout(GroupGraph graph, List<PersonNodeView> persons, int[] personGeneration) {
+        // 按代分组
+        Map<Integer, List<PersonNodeView>> personsByGeneration = persons.stream()
+            .collect(Collectors.groupingBy(p -> personGeneration[graph.ordinalOf(p.getId())]));
+
+        double[] xCoordinates = new double[graph.size()];
+        boolean[] placed = new boolean[graph.size()];
+
+        // 找到最大深度
+        int maxDepth = personsByGeneration.keySet().stream().max(Integer::compare).orElse(0);
+        int minDepth = personsByGeneration.keySet().stream().min(Integer::compare).orElse(0);
+
+        GroupGraph.Adjacency children = graph.children();
+        GroupGraph.Adjacency parents = graph.parents();
+
+        // 从最深的一代开始向上计算位置
+        for (int gen = maxDepth; gen >= minDepth; gen--) {
+            List<PersonNodeView> generationPersons = personsByGeneration.getOrDefault(gen, new ArrayList<>());
+
+            if (generationPersons.isEmpty()) {
+                continue;
+            }
+
+            // 按出生日期排序（年龄大的在左）
+            generationPersons.sort(Comparator
+                .comparing(PersonNodeView::getBirthDate, Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparing(PersonNodeView::getId));
+
+            int count = generationPersons.size();
+            int[] generationOrdinals = new int[count];
+
+            for (int i = 0; i < count; i++) {
+                int v = graph.ordinalOf(generationPersons.get(i).getId());
+                generationOrdinals[i] = v;
+                double x = (i - (count - 1) / 2.0) * HORIZONTAL_SPACING;
+
+                if (children.degree(v) > 0) {
+                    // 有子女：X坐标为已布局子女们的中点
+                    double childrenXSum = 0;
+                    int validChildren = 0;
+                    for (int c = children.start(v); c < children.end(v); c++) {
+                        int child = children.target(c);
+                        if (placed[child]) {
+                            childrenXSum += xCoordinates[child];
+                            validChildren++;
+                        }
+                    }
+                    if (validChildren > 0) {
+                        x = childrenXSum / validChildren;
+                    }
+                } else if (parents.degree(v) > 0) {
+                    // 有父母但没有子女：以父母X坐标中心为锚点做轻微分散
+                    double parentXSum = 0;
+                    int validParents = 0;
+                    for (int p = parents.start(v); p < parents.end(v); p++) {
+                        int parent = parents.target(p);
+                        if (placed[parent]) {
+                            parentXSum += xCoordinates[parent];
+                            validParents++;
+                        }
+                    }
+                    if (validParents > 0) {
+                        double offset = (i - (count - 1) / 2.0) * HORIZONTAL_SPACING * 0.6;
+                        x = parentXSum / validParents + offset;
+                    }
+                }
+                // 没有关联关系：均匀分布
+
+                xCoordinates[v] = x;
+                placed[v] = true;
+            }
+
+            // 处理同代人物之间的重叠（简单的防重叠调整）
+            adjustOverlappingNodes(generationOrdinals, xCoordinates, HORIZONTAL_SPACING);
+        }
+
+        return xCoordinates;
+    }
+
+    /**
+     * 调整同代人物之间的重叠
+     */
+    private void adjustOverlappingNodes(int[] ordinals, double[] xCoordinates, double minSpacing) {
+        int count = ordinals.length;
+        if (count <= 1) return;
+
+        // 按X坐标排序
+        double[] sortedX = new double[count];
+        for (int i = 0; i < count; i++) {
+            sortedX[i] = xCoordinates[ordinals[i]];
+        }
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(i -> sortedX[i]));
+
+        double originalSum = 0;
+        for (double x : sortedX) {
+            originalSum += x;
+        }
+
+        // 顺序约束：保证任意相邻节点最小间距 >= minSpacing
+        for (int i = 1; i < count; i++) {
+            int prev = ordinals[order[i - 1]];
+            int curr = ordinals[order[i]];
+            if (xCoordinates[curr] - xCoordinates[prev] < minSpacing) {
+                xCoordinates[curr] = xCoordinates[prev] + minSpacing;
+            }
+        }
+
+        // 回调到原中心点，避免整层向单侧漂移
+        double adjustedSum = 0;
+        for (int ordinal : ordinals) {
+            adjustedSum += xCoordinates[ordinal];
+        }
+        double recenterShift = (originalSum - adjustedSum) / count;
+        if (Math.abs(recenterShift) > 1e-6) {
+            for (int ordinal : ordinals) {
+                xCoordinates[ordinal] += recenterShift;
+            }
+        }
+    }
+}
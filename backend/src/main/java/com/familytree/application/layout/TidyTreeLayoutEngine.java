@@ -0,0 +1,482 @@
+package com.familytree.application.layout;
+
+import com.familytree.application.graph.GroupGraph;
+import com.familytree.infrastructure.repository.projection.PersonNodeView;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * 整洁树布局（Reingold–Tilford 思路，采用 Walker 算法的 Buchheim 线性时间版本）
+ *
+ * 1. 同代的夫妻合并为一个布局单元，单元宽度为成员数 × 水平间距，子女居中于夫妻下方；
+ * 2. 每个单元挂到其成员第一位上一代父母所在的单元下，得到一片生成森林（其余关系不参与定位）；
+ * 3. 每棵树用左右轮廓线程比较子树间距，子树之间互不交叠，同父母的子女按出生顺序从左到右；
+ * 4. 各棵树按代际轮廓依次紧凑地并排放置，最后整体居中。
+ *
+ * 除开始时按代际和出生日期的一次排序外，其余步骤均为 O(n)
+ */
+@Component
+@ConditionalOnProperty(name = "familytree.tree-layout.engine", havingValue = "tidy", matchIfMissing = true)
+public class TidyTreeLayoutEngine implements TreeLayoutEngine {
+
+    // 不同家庭（非同一父母单元）的相邻子树之间额外留出的间隙
+    private static final double FAMILY_GAP = HORIZONTAL_SPACING * 0.5;
+
+    // 排序键位宽：代际 15 位（偏移后非负，符号位保持为 0）| 出生日 24 位（纪元日偏移到公元元年起，全 1 表示未知，排在最后）| 下标 24 位
+    private static final int KEY_INDEX_BITS = 24;
+    private static final int KEY_BIRTH_BITS = 24;
+    private static final long KEY_INDEX_MASK = (1L << KEY_INDEX_BITS) - 1;
+    private static final long KEY_BIRTH_MASK = (1L << KEY_BIRTH_BITS) - 1;
+    private static final long KEY_GENERATION_MASK = (1L << (Long.SIZE - 1 - KEY_BIRTH_BITS - KEY_INDEX_BITS)) - 1;
+    private static final long KEY_GENERATION_BIAS = (KEY_GENERATION_MASK + 1) / 2;
+    private static final long KEY_BIRTH_BIAS = -LocalDate.of(1, 1, 1).toEpochDay();
+
+    private static final Comparator<PersonNodeView> BIRTH_ORDER = Comparator
+        .comparing(PersonNodeView::getBirthDate, Comparator.nullsLast(Comparator.naturalOrder()))
+        .thenComparing(PersonNodeView::getId);
+
+    @Override
+    public double[] layout(GroupGraph graph, List<PersonNodeView> persons, int[] personGeneration) {
+        double[] xCoordinates = new double[graph.size()];
+        if (persons.isEmpty()) {
+            return xCoordinates;
+        }
+
+        // 按代际、出生顺序排序：上一代的单元总是先于下一代创建
+        int[] ordered = sortByGenerationAndBirth(graph, persons, personGeneration);
+
+        Forest forest = new Forest(graph, ordered, personGeneration);
+        forest.firstWalk();
+        forest.secondWalk();
+        forest.pack();
+        forest.assign(xCoordinates);
+        return xCoordinates;
+    }
+
+    /**
+     * 按代际、出生日期、ID 排序后的人物序号
+     * 排序键打包成 long（代际 | 出生日 | 列表下标）后做基本类型排序，比较时不再反复查询序号映射、比较日期对象；
+     * 代际和出生日都相同的少量人物再按 ID 排序。键超出位宽时退回比较器排序
+     */
+    private static int[] sortByGenerationAndBirth(GroupGraph graph, List<PersonNodeView> persons, int[] personGeneration) {
+        int count = persons.size();
+        int[] ordinals = new int[count];
+        long[] keys = new long[count];
+        boolean packable = count <= KEY_INDEX_MASK;
+        for (int i = 0; i < count && packable; i++) {
+            PersonNodeView person = persons.get(i);
+            ordinals[i] = graph.ordinalOf(person.getId());
+            long generation = personGeneration[ordinals[i]] + KEY_GENERATION_BIAS;
+            LocalDate birthDate = person.getBirthDate();
+            long birth = birthDate == null ? KEY_BIRTH_MASK : birthDate.toEpochDay() + KEY_BIRTH_BIAS;
+            packable = generation >= 0 && generation <= KEY_GENERATION_MASK
+                && birth >= 0 && (birth < KEY_BIRTH_MASK || birthDate == null);
+            keys[i] = generation << (KEY_BIRTH_BITS + KEY_INDEX_BITS) | birth << KEY_INDEX_BITS | i;
+        }
+
+        int[] ordered = new int[count];
+        if (!packable) {
+            List<PersonNodeView> sorted = new ArrayList<>(persons);
+            sorted.sort(Comparator.<PersonNodeView>comparingInt(p -> personGeneration[graph.ordinalOf(p.getId())])
+                .thenComparing(BIRTH_ORDER));
+            for (int i = 0; i < count; i++) {
+                ordered[i] = graph.ordinalOf(sorted.get(i).getId());
+            }
+            return ordered;
+        }
+
+        Arrays.sort(keys);
+        for (int runStart = 0; runStart < count; ) {
+            int runEnd = runStart + 1;
+            while (runEnd < count && keys[runEnd] >>> KEY_INDEX_BITS == keys[runStart] >>> KEY_INDEX_BITS) {
+                runEnd++;
+            }
+            if (runEnd - runStart > 1) {
+                Integer[] run = new Integer[runEnd - runStart];
+                for (int i = runStart; i < runEnd; i++) {
+                    run[i - runStart] = (int) (keys[i] & KEY_INDEX_MASK);
+                }
+                Arrays.sort(run, Comparator.comparing(i -> persons.get(i).getId()));
+                for (int i = runStart; i < runEnd; i++) {
+                    ordered[i] = ordinals[run[i - runStart]];
+                }
+            } else {
+                ordered[runStart] = ordinals[(int) (keys[runStart] & KEY_INDEX_MASK)];
+            }
+            runStart = runEnd;
+        }
+        return ordered;
+    }
+
+    /**
+     * 布局单元构成的生成森林；单元按创建顺序编号，该顺序即父先于子的拓扑序
+     */
+    private static final class Forest {
+        private final int unitCount;
+        private final int[] members;
+        private final int[] memberStart;
+        private final int[] unitGeneration;
+        private final int[] parentUnit;
+        private final int[] childStart;
+        private final int[] children;
+        private final int[] number;
+        private final double[] width;
+
+        // Buchheim 算法状态
+        private final double[] prelim;
+        private final double[] mod;
+        private final double[] shift;
+        private final double[] change;
+        private final double[] midpoint;
+        private final int[] thread;
+        private final int[] ancestor;
+
+        // 最终单元中心X坐标
+        private final double[] unitX;
+
+        private Forest(GroupGraph graph, int[] ordered, int[] personGeneration) {
+            int count = ordered.length;
+            int[] unitOf = new int[graph.size()];
+            boolean[] included = new boolean[graph.size()];
+            Arrays.fill(unitOf, -1);
+            for (int v : ordered) {
+                included[v] = true;
+            }
+
+            int[] unitMembers = new int[count];
+            int[] unitMemberStart = new int[count + 1];
+            int[] generations = new int[count];
+            int[] parents = new int[count];
+            int units = 0;
+            int memberCount = 0;
+            GroupGraph.Adjacency spouses = graph.spouses();
+
+            for (int v : ordered) {
+                if (unitOf[v] >= 0) {
+                    continue;
+                }
+                int u = units++;
+                unitMemberStart[u] = memberCount;
+                generations[u] = personGeneration[v];
+                unitMembers[memberCount++] = v;
+                unitOf[v] = u;
+
+                // 同代且尚未归属的配偶并入同一单元
+                for (int i = spouses.start(v); i < spouses.end(v); i++) {
+                    int spouse = spouses.target(i);
+                    if (included[spouse] && unitOf[spouse] < 0 && personGeneration[spouse] == personGeneration[v]) {
+                        unitMembers[memberCount++] = spouse;
+                        unitOf[spouse] = u;
+                    }
+                }
+
+                parents[u] = findParentUnit(graph, unitMembers, unitMemberStart[u], memberCount,
+                    generations[u], included, unitOf, personGeneration);
+            }
+            unitMemberStart[units] = memberCount;
+
+            this.unitCount = units;
+            this.members = unitMembers;
+            this.memberStart = unitMemberStart;
+            this.unitGeneration = generations;
+            this.parentUnit = parents;
+
+            // 子女按单元创建顺序（即出生顺序）存入 CSR 数组
+            this.childStart = new int[units + 1];
+            this.children = new int[units];
+            this.number = new int[units];
+            for (int u = 0; u < units; u++) {
+                if (parents[u] >= 0) {
+                    childStart[parents[u] + 1]++;
+                }
+            }
+            for (int u = 0; u < units; u++) {
+                childStart[u + 1] += childStart[u];
+            }
+            int[] cursor = Arrays.copyOf(childStart, units);
+            for (int u = 0; u < units; u++) {
+                int p = parents[u];
+                if (p >= 0) {
+                    int slot = cursor[p]++;
+                    children[slot] = u;
+                    number[u] = slot - childStart[p] + 1;
+                }
+            }
+
+            this.width = new double[units];
+            for (int u = 0; u < units; u++) {
+                width[u] = (unitMemberStart[u + 1] - unitMemberStart[u]) * HORIZONTAL_SPACING;
+            }
+
+            this.prelim = new double[units];
+            this.mod = new double[units];
+            this.shift = new double[units];
+            this.change = new double[units];
+            this.midpoint = new double[units];
+            this.thread = new int[units];
+            this.ancestor = new int[units];
+            this.unitX = new double[units];
+            Arrays.fill(thread, -1);
+            for (int u = 0; u < units; u++) {
+                ancestor[u] = u;
+            }
+        }
+
+        /**
+         * 单元成员中第一位在上一代有父母（且父母参与布局）的，其父母所在单元即为父单元
+         */
+        private static int findParentUnit(GroupGraph graph, int[] unitMembers, int from, int to, int generation,
+                                          boolean[] included, int[] unitOf, int[] personGeneration) {
+            GroupGraph.Adjacency parents = graph.parents();
+            for (int m = from; m < to; m++) {
+                int member = unitMembers[m];
+                for (int i = parents.start(member); i < parents.end(member); i++) {
+                    int parent = parents.target(i);
+                    if (included[parent] && personGeneration[parent] == generation - 1 && unitOf[parent] >= 0) {
+                        return unitOf[parent];
+                    }
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * 后序阶段：逆创建顺序处理，保证处理某单元时其子单元均已完成
+         */
+        private void firstWalk() {
+            for (int u = unitCount - 1; u >= 0; u--) {
+                int first = childStart[u];
+                int last = childStart[u + 1];
+                if (first < last) {
+                    int defaultAncestor = children[first];
+                    for (int i = first; i < last; i++) {
+                        int w = children[i];
+                        int leftSibling = i > first ? children[i - 1] : -1;
+                        placeAfterLeftSibling(w, leftSibling);
+                        defaultAncestor = apportion(w, leftSibling, children[first], defaultAncestor);
+                    }
+                    executeShifts(first, last);
+                    midpoint[u] = (prelim[children[first]] + prelim[children[last - 1]]) / 2;
+                }
+                if (parentUnit[u] < 0) {
+                    prelim[u] = midpoint[u];
+                }
+            }
+        }
+
+        private void placeAfterLeftSibling(int w, int leftSibling) {
+            if (leftSibling < 0) {
+                prelim[w] = midpoint[w];
+                return;
+            }
+            prelim[w] = prelim[leftSibling] + distance(leftSibling, w);
+            if (childStart[w] < childStart[w + 1]) {
+                mod[w] = prelim[w] - midpoint[w];
+            }
+        }
+
+        /**
+         * 沿左侧兄弟子树的右轮廓与当前子树的左轮廓逐层下降，必要时右移当前子树，
+         * 并把位移均摊给夹在中间的兄弟子树
+         */
+        private int apportion(int v, int leftSibling, int leftmostSibling, int defaultAncestor) {
+            if (leftSibling < 0) {
+                return defaultAncestor;
+            }
+            int vir = v;
+            int vor = v;
+            int vil = leftSibling;
+            int vol = leftmostSibling;
+            double sir = mod[vir];
+            double sor = mod[vor];
+            double sil = mod[vil];
+            double sol = mod[vol];
+
+            while (nextRight(vil) >= 0 && nextLeft(vir) >= 0) {
+                vil = nextRight(vil);
+                vir = nextLeft(vir);
+                vol = nextLeft(vol);
+                vor = nextRight(vor);
+                ancestor[vor] = v;
+                double delta = (prelim[vil] + sil) - (prelim[vir] + sir) + distance(vil, vir);
+                if (delta > 0) {
+                    moveSubtree(ancestorOf(vil, v, defaultAncestor), v, delta);
+                    sir += delta;
+                    sor += delta;
+                }
+                sil += mod[vil];
+                sir += mod[vir];
+                sol += mod[vol];
+                sor += mod[vor];
+            }
+
+            if (nextRight(vil) >= 0 && nextRight(vor) < 0) {
+                thread[vor] = nextRight(vil);
+                mod[vor] += sil - sor;
+            }
+            if (nextLeft(vir) >= 0 && nextLeft(vol) < 0) {
+                thread[vol] = nextLeft(vir);
+                mod[vol] += sir - sol;
+                defaultAncestor = v;
+            }
+            return defaultAncestor;
+        }
+
+        private void moveSubtree(int wl, int wr, double delta) {
+            double subtrees = number[wr] - number[wl];
+            change[wr] -= delta / subtrees;
+            shift[wr] += delta;
+            change[wl] += delta / subtrees;
+            prelim[wr] += delta;
+            mod[wr] += delta;
+        }
+
+        private void executeShifts(int first, int last) {
+            double totalShift = 0;
+            double totalChange = 0;
+            for (int i = last - 1; i >= first; i--) {
+                int w = children[i];
+                prelim[w] += totalShift;
+                mod[w] += totalShift;
+                totalChange += change[w];
+                totalShift += shift[w] + totalChange;
+            }
+        }
+
+        private int ancestorOf(int vil, int v, int defaultAncestor) {
+            return parentUnit[ancestor[vil]] == parentUnit[v] ? ancestor[vil] : defaultAncestor;
+        }
+
+        private int nextLeft(int v) {
+            return childStart[v] < childStart[v + 1] ? children[childStart[v]] : thread[v];
+        }
+
+        private int nextRight(int v) {
+            return childStart[v] < childStart[v + 1] ? children[childStart[v + 1] - 1] : thread[v];
+        }
+
+        /**
+         * 同层相邻单元的中心距：半宽之和，不同家庭再加一个间隙
+         */
+        private double distance(int left, int right) {
+            double gap = parentUnit[left] == parentUnit[right] ? 0 : FAMILY_GAP;
+            return (width[left] + width[right]) / 2 + gap;
+        }
+
+        /**
+         * 先序阶段：按创建顺序累加祖先的 mod 得到相对各自根单元的坐标
+         */
+        private void secondWalk() {
+            double[] modSum = new double[unitCount];
+            for (int u = 0; u < unitCount; u++) {
+                int p = parentUnit[u];
+                if (p >= 0) {
+                    modSum[u] = modSum[p] + mod[p];
+                }
+                unitX[u] = prelim[u] + modSum[u];
+            }
+        }
+
+        /**
+         * 按根单元创建顺序把各棵树从左到右排开，每棵树只需右移到与已放置部分在各代都不重叠
+         */
+        private void pack() {
+            int minGeneration = Integer.MAX_VALUE;
+            int maxGeneration = Integer.MIN_VALUE;
+            for (int u = 0; u < unitCount; u++) {
+                minGeneration = Math.min(minGeneration, unitGeneration[u]);
+                maxGeneration = Math.max(maxGeneration, unitGeneration[u]);
+            }
+            int levels = maxGeneration - minGeneration + 1;
+
+            // 按所属根单元分组（CSR）
+            int[] root = new int[unitCount];
+            int[] treeStart = new int[unitCount + 1];
+            for (int u = 0; u < unitCount; u++) {
+                root[u] = parentUnit[u] < 0 ? u : root[parentUnit[u]];
+                treeStart[root[u] + 1]++;
+            }
+            for (int u = 0; u < unitCount; u++) {
+                treeStart[u + 1] += treeStart[u];
+            }
+            int[] treeUnits = new int[unitCount];
+            int[] cursor = Arrays.copyOf(treeStart, unitCount);
+            for (int u = 0; u < unitCount; u++) {
+                treeUnits[cursor[root[u]]++] = u;
+            }
+
+            double[] forestRight = new double[levels];
+            double[] treeLeft = new double[levels];
+            double[] treeRight = new double[levels];
+            Arrays.fill(forestRight, Double.NEGATIVE_INFINITY);
+            Arrays.fill(treeLeft, Double.POSITIVE_INFINITY);
+            Arrays.fill(treeRight, Double.NEGATIVE_INFINITY);
+            double forestMaxRight = Double.NEGATIVE_INFINITY;
+
+            for (int r = 0; r < unitCount; r++) {
+                if (parentUnit[r] >= 0) {
+                    continue;
+                }
+                // 树内代际连续：从根所在代向下
+                int low = unitGeneration[r] - minGeneration;
+                int high = low;
+                double treeMinLeft = Double.POSITIVE_INFINITY;
+                for (int i = treeStart[r]; i < treeStart[r + 1]; i++) {
+                    int u = treeUnits[i];
+                    int level = unitGeneration[u] - minGeneration;
+                    high = Math.max(high, level);
+                    treeLeft[level] = Math.min(treeLeft[level], unitX[u] - width[u] / 2);
+                    treeRight[level] = Math.max(treeRight[level], unitX[u] + width[u] / 2);
+                    treeMinLeft = Math.min(treeMinLeft, treeLeft[level]);
+                }
+
+                double offset = Double.NEGATIVE_INFINITY;
+                for (int level = low; level <= high; level++) {
+                    if (forestRight[level] > Double.NEGATIVE_INFINITY) {
+                        offset = Math.max(offset, forestRight[level] + FAMILY_GAP - treeLeft[level]);
+                    }
+                }
+                if (offset == Double.NEGATIVE_INFINITY) {
+                    // 与已放置部分没有共同代际：放在最右侧（第一棵树保持原位）
+                    offset = forestMaxRight == Double.NEGATIVE_INFINITY ? 0 : forestMaxRight + FAMILY_GAP - treeMinLeft;
+                }
+
+                for (int i = treeStart[r]; i < treeStart[r + 1]; i++) {
+                    unitX[treeUnits[i]] += offset;
+                }
+                for (int level = low; level <= high; level++) {
+                    forestRight[level] = Math.max(forestRight[level], treeRight[level] + offset);
+                    forestMaxRight = Math.max(forestMaxRight, forestRight[level]);
+                    treeLeft[level] = Double.POSITIVE_INFINITY;
+                    treeRight[level] = Double.NEGATIVE_INFINITY;
+                }
+            }
+        }
+
+        /**
+         * 展开单元成员坐标并整体居中到 0
+         */
+        private void assign(double[] xCoordinates) {
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            for (int u = 0; u < unitCount; u++) {
+                double left = unitX[u] - width[u] / 2;
+                for (int m = memberStart[u]; m < memberStart[u + 1]; m++) {
+                    double x = left + (m - memberStart[u] + 0.5) * HORIZONTAL_SPACING;
+                    xCoordinates[members[m]] = x;
+                    min = Math.min(min, x);
+                    max = Math.max(max, x);
+                }
+            }
+            double center = (min + max) / 2;
+            for (int u = 0; u < unitCount; u++) {
+                for (int m = memberStart[u]; m < memberStart[u + 1]; m++) {
+                    xCoordinates[members[m]] -= center;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.familytree.application.layout;
+
+import com.familytree.application.graph.GroupGraph;
+import com.familytree.infrastructure.repository.projection.PersonNodeView;
+
+import java.util.List;
+
+/**
+ * 家谱树布局引擎
+ * 只负责计算X坐标，Y坐标统一由代际决定；
+ * 具体实现通过配置项 familytree.tree-layout.engine 选择（tidy / layered）
+ */
+public interface TreeLayoutEngine {
+
+    /**
+     * 同代相邻人物的水平间距
+     */
+    double HORIZONTAL_SPACING = 120.0;
+
+    /**
+     * 相邻两代之间的垂直间距（Y = 代际 × 垂直间距）
+     */
+    double VERTICAL_SPACING = 150.0;
+
+    /**
+     * 计算人物的X坐标
+     *
+     * @param graph            家族关系图索引
+     * @param persons          参与布局的人物（已按血统线筛选）
+     * @param personGeneration 按人物序号索引的代际
+     * @return 按人物序号索引的X坐标（未参与布局的人物为 0）
+     */
+    double[] layout(GroupGraph graph, List<PersonNodeView> persons, int[] personGeneration);
+}
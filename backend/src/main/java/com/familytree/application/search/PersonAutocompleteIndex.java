@@ -0,0 +1,371 @@
+package com.familytree.application.search;
+
+import com.familytree.infrastructure.repository.projection.PersonNodeView;
+
+import java.util.*;
+
+/**
+ * 家族人物姓名前缀补全索引（只读，更新时生成新实例）
+ * 每人登记若干前缀键：姓+名、名（有姓时）、名+姓（非汉字姓名），含汉字的姓名另加全拼和首字母写法；
+ * 全部键按字典序排列在一块 char 数组中，二分定位前缀区间后取键最短（最接近完整输入）的前 k 人
+ *
+ * 内存有上界：每个键最多保留 {@link #MAX_KEY_LENGTH} 个字符，每人的键数固定有限，
+ * 总占用随人数线性增长，不会因个别超长姓名膨胀
+ */
+public final class PersonAutocompleteIndex {
+
+    /**
+     * 每个键保留的最大字符数，更长的关键词按此长度截断后匹配
+     */
+    public static final int MAX_KEY_LENGTH = 16;
+
+    private static final int NO_BIRTH_YEAR = Integer.MIN_VALUE;
+
+    // 人物槽位
+    private final UUID[] personIds;
+    private final String[] fullNames;
+    private final int[] birthYears;
+    private final String[] photoUrls;
+
+    // 前缀键：第 i 个键为 keyChars[keyStarts[i], keyStarts[i + 1])，按 (键, 槽位) 升序
+    private final char[] keyChars;
+    private final int[] keyStarts;
+    private final int[] keySlots;
+
+    private PersonAutocompleteIndex(UUID[] personIds, String[] fullNames, int[] birthYears, String[] photoUrls,
+                                    char[] keyChars, int[] keyStarts, int[] keySlots) {
+        this.personIds = personIds;
+        this.fullNames = fullNames;
+        this.birthYears = birthYears;
+        this.photoUrls = photoUrls;
+        this.keyChars = keyChars;
+        this.keyStarts = keyStarts;
+        this.keySlots = keySlots;
+    }
+
+    /**
+     * 由家族人物构建索引，同一人物出现多行（多张主照片）时只取第一行
+     */
+    public static PersonAutocompleteIndex build(Collection<? extends PersonNodeView> persons) {
+        return build(persons, PinyinDictionary.getDefault());
+    }
+
+    public static PersonAutocompleteIndex build(Collection<? extends PersonNodeView> persons, PinyinDictionary dictionary) {
+        Map<UUID, PersonNodeView> unique = new LinkedHashMap<>(persons.size() * 2);
+        for (PersonNodeView person : persons) {
+            unique.putIfAbsent(person.getId(), person);
+        }
+        Builder builder = new Builder(unique.size());
+        unique.values().forEach(person -> builder.addPerson(person, dictionary));
+        return builder.finish(null, new int[0], new int[0]);
+    }
+
+    public int size() {
+        return personIds.length;
+    }
+
+    /**
+     * 增量更新：去掉 changedPersonIds 中人物的旧条目，再加入 reloaded 中的当前数据；
+     * 已删除的人物不在 reloaded 中，即被移除。未变化的条目按原有顺序归并，无需重新排序和拼写
+     *
+     * @param changedPersonIds 新增、修改或删除的人物ID
+     * @param reloaded         这些人物中仍存在者的当前数据
+     */
+    public PersonAutocompleteIndex update(Set<UUID> changedPersonIds, Collection<? extends PersonNodeView> reloaded) {
+        return update(changedPersonIds, reloaded, PinyinDictionary.getDefault());
+    }
+
+    public PersonAutocompleteIndex update(Set<UUID> changedPersonIds, Collection<? extends PersonNodeView> reloaded,
+                                          PinyinDictionary dictionary) {
+        // 保留的槽位按原顺序重新编号
+        int[] slotMap = new int[personIds.length];
+        int kept = 0;
+        for (int slot = 0; slot < personIds.length; slot++) {
+            slotMap[slot] = changedPersonIds.contains(personIds[slot]) ? -1 : kept++;
+        }
+
+        Map<UUID, PersonNodeView> unique = new LinkedHashMap<>(reloaded.size() * 2);
+        for (PersonNodeView person : reloaded) {
+            unique.putIfAbsent(person.getId(), person);
+        }
+        Builder builder = new Builder(kept + unique.size());
+        for (int slot = 0; slot < personIds.length; slot++) {
+            if (slotMap[slot] >= 0) {
+                builder.copyPerson(personIds[slot], fullNames[slot], birthYears[slot], photoUrls[slot]);
+            }
+        }
+        unique.values().forEach(person -> builder.addPerson(person, dictionary));
+
+        // 未变化人物的旧条目：重新编号是单调的，仍按 (键, 槽位) 有序
+        int[] keptEntries = new int[keySlots.length];
+        int[] keptSlots = new int[keySlots.length];
+        int keptCount = 0;
+        for (int i = 0; i < keySlots.length; i++) {
+            int slot = slotMap[keySlots[i]];
+            if (slot >= 0) {
+                keptEntries[keptCount] = i;
+                keptSlots[keptCount++] = slot;
+            }
+        }
+        return builder.finish(this, Arrays.copyOf(keptEntries, keptCount), Arrays.copyOf(keptSlots, keptCount));
+    }
+
+    /**
+     * 前缀补全
+     *
+     * @param prefix 输入的前缀，按 {@link PersonSearchIndex#normalize} 规范化
+     * @param limit  最多返回人数
+     * @return 按匹配键长度升序（完全匹配在前），同长度按槽位顺序
+     */
+    public List<Suggestion> complete(String prefix, int limit) {
+        String query = PersonSearchIndex.normalize(prefix);
+        if (query.length() > MAX_KEY_LENGTH) {
+            query = query.substring(0, MAX_KEY_LENGTH);
+        }
+        if (query.isEmpty() || limit <= 0) {
+            return new ArrayList<>();
+        }
+        int from = lowerBound(query, false);
+        int to = lowerBound(query, true);
+
+        // 同一人可能有多个键命中，保留 limit × 每人最多键数 个最优条目即可保证去重后仍有 limit 人
+        TopEntries top = new TopEntries(limit * Builder.MAX_KEYS_PER_PERSON);
+        for (int i = from; i < to; i++) {
+            int length = keyStarts[i + 1] - keyStarts[i];
+            top.offer(((long) length << 32) | keySlots[i]);
+        }
+
+        long[] ranked = top.sorted();
+        Set<Integer> seen = new HashSet<>();
+        List<Suggestion> suggestions = new ArrayList<>(limit);
+        for (long rank : ranked) {
+            int slot = (int) rank;
+            if (seen.add(slot)) {
+                suggestions.add(new Suggestion(personIds[slot], fullNames[slot],
+                    birthYears[slot] == NO_BIRTH_YEAR ? null : birthYears[slot], photoUrls[slot]));
+                if (suggestions.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return suggestions;
+    }
+
+    /**
+     * 第一个满足条件的键：upper=false 时为第一个不小于 query 的键（前缀区间起点），
+     * upper=true 时为第一个大于 query 且不以其开头的键（前缀区间终点）
+     */
+    private int lowerBound(String query, boolean upper) {
+        int lo = 0;
+        int hi = keySlots.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = comparePrefix(mid, query);
+            if (cmp < 0 || (upper && cmp == 0)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * 比较第 i 个键与 query：键以 query 开头时为 0
+     */
+    private int comparePrefix(int i, String query) {
+        int start = keyStarts[i];
+        int length = keyStarts[i + 1] - start;
+        int n = Math.min(length, query.length());
+        for (int j = 0; j < n; j++) {
+            int diff = keyChars[start + j] - query.charAt(j);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return length < query.length() ? -1 : 0;
+    }
+
+    /**
+     * 补全结果
+     *
+     * @param birthYear 出生年份，未知时为 null
+     */
+    public record Suggestion(UUID personId, String fullName, Integer birthYear, String primaryPhotoUrl) {}
+
+    /**
+     * 保留最小的 capacity 个值（大顶堆）
+     */
+    private static final class TopEntries {
+        private final long[] heap;
+        private int size;
+
+        TopEntries(int capacity) {
+            this.heap = new long[capacity];
+        }
+
+        void offer(long value) {
+            if (size < heap.length) {
+                heap[size] = value;
+                int i = size++;
+                while (i > 0 && heap[(i - 1) / 2] < heap[i]) {
+                    swap(i, (i - 1) / 2);
+                    i = (i - 1) / 2;
+                }
+            } else if (value < heap[0]) {
+                heap[0] = value;
+                int i = 0;
+                while (true) {
+                    int largest = i;
+                    int left = 2 * i + 1;
+                    int right = left + 1;
+                    if (left < size && heap[left] > heap[largest]) {
+                        largest = left;
+                    }
+                    if (right < size && heap[right] > heap[largest]) {
+                        largest = right;
+                    }
+                    if (largest == i) {
+                        break;
+                    }
+                    swap(i, largest);
+                    i = largest;
+                }
+            }
+        }
+
+        long[] sorted() {
+            long[] result = Arrays.copyOf(heap, size);
+            Arrays.sort(result);
+            return result;
+        }
+
+        private void swap(int a, int b) {
+            long tmp = heap[a];
+            heap[a] = heap[b];
+            heap[b] = tmp;
+        }
+    }
+
+    /**
+     * 组装新索引：新增人物的条目排序后与保留的旧条目归并
+     */
+    private static final class Builder {
+
+        /**
+         * 每人最多的键数：姓+名、名（或名+姓），多音姓氏两种读法各一组全拼和首字母
+         */
+        static final int MAX_KEYS_PER_PERSON = 6;
+
+        private final UUID[] ids;
+        private final String[] names;
+        private final int[] years;
+        private final String[] photos;
+        private int count;
+        private final List<NewEntry> added = new ArrayList<>();
+
+        Builder(int capacity) {
+            ids = new UUID[capacity];
+            names = new String[capacity];
+            years = new int[capacity];
+            photos = new String[capacity];
+        }
+
+        void copyPerson(UUID id, String fullName, int birthYear, String photoUrl) {
+            ids[count] = id;
+            names[count] = fullName;
+            years[count] = birthYear;
+            photos[count] = photoUrl;
+            count++;
+        }
+
+        void addPerson(PersonNodeView person, PinyinDictionary dictionary) {
+            int slot = count;
+            copyPerson(person.getId(), person.getFullName(),
+                person.getBirthDate() != null ? person.getBirthDate().getYear() : NO_BIRTH_YEAR,
+                person.getPrimaryPhotoUrl());
+
+            String first = PersonSearchIndex.normalize(person.getFirstName());
+            String last = PersonSearchIndex.normalize(person.getLastName());
+            Set<String> keys = new LinkedHashSet<>();
+            keys.add(last + first);
+            keys.add(PersonSearchIndex.containsHan(last + first) || last.isEmpty() ? first : first + last);
+            if (PersonSearchIndex.containsHan(last + first)) {
+                List<String> forms = dictionary.spellingForms(last, first);
+                keys.addAll(forms.subList(0, Math.min(forms.size(), MAX_KEYS_PER_PERSON - 2)));
+            }
+            for (String key : keys) {
+                String truncated = key.length() > MAX_KEY_LENGTH ? key.substring(0, MAX_KEY_LENGTH) : key;
+                if (!truncated.isEmpty()) {
+                    added.add(new NewEntry(truncated, slot));
+                }
+            }
+        }
+
+        /**
+         * @param source      被更新的索引，全量构建时为 null
+         * @param keptEntries 保留的旧条目在 source 中的下标，按 (键, 槽位) 有序
+         * @param keptSlots   保留的旧条目的新槽位
+         */
+        PersonAutocompleteIndex finish(PersonAutocompleteIndex source, int[] keptEntries, int[] keptSlots) {
+            added.sort(Comparator.comparing(NewEntry::key).thenComparingInt(NewEntry::slot));
+
+            int total = keptEntries.length + added.size();
+            int charCount = added.stream().mapToInt(e -> e.key().length()).sum();
+            for (int entry : keptEntries) {
+                charCount += source.keyStarts[entry + 1] - source.keyStarts[entry];
+            }
+            char[] chars = new char[charCount];
+            int[] starts = new int[total + 1];
+            int[] slots = new int[total];
+
+            int a = 0;
+            int b = 0;
+            int pos = 0;
+            for (int i = 0; i < total; i++) {
+                boolean takeKept;
+                if (a == keptEntries.length) {
+                    takeKept = false;
+                } else if (b == added.size()) {
+                    takeKept = true;
+                } else {
+                    // 旧槽位都小于新增槽位，键相同时旧条目在前
+                    takeKept = compareKept(source, keptEntries[a], added.get(b).key()) <= 0;
+                }
+                starts[i] = pos;
+                if (takeKept) {
+                    int start = source.keyStarts[keptEntries[a]];
+                    int length = source.keyStarts[keptEntries[a] + 1] - start;
+                    System.arraycopy(source.keyChars, start, chars, pos, length);
+                    pos += length;
+                    slots[i] = keptSlots[a++];
+                } else {
+                    NewEntry entry = added.get(b++);
+                    entry.key().getChars(0, entry.key().length(), chars, pos);
+                    pos += entry.key().length();
+                    slots[i] = entry.slot();
+                }
+            }
+            starts[total] = pos;
+            return new PersonAutocompleteIndex(ids, names, years, photos, chars, starts, slots);
+        }
+
+        /**
+         * 比较 source 的第 i 个键与 key
+         */
+        private static int compareKept(PersonAutocompleteIndex source, int i, String key) {
+            int start = source.keyStarts[i];
+            int length = source.keyStarts[i + 1] - start;
+            int n = Math.min(length, key.length());
+            for (int j = 0; j < n; j++) {
+                int diff = source.keyChars[start + j] - key.charAt(j);
+                if (diff != 0) {
+                    return diff;
+                }
+            }
+            return length - key.length();
+        }
+    }
+
+    private record NewEntry(String key, int slot) {}
+}
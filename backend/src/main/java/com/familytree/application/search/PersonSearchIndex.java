@@ -0,0 +1,343 @@
+package com.familytree.application.search;
+
+import com.familytree.infrastructure.repository.projection.PersonNameView;
+
+import java.util.*;
+
+/**
+ * 家族人物姓名检索索引（只读）
+ * 姓名规范化后按“姓+名”（非汉字姓名另加“名+姓”）拆成单字和相邻二字（bigram），建立 gram → 人物序号的倒排表。
+ * 中文姓名多为两三个字，pg_trgm 的三字组合在这类短串上几乎提取不到 gram，因此使用一元/二元 gram
+ *
+ * 检索时由关键词的 gram 在倒排表中召回候选，再逐个按匹配层级和 Dice 相似度打分：
+ * 完全相同 > 前缀 > 包含 > 仅相似（相似度不低于 {@link #MIN_SIMILARITY}）
+ *
+ * 含汉字的姓名另按 {@link PinyinDictionary} 生成全拼（如 zhangsan）和首字母（如 zs）写法，多音姓氏的每种读法各一组。
+ * 拼音写法只做完全相同、前缀和包含匹配，不参与相似度打分（拼音的二字组合如 an、ng 过于常见）；
+ * 拼音写法的全部一二三字母子串都建立倒排，一二个字母的关键词直接查表召回（与包含匹配一致，如 sa 召回 zhangsan），
+ * 更长的关键词取各个三字母组合倒排表的交集召回
+ */
+public final class PersonSearchIndex {
+
+    /**
+     * 仅相似（不包含关键词）的姓名需要达到的最低相似度，与 pg_trgm 的默认阈值一致
+     */
+    public static final double MIN_SIMILARITY = 0.3;
+
+    private static final int[] EMPTY = new int[0];
+
+    private final UUID[] personIds;
+    private final String[][] names; // 每人的规范化姓名：姓+名，非汉字姓名另加名+姓
+    private final int[] lastNameLengths; // 每人规范化姓氏的长度，与“姓+名”一起还原姓和名
+    private final Map<String, int[]> postings; // gram → 升序人物序号
+    private final String[][] pinyins; // 每人姓名的全拼和首字母写法，不含汉字的姓名为空数组
+    private final Map<String, int[]> pinyinPostings; // 拼音的一二三字母子串 → 升序人物序号
+
+    private PersonSearchIndex(UUID[] personIds, String[][] names, int[] lastNameLengths, Map<String, int[]> postings,
+                              String[][] pinyins, Map<String, int[]> pinyinPostings) {
+        this.personIds = personIds;
+        this.names = names;
+        this.lastNameLengths = lastNameLengths;
+        this.postings = postings;
+        this.pinyins = pinyins;
+        this.pinyinPostings = pinyinPostings;
+    }
+
+    /**
+     * 由家族人物姓名构建索引，人物序号按列表顺序分配（同分结果按此顺序排列）
+     */
+    public static PersonSearchIndex build(List<? extends PersonNameView> persons) {
+        return build(persons, PinyinDictionary.getDefault());
+    }
+
+    public static PersonSearchIndex build(List<? extends PersonNameView> persons, PinyinDictionary dictionary) {
+        int n = persons.size();
+        UUID[] personIds = new UUID[n];
+        String[][] names = new String[n][];
+        int[] lastNameLengths = new int[n];
+        String[][] pinyins = new String[n][];
+        Map<String, List<Integer>> lists = new HashMap<>();
+        Map<String, List<Integer>> pinyinLists = new HashMap<>();
+
+        for (int v = 0; v < n; v++) {
+            PersonNameView person = persons.get(v);
+            personIds[v] = person.getId();
+            String first = normalize(person.getFirstName());
+            String last = normalize(person.getLastName());
+            String lastFirst = last + first;
+            String firstLast = first + last;
+            lastNameLengths[v] = last.length();
+            names[v] = lastFirst.equals(firstLast) || containsHan(lastFirst)
+                ? new String[]{lastFirst}
+                : new String[]{lastFirst, firstLast};
+
+            Set<String> grams = new HashSet<>();
+            for (String name : names[v]) {
+                grams.addAll(unigrams(name));
+                grams.addAll(bigrams(name));
+            }
+            for (String gram : grams) {
+                lists.computeIfAbsent(gram, k -> new ArrayList<>()).add(v);
+            }
+
+            pinyins[v] = containsHan(lastFirst)
+                ? dictionary.spellingForms(last, first).toArray(new String[0])
+                : new String[0];
+            Set<String> pinyinGrams = new HashSet<>();
+            for (String pinyin : pinyins[v]) {
+                pinyinGrams.addAll(pinyinGrams(pinyin));
+            }
+            for (String gram : pinyinGrams) {
+                pinyinLists.computeIfAbsent(gram, k -> new ArrayList<>()).add(v);
+            }
+        }
+
+        return new PersonSearchIndex(personIds, names, lastNameLengths, toPostings(lists), pinyins,
+            toPostings(pinyinLists));
+    }
+
+    private static Map<String, int[]> toPostings(Map<String, List<Integer>> lists) {
+        Map<String, int[]> postings = new HashMap<>(lists.size() * 2);
+        lists.forEach((gram, list) -> postings.put(gram, list.stream().mapToInt(Integer::intValue).toArray()));
+        return postings;
+    }
+
+    public int size() {
+        return personIds.length;
+    }
+
+    /**
+     * 这些人物是否都在索引中且规范化后的姓、名均未变化；只修改了其他字段时索引可以继续使用
+     */
+    public boolean hasSameNames(Collection<? extends PersonNameView> persons) {
+        Map<UUID, PersonNameView> byId = new HashMap<>(persons.size() * 2);
+        for (PersonNameView person : persons) {
+            byId.put(person.getId(), person);
+        }
+        int found = 0;
+        for (int v = 0; v < personIds.length && found < byId.size(); v++) {
+            PersonNameView person = byId.get(personIds[v]);
+            if (person == null) {
+                continue;
+            }
+            found++;
+            String last = normalize(person.getLastName());
+            if (lastNameLengths[v] != last.length() || !names[v][0].equals(last + normalize(person.getFirstName()))) {
+                return false;
+            }
+        }
+        return found == byId.size();
+    }
+
+    /**
+     * 检索姓名
+     *
+     * @return 全部命中结果，按得分降序（同分按人物序号）
+     */
+    public List<Hit> search(String keyword) {
+        String query = normalize(keyword);
+        if (query.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Set<String> queryGrams = grams(query);
+
+        // 召回：与关键词至少共享一个 gram 的人物
+        boolean[] candidate = new boolean[personIds.length];
+        int[] candidates = new int[16];
+        int candidateCount = 0;
+        List<int[]> recalled = new ArrayList<>();
+        for (String gram : queryGrams) {
+            recalled.add(postings.getOrDefault(gram, EMPTY));
+        }
+        // 拼音召回：关键词包含在拼音写法中的人物
+        boolean pinyinQuery = isPinyin(query);
+        if (pinyinQuery) {
+            recalled.add(pinyinCandidates(query));
+        }
+        for (int[] list : recalled) {
+            for (int v : list) {
+                if (!candidate[v]) {
+                    candidate[v] = true;
+                    if (candidateCount == candidates.length) {
+                        candidates = Arrays.copyOf(candidates, candidateCount * 2);
+                    }
+                    candidates[candidateCount++] = v;
+                }
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>();
+        for (int i = 0; i < candidateCount; i++) {
+            int v = candidates[i];
+            double best = 0;
+            for (String name : names[v]) {
+                best = Math.max(best, score(query, queryGrams, name));
+            }
+            if (pinyinQuery) {
+                for (String pinyin : pinyins[v]) {
+                    best = Math.max(best, pinyinScore(query, pinyin));
+                }
+            }
+            if (best > 0) {
+                hits.add(new Hit(v, personIds[v], best));
+            }
+        }
+        hits.sort(Comparator.comparingDouble(Hit::score).reversed().thenComparingInt(Hit::ordinal));
+        return hits;
+    }
+
+    /**
+     * 得分：整数部分为匹配层级（3 完全相同，2 前缀，1 包含，0 仅相似），小数部分为 Dice 相似度；
+     * 不包含关键词且相似度不足时返回 0
+     */
+    private static double score(String query, Set<String> queryGrams, String name) {
+        Set<String> nameGrams = query.codePointCount(0, query.length()) == 1 ? unigrams(name) : bigrams(name);
+        int shared = 0;
+        for (String gram : queryGrams) {
+            if (nameGrams.contains(gram)) {
+                shared++;
+            }
+        }
+        double similarity = 2.0 * shared / (queryGrams.size() + nameGrams.size());
+        // 相似度为 1 时仍需留在本层级内
+        similarity = Math.min(similarity, 0.999);
+
+        if (name.equals(query)) {
+            return 3 + similarity;
+        }
+        if (name.startsWith(query)) {
+            return 2 + similarity;
+        }
+        if (name.contains(query)) {
+            return 1 + similarity;
+        }
+        return similarity >= MIN_SIMILARITY ? similarity : 0;
+    }
+
+    /**
+     * 拼音写法的得分：层级同 {@link #score}，小数部分为关键词占拼音写法的长度比例；不包含关键词时返回 0
+     */
+    private static double pinyinScore(String query, String pinyin) {
+        double coverage = Math.min((double) query.length() / pinyin.length(), 0.999);
+        if (pinyin.equals(query)) {
+            return 3 + coverage;
+        }
+        if (pinyin.startsWith(query)) {
+            return 2 + coverage;
+        }
+        if (pinyin.contains(query)) {
+            return 1 + coverage;
+        }
+        return 0;
+    }
+
+    /**
+     * 拼音候选：一二个字母的关键词取包含它的拼音写法，更长的关键词取各三字母组合倒排表的交集（从最短的表开始求交）
+     */
+    private int[] pinyinCandidates(String query) {
+        if (query.length() < 3) {
+            return pinyinPostings.getOrDefault(query, EMPTY);
+        }
+        List<int[]> lists = new ArrayList<>();
+        for (int i = 0; i + 3 <= query.length(); i++) {
+            int[] list = pinyinPostings.get(query.substring(i, i + 3));
+            if (list == null) {
+                return EMPTY;
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.length));
+        int[] result = lists.get(0);
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = intersect(result, lists.get(i));
+        }
+        return result;
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] result = new int[Math.min(a.length, b.length)];
+        int count = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                result[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * 拼音写法的倒排 key：全部一二三字母子串
+     */
+    private static Set<String> pinyinGrams(String pinyin) {
+        Set<String> grams = new HashSet<>();
+        for (int length = 1; length <= 3; length++) {
+            for (int i = 0; i + length <= pinyin.length(); i++) {
+                grams.add(pinyin.substring(i, i + length));
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * 关键词只由小写字母和数字组成时按拼音匹配
+     */
+    private static boolean isPinyin(String query) {
+        return query.chars().allMatch(c -> (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9'));
+    }
+
+    /**
+     * 关键词的 gram：单字关键词用单字，否则用二字
+     */
+    private static Set<String> grams(String text) {
+        return text.codePointCount(0, text.length()) == 1 ? unigrams(text) : bigrams(text);
+    }
+
+    private static Set<String> unigrams(String text) {
+        Set<String> grams = new HashSet<>();
+        text.codePoints().forEach(c -> grams.add(new String(Character.toChars(c))));
+        return grams;
+    }
+
+    private static Set<String> bigrams(String text) {
+        Set<String> grams = new HashSet<>();
+        int[] codePoints = text.codePoints().toArray();
+        for (int i = 0; i + 1 < codePoints.length; i++) {
+            grams.add(new String(codePoints, i, 2));
+        }
+        return grams;
+    }
+
+    static boolean containsHan(String text) {
+        return text.codePoints().anyMatch(c -> Character.UnicodeScript.of(c) == Character.UnicodeScript.HAN);
+    }
+
+    /**
+     * 姓名规范化：去掉空白和间隔号（如“阿卜杜·热合曼”），转小写
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        StringBuilder normalized = new StringBuilder(text.length());
+        text.codePoints()
+            .filter(c -> !Character.isWhitespace(c) && c != '·' && c != '•' && c != '・')
+            .map(Character::toLowerCase)
+            .forEach(normalized::appendCodePoint);
+        return normalized.toString();
+    }
+
+    /**
+     * 命中结果
+     *
+     * @param ordinal  人物序号
+     * @param personId 人物ID
+     * @param score    得分，见 {@link #score}
+     */
+    public record Hit(int ordinal, UUID personId, double score) {}
+}
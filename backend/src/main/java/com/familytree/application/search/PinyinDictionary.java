@@ -0,0 +1,169 @@
+package com.familytree.application.search;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 汉字拼音词典（离线，随应用打包）
+ * 单字读音来自 pinyin/chars.txt，每字一个读音（不带声调，ü 写作 v）；
+ * 作姓氏时读音不同的字（如“单”读 shan、“尉迟”读 yu chi）由 pinyin/surnames.txt 覆盖，一个姓可有多种读法
+ */
+public final class PinyinDictionary {
+
+    private static final String CHARS_RESOURCE = "pinyin/chars.txt";
+    private static final String SURNAMES_RESOURCE = "pinyin/surnames.txt";
+
+    private static volatile PinyinDictionary defaultInstance;
+
+    private final Map<Integer, String> readings; // 汉字码点 → 拼音
+    private final Map<String, List<String[]>> surnames; // 姓 → 各种读法（每字一个拼音）
+    private final int maxSurnameLength;
+
+    private PinyinDictionary(Map<Integer, String> readings, Map<String, List<String[]>> surnames) {
+        this.readings = readings;
+        this.surnames = surnames;
+        this.maxSurnameLength = surnames.keySet().stream()
+            .mapToInt(surname -> surname.codePointCount(0, surname.length()))
+            .max()
+            .orElse(0);
+    }
+
+    /**
+     * 随应用打包的词典，首次使用时加载
+     */
+    public static PinyinDictionary getDefault() {
+        PinyinDictionary dictionary = defaultInstance;
+        if (dictionary == null) {
+            synchronized (PinyinDictionary.class) {
+                dictionary = defaultInstance;
+                if (dictionary == null) {
+                    dictionary = new PinyinDictionary(loadReadings(), loadSurnames());
+                    defaultInstance = dictionary;
+                }
+            }
+        }
+        return dictionary;
+    }
+
+    /**
+     * 单字读音，词典中没有的字返回 null
+     */
+    public String reading(int codePoint) {
+        return readings.get(codePoint);
+    }
+
+    /**
+     * 姓名的拼音拼写：姓在前、名在后，逐字一个音节；不在词典中的字（字母、数字等）原样作为一个音节
+     * 姓以 surnames.txt 中最长的多音姓氏开头时按姓氏读音拼写，有多种读法时每种读法各返回一种拼写
+     *
+     * @param lastName  规范化后的姓
+     * @param firstName 规范化后的名
+     * @return 各种拼写，常用读法在前
+     */
+    public List<List<String>> spell(String lastName, String firstName) {
+        int[] last = lastName.codePoints().toArray();
+        int[] first = firstName.codePoints().toArray();
+
+        List<String[]> surnameReadings = List.of();
+        int surnameLength = 0;
+        for (int length = Math.min(maxSurnameLength, last.length); length > 0; length--) {
+            List<String[]> found = surnames.get(new String(last, 0, length));
+            if (found != null) {
+                surnameReadings = found;
+                surnameLength = length;
+                break;
+            }
+        }
+
+        List<String> rest = new ArrayList<>(last.length + first.length - surnameLength);
+        for (int i = surnameLength; i < last.length; i++) {
+            rest.add(syllable(last[i]));
+        }
+        for (int c : first) {
+            rest.add(syllable(c));
+        }
+
+        if (surnameReadings.isEmpty()) {
+            return List.of(rest);
+        }
+        List<List<String>> spellings = new ArrayList<>(surnameReadings.size());
+        for (String[] surnameReading : surnameReadings) {
+            List<String> spelling = new ArrayList<>(surnameReading.length + rest.size());
+            spelling.addAll(Arrays.asList(surnameReading));
+            spelling.addAll(rest);
+            spellings.add(spelling);
+        }
+        return spellings;
+    }
+
+    /**
+     * 姓名的全拼（如 zhangsan）和首字母（如 zs）写法，每种拼写各一组，常用读法在前，去重
+     */
+    public List<String> spellingForms(String lastName, String firstName) {
+        Set<String> forms = new LinkedHashSet<>();
+        for (List<String> syllables : spell(lastName, firstName)) {
+            StringBuilder initials = new StringBuilder(syllables.size());
+            syllables.forEach(syllable -> initials.appendCodePoint(syllable.codePointAt(0)));
+            forms.add(String.join("", syllables));
+            forms.add(initials.toString());
+        }
+        return new ArrayList<>(forms);
+    }
+
+    private String syllable(int codePoint) {
+        String reading = readings.get(codePoint);
+        return reading != null ? reading : new String(Character.toChars(codePoint));
+    }
+
+    private static Map<Integer, String> loadReadings() {
+        Map<Integer, String> readings = new HashMap<>(32768);
+        for (String[] fields : readResource(CHARS_RESOURCE)) {
+            String syllable = fields[0];
+            fields[1].codePoints().forEach(c -> readings.putIfAbsent(c, syllable));
+        }
+        return readings;
+    }
+
+    private static Map<String, List<String[]>> loadSurnames() {
+        Map<String, List<String[]>> surnames = new HashMap<>();
+        for (String[] fields : readResource(SURNAMES_RESOURCE)) {
+            String surname = fields[0];
+            String[] syllables = fields[1].split(" ");
+            if (syllables.length != surname.codePointCount(0, surname.length())) {
+                throw new RuntimeException("拼音词典中姓氏读音与字数不符: " + surname);
+            }
+            surnames.computeIfAbsent(surname, k -> new ArrayList<>()).add(syllables);
+        }
+        return surnames;
+    }
+
+    /**
+     * 读取“键<TAB>值”格式的词典文件，跳过空行和 # 开头的注释
+     */
+    private static List<String[]> readResource(String path) {
+        InputStream in = PinyinDictionary.class.getClassLoader().getResourceAsStream(path);
+        if (in == null) {
+            throw new RuntimeException("拼音词典缺失: " + path);
+        }
+        List<String[]> rows = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\t", 2);
+                if (fields.length == 2) {
+                    rows.add(fields);
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("拼音词典加载失败: " + path, e);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,134 @@
+package com.familytree.application.service;
+
+import com.familytree.application.dto.CompactTreeViewDTO;
+import com.familytree.application.dto.PersonNodeDTO;
+import com.familytree.application.dto.RelationshipEdgeDTO;
+import com.familytree.application.dto.TreeViewDTO;
+import com.familytree.domain.LineageType;
+import com.familytree.domain.Person;
+import com.familytree.domain.Relationship;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * 把树视图转换为紧凑列式表示
+ * 人物ID建立本地编号字典，边的两端只传编号；坐标保留一位小数，减少数字位数
+ */
+@Component
+public class CompactTreeViewEncoder {
+
+    private static final Map<String, List<String>> DICTIONARIES = Map.of(
+        "gender", names(Person.Gender.values()),
+        "lineageType", names(LineageType.values()),
+        "relationshipType", names(Relationship.RelationshipType.values()));
+
+    public CompactTreeViewDTO encode(TreeViewDTO treeView) {
+        List<PersonNodeDTO> nodes = treeView.getNodes();
+        List<RelationshipEdgeDTO> edges = treeView.getEdges();
+        int nodeCount = nodes.size();
+
+        Map<UUID, Integer> localIds = new HashMap<>(nodeCount * 2);
+        List<UUID> ids = new ArrayList<>(nodeCount);
+        List<String> firstNames = new ArrayList<>(nodeCount);
+        List<String> lastNames = new ArrayList<>(nodeCount);
+        int[] genders = new int[nodeCount];
+        List<LocalDate> birthDates = new ArrayList<>(nodeCount);
+        List<LocalDate> deathDates = new ArrayList<>(nodeCount);
+        List<String> primaryPhotoUrls = new ArrayList<>(nodeCount);
+        int[] generations = new int[nodeCount];
+        List<Integer> absoluteGenerations = new ArrayList<>(nodeCount);
+        double[] xs = new double[nodeCount];
+        double[] ys = new double[nodeCount];
+        int[] lineageTypes = new int[nodeCount];
+        List<String> kinshipTerms = new ArrayList<>(nodeCount);
+        boolean hasKinshipTerms = false;
+
+        for (int i = 0; i < nodeCount; i++) {
+            PersonNodeDTO node = nodes.get(i);
+            localIds.put(node.getId(), i);
+            ids.add(node.getId());
+            firstNames.add(node.getFirstName());
+            lastNames.add(node.getLastName());
+            genders[i] = ordinal(node.getGender());
+            birthDates.add(node.getBirthDate());
+            deathDates.add(node.getDeathDate());
+            primaryPhotoUrls.add(node.getPrimaryPhotoUrl());
+            generations[i] = node.getGeneration() != null ? node.getGeneration() : 0;
+            absoluteGenerations.add(node.getAbsoluteGeneration());
+            xs[i] = round(node.getX());
+            ys[i] = round(node.getY());
+            lineageTypes[i] = ordinal(node.getLineageType());
+            kinshipTerms.add(node.getKinshipTerm());
+            hasKinshipTerms |= node.getKinshipTerm() != null;
+        }
+
+        int edgeCount = edges.size();
+        List<UUID> edgeIds = new ArrayList<>(edgeCount);
+        int[] edgeFrom = new int[edgeCount];
+        int[] edgeTo = new int[edgeCount];
+        int[] edgeTypes = new int[edgeCount];
+        for (int i = 0; i < edgeCount; i++) {
+            RelationshipEdgeDTO edge = edges.get(i);
+            edgeIds.add(edge.getId());
+            edgeFrom[i] = localId(localIds, ids, edge.getFromPersonId());
+            edgeTo[i] = localId(localIds, ids, edge.getToPersonId());
+            edgeTypes[i] = ordinal(edge.getType());
+        }
+
+        Integer focus = treeView.getFocusPersonId() != null ? localIds.get(treeView.getFocusPersonId()) : null;
+        return CompactTreeViewDTO.builder()
+            .groupId(treeView.getGroupId())
+            .version(treeView.getVersion())
+            .viewMode(treeView.getViewMode())
+            .focus(focus)
+            .focusPersonName(treeView.getFocusPersonName())
+            .depth(treeView.getDepth())
+            .filterLineageType(treeView.getFilterLineageType())
+            .dictionaries(DICTIONARIES)
+            .ids(ids)
+            .nodeCount(nodeCount)
+            .firstNames(firstNames)
+            .lastNames(lastNames)
+            .genders(genders)
+            .birthDates(birthDates)
+            .deathDates(deathDates)
+            .primaryPhotoUrls(primaryPhotoUrls)
+            .generations(generations)
+            .absoluteGenerations(absoluteGenerations)
+            .xs(xs)
+            .ys(ys)
+            .lineageTypes(lineageTypes)
+            .kinshipTerms(hasKinshipTerms ? kinshipTerms : null)
+            .edgeIds(edgeIds)
+            .edgeFrom(edgeFrom)
+            .edgeTo(edgeTo)
+            .edgeTypes(edgeTypes)
+            .maxNodes(treeView.getMaxNodes())
+            .collapsedNodes(treeView.getCollapsedNodes())
+            .build();
+    }
+
+    /**
+     * 边引用了不在节点列表中的人物时，把该人物追加到 ids 末尾
+     */
+    private int localId(Map<UUID, Integer> localIds, List<UUID> ids, UUID personId) {
+        return localIds.computeIfAbsent(personId, id -> {
+            ids.add(id);
+            return ids.size() - 1;
+        });
+    }
+
+    private static int ordinal(Enum<?> value) {
+        return value != null ? value.ordinal() : -1;
+    }
+
+    private static double round(Double value) {
+        return value != null ? Math.round(value * 10) / 10.0 : 0;
+    }
+
+    private static List<String> names(Enum<?>[] values) {
+        return Arrays.stream(values).map(Enum::name).toList();
+    }
+}
@@ -0,0 +1,87 @@
+package com.familytree.application.service;
+
+import com.familytree.infrastructure.repository.GroupRepository;
+import com.familytree.infrastructure.repository.PersonClosureRepository;
+import com.familytree.infrastructure.repository.PersonRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * 派生数据的启动回填
+ * 祖先-后代闭包、后代数/祖先数和人物代数由写入方增量维护，上线前已有的数据不会写入
+ * （ddl-auto 新增的代数列和计数列对已有人物为空，增量维护无法从空值推算）；
+ * 启动时找出闭包与关系表不一致、或存在代数/计数为空的人物的家族，逐个家族在独立事务内重建，
+ * 已一致的家族不做任何写入，可重复执行。单个家族失败只记录日志，下次启动时重试；
+ * scripts/sql 下的脚本仍可用于手动全量重建
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "familytree.derived-data-backfill.enabled", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+public class DerivedDataBackfill implements ApplicationRunner {
+
+    // 不对应任何人物，重算代数时不排除任何人的关系
+    private static final UUID NO_PERSON = new UUID(0, 0);
+
+    private final GroupRepository groupRepository;
+    private final PersonRepository personRepository;
+    private final PersonClosureRepository personClosureRepository;
+    private final GroupChangeLog groupChangeLog;
+    private final PlatformTransactionManager transactionManager;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        backfill("person closure", personClosureRepository.findGroupIdsWithStaleClosure(), this::rebuildClosure);
+        backfill("person closure counts", personClosureRepository.findGroupIdsWithUnsetCounts(),
+            personClosureRepository::recountGroup);
+        backfill("person generation", personRepository.findGroupIdsWithUnsetGeneration(), this::recomputeGenerations);
+    }
+
+    private void backfill(String name, List<UUID> groupIds, Consumer<UUID> rebuild) {
+        if (groupIds.isEmpty()) {
+            return;
+        }
+        log.info("Backfilling {} for {} groups", name, groupIds.size());
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        for (UUID groupId : groupIds) {
+            try {
+                transaction.executeWithoutResult(status -> {
+                    if (groupRepository.lockById(groupId).isPresent()) {
+                        rebuild.accept(groupId);
+                        groupChangeLog.recordContentWrite(groupId, List.of());
+                    }
+                });
+            } catch (RuntimeException e) {
+                log.warn("Failed to backfill {} for group {}", name, groupId, e);
+            }
+        }
+    }
+
+    /**
+     * 重建一个家族的闭包和后代数/祖先数（调用方已锁定家族，并在之后递增家族版本使已缓存的树视图失效）
+     */
+    private void rebuildClosure(UUID groupId) {
+        int maxDistance = (int) personRepository.countByGroupId(groupId);
+        personClosureRepository.deleteByGroupId(groupId);
+        personClosureRepository.insertGroupClosure(groupId, maxDistance);
+        personClosureRepository.recountGroup(groupId);
+    }
+
+    /**
+     * 按全部关系重新计算一个家族的代数，空值一并写回
+     */
+    private void recomputeGenerations(UUID groupId) {
+        int maxGeneration = (int) personRepository.countByGroupId(groupId);
+        personRepository.recomputeGenerations(groupId, NO_PERSON, maxGeneration);
+    }
+}
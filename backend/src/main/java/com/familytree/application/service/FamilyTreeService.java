@@ -1,30 +1,68 @@
 package com.familytree.application.service;
 
+import com.familytree.application.dto.CollapsedNodeDTO;
+import com.familytree.application.dto.KinshipDTO;
 import com.familytree.application.dto.PersonNodeDTO;
 import com.familytree.application.dto.RelationshipEdgeDTO;
+import com.familytree.application.dto.RelationshipPathDTO;
+import com.familytree.application.dto.TreeDeltaDTO;
+import com.familytree.application.dto.TreeStreamEvent;
 import com.familytree.application.dto.TreeViewDTO;
+import com.familytree.application.dto.TreeViewportDTO;
+import com.familytree.application.graph.GroupGraph;
+import com.familytree.application.layout.GroupLayout;
+import com.familytree.application.layout.TreeLayoutEngine;
+import com.familytree.domain.ChangeSet;
+import com.familytree.domain.CollapseDirection;
+import com.familytree.domain.GroupChange;
+import com.familytree.domain.KinshipType;
 import com.familytree.domain.LineageType;
-import com.familytree.domain.Person;
-import com.familytree.domain.Photo;
 import com.familytree.domain.Relationship;
+import com.familytree.domain.TreeTraversalMode;
+import com.familytree.domain.TreeViewMode;
+import com.familytree.infrastructure.cache.TreeViewCache;
+import com.familytree.infrastructure.repository.GroupRepository;
+import com.familytree.infrastructure.repository.PersonClosureRepository;
 import com.familytree.infrastructure.repository.PersonRepository;
-import com.familytree.infrastructure.repository.PhotoRepository;
 import com.familytree.infrastructure.repository.RelationshipRepository;
+import com.familytree.infrastructure.repository.projection.LinealRow;
+import com.familytree.infrastructure.repository.projection.NeighborhoodRow;
+import com.familytree.infrastructure.repository.projection.PersonNodeView;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 @RequiredArgsConstructor
 public class FamilyTreeService {
-    
+
+    // 视口查询中显示照片和生卒日期的最小缩放比例
+    private static final double DETAIL_MIN_ZOOM = 0.5;
+
+    // 单次增量允许的最大变更记录数，超过后返回完整视图
+    private static final int MAX_DELTA_CHANGES = 2000;
+
+    // 流式输出时每批加载的人物数量
+    private static final int STREAM_BATCH_SIZE = 500;
+
+    private final GroupRepository groupRepository;
+    private final GroupChangeLog groupChangeLog;
     private final PersonRepository personRepository;
+    private final PersonClosureRepository personClosureRepository;
     private final RelationshipRepository relationshipRepository;
-    private final PhotoRepository photoRepository;
+    private final PersonNodeLoader personNodeLoader;
     private final LineageCalculator lineageCalculator;
+    private final RelationshipPathFinder relationshipPathFinder;
+    private final KinshipCalculator kinshipCalculator;
+    private final KinshipTermCalculator kinshipTermCalculator;
+    private final GroupGraphService groupGraphService;
+    private final TreeViewCache treeViewCache;
+    private final TreeLayoutEngine treeLayoutEngine;
+    private final GroupLayoutService groupLayoutService;
 
     @Transactional(readOnly = true)
     public TreeViewDTO getTreeView(UUID groupId, UUID focusPersonId, int depth) {
@@ -33,109 +71,751 @@ public class FamilyTreeService {
 
     @Transactional(readOnly = true)
     public TreeViewDTO getTreeView(UUID groupId, UUID focusPersonId, int depth, LineageType lineageFilter) {
+        return getTreeView(groupId, focusPersonId, depth, lineageFilter, TreeTraversalMode.MEMORY);
+    }
+
+    @Transactional(readOnly = true)
+    public TreeViewDTO getTreeView(UUID groupId, UUID focusPersonId, int depth, LineageType lineageFilter,
+                                   TreeTraversalMode traversalMode) {
+        return getTreeView(groupId, focusPersonId, depth, lineageFilter, traversalMode, TreeViewMode.FOCUS, null);
+    }
+
+    /**
+     * 获取家谱树视图
+     *
+     * @param traversalMode 邻域遍历方式；DATABASE 模式下只从数据库取回可达子图，
+     *                      血统线也只在该子图内判定（未指定焦点人物时仍使用内存索引）
+     * @param viewMode      视图范围；GROUP 模式返回整个家族的所有连通分量，只使用 maxNodes，忽略其余参数
+     * @param maxNodes      节点数上限；超出时只保留距焦点最近的人物（GROUP 模式下自上而下、从左到右保留），
+     *                      其余分支折叠为合成节点，为空表示不限
+     */
+    @Transactional(readOnly = true)
+    public TreeViewDTO getTreeView(UUID groupId, UUID focusPersonId, int depth, LineageType lineageFilter,
+                                   TreeTraversalMode traversalMode, TreeViewMode viewMode, Integer maxNodes) {
+        // 结果按家族版本缓存：任何写入都会递增版本，旧版本的缓存条目不再被命中
+        int version = groupRepository.findVersionById(groupId)
+            .orElseThrow(() -> new RuntimeException("家族不存在"));
+        String cacheKey = viewMode == TreeViewMode.GROUP
+            ? String.join(":", groupId.toString(), String.valueOf(version), String.valueOf(viewMode),
+                String.valueOf(maxNodes))
+            : String.join(":", groupId.toString(), String.valueOf(version),
+                String.valueOf(focusPersonId), String.valueOf(depth), String.valueOf(lineageFilter),
+                String.valueOf(traversalMode), String.valueOf(maxNodes));
+
+        TreeViewDTO cached = treeViewCache.get(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        TreeViewDTO treeView;
+        if (viewMode == TreeViewMode.GROUP) {
+            treeView = getGroupTreeView(groupId, maxNodes);
+        } else if (traversalMode == TreeTraversalMode.DATABASE && focusPersonId != null) {
+            treeView = getTreeViewFromDatabase(groupId, focusPersonId, depth, lineageFilter, maxNodes);
+        } else {
+            treeView = getTreeViewFromGraph(groupId, focusPersonId, depth, lineageFilter, maxNodes);
+        }
+
+        treeView.setVersion(version);
+        treeView.setViewMode(viewMode);
+        treeViewCache.put(cacheKey, treeView);
+        return treeView;
+    }
+
+    /**
+     * 获取自客户端已知版本以来的树视图增量
+     * 依据变更日志找出新增/修改的人物与关系，以忽略新建关系的遍历还原客户端持有的旧视图，
+     * 返回进入视图或代际、血统线变化的节点，以及因血统线变化离开视图的节点和边；
+     * 未指定焦点人物、焦点人物的父母有变化、历史不完整、变更过多或涉及删除（无法还原删除前的可达范围）时退化为完整视图
+     */
+    @Transactional(readOnly = true)
+    public TreeDeltaDTO getTreeDelta(UUID groupId, int sinceVersion, UUID focusPersonId, int depth,
+                                     LineageType lineageFilter) {
+        int version = groupRepository.findVersionById(groupId)
+            .orElseThrow(() -> new RuntimeException("家族不存在"));
+        if (sinceVersion == version) {
+            return TreeDeltaDTO.builder()
+                .groupId(groupId)
+                .sinceVersion(sinceVersion)
+                .version(version)
+                .full(false)
+                .upsertedNodes(new ArrayList<>())
+                .upsertedEdges(new ArrayList<>())
+                .removedNodeIds(new ArrayList<>())
+                .removedEdgeIds(new ArrayList<>())
+                .build();
+        }
+
+        Optional<List<GroupChange>> history = sinceVersion < version
+            ? groupChangeLog.findChangesSince(groupId, sinceVersion, MAX_DELTA_CHANGES)
+            : Optional.empty();
+        List<GroupChange> changes = history.orElse(List.of());
+        boolean hasRemoval = changes.stream().anyMatch(c -> c.getActionType() == ChangeSet.ActionType.DELETE);
+
+        GroupGraph graph = groupGraphService.getGraph(groupId);
+        int focus = focusPersonId != null ? graph.ordinalOf(focusPersonId) : -1;
+
+        // 变更后的人物与关系（日志按版本升序，同一实体只保留一次）
+        Set<UUID> changedPersonIds = GroupChangeLog.personIds(changes);
+        Set<UUID> createdEdgeIds = new LinkedHashSet<>();
+        for (GroupChange change : changes) {
+            if (change.getEntityType() == ChangeSet.EntityType.RELATIONSHIP
+                    && change.getActionType() == ChangeSet.ActionType.CREATE) {
+                createdEdgeIds.add(change.getEntityId());
+            }
+        }
+
+        // 未指定焦点时完整视图以图中第一位人物为焦点，该人物在不同版本间不稳定；
+        // 焦点人物的父母有变化（新增父母关系、父母被修改）时无法还原旧的父系/母系划分
+        if (history.isEmpty() || hasRemoval || focus < 0
+                || parentsChanged(graph, focus, changedPersonIds, createdEdgeIds)) {
+            return TreeDeltaDTO.builder()
+                .groupId(groupId)
+                .sinceVersion(sinceVersion)
+                .version(version)
+                .full(true)
+                .tree(getTreeView(groupId, focusPersonId, depth, lineageFilter))
+                .build();
+        }
+
+        // 当前视图，以及忽略新建关系时的视图（即客户端持有的视图）
+        LineageCalculator.Traversal current = traverse(graph, focus, depth);
+        LineageCalculator.Traversal previous = createdEdgeIds.isEmpty()
+            ? current : lineageCalculator.traverse(focus, graph, depth, createdEdgeIds);
+        byte[] lineage = current.lineage();
+        byte[] previousLineage = previous.lineage();
+
+        // 新进入视图、代际或血统线变化的人物，加上字段被修改且仍在视图内的人物
+        Set<Integer> upserted = new LinkedHashSet<>();
+        for (int i = 0; i < current.visitedCount(); i++) {
+            int v = current.visited()[i];
+            if (!inView(v, current, lineage, lineageFilter)) {
+                continue;
+            }
+            if (!inView(v, previous, previousLineage, lineageFilter)
+                    || previous.personGeneration()[v] != current.personGeneration()[v]
+                    || previousLineage[v] != lineage[v]) {
+                upserted.add(v);
+            }
+        }
+        for (UUID personId : changedPersonIds) {
+            int v = graph.ordinalOf(personId);
+            if (v >= 0 && inView(v, current, lineage, lineageFilter)) {
+                upserted.add(v);
+            }
+        }
+
+        // 离开视图的人物（血统线变化后不再匹配筛选条件）；新增关系只会缩短距离，不会使人物超出深度
+        List<UUID> removedNodeIds = new ArrayList<>();
+        for (int i = 0; i < previous.visitedCount(); i++) {
+            int v = previous.visited()[i];
+            if (inView(v, previous, previousLineage, lineageFilter) && !inView(v, current, lineage, lineageFilter)) {
+                removedNodeIds.add(graph.personId(v));
+            }
+        }
+
+        // 新建的关系，以及新进入视图的人物与视图内其他人物之间的关系；
+        // 原先两端都在视图内、现在有一端离开视图的关系需要移除
+        Map<UUID, RelationshipEdgeDTO> edges = new LinkedHashMap<>();
+        Set<UUID> removedEdgeIds = new LinkedHashSet<>();
+        GroupGraph.Adjacency[] adjacencies = {graph.parents(), graph.children(), graph.spouses(), graph.siblings()};
+        for (int i = 0; i < previous.visitedCount(); i++) {
+            int v = previous.visited()[i];
+            if (!inView(v, previous, previousLineage, lineageFilter) || inView(v, current, lineage, lineageFilter)) {
+                continue;
+            }
+            for (GroupGraph.Adjacency adjacency : adjacencies) {
+                for (int a = adjacency.start(v); a < adjacency.end(v); a++) {
+                    UUID edgeId = graph.edgeId(adjacency.edge(a));
+                    if (!createdEdgeIds.contains(edgeId)
+                            && inView(adjacency.target(a), previous, previousLineage, lineageFilter)) {
+                        removedEdgeIds.add(edgeId);
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < current.visitedCount(); i++) {
+            int v = current.visited()[i];
+            if (!inView(v, current, lineage, lineageFilter)) {
+                continue;
+            }
+            boolean entered = !inView(v, previous, previousLineage, lineageFilter);
+            for (GroupGraph.Adjacency adjacency : adjacencies) {
+                for (int a = adjacency.start(v); a < adjacency.end(v); a++) {
+                    int edge = adjacency.edge(a);
+                    UUID edgeId = graph.edgeId(edge);
+                    if ((entered || createdEdgeIds.contains(edgeId))
+                            && inView(adjacency.target(a), current, lineage, lineageFilter)) {
+                        edges.putIfAbsent(edgeId, toEdgeDTO(graph, edge));
+                    }
+                }
+            }
+        }
+
+        List<UUID> personIds = upserted.stream().map(graph::personId).collect(Collectors.toList());
+        Map<UUID, PersonNodeView> personViews = personNodeLoader.load(groupId, personIds);
+        List<PersonNodeDTO> nodes = new ArrayList<>(personViews.size());
+        for (int v : upserted) {
+            PersonNodeView person = personViews.get(graph.personId(v));
+            if (person != null) {
+                // 增量节点不参与整体布局，由客户端就近放置
+                PersonNodeDTO node = toNodeDTO(person, current.personGeneration()[v], 0, 0,
+                    lineageCalculator.lineageOf(lineage, v));
+                node.setX(null);
+                node.setY(null);
+                nodes.add(node);
+            }
+        }
+
+        return TreeDeltaDTO.builder()
+            .groupId(groupId)
+            .sinceVersion(sinceVersion)
+            .version(version)
+            .full(false)
+            .upsertedNodes(nodes)
+            .upsertedEdges(new ArrayList<>(edges.values()))
+            .removedNodeIds(removedNodeIds)
+            .removedEdgeIds(new ArrayList<>(removedEdgeIds))
+            .build();
+    }
+
+    /**
+     * 焦点人物的父母是否在这段变更中变化：新增了以焦点人物为子女的关系，或某位父母的人物信息（性别）被修改
+     */
+    private boolean parentsChanged(GroupGraph graph, int focus, Set<UUID> changedPersonIds, Set<UUID> createdEdgeIds) {
+        GroupGraph.Adjacency parents = graph.parents();
+        for (int i = parents.start(focus); i < parents.end(focus); i++) {
+            if (createdEdgeIds.contains(graph.edgeId(parents.edge(i)))
+                    || changedPersonIds.contains(graph.personId(parents.target(i)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean inView(int v, LineageCalculator.Traversal traversal, byte[] lineage, LineageType lineageFilter) {
+        if (traversal.personDistance()[v] < 0) {
+            return false;
+        }
+        return lineageFilter == null || lineageFilter == LineageType.UNKNOWN
+            || lineageCalculator.matchesLineage(lineageCalculator.lineageOf(lineage, v), lineageFilter);
+    }
+
+    /**
+     * 获取视口内的节点与关系
+     * 基于按家族结构版本预先计算的整体布局和网格索引，只加载视口内的人物（姓名等字段总是最新的）；
+     * zoom 低于 {@link #DETAIL_MIN_ZOOM} 时省略照片与生卒日期，减少缩略视图的传输量
+     */
+    @Transactional(readOnly = true)
+    public TreeViewportDTO getViewport(UUID groupId, double minX, double minY, double maxX, double maxY, double zoom) {
+        int version = groupRepository.findVersionById(groupId)
+            .orElseThrow(() -> new RuntimeException("家族不存在"));
+        GroupLayout layout = groupLayoutService.getLayout(groupId);
+        GroupGraph graph = layout.getGraph();
+
+        // 节点按中心点判定，查询框向外扩半个节点，保证部分可见的节点也被返回
+        double margin = TreeLayoutEngine.HORIZONTAL_SPACING / 2;
+        int[] visible = layout.query(minX - margin, minY - margin, maxX + margin, maxY + margin);
+
+        Set<Integer> visibleSet = new HashSet<>(visible.length * 2);
+        List<UUID> personIds = new ArrayList<>(visible.length);
+        for (int v : visible) {
+            visibleSet.add(v);
+            personIds.add(graph.personId(v));
+        }
+        Map<UUID, PersonNodeView> personViews = personNodeLoader.load(groupId, personIds);
+
+        boolean detailed = zoom >= DETAIL_MIN_ZOOM;
+        List<PersonNodeDTO> nodes = new ArrayList<>(personViews.size());
+        for (int v : visible) {
+            PersonNodeView person = personViews.get(graph.personId(v));
+            if (person == null) {
+                continue;
+            }
+            PersonNodeDTO node = toNodeDTO(person, layout.generation(v), layout.x(v), layout.y(v), null);
+            if (!detailed) {
+                node.setPrimaryPhotoUrl(null);
+                node.setBirthDate(null);
+                node.setDeathDate(null);
+            }
+            nodes.add(node);
+        }
+
+        // 跨越视口边界的关系也返回，另一端由相邻视口补齐；每条边只在一端收集
+        List<RelationshipEdgeDTO> edges = new ArrayList<>();
+        GroupGraph.Adjacency[] adjacencies = {graph.parents(), graph.children(), graph.spouses(), graph.siblings()};
+        for (int v : visible) {
+            for (GroupGraph.Adjacency adjacency : adjacencies) {
+                for (int i = adjacency.start(v); i < adjacency.end(v); i++) {
+                    int edge = adjacency.edge(i);
+                    int other = adjacency.target(i);
+                    if (!layout.isPlaced(other)) {
+                        continue;
+                    }
+                    boolean fromSide = graph.edgeFrom(edge) == v;
+                    if (fromSide || !visibleSet.contains(other)) {
+                        edges.add(toEdgeDTO(graph, edge));
+                    }
+                }
+            }
+        }
+
+        return TreeViewportDTO.builder()
+            .groupId(groupId)
+            .version(version)
+            .minX(layout.getMinX())
+            .minY(layout.getMinY())
+            .maxX(layout.getMaxX())
+            .maxY(layout.getMaxY())
+            .zoom(zoom)
+            .nodes(nodes)
+            .edges(edges)
+            .build();
+    }
+
+    /**
+     * 整个家族的视图：复用按版本缓存的整体布局（各连通分量并行布局后并排），
+     * 代际为所在分量内自顶向下的代数，没有焦点人物，因此不计算血统线和称谓。
+     * 超出节点上限时按代际自上而下、同代从左到右保留人物，其余折叠为合成节点
+     */
+    private TreeViewDTO getGroupTreeView(UUID groupId, Integer maxNodes) {
+        GroupLayout layout = groupLayoutService.getLayout(groupId);
+        GroupGraph graph = layout.getGraph();
+        int n = graph.size();
+
+        int placedCount = 0;
+        int[] order = new int[n];
+        for (int v = 0; v < n; v++) {
+            if (layout.isPlaced(v)) {
+                order[placedCount++] = v;
+            }
+        }
+        int budget = maxNodes != null ? Math.max(1, maxNodes) : Integer.MAX_VALUE;
+        boolean truncated = placedCount > budget;
+        if (truncated) {
+            order = IntStream.of(order).limit(placedCount).boxed()
+                .sorted(Comparator.<Integer>comparingInt(layout::generation).thenComparingDouble(layout::x))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        }
+
+        boolean[] omitted = new boolean[n];
+        List<UUID> personIds = new ArrayList<>(Math.min(placedCount, budget));
+        for (int i = 0; i < placedCount; i++) {
+            if (personIds.size() < budget) {
+                personIds.add(graph.personId(order[i]));
+            } else {
+                omitted[order[i]] = true;
+            }
+        }
+        Map<UUID, PersonNodeView> personViews = personNodeLoader.load(groupId, personIds);
+
+        List<PersonNodeDTO> nodes = new ArrayList<>(personViews.size());
+        boolean[] included = new boolean[n];
+        for (PersonNodeView person : personViews.values()) {
+            int v = graph.ordinalOf(person.getId());
+            included[v] = true;
+            nodes.add(toNodeDTO(person, layout.generation(v), layout.x(v), layout.y(v), null));
+        }
+
+        List<RelationshipEdgeDTO> edges = new ArrayList<>();
+        for (int v = 0; v < n; v++) {
+            if (!included[v]) {
+                continue;
+            }
+            collectEdges(graph, graph.parents(), v, included, edges);
+            collectEdges(graph, graph.children(), v, included, edges);
+            collectEdges(graph, graph.spouses(), v, included, edges);
+            collectEdges(graph, graph.siblings(), v, included, edges);
+        }
+
+        List<CollapsedNodeDTO> collapsedNodes = new ArrayList<>();
+        if (truncated) {
+            int[] generation = new int[n];
+            double[] x = new double[n];
+            for (int i = 0; i < placedCount; i++) {
+                generation[order[i]] = layout.generation(order[i]);
+                x[order[i]] = layout.x(order[i]);
+            }
+            collapsedNodes = collapseOmitted(graph, order, placedCount, included, omitted, generation, x, personViews);
+        }
+
+        return TreeViewDTO.builder()
+            .groupId(groupId)
+            .nodes(nodes)
+            .edges(edges)
+            .maxNodes(maxNodes)
+            .collapsedNodes(collapsedNodes)
+            .build();
+    }
+
+    /**
+     * 基于内存中的家族关系图索引完成有界 BFS
+     */
+    private TreeViewDTO getTreeViewFromGraph(UUID groupId, UUID focusPersonId, int depth,
+                                             LineageType lineageFilter, Integer maxNodes) {
+        // 获取家族关系图索引
+        GroupGraph graph = groupGraphService.getGraph(groupId);
+
         // 如果没有指定焦点人物，获取该家族第一个人物
         if (focusPersonId == null) {
-            List<Person> persons = personRepository.findByGroupId(groupId);
-            if (persons.isEmpty()) {
+            if (graph.size() == 0) {
                 return TreeViewDTO.builder()
                     .groupId(groupId)
                     .nodes(new ArrayList<>())
                     .edges(new ArrayList<>())
                     .build();
             }
-            focusPersonId = persons.get(0).getId();
+            focusPersonId = graph.personId(0);
+        }
+
+        int focus = graph.ordinalOf(focusPersonId);
+        if (focus < 0) {
+            // 焦点人物尚未出现在索引中（例如刚创建），只返回其自身
+            PersonNodeView focusPerson = personNodeLoader.load(groupId, List.of(focusPersonId)).get(focusPersonId);
+            if (focusPerson == null) {
+                throw new RuntimeException("焦点人物不存在");
+            }
+            return TreeViewDTO.builder()
+                .groupId(groupId)
+                .focusPersonId(focusPersonId)
+                .focusPersonName(focusPerson.getFullName())
+                .depth(depth)
+                .filterLineageType(lineageFilter)
+                .nodes(List.of(toNodeDTO(focusPerson, 0, 0, 0, LineageType.SELF)))
+                .edges(new ArrayList<>())
+                .build();
+        }
+
+        LineageCalculator.Traversal traversal = traverse(graph, focus, depth);
+        return assembleTreeView(groupId, graph, focus, traversal.visited(), traversal.visitedCount(),
+            traversal.personGeneration(), traversal.lineage(), depth, lineageFilter, maxNodes);
+    }
+
+    /**
+     * 一次 BFS 同时得到深度内的人物、代际和血统线
+     */
+    private LineageCalculator.Traversal traverse(GroupGraph graph, int focus, int depth) {
+        return lineageCalculator.traverse(focus, graph, depth, Set.of());
+    }
+
+    /**
+     * 流式获取家谱树视图
+     * 校验、遍历和血统线计算在调用时完成（焦点人物不存在时直接抛出异常）；
+     * 写出时人物按批次加载并逐条输出，不含布局坐标，内存占用与批次大小相关而非与树的规模相关
+     */
+    @Transactional(readOnly = true)
+    public TreeStream streamTreeView(UUID groupId, UUID focusPersonId, int depth, LineageType lineageFilter) {
+        int structureVersion = groupRepository.findStructureVersionById(groupId)
+            .orElseThrow(() -> new RuntimeException("家族不存在"));
+        GroupGraph graph = groupGraphService.getGraph(groupId, structureVersion);
+
+        if (focusPersonId == null) {
+            if (graph.size() == 0) {
+                TreeStreamEvent header = TreeStreamEvent.builder()
+                    .type(TreeStreamEvent.Type.HEADER)
+                    .groupId(groupId)
+                    .depth(depth)
+                    .filterLineageType(lineageFilter)
+                    .build();
+                return sink -> {
+                    sink.accept(header);
+                    sink.accept(endEvent(0, 0));
+                };
+            }
+            focusPersonId = graph.personId(0);
         }
 
-        Person focusPerson = personRepository.findById(focusPersonId)
-            .orElseThrow(() -> new RuntimeException("焦点人物不存在"));
+        PersonNodeView focusPerson = personNodeLoader.load(groupId, List.of(focusPersonId)).get(focusPersonId);
+        if (focusPerson == null) {
+            throw new RuntimeException("焦点人物不存在");
+        }
+        TreeStreamEvent header = TreeStreamEvent.builder()
+            .type(TreeStreamEvent.Type.HEADER)
+            .groupId(groupId)
+            .focusPersonId(focusPersonId)
+            .focusPersonName(focusPerson.getFullName())
+            .depth(depth)
+            .filterLineageType(lineageFilter)
+            .build();
+
+        int focus = graph.ordinalOf(focusPersonId);
+        if (focus < 0) {
+            // 焦点人物尚未出现在索引中（例如刚创建），只输出其自身
+            PersonNodeDTO node = toNodeDTO(focusPerson, 0, 0, 0, LineageType.SELF);
+            node.setX(null);
+            node.setY(null);
+            return sink -> {
+                sink.accept(header);
+                sink.accept(TreeStreamEvent.builder().type(TreeStreamEvent.Type.NODE).node(node).build());
+                sink.accept(endEvent(1, 0));
+            };
+        }
+
+        LineageCalculator.Traversal traversal = traverse(graph, focus, depth);
+        byte[] lineage = traversal.lineage();
 
-        // 获取所有相关人物和关系
-        Set<UUID> personIds = new HashSet<>();
-        personIds.add(focusPersonId);
+        // 根据血统线筛选人物，保持访问顺序
+        boolean filterByLineage = lineageFilter != null && lineageFilter != LineageType.UNKNOWN;
+        int[] order = new int[traversal.visitedCount()];
+        int count = 0;
+        for (int i = 0; i < traversal.visitedCount(); i++) {
+            int v = traversal.visited()[i];
+            if (!filterByLineage
+                    || lineageCalculator.matchesLineage(lineageCalculator.lineageOf(lineage, v), lineageFilter)) {
+                order[count++] = v;
+            }
+        }
 
-        // 获取所有关系
-        List<Relationship> allRelationships = relationshipRepository.findByGroupId(groupId);
+        GroupGraph.Adjacency[] edgeAdjacencies = {graph.parents(), graph.children(), graph.spouses(), graph.siblings()};
+        return nodeStream(header, groupId, graph, order, count, traversal.personGeneration(), lineage, edgeAdjacencies);
+    }
 
-        // BFS获取指定深度内的人物（distance 用于截断，generation 用于代际显示）
-        Map<UUID, Integer> personDistance = new HashMap<>();
-        Map<UUID, Integer> personGeneration = new HashMap<>();
-        personDistance.put(focusPersonId, 0);
-        personGeneration.put(focusPersonId, 0);
+    /**
+     * 流式获取祖先（沿父母方向，不超过 generations 代，包含本人，代际为负数）
+     */
+    @Transactional(readOnly = true)
+    public TreeStream streamAncestors(UUID groupId, UUID personId, int generations) {
+        return streamLineal(groupId, personId, generations, true);
+    }
 
-        Queue<UUID> queue = new LinkedList<>();
-        queue.offer(focusPersonId);
+    /**
+     * 流式获取后代（沿子女方向，不超过 generations 代，不含本人，代际为正数）
+     */
+    @Transactional(readOnly = true)
+    public TreeStream streamDescendants(UUID groupId, UUID personId, int generations) {
+        return streamLineal(groupId, personId, generations, false);
+    }
 
-        while (!queue.isEmpty()) {
-            UUID currentId = queue.poll();
-            int currentDistance = personDistance.get(currentId);
-            int currentGeneration = personGeneration.getOrDefault(currentId, 0);
+    private TreeStream streamLineal(UUID groupId, UUID personId, int generations, boolean ancestors) {
+        GroupGraph graph = groupGraphService.getGraph(groupId);
+        int start = graph.ordinalOf(personId);
+        if (start < 0) {
+            throw new RuntimeException("人物不存在");
+        }
 
-            if (currentDistance >= depth) {
+        // 单方向 BFS，每个人物只输出一次
+        GroupGraph.Adjacency adjacency = ancestors ? graph.parents() : graph.children();
+        int n = graph.size();
+        int[] personGeneration = new int[n];
+        boolean[] seen = new boolean[n];
+        int[] queue = new int[n];
+        seen[start] = true;
+        queue[0] = start;
+        int size = 1;
+        for (int head = 0; head < size; head++) {
+            int current = queue[head];
+            if (Math.abs(personGeneration[current]) >= generations) {
                 continue;
             }
+            for (int i = adjacency.start(current); i < adjacency.end(current); i++) {
+                int related = adjacency.target(i);
+                if (!seen[related]) {
+                    seen[related] = true;
+                    personGeneration[related] = personGeneration[current] + (ancestors ? -1 : 1);
+                    queue[size++] = related;
+                }
+            }
+        }
 
-            // 找到所有相关关系
-            for (Relationship rel : allRelationships) {
-                RelationStep step = resolveRelationStep(currentId, rel);
-                if (step == null) {
-                    continue;
+        int[] order = ancestors ? queue : Arrays.copyOfRange(queue, 1, size);
+        int count = ancestors ? size : size - 1;
+        TreeStreamEvent header = TreeStreamEvent.builder()
+            .type(TreeStreamEvent.Type.HEADER)
+            .groupId(groupId)
+            .focusPersonId(personId)
+            .depth(generations)
+            .build();
+        GroupGraph.Adjacency[] edgeAdjacencies = {graph.parents(), graph.children()};
+        return nodeStream(header, groupId, graph, order, count, personGeneration, null, edgeAdjacencies);
+    }
+
+    /**
+     * 按批次加载并输出人物；每个人物输出后，输出其与已输出人物之间的关系，
+     * 因此每条关系恰好在其后出现的一端输出一次
+     */
+    private TreeStream nodeStream(TreeStreamEvent header, UUID groupId, GroupGraph graph, int[] order, int count,
+                                  int[] personGeneration, byte[] lineage, GroupGraph.Adjacency[] edgeAdjacencies) {
+        return sink -> {
+            sink.accept(header);
+            boolean[] emitted = new boolean[graph.size()];
+            int nodeCount = 0;
+            int edgeCount = 0;
+
+            for (int from = 0; from < count; from += STREAM_BATCH_SIZE) {
+                int to = Math.min(count, from + STREAM_BATCH_SIZE);
+                List<UUID> batchIds = new ArrayList<>(to - from);
+                for (int i = from; i < to; i++) {
+                    batchIds.add(graph.personId(order[i]));
                 }
+                Map<UUID, PersonNodeView> personViews = personNodeLoader.load(groupId, batchIds);
 
-                UUID relatedId = step.relatedPersonId();
-                if (!personDistance.containsKey(relatedId)) {
-                    personDistance.put(relatedId, currentDistance + 1);
-                    personGeneration.put(relatedId, currentGeneration + step.generationDelta());
-                    personIds.add(relatedId);
-                    queue.offer(relatedId);
+                for (int i = from; i < to; i++) {
+                    int v = order[i];
+                    PersonNodeView person = personViews.get(graph.personId(v));
+                    if (person == null) {
+                        continue;
+                    }
+                    LineageType lineageType = lineage != null
+                        ? lineageCalculator.lineageOf(lineage, v) : LineageType.UNKNOWN;
+                    PersonNodeDTO node = toNodeDTO(person, personGeneration[v], 0, 0, lineageType);
+                    // 流式输出时没有完整的节点集合，无法计算布局
+                    node.setX(null);
+                    node.setY(null);
+                    sink.accept(TreeStreamEvent.builder().type(TreeStreamEvent.Type.NODE).node(node).build());
+                    emitted[v] = true;
+                    nodeCount++;
+
+                    for (GroupGraph.Adjacency adjacency : edgeAdjacencies) {
+                        for (int a = adjacency.start(v); a < adjacency.end(v); a++) {
+                            if (emitted[adjacency.target(a)]) {
+                                RelationshipEdgeDTO edge = toEdgeDTO(graph, adjacency.edge(a));
+                                sink.accept(TreeStreamEvent.builder().type(TreeStreamEvent.Type.EDGE).edge(edge).build());
+                                edgeCount++;
+                            }
+                        }
+                    }
                 }
             }
+
+            sink.accept(endEvent(nodeCount, edgeCount));
+        };
+    }
+
+    private TreeStreamEvent endEvent(int nodeCount, int edgeCount) {
+        return TreeStreamEvent.builder()
+            .type(TreeStreamEvent.Type.END)
+            .nodeCount(nodeCount)
+            .edgeCount(edgeCount)
+            .build();
+    }
+
+    /**
+     * 在数据库中完成有界邻域遍历，只取回可达人物及其之间的关系，再在该子图上完成布局与组装
+     */
+    private TreeViewDTO getTreeViewFromDatabase(UUID groupId, UUID focusPersonId, int depth, LineageType lineageFilter,
+                                                Integer maxNodes) {
+        List<NeighborhoodRow> rows = relationshipRepository.findNeighborhood(groupId, focusPersonId, depth);
+        // 结果按距离排序，第一行应为焦点人物本身
+        if (rows.isEmpty() || rows.get(0).getDistance() != 0) {
+            throw new RuntimeException("焦点人物不存在");
+        }
+
+        List<Relationship> relationships = new ArrayList<>();
+        for (NeighborhoodRow row : rows) {
+            if (row.getEdgeId() != null) {
+                relationships.add(Relationship.builder()
+                    .id(row.getEdgeId())
+                    .groupId(groupId)
+                    .fromPersonId(row.getId())
+                    .toPersonId(row.getToPersonId())
+                    .type(Relationship.RelationshipType.valueOf(row.getEdgeType()))
+                    .build());
+            }
         }
 
-        // 获取所有人物信息
-        List<Person> persons = personRepository.findAllById(personIds);
+        // 子图内的人物序号按距离顺序分配，直接作为访问顺序
+        GroupGraph subgraph = GroupGraph.build(groupId, rows, relationships);
+        int n = subgraph.size();
+        int[] personGeneration = new int[n];
+        int[] visited = new int[n];
+        for (NeighborhoodRow row : rows) {
+            personGeneration[subgraph.ordinalOf(row.getId())] = row.getGeneration();
+        }
+        for (int v = 0; v < n; v++) {
+            visited[v] = v;
+        }
 
-        // 构建性别映射（用于血统线计算）
-        Map<UUID, Person.Gender> genderMap = persons.stream()
-            .collect(Collectors.toMap(Person::getId, p -> p.getGender() != null ? p.getGender() : Person.Gender.UNKNOWN));
+        // 子图内没有整图遍历过程，血统线单独在子图上计算
+        int focus = subgraph.ordinalOf(focusPersonId);
+        return assembleTreeView(groupId, subgraph, focus, visited, n, personGeneration,
+            lineageCalculator.calculateLineage(focus, subgraph), depth, lineageFilter, maxNodes);
+    }
 
-        // 计算血统线
-        Map<UUID, LineageType> lineageMap = lineageCalculator.calculateLineageMap(
-            focusPersonId, allRelationships, genderMap);
+    /**
+     * 根据遍历结果与血统线筛选、加载人物、布局并构建节点与边
+     *
+     * @param visited          已访问人物序号（按访问顺序，即与焦点的距离非降），前 visitedCount 个有效
+     * @param personGeneration 按人物序号索引的代际
+     * @param lineage          按人物序号索引的血统线
+     * @param maxNodes         节点数上限，为空表示不限
+     */
+    private TreeViewDTO assembleTreeView(UUID groupId, GroupGraph graph, int focus,
+                                         int[] visited, int visitedCount, int[] personGeneration,
+                                         byte[] lineage, int depth, LineageType lineageFilter, Integer maxNodes) {
+        int n = graph.size();
+        UUID focusPersonId = graph.personId(focus);
 
-        // 根据血统线筛选人物（如果指定了筛选条件）
-        final Set<UUID> filteredPersonIds;
-        if (lineageFilter != null && lineageFilter != LineageType.UNKNOWN) {
-            filteredPersonIds = lineageCalculator.filterByLineage(
-                new HashSet<>(personIds), lineageMap, lineageFilter);
-            persons = persons.stream()
-                .filter(p -> filteredPersonIds.contains(p.getId()))
-                .collect(Collectors.toList());
-        } else {
-            filteredPersonIds = new HashSet<>(personIds);
+        // 根据血统线筛选人物（如果指定了筛选条件）；超出节点上限的人物按访问顺序截断，记为省略
+        boolean filterByLineage = lineageFilter != null && lineageFilter != LineageType.UNKNOWN;
+        int budget = maxNodes != null ? Math.max(1, maxNodes) : Integer.MAX_VALUE;
+        boolean[] included = new boolean[n];
+        boolean[] omitted = new boolean[n];
+        boolean truncated = false;
+        List<UUID> personIds = new ArrayList<>(Math.min(visitedCount, budget));
+        for (int i = 0; i < visitedCount; i++) {
+            int v = visited[i];
+            if (!filterByLineage
+                    || lineageCalculator.matchesLineage(lineageCalculator.lineageOf(lineage, v), lineageFilter)) {
+                if (personIds.size() < budget) {
+                    included[v] = true;
+                    personIds.add(graph.personId(v));
+                } else {
+                    omitted[v] = true;
+                    truncated = true;
+                }
+            }
+        }
+
+        // 一次查询获取所有人物信息及主照片
+        Map<UUID, PersonNodeView> personViews = personNodeLoader.load(groupId, personIds);
+        PersonNodeView focusPerson = personViews.get(focusPersonId);
+        if (focusPerson == null) {
+            throw new RuntimeException("焦点人物不存在");
         }
+        List<PersonNodeView> persons = new ArrayList<>(personViews.values());
 
-        // 按代分组并排序（用于布局计算）
-        Map<Integer, List<Person>> personsByGeneration = persons.stream()
-            .collect(Collectors.groupingBy(p -> personGeneration.getOrDefault(p.getId(), 0)));
+        // 计算节点X坐标（Y坐标由代际决定）
+        double[] xCoordinates = treeLayoutEngine.layout(graph, persons, personGeneration);
 
-        // 计算节点坐标
-        Map<UUID, double[]> coordinates = calculateTreeLayout(personsByGeneration, personGeneration, allRelationships);
+        // 沿访问顺序一次性计算称谓（关系链经过筛选掉的人物时，其出生日期未加载，按长幼未知处理）
+        String[] kinshipTerms = kinshipTermCalculator.assignTerms(graph, focus, visited, visitedCount, v -> {
+            PersonNodeView person = personViews.get(graph.personId(v));
+            return person != null ? person.getBirthDate() : null;
+        });
 
-        // 构建节点（包含坐标和血统线信息）
+        // 构建节点（包含坐标、血统线和称谓）
         List<PersonNodeDTO> nodes = persons.stream()
-            .map(p -> toNodeDTO(
-                p,
-                personGeneration.getOrDefault(p.getId(), 0),
-                coordinates.getOrDefault(p.getId(), new double[]{0, 0}),
-                lineageMap.getOrDefault(p.getId(), LineageType.UNKNOWN)))
+            .map(p -> {
+                int v = graph.ordinalOf(p.getId());
+                PersonNodeDTO node = toNodeDTO(
+                    p,
+                    personGeneration[v],
+                    xCoordinates[v],
+                    personGeneration[v] * TreeLayoutEngine.VERTICAL_SPACING,
+                    lineageCalculator.lineageOf(lineage, v));
+                node.setKinshipTerm(kinshipTerms[v]);
+                return node;
+            })
             .collect(Collectors.toList());
 
         // 构建边（只包含在筛选后的人物集合内的关系）
-        List<RelationshipEdgeDTO> edges = allRelationships.stream()
-            .filter(r -> filteredPersonIds.contains(r.getFromPersonId())
-                && filteredPersonIds.contains(r.getToPersonId()))
-            .map(this::toEdgeDTO)
-            .collect(Collectors.toList());
+        // 每条边只在其 from 端收集一次，避免扫描整个家族的关系
+        List<RelationshipEdgeDTO> edges = new ArrayList<>();
+        for (int i = 0; i < visitedCount; i++) {
+            int v = visited[i];
+            if (!included[v]) {
+                continue;
+            }
+            collectEdges(graph, graph.parents(), v, included, edges);
+            collectEdges(graph, graph.children(), v, included, edges);
+            collectEdges(graph, graph.spouses(), v, included, edges);
+            collectEdges(graph, graph.siblings(), v, included, edges);
+        }
+
+        List<CollapsedNodeDTO> collapsedNodes = truncated
+            ? collapseOmitted(graph, visited, visitedCount, included, omitted, personGeneration, xCoordinates, personViews)
+            : new ArrayList<>();
 
         return TreeViewDTO.builder()
             .focusPersonId(focusPersonId)
@@ -144,181 +824,264 @@ public class FamilyTreeService {
             .filterLineageType(lineageFilter)
             .nodes(nodes)
             .edges(edges)
+            .maxNodes(maxNodes)
+            .collapsedNodes(collapsedNodes)
             .build();
     }
 
     /**
-     * 计算树形布局坐标
-     * 使用分层布局：祖先在上，后代在下
-     *
-     * @param personsByGeneration 按代分组的人物
-     * @param personGeneration    人物代际映射
-     * @param relationships       所有关系
-     * @return 人物ID到坐标的映射 [x, y]
+     * 为每个可见人物在父母、子女、配偶/兄弟姐妹三个方向上各生成至多一个折叠节点，
+     * 汇总该方向上被省略的直接亲属；后代/祖先总数取自人物上随闭包维护的计数
      */
-    private Map<UUID, double[]> calculateTreeLayout(
-            Map<Integer, List<Person>> personsByGeneration,
-            Map<UUID, Integer> personGeneration,
-            List<Relationship> relationships) {
-
-        Map<UUID, double[]> coordinates = new HashMap<>();
-
-        // 水平间距和垂直间距
-        final double HORIZONTAL_SPACING = 120.0;
-        final double VERTICAL_SPACING = 150.0;
-
-        // 找到最大深度
-        int maxDepth = personGeneration.values().stream().max(Integer::compare).orElse(0);
-        int minDepth = personGeneration.values().stream().min(Integer::compare).orElse(0);
+    private List<CollapsedNodeDTO> collapseOmitted(GroupGraph graph, int[] visited, int visitedCount,
+                                                   boolean[] included, boolean[] omitted, int[] personGeneration,
+                                                   double[] xCoordinates, Map<UUID, PersonNodeView> personViews) {
+        GroupGraph.Adjacency[][] directions = {
+            {graph.parents()}, {graph.children()}, {graph.spouses(), graph.siblings()}
+        };
+        CollapseDirection[] directionTypes = CollapseDirection.values();
+        int[] generationDeltas = {-1, 1, 0};
 
-        // 构建关系映射（用于查找父子关系）
-        Map<UUID, List<UUID>> parentToChildren = new HashMap<>();
-        Map<UUID, List<UUID>> childToParents = new HashMap<>();
-
-        for (Relationship rel : relationships) {
-            if (rel.getType() == Relationship.RelationshipType.PARENT) {
-                // PARENT 关系：from = 父母, to = 子女
-                parentToChildren.computeIfAbsent(rel.getFromPersonId(), k -> new ArrayList<>())
-                    .add(rel.getToPersonId());
-                childToParents.computeIfAbsent(rel.getToPersonId(), k -> new ArrayList<>())
-                    .add(rel.getFromPersonId());
+        List<CollapsedNodeDTO> collapsedNodes = new ArrayList<>();
+        for (int i = 0; i < visitedCount; i++) {
+            int v = visited[i];
+            if (!included[v]) {
+                continue;
             }
-        }
-
-        // 从最深的一代开始向上计算位置
-        for (int gen = maxDepth; gen >= minDepth; gen--) {
-            List<Person> generationPersons = personsByGeneration.getOrDefault(gen, new ArrayList<>());
-
-            if (generationPersons.isEmpty()) {
+            PersonNodeView anchor = personViews.get(graph.personId(v));
+            if (anchor == null) {
                 continue;
             }
-
-            // 按出生日期排序（年龄大的在左）
-            generationPersons.sort(Comparator
-                .comparing(Person::getBirthDate, Comparator.nullsLast(Comparator.naturalOrder()))
-                .thenComparing(Person::getId));
-
-            int count = generationPersons.size();
-
-            for (int i = 0; i < count; i++) {
-                Person person = generationPersons.get(i);
-                double x, y;
-
-                // 计算Y坐标（基于generation，焦点人物generation=0）
-                y = gen * VERTICAL_SPACING;
-
-                // 计算X坐标
-                List<UUID> children = parentToChildren.getOrDefault(person.getId(), new ArrayList<>());
-                List<UUID> parents = childToParents.getOrDefault(person.getId(), new ArrayList<>());
-
-                if (!children.isEmpty()) {
-                    // 有子女：X坐标为子女们的中点
-                    double childrenXSum = 0;
-                    int validChildren = 0;
-                    for (UUID childId : children) {
-                        if (coordinates.containsKey(childId)) {
-                            childrenXSum += coordinates.get(childId)[0];
-                            validChildren++;
+            for (int d = 0; d < directions.length; d++) {
+                int hidden = 0;
+                for (GroupGraph.Adjacency adjacency : directions[d]) {
+                    for (int a = adjacency.start(v); a < adjacency.end(v); a++) {
+                        if (omitted[adjacency.target(a)]) {
+                            hidden++;
                         }
                     }
-                    if (validChildren > 0) {
-                        x = childrenXSum / validChildren;
-                    } else {
-                        x = (i - (count - 1) / 2.0) * HORIZONTAL_SPACING;
-                    }
-                } else if (!parents.isEmpty()) {
-                    // 有父母但没有子女：以父母X坐标中心为锚点做轻微分散
-                    double parentX = parents.stream()
-                        .filter(coordinates::containsKey)
-                        .mapToDouble(parentId -> coordinates.get(parentId)[0])
-                        .average()
-                        .orElse(Double.NaN);
-
-                    if (!Double.isNaN(parentX)) {
-                        double offset = (i - (count - 1) / 2.0) * HORIZONTAL_SPACING * 0.6;
-                        x = parentX + offset;
-                    } else {
-                        x = (i - (count - 1) / 2.0) * HORIZONTAL_SPACING;
-                    }
-                } else {
-                    // 没有关联关系：均匀分布
-                    x = (i - (count - 1) / 2.0) * HORIZONTAL_SPACING;
                 }
-
-                coordinates.put(person.getId(), new double[]{x, y});
+                if (hidden == 0) {
+                    continue;
+                }
+                int generation = personGeneration[v] + generationDeltas[d];
+                double x = directionTypes[d] == CollapseDirection.RELATIVES
+                    ? xCoordinates[v] + TreeLayoutEngine.HORIZONTAL_SPACING / 2
+                    : xCoordinates[v];
+                collapsedNodes.add(CollapsedNodeDTO.builder()
+                    .id("collapsed:" + anchor.getId() + ":" + directionTypes[d])
+                    .anchorPersonId(anchor.getId())
+                    .direction(directionTypes[d])
+                    .hiddenCount(hidden)
+                    .descendantCount(anchor.getDescendantCount())
+                    .ancestorCount(anchor.getAncestorCount())
+                    .generation(generation)
+                    .x(x)
+                    .y(generation * TreeLayoutEngine.VERTICAL_SPACING)
+                    .build());
             }
-
-            // 处理同代人物之间的重叠（简单的防重叠调整）
-            adjustOverlappingNodes(generationPersons, coordinates, HORIZONTAL_SPACING);
         }
+        return collapsedNodes;
+    }
 
-        return coordinates;
+    private void collectEdges(GroupGraph graph, GroupGraph.Adjacency adjacency, int person,
+                              boolean[] included, List<RelationshipEdgeDTO> edges) {
+        for (int i = adjacency.start(person); i < adjacency.end(person); i++) {
+            int edge = adjacency.edge(i);
+            if (graph.edgeFrom(edge) == person && included[adjacency.target(i)]) {
+                edges.add(toEdgeDTO(graph, edge));
+            }
+        }
     }
 
     /**
-     * 调整同代人物之间的重叠
+     * 获取两人之间步数最少的关系路径（在关系图索引上双向 BFS）
      */
-    private void adjustOverlappingNodes(List<Person> persons, Map<UUID, double[]> coordinates, double minSpacing) {
-        if (persons.size() <= 1) return;
+    @Transactional(readOnly = true)
+    public RelationshipPathDTO getRelationshipPath(UUID groupId, UUID fromPersonId, UUID toPersonId) {
+        GroupGraph graph = groupGraphService.getGraph(groupId);
+        int from = graph.ordinalOf(fromPersonId);
+        int to = graph.ordinalOf(toPersonId);
+        if (from < 0 || to < 0) {
+            throw new RuntimeException("人物不存在");
+        }
 
-        // 按X坐标排序
-        List<Person> sorted = new ArrayList<>(persons);
-        sorted.sort(Comparator.comparingDouble(p -> coordinates.get(p.getId())[0]));
+        RelationshipPathFinder.Path path = relationshipPathFinder.findPath(graph, from, to);
+        if (path == null) {
+            return RelationshipPathDTO.builder()
+                .groupId(groupId)
+                .fromPersonId(fromPersonId)
+                .toPersonId(toPersonId)
+                .found(false)
+                .persons(List.of())
+                .steps(List.of())
+                .build();
+        }
 
-        double originalCenterX = sorted.stream()
-            .mapToDouble(p -> coordinates.get(p.getId())[0])
-            .average()
-            .orElse(0.0);
+        int[] persons = path.persons();
+        List<UUID> personIds = new ArrayList<>(persons.length);
+        for (int v : persons) {
+            personIds.add(graph.personId(v));
+        }
+        Map<UUID, PersonNodeView> personViews = personNodeLoader.load(groupId, personIds);
 
-        // 顺序约束：保证任意相邻节点最小间距 >= minSpacing
-        for (int i = 1; i < sorted.size(); i++) {
-            Person prev = sorted.get(i - 1);
-            Person curr = sorted.get(i);
+        List<PersonNodeDTO> nodes = new ArrayList<>(persons.length);
+        List<RelationshipPathDTO.PathStepDTO> steps = new ArrayList<>(persons.length - 1);
+        int generation = 0;
+        for (int k = 0; k < persons.length; k++) {
+            if (k > 0) {
+                Relationship.RelationshipType type = RelationshipPathFinder.STEP_TYPES[path.steps()[k - 1]];
+                if (type == Relationship.RelationshipType.PARENT) {
+                    generation--;
+                } else if (type == Relationship.RelationshipType.CHILD) {
+                    generation++;
+                }
+                steps.add(RelationshipPathDTO.PathStepDTO.builder()
+                    .fromPersonId(personIds.get(k - 1))
+                    .toPersonId(personIds.get(k))
+                    .relationshipId(graph.edgeId(path.edges()[k - 1]))
+                    .type(type)
+                    .build());
+            }
+            PersonNodeView person = personViews.get(personIds.get(k));
+            if (person != null) {
+                nodes.add(toNodeDTO(person, generation, 0, 0,
+                    k == 0 ? LineageType.SELF : LineageType.UNKNOWN));
+            }
+        }
+
+        return RelationshipPathDTO.builder()
+            .groupId(groupId)
+            .fromPersonId(fromPersonId)
+            .toPersonId(toPersonId)
+            .found(true)
+            .length(steps.size())
+            .persons(nodes)
+            .steps(steps)
+            .build();
+    }
 
-            double prevX = coordinates.get(prev.getId())[0];
-            double currX = coordinates.get(curr.getId())[0];
+    /**
+     * 获取两人的最近共同祖先及堂表亲等级（B 相对于 A）
+     * 基于按家族版本缓存的关系图索引，家族变化后下次查询自动使用新版本
+     */
+    @Transactional(readOnly = true)
+    public KinshipDTO getKinship(UUID groupId, UUID personAId, UUID personBId) {
+        GroupGraph graph = groupGraphService.getGraph(groupId);
+        int a = graph.ordinalOf(personAId);
+        int b = graph.ordinalOf(personBId);
+        if (a < 0 || b < 0) {
+            throw new RuntimeException("人物不存在");
+        }
 
-            if (currX - prevX < minSpacing) {
-                coordinates.get(curr.getId())[0] = prevX + minSpacing;
-            }
+        KinshipCalculator.Kinship kinship = kinshipCalculator.find(graph, a, b);
+        if (kinship == null) {
+            return KinshipDTO.builder()
+                .groupId(groupId)
+                .personAId(personAId)
+                .personBId(personBId)
+                .type(KinshipType.NONE)
+                .commonAncestors(List.of())
+                .build();
         }
 
-        // 回调到原中心点，避免整层向单侧漂移
-        double adjustedCenterX = sorted.stream()
-            .mapToDouble(p -> coordinates.get(p.getId())[0])
-            .average()
-            .orElse(0.0);
-        double recenterShift = originalCenterX - adjustedCenterX;
-        if (Math.abs(recenterShift) > 1e-6) {
-            for (Person person : sorted) {
-                coordinates.get(person.getId())[0] += recenterShift;
+        int[] common = kinship.commonAncestors();
+        List<UUID> commonIds = new ArrayList<>(common.length);
+        for (int v : common) {
+            commonIds.add(graph.personId(v));
+        }
+        Map<UUID, PersonNodeView> personViews = personNodeLoader.load(groupId, commonIds);
+        List<PersonNodeDTO> commonAncestors = new ArrayList<>(common.length);
+        for (UUID commonId : commonIds) {
+            PersonNodeView person = personViews.get(commonId);
+            if (person != null) {
+                commonAncestors.add(toNodeDTO(person, -kinship.distanceA(), 0, 0, LineageType.UNKNOWN));
             }
         }
+
+        boolean lineal = kinship.distanceA() == 0 || kinship.distanceB() == 0;
+        return KinshipDTO.builder()
+            .groupId(groupId)
+            .personAId(personAId)
+            .personBId(personBId)
+            .type(kinshipType(kinship.distanceA(), kinship.distanceB()))
+            .commonAncestors(commonAncestors)
+            .distanceA(kinship.distanceA())
+            .distanceB(kinship.distanceB())
+            .cousinDegree(lineal ? null : kinship.cousinDegree())
+            .removal(kinship.removal())
+            .build();
     }
-    
+
+    private KinshipType kinshipType(int distanceA, int distanceB) {
+        if (distanceA == 0 && distanceB == 0) {
+            return KinshipType.SELF;
+        } else if (distanceB == 0) {
+            return KinshipType.ANCESTOR;
+        } else if (distanceA == 0) {
+            return KinshipType.DESCENDANT;
+        } else if (distanceA == 1 && distanceB == 1) {
+            return KinshipType.SIBLING;
+        } else if (distanceB == 1) {
+            return KinshipType.ANCESTOR_SIBLING;
+        } else if (distanceA == 1) {
+            return KinshipType.SIBLING_DESCENDANT;
+        }
+        return KinshipType.COUSIN;
+    }
+
+    /**
+     * 获取祖先（含本人），最多 generations 代；同一祖先经多条支系出现时只返回一次，代数取最近的一支（父母为 -1）
+     */
     @Transactional(readOnly = true)
-    public List<PersonNodeDTO> getAncestors(UUID personId, int generations) {
-        List<Person> ancestors = personRepository.findAncestorsWithPath(personId);
+    public List<PersonNodeDTO> getAncestors(UUID groupId, UUID personId, int generations) {
+        List<LinealRow> ancestors = personClosureRepository.findAncestors(groupId, personId, generations);
 
-        return ancestors.stream()
-            .map(p -> toNodeDTO(p, 0, new double[]{0, 0}, LineageType.UNKNOWN))
-            .collect(Collectors.toList());
+        return toNodeDTOs(groupId, ancestors, -1);
+    }
+
+    /**
+     * 获取后代（不含本人），最多 generations 代；每人只返回一次，代数取最近的一支（子女为 +1）
+     */
+    @Transactional(readOnly = true)
+    public List<PersonNodeDTO> getDescendants(UUID groupId, UUID personId, int generations) {
+        List<LinealRow> descendants = personClosureRepository.findDescendants(groupId, personId, generations);
+
+        return toNodeDTOs(groupId, descendants, 1);
     }
 
+    /**
+     * 判断 ancestorId 是否为 personId 的祖先
+     *
+     * @return 相隔代数（父母为 1），不是祖先时为空
+     */
     @Transactional(readOnly = true)
-    public List<PersonNodeDTO> getDescendants(UUID personId, int generations) {
-        List<Person> descendants = personRepository.findDescendants(personId, generations);
+    public Optional<Integer> getAncestorDistance(UUID groupId, UUID ancestorId, UUID personId) {
+        return personClosureRepository.findDistance(groupId, ancestorId, personId);
+    }
 
-        return descendants.stream()
-            .map(p -> toNodeDTO(p, 0, new double[]{0, 0}, LineageType.UNKNOWN))
+    /**
+     * 按递归查询返回的顺序批量构建节点（主照片一次性加载）
+     *
+     * @param direction 代数符号：祖先为 -1，后代为 1
+     */
+    private List<PersonNodeDTO> toNodeDTOs(UUID groupId, List<LinealRow> rows, int direction) {
+        List<UUID> personIds = rows.stream()
+            .map(LinealRow::getPersonId)
             .collect(Collectors.toList());
+        Map<UUID, PersonNodeView> personViews = personNodeLoader.load(groupId, personIds);
+
+        List<PersonNodeDTO> nodes = new ArrayList<>(rows.size());
+        for (LinealRow row : rows) {
+            PersonNodeView person = personViews.get(row.getPersonId());
+            if (person != null) {
+                nodes.add(toNodeDTO(person, direction * row.getGeneration(), 0, 0, LineageType.UNKNOWN));
+            }
+        }
+        return nodes;
     }
     
-    private PersonNodeDTO toNodeDTO(Person person, int generation, double[] coords, LineageType lineageType) {
-        String primaryPhotoUrl = photoRepository.findByPersonIdAndIsPrimaryTrue(person.getId())
-            .map(Photo::getUrl)
-            .orElse(null);
-
+    private PersonNodeDTO toNodeDTO(PersonNodeView person, int generation, double x, double y, LineageType lineageType) {
         return PersonNodeDTO.builder()
             .id(person.getId())
             .firstName(person.getFirstName())
@@ -327,47 +1090,21 @@ public class FamilyTreeService {
             .gender(person.getGender())
             .birthDate(person.getBirthDate())
             .deathDate(person.getDeathDate())
-            .primaryPhotoUrl(primaryPhotoUrl)
+            .primaryPhotoUrl(person.getPrimaryPhotoUrl())
             .generation(generation)
-            .x(coords[0])
-            .y(coords[1])
+            .absoluteGeneration(person.getAbsoluteGeneration())
+            .x(x)
+            .y(y)
             .lineageType(lineageType)
             .build();
     }
     
-    private RelationshipEdgeDTO toEdgeDTO(Relationship relationship) {
+    private RelationshipEdgeDTO toEdgeDTO(GroupGraph graph, int edge) {
         return RelationshipEdgeDTO.builder()
-            .id(relationship.getId())
-            .fromPersonId(relationship.getFromPersonId())
-            .toPersonId(relationship.getToPersonId())
-            .type(relationship.getType())
+            .id(graph.edgeId(edge))
+            .fromPersonId(graph.personId(graph.edgeFrom(edge)))
+            .toPersonId(graph.personId(graph.edgeTo(edge)))
+            .type(graph.edgeType(edge))
             .build();
     }
-
-    /**
-     * 解析 currentId 在一条关系边上的“相邻节点 + 代际变化”。
-     * 代际定义：焦点人物为 0，父母 -1，子女 +1，配偶/兄弟姐妹 0。
-     */
-    private RelationStep resolveRelationStep(UUID currentId, Relationship rel) {
-        boolean isFrom = rel.getFromPersonId().equals(currentId);
-        boolean isTo = rel.getToPersonId().equals(currentId);
-        if (!isFrom && !isTo) {
-            return null;
-        }
-
-        UUID relatedId = isFrom ? rel.getToPersonId() : rel.getFromPersonId();
-        int delta = 0;
-
-        if (rel.getType() == Relationship.RelationshipType.PARENT) {
-            // PARENT: from=父母, to=子女
-            delta = isFrom ? 1 : -1;
-        } else if (rel.getType() == Relationship.RelationshipType.CHILD) {
-            // CHILD: from=子女, to=父母（兼容历史数据）
-            delta = isFrom ? -1 : 1;
-        }
-
-        return new RelationStep(relatedId, delta);
-    }
-
-    private record RelationStep(UUID relatedPersonId, int generationDelta) {}
 }
@@ -0,0 +1,117 @@
+package com.familytree.application.service;
+
+import com.familytree.domain.ChangeSet;
+import com.familytree.domain.GroupChange;
+import com.familytree.infrastructure.repository.GroupChangeRepository;
+import com.familytree.infrastructure.repository.GroupRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * 家族变更日志
+ * 写入方在同一事务内记录本次涉及的人物/关系及其新版本，树视图增量接口和按版本缓存的姓名索引据此计算差异
+ */
+@Component
+@RequiredArgsConstructor
+public class GroupChangeLog {
+
+    private final GroupRepository groupRepository;
+    private final GroupChangeRepository groupChangeRepository;
+
+    /**
+     * 直接写入（非合并请求）：递增家族版本和结构版本并记录变更
+     * 用于人物增删、关系增删，以及修改性别、出生日期等影响关系图索引或整体布局的写入
+     *
+     * @return 变更后的家族版本
+     */
+    public int recordDirectWrite(UUID groupId, List<Entry> entries) {
+        int version = recordContentWrite(groupId, entries);
+        groupRepository.markStructureChanged(groupId);
+        return version;
+    }
+
+    /**
+     * 直接写入且不影响家族结构（如只修改姓名、卒年、出生地）：只递增家族版本并记录变更，
+     * 按结构版本缓存的关系图索引和整体布局继续有效
+     *
+     * @return 变更后的家族版本
+     */
+    public int recordContentWrite(UUID groupId, List<Entry> entries) {
+        groupRepository.incrementVersion(groupId);
+        int version = groupRepository.findVersionById(groupId)
+            .orElseThrow(() -> new RuntimeException("家族不存在"));
+        record(groupId, version, entries);
+        return version;
+    }
+
+    /**
+     * 记录已由调用方完成版本递增的变更（如合并请求）
+     */
+    public void record(UUID groupId, int version, List<Entry> entries) {
+        List<GroupChange> changes = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            changes.add(GroupChange.builder()
+                .groupId(groupId)
+                .version(version)
+                .entityType(entry.entityType())
+                .entityId(entry.entityId())
+                .actionType(entry.actionType())
+                .build());
+        }
+        groupChangeRepository.saveAll(changes);
+    }
+
+    /**
+     * 读取 sinceVersion 之后的全部变更（按版本升序）
+     *
+     * @param maxChanges 允许的最大变更条数
+     * @return 日志缺少 sinceVersion 之后的部分版本（未记录或已清理）或变更超过 maxChanges 条时返回空
+     */
+    public Optional<List<GroupChange>> findChangesSince(UUID groupId, int sinceVersion, int maxChanges) {
+        boolean historyAvailable = groupChangeRepository.findMinVersionByGroupId(groupId)
+            .map(minVersion -> minVersion <= sinceVersion + 1)
+            .orElse(false);
+        if (!historyAvailable) {
+            return Optional.empty();
+        }
+        List<GroupChange> changes = groupChangeRepository.findSinceVersion(
+            groupId, sinceVersion, PageRequest.of(0, maxChanges + 1));
+        return changes.size() > maxChanges ? Optional.empty() : Optional.of(changes);
+    }
+
+    /**
+     * sinceVersion 之后新增、修改或删除过的人物ID（按首次变化的顺序）
+     *
+     * @return 历史不完整或变更超过 maxChanges 条时返回空，调用方应整体重新加载
+     */
+    public Optional<Set<UUID>> findChangedPersonIds(UUID groupId, int sinceVersion, int maxChanges) {
+        return findChangesSince(groupId, sinceVersion, maxChanges).map(GroupChangeLog::personIds);
+    }
+
+    /**
+     * 变更中涉及的人物ID（按首次出现的顺序）
+     */
+    public static Set<UUID> personIds(List<GroupChange> changes) {
+        Set<UUID> personIds = new LinkedHashSet<>();
+        for (GroupChange change : changes) {
+            if (change.getEntityType() == ChangeSet.EntityType.PERSON) {
+                personIds.add(change.getEntityId());
+            }
+        }
+        return personIds;
+    }
+
+    public record Entry(ChangeSet.EntityType entityType, UUID entityId, ChangeSet.ActionType actionType) {
+
+        public static Entry person(UUID personId, ChangeSet.ActionType actionType) {
+            return new Entry(ChangeSet.EntityType.PERSON, personId, actionType);
+        }
+
+        public static Entry relationship(UUID relationshipId, ChangeSet.ActionType actionType) {
+            return new Entry(ChangeSet.EntityType.RELATIONSHIP, relationshipId, actionType);
+        }
+    }
+}
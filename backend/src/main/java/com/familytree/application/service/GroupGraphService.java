@@ -0,0 +1,109 @@
+package com.familytree.application.service;
+
+import com.familytree.application.graph.GroupGraph;
+import com.familytree.infrastructure.cache.BoundedLruCache;
+import com.familytree.infrastructure.repository.GroupRepository;
+import com.familytree.infrastructure.repository.PersonRepository;
+import com.familytree.infrastructure.repository.RelationshipRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 家族关系图索引缓存
+ * 每个家族只构建一次邻接索引，供树视图遍历、布局和血统线计算共享；
+ * 索引记录构建时的家族结构版本，请求更高版本时重新加载，只修改姓名等字段不会使索引失效；
+ * 人物或关系发生变化时写入方还会调用 {@link #invalidate(UUID)} 立即失效
+ */
+@Component
+@RequiredArgsConstructor
+public class GroupGraphService {
+
+    private final GroupRepository groupRepository;
+    private final PersonRepository personRepository;
+    private final RelationshipRepository relationshipRepository;
+
+    private final Map<UUID, AtomicLong> stamps = new ConcurrentHashMap<>();
+
+    @Value("${familytree.graph-cache.max-groups:256}")
+    private int maxGroups;
+
+    // 按最近访问淘汰，超过容量的家族下次访问时重新加载
+    private BoundedLruCache<UUID, VersionedGraph> graphs;
+
+    @PostConstruct
+    public void init() {
+        graphs = new BoundedLruCache<>(maxGroups);
+    }
+
+    /**
+     * 获取家族当前结构版本的关系图索引
+     */
+    public GroupGraph getGraph(UUID groupId) {
+        int version = groupRepository.findStructureVersionById(groupId).orElse(0);
+        return getGraph(groupId, version);
+    }
+
+    /**
+     * 获取不低于指定结构版本的关系图索引，不存在或版本过旧时从数据库加载
+     *
+     * @param groupId    家族ID
+     * @param minVersion 调用方已读取到的家族结构版本
+     */
+    public GroupGraph getGraph(UUID groupId, int minVersion) {
+        VersionedGraph cached = graphs.get(groupId);
+        if (cached != null && cached.version() >= minVersion) {
+            return cached.graph();
+        }
+
+        // 记录加载前的失效戳，加载期间若发生失效则不缓存本次结果，避免旧数据回填
+        AtomicLong stamp = stamps.computeIfAbsent(groupId, k -> new AtomicLong());
+        long stampBeforeLoad = stamp.get();
+        GroupGraph graph = GroupGraph.build(groupId,
+            personRepository.findGraphViewsByGroupId(groupId),
+            relationshipRepository.findByGroupId(groupId));
+        VersionedGraph loaded = new VersionedGraph(graph, minVersion);
+
+        graphs.compute(groupId, (id, existing) -> {
+            if (stamp.get() != stampBeforeLoad) {
+                return existing;
+            }
+            return existing != null && existing.version() > minVersion ? existing : loaded;
+        });
+        return graph;
+    }
+
+    /**
+     * 失效家族关系图索引
+     * 立即失效一次，并在当前事务提交后再失效一次，保证提交前加载的旧索引不会残留
+     */
+    public void invalidate(UUID groupId) {
+        evict(groupId);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(groupId);
+                }
+            });
+        }
+    }
+
+    private void evict(UUID groupId) {
+        graphs.compute(groupId, (id, existing) -> {
+            stamps.computeIfAbsent(groupId, k -> new AtomicLong()).incrementAndGet();
+            return null;
+        });
+    }
+
+    private record VersionedGraph(GroupGraph graph, int version) {}
+}
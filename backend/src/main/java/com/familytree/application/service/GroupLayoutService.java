@@ -0,0 +1,255 @@
+package com.familytree.application.service;
+
+import com.familytree.application.graph.GroupGraph;
+import com.familytree.application.layout.GroupLayout;
+import com.familytree.application.layout.TreeLayoutEngine;
+import com.familytree.infrastructure.cache.BoundedLruCache;
+import com.familytree.infrastructure.repository.GroupRepository;
+import com.familytree.infrastructure.repository.PersonRepository;
+import com.familytree.infrastructure.repository.projection.PersonNodeView;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * 家族整体布局缓存
+ * 每个家族结构版本只计算一次整体布局并建立空间索引，供视口查询和全家族视图复用；
+ * 人物、关系增删或性别、出生日期修改会推进结构版本，请求更高版本时重新计算
+ */
+@Component
+@RequiredArgsConstructor
+public class GroupLayoutService {
+
+    // 相邻两块布局之间的水平间隙
+    private static final double COMPONENT_GAP = TreeLayoutEngine.HORIZONTAL_SPACING * 2;
+
+    // 每块布局的最小人数，小分量合并成块后再交给布局引擎，避免大量只有几个人的任务
+    private static final int MIN_CHUNK_SIZE = 256;
+
+    private final GroupRepository groupRepository;
+    private final PersonRepository personRepository;
+    private final GroupGraphService groupGraphService;
+    private final TreeLayoutEngine treeLayoutEngine;
+
+    private final ForkJoinPool layoutPool = ForkJoinPool.commonPool();
+
+    @Value("${familytree.layout-cache.max-groups:64}")
+    private int maxGroups;
+
+    // 按最近访问淘汰，超过容量的家族下次访问时重新计算
+    private BoundedLruCache<UUID, GroupLayout> layouts;
+
+    @PostConstruct
+    public void init() {
+        layouts = new BoundedLruCache<>(maxGroups);
+    }
+
+    /**
+     * 获取家族当前结构版本的整体布局
+     */
+    public GroupLayout getLayout(UUID groupId) {
+        int version = groupRepository.findStructureVersionById(groupId)
+            .orElseThrow(() -> new RuntimeException("家族不存在"));
+        return getLayout(groupId, version);
+    }
+
+    /**
+     * 获取不低于指定结构版本的家族整体布局
+     *
+     * @param groupId    家族ID
+     * @param minVersion 调用方已读取到的家族结构版本
+     */
+    public GroupLayout getLayout(UUID groupId, int minVersion) {
+        GroupLayout cached = layouts.get(groupId);
+        if (cached != null && cached.getVersion() >= minVersion) {
+            return cached;
+        }
+
+        GroupLayout layout = computeLayout(groupId, minVersion);
+        layouts.merge(groupId, layout, (existing, loaded) ->
+            existing.getVersion() > loaded.getVersion() ? existing : loaded);
+        return layout;
+    }
+
+    private GroupLayout computeLayout(UUID groupId, int version) {
+        GroupGraph graph = groupGraphService.getGraph(groupId, version);
+        int n = graph.size();
+        Components components = assignGenerations(graph);
+        int[] generation = components.generation();
+
+        // 只有仍存在的人物参与布局
+        List<PersonNodeView> persons = personRepository.findNodeViewsByGroupId(groupId);
+        PersonNodeView[] personOf = new PersonNodeView[n];
+        boolean[] placed = new boolean[n];
+        for (PersonNodeView person : persons) {
+            int v = graph.ordinalOf(person.getId());
+            if (v >= 0 && !placed[v]) {
+                placed[v] = true;
+                personOf[v] = person;
+            }
+        }
+
+        List<List<PersonNodeView>> chunks = chunkComponents(components, personOf);
+        double[] x = layoutChunks(graph, chunks, generation);
+        double[] y = new double[n];
+        for (int v = 0; v < n; v++) {
+            y[v] = generation[v] * TreeLayoutEngine.VERTICAL_SPACING;
+        }
+        return new GroupLayout(graph, version, placed, x, y, generation);
+    }
+
+    /**
+     * 把连通分量按人数从大到小分成若干块：大分量单独成块，小分量依次合并到块内人数达到下限；
+     * 块数大致为并行度的两倍，各块负载接近
+     */
+    private List<List<PersonNodeView>> chunkComponents(Components components, PersonNodeView[] personOf) {
+        int componentCount = components.componentCount();
+        Integer[] bySize = new Integer[componentCount];
+        for (int c = 0; c < componentCount; c++) {
+            bySize[c] = c;
+        }
+        Arrays.sort(bySize, Comparator.comparingInt(components::componentSize).reversed()
+            .thenComparingInt(c -> c));
+
+        int total = components.order().length;
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, total / (layoutPool.getParallelism() * 2) + 1);
+
+        List<List<PersonNodeView>> chunks = new ArrayList<>();
+        List<PersonNodeView> current = new ArrayList<>();
+        for (int c : bySize) {
+            for (int i = components.start()[c]; i < components.start()[c + 1]; i++) {
+                PersonNodeView person = personOf[components.order()[i]];
+                if (person != null) {
+                    current.add(person);
+                }
+            }
+            if (current.size() >= chunkSize) {
+                chunks.add(current);
+                current = new ArrayList<>();
+            }
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        return chunks;
+    }
+
+    /**
+     * 在 ForkJoinPool 上并行布局各块，再按块的顺序从左到右排开并整体居中到 0
+     */
+    private double[] layoutChunks(GroupGraph graph, List<List<PersonNodeView>> chunks, int[] generation) {
+        double[] x = new double[graph.size()];
+        if (chunks.isEmpty()) {
+            return x;
+        }
+
+        List<double[]> results = new ArrayList<>(chunks.size());
+        if (chunks.size() == 1) {
+            results.add(treeLayoutEngine.layout(graph, chunks.get(0), generation));
+        } else {
+            List<Callable<double[]>> tasks = new ArrayList<>(chunks.size());
+            for (List<PersonNodeView> chunk : chunks) {
+                tasks.add(() -> treeLayoutEngine.layout(graph, chunk, generation));
+            }
+            try {
+                for (Future<double[]> future : layoutPool.invokeAll(tasks)) {
+                    results.add(future.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("家族布局计算被中断", e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("家族布局计算失败", e.getCause());
+            }
+        }
+
+        double cursor = 0;
+        for (int k = 0; k < chunks.size(); k++) {
+            double[] chunkX = results.get(k);
+            double left = Double.POSITIVE_INFINITY;
+            double right = Double.NEGATIVE_INFINITY;
+            for (PersonNodeView person : chunks.get(k)) {
+                int v = graph.ordinalOf(person.getId());
+                left = Math.min(left, chunkX[v]);
+                right = Math.max(right, chunkX[v]);
+            }
+            double offset = cursor - left;
+            for (PersonNodeView person : chunks.get(k)) {
+                int v = graph.ordinalOf(person.getId());
+                x[v] = chunkX[v] + offset;
+            }
+            cursor = right + offset + COMPONENT_GAP;
+        }
+
+        double center = (cursor - COMPONENT_GAP) / 2;
+        for (List<PersonNodeView> chunk : chunks) {
+            for (PersonNodeView person : chunk) {
+                x[graph.ordinalOf(person.getId())] -= center;
+            }
+        }
+        return x;
+    }
+
+    /**
+     * 对每个连通分量做一次 BFS 分配代际（规则与树视图相同：父母 -1，子女 +1，配偶/兄弟姐妹 0），
+     * 再把每个分量的最上一代平移到 0，使各分量顶部对齐；同时记录各分量包含的人物
+     */
+    private Components assignGenerations(GroupGraph graph) {
+        int n = graph.size();
+        int[] generation = new int[n];
+        boolean[] visited = new boolean[n];
+        int[] order = new int[n];
+        int[] start = new int[n + 1];
+        int componentCount = 0;
+        int size = 0;
+        GroupGraph.Adjacency[] adjacencies = {graph.parents(), graph.children(), graph.spouses(), graph.siblings()};
+        int[] deltas = {-1, 1, 0, 0};
+
+        for (int root = 0; root < n; root++) {
+            if (visited[root]) {
+                continue;
+            }
+            int componentStart = size;
+            visited[root] = true;
+            order[size++] = root;
+            int minGeneration = 0;
+            for (int head = componentStart; head < size; head++) {
+                int current = order[head];
+                for (int a = 0; a < adjacencies.length; a++) {
+                    GroupGraph.Adjacency adjacency = adjacencies[a];
+                    for (int i = adjacency.start(current); i < adjacency.end(current); i++) {
+                        int related = adjacency.target(i);
+                        if (!visited[related]) {
+                            visited[related] = true;
+                            generation[related] = generation[current] + deltas[a];
+                            minGeneration = Math.min(minGeneration, generation[related]);
+                            order[size++] = related;
+                        }
+                    }
+                }
+            }
+            for (int i = componentStart; i < size; i++) {
+                generation[order[i]] -= minGeneration;
+            }
+            start[++componentCount] = size;
+        }
+        return new Components(generation, order, Arrays.copyOf(start, componentCount + 1), componentCount);
+    }
+
+    /**
+     * 连通分量划分（CSR）：分量 c 的人物为 order[start[c], start[c+1])
+     */
+    private record Components(int[] generation, int[] order, int[] start, int componentCount) {
+
+        int componentSize(int c) {
+            return start[c + 1] - start[c];
+        }
+    }
+}
@@ -8,6 +8,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -25,6 +26,10 @@ public class GroupService {
     private final PersonRepository personRepository;
     private final UserRepository userRepository;
     private final RelationshipRepository relationshipRepository;
+    private final GroupGraphService groupGraphService;
+    private final GroupChangeLog groupChangeLog;
+    private final PersonClosureMaintainer personClosureMaintainer;
+    private final PersonGenerationMaintainer personGenerationMaintainer;
     
     @Transactional
     public GroupDTO createGroup(UUID userId, CreateGroupRequest request) {
@@ -182,13 +187,26 @@ public class GroupService {
         Relationship savedRelationship = relationshipRepository.save(relationship);
 
         // 兄弟姐妹关系建立后，自动补齐双方已知父母关系，保证父节点可关联到新兄弟节点
+        List<Relationship> syncedLinks = new ArrayList<>();
         if (finalType == Relationship.RelationshipType.SIBLING) {
-            synchronizeSiblingParents(groupId, normalizedFromPersonId, normalizedToPersonId);
+            synchronizeSiblingParents(groupId, normalizedFromPersonId, normalizedToPersonId, syncedLinks);
         } else if (finalType == Relationship.RelationshipType.PARENT) {
             // 新增父母关系后，若子女已有兄弟姐妹关系，则同步该父母到兄弟姐妹
-            synchronizeParentToSiblings(groupId, normalizedFromPersonId, normalizedToPersonId);
+            synchronizeParentToSiblings(groupId, normalizedFromPersonId, normalizedToPersonId, syncedLinks);
         }
 
+        List<GroupChangeLog.Entry> changes = new ArrayList<>();
+        changes.add(GroupChangeLog.Entry.relationship(savedRelationship.getId(), ChangeSet.ActionType.CREATE));
+        personClosureMaintainer.onRelationshipCreated(savedRelationship);
+        personGenerationMaintainer.onRelationshipCreated(savedRelationship);
+        for (Relationship link : syncedLinks) {
+            changes.add(GroupChangeLog.Entry.relationship(link.getId(), ChangeSet.ActionType.CREATE));
+            personClosureMaintainer.onRelationshipCreated(link);
+            personGenerationMaintainer.onRelationshipCreated(link);
+        }
+        groupChangeLog.recordDirectWrite(groupId, changes);
+        groupGraphService.invalidate(groupId);
+
         return savedRelationship;
     }
 
@@ -246,15 +264,17 @@ public class GroupService {
             .collect(Collectors.toCollection(HashSet::new));
     }
 
-    private void synchronizeSiblingParents(UUID groupId, UUID personAId, UUID personBId) {
+    private void synchronizeSiblingParents(UUID groupId, UUID personAId, UUID personBId,
+                                           List<Relationship> createdLinks) {
         Set<UUID> personAParents = loadParentIds(groupId, personAId);
         Set<UUID> personBParents = loadParentIds(groupId, personBId);
 
-        createMissingParentLinks(groupId, personAParents, personBId);
-        createMissingParentLinks(groupId, personBParents, personAId);
+        createMissingParentLinks(groupId, personAParents, personBId, createdLinks);
+        createMissingParentLinks(groupId, personBParents, personAId, createdLinks);
     }
 
-    private void createMissingParentLinks(UUID groupId, Set<UUID> parentIds, UUID childId) {
+    private void createMissingParentLinks(UUID groupId, Set<UUID> parentIds, UUID childId,
+                                          List<Relationship> createdLinks) {
         for (UUID parentId : parentIds) {
             if (parentId.equals(childId)) {
                 continue;
@@ -270,20 +290,21 @@ public class GroupService {
                 continue;
             }
 
-            relationshipRepository.save(Relationship.builder()
+            createdLinks.add(relationshipRepository.save(Relationship.builder()
                 .groupId(groupId)
                 .fromPersonId(parentId)
                 .toPersonId(childId)
                 .type(Relationship.RelationshipType.PARENT)
-                .build());
+                .build()));
         }
     }
 
-    private void synchronizeParentToSiblings(UUID groupId, UUID parentId, UUID childId) {
+    private void synchronizeParentToSiblings(UUID groupId, UUID parentId, UUID childId,
+                                             List<Relationship> createdLinks) {
         Set<UUID> siblingIds = loadSiblingIds(groupId, childId);
 
         for (UUID siblingId : siblingIds) {
-            createMissingParentLinks(groupId, Set.of(parentId), siblingId);
+            createMissingParentLinks(groupId, Set.of(parentId), siblingId, createdLinks);
         }
     }
 
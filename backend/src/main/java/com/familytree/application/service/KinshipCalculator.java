@@ -0,0 +1,181 @@
+package com.familytree.application.service;
+
+import com.familytree.application.graph.GroupGraph;
+import com.familytree.application.graph.ScratchPool;
+import com.familytree.application.graph.VisitedMarks;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * 血亲关系计算器
+ * 在家族关系图索引的父母方向上，从两人同时向上逐代搜索，求最近的共同祖先以及堂表亲等级（代数差）
+ *
+ * 家族父母关系是有向无环图而非树（每人两位父母，且存在近亲通婚导致的祖先重合），
+ * 最近共同祖先不唯一，欧拉序/倍增等基于树的 LCA 结构不适用；
+ * 这里按代交替扩展两侧，已完成的代数下界超过当前最优时即停止，只访问答案半径内的祖先；
+ * 按人物序号索引的代数数组放在池化的工作区中并以轮次标记访问，不随家族人数分配和清空
+ */
+@Component
+public class KinshipCalculator {
+
+    private final ScratchPool<Workspace> workspaces = new ScratchPool<>(Workspace::new);
+
+    /**
+     * 计算 a 与 b 的最近共同祖先
+     *
+     * @return 血亲关系，没有共同祖先（含本人）时返回 null
+     */
+    public Kinship find(GroupGraph graph, int a, int b) {
+        if (a == b) {
+            return new Kinship(new int[]{a}, 0, 0);
+        }
+
+        Workspace workspace = workspaces.acquire();
+        try {
+            workspace.reset(graph.size());
+            return search(graph, a, b, workspace);
+        } finally {
+            workspaces.release(workspace);
+        }
+    }
+
+    private Kinship search(GroupGraph graph, int a, int b, Workspace workspace) {
+        GroupGraph.Adjacency parents = graph.parents();
+        // 只有 visited 中的人物的 distance 槽位有效
+        VisitedMarks[] visited = workspace.visited;
+        int[][] distance = workspace.distance;
+        visited[0].add(a);
+        visited[1].add(b);
+        distance[0][a] = 0;
+        distance[1][b] = 0;
+
+        int[][] frontier = {{a}, {b}};
+        int[] frontierSize = {1, 1};
+        int[] level = {0, 0};
+        int[] next = new int[16];
+
+        // 当前最优的两侧代数之和，以及达到该值的共同祖先
+        int bestSum = Integer.MAX_VALUE;
+        int[] common = new int[4];
+        int commonCount = 0;
+
+        while (frontierSize[0] > 0 || frontierSize[1] > 0) {
+            // 两侧已完成的代数中较小者为 L 时，尚未发现的共同祖先至少相隔 L+1 代
+            int completed = Math.min(frontierSize[0] > 0 ? level[0] : Integer.MAX_VALUE - 1,
+                frontierSize[1] > 0 ? level[1] : Integer.MAX_VALUE - 1);
+            if (completed + 1 > bestSum) {
+                break;
+            }
+
+            int side;
+            if (frontierSize[0] == 0) {
+                side = 1;
+            } else if (frontierSize[1] == 0 || level[0] < level[1]) {
+                side = 0;
+            } else if (level[1] < level[0]) {
+                side = 1;
+            } else {
+                side = frontierSize[0] <= frontierSize[1] ? 0 : 1;
+            }
+            int other = 1 - side;
+            VisitedMarks seen = visited[side];
+            int[] dist = distance[side];
+            int nextSize = 0;
+
+            for (int f = 0; f < frontierSize[side]; f++) {
+                int current = frontier[side][f];
+                for (int i = parents.start(current); i < parents.end(current); i++) {
+                    int parent = parents.target(i);
+                    if (!seen.add(parent)) {
+                        continue;
+                    }
+                    dist[parent] = dist[current] + 1;
+                    if (nextSize == next.length) {
+                        next = Arrays.copyOf(next, nextSize * 2);
+                    }
+                    next[nextSize++] = parent;
+
+                    if (visited[other].contains(parent)) {
+                        int sum = dist[parent] + distance[other][parent];
+                        if (sum < bestSum) {
+                            bestSum = sum;
+                            commonCount = 0;
+                        }
+                        if (sum == bestSum) {
+                            if (commonCount == common.length) {
+                                common = Arrays.copyOf(common, commonCount * 2);
+                            }
+                            common[commonCount++] = parent;
+                        }
+                    }
+                }
+            }
+
+            int[] expanded = frontier[side];
+            frontier[side] = Arrays.copyOf(next, nextSize);
+            frontierSize[side] = nextSize;
+            level[side]++;
+            next = expanded.length >= 16 ? expanded : new int[16];
+        }
+
+        if (commonCount == 0) {
+            return null;
+        }
+
+        // 代数之和相同的共同祖先中，两侧代数差最小者作为主祖先（如祖父母夫妇）排在首位
+        int primary = 0;
+        for (int i = 1; i < commonCount; i++) {
+            int c = common[i];
+            int p = common[primary];
+            if (Math.abs(distance[0][c] - distance[1][c]) < Math.abs(distance[0][p] - distance[1][p])) {
+                primary = i;
+            }
+        }
+        int head = common[primary];
+        common[primary] = common[0];
+        common[0] = head;
+        return new Kinship(Arrays.copyOf(common, commonCount), distance[0][head], distance[1][head]);
+    }
+
+    /**
+     * 血亲关系
+     *
+     * @param commonAncestors 最近共同祖先序号（代数之和最小，首位为主祖先；a 是 b 的祖先时为 a 本人）
+     * @param distanceA       主祖先到 a 的代数
+     * @param distanceB       主祖先到 b 的代数
+     */
+    public record Kinship(int[] commonAncestors, int distanceA, int distanceB) {
+
+        /**
+         * 堂表亲等级：兄弟姐妹及叔侄等为 0，堂表兄弟姐妹为 1，依此类推；直系亲属为 -1
+         */
+        public int cousinDegree() {
+            return Math.min(distanceA, distanceB) - 1;
+        }
+
+        /**
+         * 两人相差的代数
+         */
+        public int removal() {
+            return Math.abs(distanceA - distanceB);
+        }
+    }
+
+    /**
+     * 一次查询的工作区：两侧的访问标记及按人物序号索引的代数，在查询之间复用，家族人数超过容量时才重新分配
+     */
+    private static final class Workspace {
+        private final VisitedMarks[] visited = {new VisitedMarks(), new VisitedMarks()};
+        private final int[][] distance = new int[2][];
+
+        private void reset(int size) {
+            if (visited[0].capacity() < size) {
+                distance[0] = new int[size];
+                distance[1] = new int[size];
+            }
+            visited[0].reset(size);
+            visited[1].reset(size);
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.familytree.application.service;
+
+import com.familytree.application.graph.GroupGraph;
+import com.familytree.domain.Person;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+/**
+ * 称谓计算器
+ * 按树视图的访问顺序为每个人物确定一条来自焦点人物的最短关系链，
+ * 链由“父母/子女/配偶/兄弟姐妹”步骤及对应人物的性别、长幼组成（路径签名），再由签名查表得到称谓；
+ * 每个人物的签名由其前驱的签名追加一步得到，整棵树只需一次遍历，称谓按签名缓存
+ *
+ * 追加步骤时先做化简：父母的子女 → 兄弟姐妹，子女的父母 → 配偶，兄弟姐妹的父母 → 父母，
+ * 兄弟姐妹的兄弟姐妹 → 兄弟姐妹，父母的配偶 → 父母，配偶的子女 → 子女；表中没有的签名拆成“已知称谓 + 的 + 其余部分”
+ */
+@Component
+public class KinshipTermCalculator {
+
+    private static final byte UP = 0;
+    private static final byte DOWN = 1;
+    private static final byte SPOUSE = 2;
+    private static final byte SIBLING = 3;
+
+    // 签名缓存上限，超出后整体清空
+    private static final int MAX_CACHED_TERMS = 10_000;
+
+    private static final Map<String, String> TERMS = buildTerms();
+
+    private final Map<String, String> termCache = new ConcurrentHashMap<>();
+
+    /**
+     * 为已访问的人物计算称谓
+     *
+     * @param visited      已访问人物序号（按 BFS 访问顺序，首个为焦点人物），前 visitedCount 个有效
+     * @param birthDateOf  按人物序号取出生日期（未知时返回 null），用于判断长幼
+     * @return 按人物序号索引的称谓，未访问的人物为 null
+     */
+    public String[] assignTerms(GroupGraph graph, int focus, int[] visited, int visitedCount,
+                                IntFunction<LocalDate> birthDateOf) {
+        int n = graph.size();
+        String[] terms = new String[n];
+        if (visitedCount == 0) {
+            return terms;
+        }
+
+        int[] distance = new int[n];
+        Arrays.fill(distance, -1);
+        distance[focus] = 0;
+
+        // 关系链：chainPrev 为链上的前一人，step 为最后一步，signature 为完整签名，generation 为相对代际
+        int[] chainPrev = new int[n];
+        byte[] step = new byte[n];
+        String[] signature = new String[n];
+        int[] generation = new int[n];
+        signature[focus] = "";
+        LocalDate focusBirthDate = birthDateOf.apply(focus);
+        terms[focus] = "本人";
+
+        GroupGraph.Adjacency[] adjacencies = {graph.parents(), graph.children(), graph.spouses(), graph.siblings()};
+
+        for (int k = 0; k < visitedCount; k++) {
+            int v = visited[k];
+            if (v == focus) {
+                continue;
+            }
+
+            // 前驱：已确定距离的邻居中距离最小者，同距离时按父母、子女、配偶、兄弟姐妹的顺序优先
+            int predecessor = -1;
+            byte predecessorStep = 0;
+            for (int a = 0; a < adjacencies.length; a++) {
+                GroupGraph.Adjacency adjacency = adjacencies[a];
+                for (int i = adjacency.start(v); i < adjacency.end(v); i++) {
+                    int u = adjacency.target(i);
+                    if (distance[u] >= 0 && (predecessor < 0 || distance[u] < distance[predecessor])) {
+                        predecessor = u;
+                        // 邻接表描述的是 u 相对于 v 的关系，反过来即 v 相对于 u 的一步
+                        predecessorStep = a == 0 ? DOWN : a == 1 ? UP : (byte) a;
+                    }
+                }
+            }
+            if (predecessor < 0) {
+                continue;
+            }
+            distance[v] = distance[predecessor] + 1;
+
+            append(graph, focus, predecessor, predecessorStep, v, chainPrev, step, signature, generation, birthDateOf);
+
+            String key = signature[v];
+            if (generation[v] == 0 && step[v] != SPOUSE && chainPrev[v] != focus) {
+                // 同辈旁系（如堂表兄弟姐妹）按与焦点人物的长幼区分
+                key = key + ageMarker(focusBirthDate, birthDateOf.apply(v));
+            }
+            terms[v] = termOf(key);
+        }
+        return terms;
+    }
+
+    private void append(GroupGraph graph, int focus, int base, byte kind, int v,
+                        int[] chainPrev, byte[] step, String[] signature, int[] generation,
+                        IntFunction<LocalDate> birthDateOf) {
+        while (base != focus) {
+            byte baseStep = step[base];
+            int previous = chainPrev[base];
+            boolean reduce = (baseStep == UP && kind == DOWN)
+                || (baseStep == DOWN && kind == UP)
+                || (baseStep == SIBLING && (kind == UP || kind == SIBLING))
+                || (baseStep == UP && kind == SPOUSE)
+                || (baseStep == SPOUSE && kind == DOWN);
+            if (!reduce || previous == v) {
+                break;
+            }
+            if (baseStep == UP && kind == DOWN) {
+                kind = SIBLING;
+            } else if (baseStep == DOWN) {
+                kind = SPOUSE;
+            } else if (baseStep == UP) {
+                kind = UP;
+            }
+            base = previous;
+        }
+
+        chainPrev[v] = base;
+        step[v] = kind;
+        generation[v] = generation[base] + (kind == UP ? -1 : kind == DOWN ? 1 : 0);
+        String token = token(kind, graph.gender(v), birthDateOf.apply(base), birthDateOf.apply(v));
+        signature[v] = base == focus ? token : signature[base] + "," + token;
+    }
+
+    /**
+     * 单步记号：f/m/p 父/母/未知，s/d/c 子/女/未知，h/w/x 夫/妻/未知，
+     * ob/yb/b 兄/弟/长幼未知，os/ys/z 姐/妹/长幼未知，g 性别未知的兄弟姐妹
+     */
+    private String token(byte kind, Person.Gender gender, LocalDate baseBirthDate, LocalDate birthDate) {
+        boolean male = gender == Person.Gender.MALE;
+        boolean female = gender == Person.Gender.FEMALE;
+        switch (kind) {
+            case UP:
+                return male ? "f" : female ? "m" : "p";
+            case DOWN:
+                return male ? "s" : female ? "d" : "c";
+            case SPOUSE:
+                return male ? "h" : female ? "w" : "x";
+            default:
+                if (!male && !female) {
+                    return "g";
+                }
+                String age = ageMarker(baseBirthDate, birthDate);
+                String sex = male ? "b" : "s";
+                return age.isEmpty() ? (male ? "b" : "z") : (age.equals("#o") ? "o" : "y") + sex;
+        }
+    }
+
+    /**
+     * 与参照人物的长幼：#o 年长，#y 年幼，无法判断时为空
+     */
+    private String ageMarker(LocalDate reference, LocalDate birthDate) {
+        if (reference == null || birthDate == null || reference.equals(birthDate)) {
+            return "";
+        }
+        return birthDate.isBefore(reference) ? "#o" : "#y";
+    }
+
+    private String termOf(String key) {
+        String cached = termCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        String term = resolve(key);
+        if (termCache.size() >= MAX_CACHED_TERMS) {
+            termCache.clear();
+        }
+        termCache.put(key, term);
+        return term;
+    }
+
+    private String resolve(String key) {
+        String term = TERMS.get(key);
+        if (term != null) {
+            return term;
+        }
+        int marker = key.indexOf('#');
+        String chain = marker >= 0 ? key.substring(0, marker) : key;
+        if (marker >= 0 && (term = TERMS.get(chain)) != null) {
+            return term;
+        }
+
+        // 取表中最长的已知前缀，其余部分相对于该前缀对应的人物递归求称谓
+        String[] tokens = chain.split(",");
+        for (int length = tokens.length - 1; length > 0; length--) {
+            String prefix = String.join(",", Arrays.copyOfRange(tokens, 0, length));
+            String prefixTerm = TERMS.get(prefix);
+            if (prefixTerm != null) {
+                String rest = String.join(",", Arrays.copyOfRange(tokens, length, tokens.length));
+                return prefixTerm + "的" + resolve(rest);
+            }
+        }
+        return TERMS.getOrDefault(tokens[0], "亲属");
+    }
+
+    private static Map<String, String> buildTerms() {
+        Map<String, String> terms = new HashMap<>();
+
+        // 直系与配偶
+        put(terms, "f", "父亲");
+        put(terms, "m", "母亲");
+        put(terms, "p", "父母");
+        put(terms, "s", "儿子");
+        put(terms, "d", "女儿");
+        put(terms, "c", "子女");
+        put(terms, "h", "丈夫");
+        put(terms, "w", "妻子");
+        put(terms, "x", "配偶");
+        put(terms, "f,f", "爷爷");
+        put(terms, "f,m", "奶奶");
+        put(terms, "m,f", "外公");
+        put(terms, "m,m", "外婆");
+        put(terms, "f,f,f", "曾祖父");
+        put(terms, "f,f,m", "曾祖母");
+        put(terms, "f,m,f", "曾外祖父");
+        put(terms, "f,m,m", "曾外祖母");
+        put(terms, "m,f,f", "外曾祖父");
+        put(terms, "m,f,m", "外曾祖母");
+        put(terms, "m,m,f", "外曾外祖父");
+        put(terms, "m,m,m", "外曾外祖母");
+        put(terms, "f,f,f,f", "高祖父");
+        put(terms, "f,f,f,m", "高祖母");
+        put(terms, "s,s", "孙子");
+        put(terms, "s,d", "孙女");
+        put(terms, "d,s", "外孙");
+        put(terms, "d,d", "外孙女");
+        put(terms, "s,s,s", "曾孙");
+        put(terms, "s,s,d", "曾孙女");
+        put(terms, "d,s,s", "外曾孙");
+        put(terms, "d,s,d", "外曾孙女");
+        put(terms, "s,w", "儿媳");
+        put(terms, "d,h", "女婿");
+        put(terms, "s,s,w", "孙媳");
+        put(terms, "s,d,h", "孙女婿");
+        put(terms, "d,s,w", "外孙媳");
+        put(terms, "d,d,h", "外孙女婿");
+
+        // 兄弟姐妹
+        put(terms, "ob", "哥哥");
+        put(terms, "yb", "弟弟");
+        put(terms, "b", "兄弟");
+        put(terms, "os", "姐姐");
+        put(terms, "ys", "妹妹");
+        put(terms, "z", "姐妹");
+        put(terms, "g", "兄弟姐妹");
+        put(terms, "ob,w", "嫂子");
+        put(terms, "yb,w", "弟媳");
+        put(terms, "os,h", "姐夫");
+        put(terms, "ys,h", "妹夫");
+        for (String brother : new String[]{"ob", "yb", "b"}) {
+            put(terms, brother + ",s", "侄子");
+            put(terms, brother + ",d", "侄女");
+            put(terms, brother + ",s,w", "侄媳");
+            put(terms, brother + ",d,h", "侄女婿");
+            put(terms, brother + ",s,s", "侄孙");
+            put(terms, brother + ",s,d", "侄孙女");
+        }
+        for (String sister : new String[]{"os", "ys", "z"}) {
+            put(terms, sister + ",s", "外甥");
+            put(terms, sister + ",d", "外甥女");
+            put(terms, sister + ",s,w", "外甥媳妇");
+            put(terms, sister + ",d,h", "外甥女婿");
+            put(terms, sister + ",s,s", "外甥孙");
+            put(terms, sister + ",s,d", "外甥孙女");
+        }
+
+        // 父母的兄弟姐妹及其配偶、子女
+        put(terms, "f,ob", "伯父");
+        put(terms, "f,yb", "叔叔");
+        put(terms, "f,b", "叔伯");
+        put(terms, "f,ob,w", "伯母");
+        put(terms, "f,yb,w", "婶婶");
+        put(terms, "f,b,w", "伯母/婶婶");
+        for (String sister : new String[]{"os", "ys", "z"}) {
+            put(terms, "f," + sister, "姑姑");
+            put(terms, "f," + sister + ",h", "姑父");
+            put(terms, "m," + sister, "姨妈");
+            put(terms, "m," + sister + ",h", "姨父");
+        }
+        for (String brother : new String[]{"ob", "yb", "b"}) {
+            put(terms, "m," + brother, "舅舅");
+            put(terms, "m," + brother + ",w", "舅妈");
+        }
+        for (String sibling : new String[]{"ob", "yb", "b", "os", "ys", "z", "g"}) {
+            boolean paternalCousin = sibling.endsWith("b");
+            String prefix = paternalCousin ? "堂" : "表";
+            cousins(terms, "f," + sibling, prefix);
+            cousins(terms, "m," + sibling, "表");
+        }
+
+        // 祖父母的兄弟姐妹
+        put(terms, "f,f,ob", "伯祖父");
+        put(terms, "f,f,yb", "叔祖父");
+        put(terms, "f,f,b", "叔伯祖父");
+        for (String sister : new String[]{"os", "ys", "z"}) {
+            put(terms, "f,f," + sister, "姑奶奶");
+            put(terms, "f,m," + sister, "姨奶奶");
+            put(terms, "m,m," + sister, "姨姥姥");
+            put(terms, "m,f," + sister, "姑姥姥");
+        }
+        for (String brother : new String[]{"ob", "yb", "b"}) {
+            put(terms, "f,m," + brother, "舅爷爷");
+            put(terms, "m,m," + brother, "舅姥爷");
+            put(terms, "m,f," + brother, "外叔伯祖父");
+        }
+
+        // 配偶的亲属
+        put(terms, "h,f", "公公");
+        put(terms, "h,m", "婆婆");
+        put(terms, "w,f", "岳父");
+        put(terms, "w,m", "岳母");
+        put(terms, "h,ob", "大伯子");
+        put(terms, "h,yb", "小叔子");
+        put(terms, "h,os", "大姑子");
+        put(terms, "h,ys", "小姑子");
+        put(terms, "w,ob", "大舅子");
+        put(terms, "w,yb", "小舅子");
+        put(terms, "w,os", "大姨子");
+        put(terms, "w,ys", "小姨子");
+        return terms;
+    }
+
+    /**
+     * 父母的兄弟姐妹的子女（按性别及与焦点人物的长幼区分）及孙辈
+     */
+    private static void cousins(Map<String, String> terms, String parentSibling, String prefix) {
+        put(terms, parentSibling + ",s#o", prefix + "哥");
+        put(terms, parentSibling + ",s#y", prefix + "弟");
+        put(terms, parentSibling + ",s", prefix + "兄弟");
+        put(terms, parentSibling + ",d#o", prefix + "姐");
+        put(terms, parentSibling + ",d#y", prefix + "妹");
+        put(terms, parentSibling + ",d", prefix + "姐妹");
+        put(terms, parentSibling + ",c", prefix + "兄弟姐妹");
+        put(terms, parentSibling + ",s,s", prefix + "侄");
+        put(terms, parentSibling + ",s,d", prefix + "侄女");
+        put(terms, parentSibling + ",d,s", prefix + "外甥");
+        put(terms, parentSibling + ",d,d", prefix + "外甥女");
+    }
+
+    private static void put(Map<String, String> terms, String signature, String term) {
+        terms.put(signature, term);
+    }
+}
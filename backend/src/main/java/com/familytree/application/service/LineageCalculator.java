@@ -1,5 +1,6 @@
 package com.familytree.application.service;
 
+import com.familytree.application.graph.GroupGraph;
 import com.familytree.domain.LineageType;
 import com.familytree.domain.Person;
 import com.familytree.domain.Relationship;
@@ -14,156 +15,264 @@ import java.util.*;
 @Component
 public class LineageCalculator {
 
+    private static final LineageType[] LINEAGE_TYPES = LineageType.values();
+
     /**
-     * 计算每个人物相对于焦点人物的血统线
+     * 计算每个人物相对于焦点人物的血统线（父系、母系各一次 BFS）
+     * 树视图使用与遍历合并的 {@link #traverse}，此方法用于只有子图、没有遍历过程的场景
      *
-     * @param focusPersonId 焦点人物ID
-     * @param relationships 家族内所有关系
-     * @param genderMap     人物ID到性别的映射
-     * @return 人物ID到血统线类型的映射
+     * @param focus 焦点人物序号
+     * @param graph 家族关系图索引
+     * @return 按人物序号索引的血统线（{@link LineageType} 的序号），未标记为 UNKNOWN
      */
-    public Map<UUID, LineageType> calculateLineageMap(
-            UUID focusPersonId,
-            List<Relationship> relationships,
-            Map<UUID, Person.Gender> genderMap) {
-
-        Map<UUID, LineageType> lineageMap = new HashMap<>();
-        lineageMap.put(focusPersonId, LineageType.SELF);
+    public byte[] calculateLineage(int focus, GroupGraph graph) {
+        byte[] lineage = new byte[graph.size()];
+        Arrays.fill(lineage, (byte) LineageType.UNKNOWN.ordinal());
+        lineage[focus] = (byte) LineageType.SELF.ordinal();
 
         // 找出焦点人物的父亲和母亲
-        UUID fatherId = findFatherId(focusPersonId, relationships, genderMap);
-        UUID motherId = findMotherId(focusPersonId, relationships, genderMap);
+        int father = findFather(focus, graph);
+        int mother = findMother(focus, graph);
+
+        // 两次 BFS 共用一个队列
+        int[] queue = new int[graph.size()];
 
         // BFS 标记父系
-        if (fatherId != null) {
-            markLineageBFS(fatherId, LineageType.FATHER_LINE, relationships, lineageMap);
+        if (father >= 0) {
+            markLineageBFS(father, LineageType.FATHER_LINE, graph, lineage, queue);
         }
 
         // BFS 标记母系
-        if (motherId != null) {
-            markLineageBFS(motherId, LineageType.MOTHER_LINE, relationships, lineageMap);
+        if (mother >= 0) {
+            markLineageBFS(mother, LineageType.MOTHER_LINE, graph, lineage, queue);
+        }
+
+        return lineage;
+    }
+
+    /**
+     * 从焦点人物出发的一次 BFS，同时得到指定深度内的访问顺序、距离、代际，以及整个家族的血统线；
+     * 代际取所有最短路径中的最小值（与 RelationshipRepository.findNeighborhood 相同）
+     *
+     * 血统线语义与 {@link #calculateLineage} 相同：父亲在“去掉焦点人物后的图”中的连通分量为父系，
+     * 母亲本人及其所在的其余分量为母系。BFS 在遍历整个连通分量时为焦点人物的每个直接邻居开一个分支，
+     * 后续节点继承发现它的节点的分支，遇到已访问的非焦点节点时用并查集合并两个分支；
+     * 由于不经过焦点人物，合并后的每个分支恰好对应去掉焦点人物后的一个连通分量
+     *
+     * @param focus         焦点人物序号
+     * @param graph         家族关系图索引
+     * @param depth         距离上限（超出的人物不计入访问结果，但仍参与血统线判定）
+     * @param excludedEdges 遍历时忽略的关系ID
+     */
+    public Traversal traverse(int focus, GroupGraph graph, int depth, Set<UUID> excludedEdges) {
+        int n = graph.size();
+        int[] personDistance = new int[n];
+        int[] personGeneration = new int[n];
+        int[] branch = new int[n];
+        int[] unionParent = new int[n];
+        int[] queue = new int[n];
+        Arrays.fill(personDistance, -1);
+        personDistance[focus] = 0;
+        queue[0] = focus;
+        int size = 1;
+
+        // 代际定义：焦点人物为 0，父母 -1，子女 +1，配偶/兄弟姐妹 0
+        GroupGraph.Adjacency[] adjacencies = {
+            graph.parents(), graph.children(), graph.spouses(), graph.siblings()
+        };
+        int[] generationDeltas = {-1, 1, 0, 0};
+
+        for (int head = 0; head < size; head++) {
+            int current = queue[head];
+            for (int a = 0; a < adjacencies.length; a++) {
+                GroupGraph.Adjacency adjacency = adjacencies[a];
+                for (int i = adjacency.start(current); i < adjacency.end(current); i++) {
+                    int related = adjacency.target(i);
+                    if (related == focus
+                            || (!excludedEdges.isEmpty() && excludedEdges.contains(graph.edgeId(adjacency.edge(i))))) {
+                        continue;
+                    }
+                    if (personDistance[related] < 0) {
+                        personDistance[related] = personDistance[current] + 1;
+                        personGeneration[related] = personGeneration[current] + generationDeltas[a];
+                        if (current == focus) {
+                            branch[related] = related;
+                            unionParent[related] = related;
+                        } else {
+                            branch[related] = branch[current];
+                        }
+                        queue[size++] = related;
+                    } else {
+                        // 多条最短路径的代际不同时取最小值，与数据库遍历一致，不依赖关系的加载顺序；
+                        // 按距离分层出队，出队时其上一层已全部处理，代际已确定
+                        if (personDistance[related] == personDistance[current] + 1) {
+                            personGeneration[related] = Math.min(personGeneration[related],
+                                personGeneration[current] + generationDeltas[a]);
+                        }
+                        if (current != focus) {
+                            union(unionParent, branch[current], branch[related]);
+                        }
+                    }
+                }
+            }
+        }
+
+        // BFS 按距离分层入队，深度内的人物恰为队列前缀
+        int visitedCount = 0;
+        while (visitedCount < size && personDistance[queue[visitedCount]] <= depth) {
+            visitedCount++;
+        }
+
+        byte[] lineage = new byte[n];
+        Arrays.fill(lineage, (byte) LineageType.UNKNOWN.ordinal());
+        lineage[focus] = (byte) LineageType.SELF.ordinal();
+
+        int father = findFather(focus, graph);
+        int mother = findMother(focus, graph);
+        int fatherBranch = father >= 0 && personDistance[father] >= 0 ? find(unionParent, branch[father]) : -1;
+        int motherBranch = mother >= 0 && personDistance[mother] >= 0 ? find(unionParent, branch[mother]) : -1;
+        for (int i = 1; i < size; i++) {
+            int v = queue[i];
+            int root = find(unionParent, branch[v]);
+            if (root == fatherBranch) {
+                lineage[v] = (byte) LineageType.FATHER_LINE.ordinal();
+            } else if (root == motherBranch) {
+                lineage[v] = (byte) LineageType.MOTHER_LINE.ordinal();
+            }
+        }
+        if (motherBranch >= 0) {
+            lineage[mother] = (byte) LineageType.MOTHER_LINE.ordinal();
+        }
+
+        // 距离与代际只对深度内的人物有效
+        for (int i = visitedCount; i < size; i++) {
+            personDistance[queue[i]] = -1;
+            personGeneration[queue[i]] = 0;
         }
 
-        return lineageMap;
+        return new Traversal(queue, visitedCount, personDistance, personGeneration, lineage);
+    }
+
+    private static int find(int[] unionParent, int x) {
+        while (unionParent[x] != x) {
+            unionParent[x] = unionParent[unionParent[x]];
+            x = unionParent[x];
+        }
+        return x;
+    }
+
+    private static void union(int[] unionParent, int a, int b) {
+        int rootA = find(unionParent, a);
+        int rootB = find(unionParent, b);
+        if (rootA != rootB) {
+            unionParent[rootB] = rootA;
+        }
     }
 
+    /**
+     * 一次遍历的结果
+     *
+     * @param visited          访问顺序，前 visitedCount 个为深度内的人物
+     * @param personDistance   按人物序号索引的距离，深度外为 -1
+     * @param personGeneration 按人物序号索引的代际
+     * @param lineage          按人物序号索引的血统线（{@link LineageType} 的序号）
+     */
+    public record Traversal(int[] visited, int visitedCount, int[] personDistance, int[] personGeneration,
+                            byte[] lineage) {}
+
     /**
      * BFS 遍历标记血统线
      */
     private void markLineageBFS(
-            UUID startPersonId,
+            int start,
             LineageType lineageType,
-            List<Relationship> relationships,
-            Map<UUID, LineageType> lineageMap) {
-
-        Queue<UUID> queue = new LinkedList<>();
-        queue.offer(startPersonId);
-        lineageMap.put(startPersonId, lineageType);
+            GroupGraph graph,
+            byte[] lineage,
+            int[] queue) {
 
-        while (!queue.isEmpty()) {
-            UUID currentId = queue.poll();
+        byte mark = (byte) lineageType.ordinal();
+        byte unknown = (byte) LineageType.UNKNOWN.ordinal();
+        GroupGraph.Adjacency[] adjacencies = {
+            graph.parents(), graph.children(), graph.spouses(), graph.siblings()
+        };
 
-            // 找到所有与该人物相关的关系
-            for (Relationship rel : relationships) {
-                UUID relatedId = null;
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        lineage[start] = mark;
 
-                if (rel.getFromPersonId().equals(currentId)) {
-                    relatedId = rel.getToPersonId();
-                } else if (rel.getToPersonId().equals(currentId)) {
-                    relatedId = rel.getFromPersonId();
-                }
+        while (head < tail) {
+            int current = queue[head++];
 
-                if (relatedId != null && !lineageMap.containsKey(relatedId)) {
-                    lineageMap.put(relatedId, lineageType);
-                    queue.offer(relatedId);
+            // 遍历与该人物相连的所有关系
+            for (GroupGraph.Adjacency adjacency : adjacencies) {
+                for (int i = adjacency.start(current); i < adjacency.end(current); i++) {
+                    int related = adjacency.target(i);
+                    if (lineage[related] == unknown) {
+                        lineage[related] = mark;
+                        queue[tail++] = related;
+                    }
                 }
             }
         }
     }
 
     /**
-     * 查找父亲ID（通过性别判断）
+     * 查找父亲（通过性别判断）
      *
-     * @param personId      人物ID
-     * @param relationships 关系列表
-     * @param genderMap     性别映射
-     * @return 父亲ID，未找到返回null
+     * @param person 人物序号
+     * @param graph  家族关系图索引
+     * @return 父亲序号，未找到返回 -1
      */
-    public UUID findFatherId(UUID personId, List<Relationship> relationships, Map<UUID, Person.Gender> genderMap) {
-        return findParentByGender(personId, relationships, genderMap, Person.Gender.MALE);
+    public int findFather(int person, GroupGraph graph) {
+        return findParentByGender(person, graph, Person.Gender.MALE);
     }
 
     /**
-     * 查找母亲ID（通过性别判断）
+     * 查找母亲（通过性别判断）
      *
-     * @param personId      人物ID
-     * @param relationships 关系列表
-     * @param genderMap     性别映射
-     * @return 母亲ID，未找到返回null
+     * @param person 人物序号
+     * @param graph  家族关系图索引
+     * @return 母亲序号，未找到返回 -1
      */
-    public UUID findMotherId(UUID personId, List<Relationship> relationships, Map<UUID, Person.Gender> genderMap) {
-        return findParentByGender(personId, relationships, genderMap, Person.Gender.FEMALE);
+    public int findMother(int person, GroupGraph graph) {
+        return findParentByGender(person, graph, Person.Gender.FEMALE);
     }
 
     /**
      * 根据性别查找父母
      */
-    private UUID findParentByGender(
-            UUID personId,
-            List<Relationship> relationships,
-            Map<UUID, Person.Gender> genderMap,
-            Person.Gender targetGender) {
-
-        for (Relationship rel : relationships) {
-            // PARENT 关系：from = 父母, to = 子女
-            if (rel.getType() == Relationship.RelationshipType.PARENT &&
-                rel.getToPersonId().equals(personId)) {
-
-                UUID parentId = rel.getFromPersonId();
-                Person.Gender parentGender = genderMap.get(parentId);
-
-                if (parentGender == targetGender) {
-                    return parentId;
-                }
-            }
-            // CHILD 关系：from = 子女, to = 父母（兼容历史数据）
-            else if (rel.getType() == Relationship.RelationshipType.CHILD &&
-                     rel.getFromPersonId().equals(personId)) {
-
-                UUID parentId = rel.getToPersonId();
-                Person.Gender parentGender = genderMap.get(parentId);
-
-                if (parentGender == targetGender) {
-                    return parentId;
-                }
+    private int findParentByGender(int person, GroupGraph graph, Person.Gender targetGender) {
+        // 父母邻接已合并 PARENT（from=父母）与 CHILD（to=父母，兼容历史数据）两种存储方式
+        GroupGraph.Adjacency parents = graph.parents();
+        for (int i = parents.start(person); i < parents.end(person); i++) {
+            int parent = parents.target(i);
+            if (graph.gender(parent) == targetGender) {
+                return parent;
             }
         }
-        return null;
+        return -1;
     }
 
     /**
-     * 按血统线过滤人物ID集合
-     *
-     * @param personIds     原人物ID集合
-     * @param lineageMap    血统线映射
-     * @param filterType    筛选类型（null或BOTH表示不过滤）
-     * @return 过滤后的人物ID集合
+     * 将 {@link #calculateLineage} 结果中的值还原为血统线类型
      */
-    public Set<UUID> filterByLineage(
-            Set<UUID> personIds,
-            Map<UUID, LineageType> lineageMap,
-            LineageType filterType) {
+    public LineageType lineageOf(byte[] lineage, int ordinal) {
+        return LINEAGE_TYPES[lineage[ordinal]];
+    }
 
+    /**
+     * 判断血统线是否符合筛选条件（本人始终保留）
+     *
+     * @param lineage    人物的血统线
+     * @param filterType 筛选类型（null表示不过滤）
+     * @return 是否保留
+     */
+    public boolean matchesLineage(LineageType lineage, LineageType filterType) {
         if (filterType == null) {
-            return personIds;
+            return true;
         }
-
-        return personIds.stream()
-            .filter(id -> {
-                LineageType lineage = lineageMap.getOrDefault(id, LineageType.UNKNOWN);
-                return lineage == filterType || lineage == LineageType.SELF;
-            })
-            .collect(java.util.stream.Collectors.toSet());
+        return lineage == filterType || lineage == LineageType.SELF;
     }
 
     /**
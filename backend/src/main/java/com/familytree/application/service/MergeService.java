@@ -21,6 +21,10 @@ public class MergeService {
     private final GroupRepository groupRepository;
     private final PersonRepository personRepository;
     private final RelationshipRepository relationshipRepository;
+    private final GroupGraphService groupGraphService;
+    private final GroupChangeLog groupChangeLog;
+    private final PersonClosureMaintainer personClosureMaintainer;
+    private final PersonGenerationMaintainer personGenerationMaintainer;
     private final ObjectMapper objectMapper;
     
     @Transactional(readOnly = true)
@@ -67,13 +71,22 @@ public class MergeService {
         // 应用所有变更
         List<ChangeSet> changes = changeSetRepository.findByWorkspaceIdOrderBySequenceNumberAsc(workspace.getId());
         
+        List<GroupChangeLog.Entry> appliedChanges = new ArrayList<>();
         for (ChangeSet change : changes) {
             applyChange(change, group.getId());
+            if (change.getEntityType() == ChangeSet.EntityType.PERSON) {
+                appliedChanges.add(GroupChangeLog.Entry.person(change.getEntityId(), change.getActionType()));
+            }
         }
         
-        // 更新群组版本
+        // 更新群组版本，并按刷新后的版本记录本次合并的变更；合并总是视为结构变化
         group.setVersion(group.getVersion() + 1);
-        groupRepository.save(group);
+        group = groupRepository.saveAndFlush(group);
+        groupRepository.markStructureChanged(group.getId());
+        groupChangeLog.record(group.getId(), group.getVersion(), appliedChanges);
+
+        // 合并可能删除人物及其关系，失效关系图索引
+        groupGraphService.invalidate(group.getId());
         
         // 更新合并请求状态
         mergeRequest.setStatus(MergeRequest.Status.APPROVED);
@@ -141,7 +154,7 @@ public class MergeService {
                 applyUpdate(change);
                 break;
             case DELETE:
-                applyDelete(change);
+                applyDelete(change, groupId);
                 break;
         }
     }
@@ -161,6 +174,9 @@ public class MergeService {
                 .deathDate(parseDate((String) payload.get("deathDate")))
                 .birthPlace((String) payload.get("birthPlace"))
                 .currentSpouseId(payload.get("currentSpouseId") != null ? UUID.fromString((String) payload.get("currentSpouseId")) : null)
+                .generation(0)
+                .descendantCount(0)
+                .ancestorCount(0)
                 .version(0)
                 .build();
             
@@ -203,8 +219,11 @@ public class MergeService {
         }
     }
     
-    private void applyDelete(ChangeSet change) {
+    private void applyDelete(ChangeSet change, UUID groupId) {
         if (change.getEntityType() == ChangeSet.EntityType.PERSON) {
+            // 人物的关系由数据库级联删除，闭包和代数需在删除前按剩余关系重建
+            personClosureMaintainer.onPersonDeleting(groupId, change.getEntityId());
+            personGenerationMaintainer.onPersonDeleting(groupId, change.getEntityId());
             personRepository.deleteById(change.getEntityId());
         }
     }
@@ -0,0 +1,105 @@
+package com.familytree.application.service;
+
+import com.familytree.application.dto.PersonSuggestionDTO;
+import com.familytree.application.search.PersonAutocompleteIndex;
+import com.familytree.infrastructure.cache.BoundedLruCache;
+import com.familytree.infrastructure.repository.GroupRepository;
+import com.familytree.infrastructure.repository.PersonRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * 人物选择框的姓名前缀补全
+ * 每个家族按版本缓存一份补全索引；版本变化后按变更日志只重新加载变化的人物并归并进索引，
+ * 历史不完整或变更过多时整体重建
+ */
+@Service
+@RequiredArgsConstructor
+public class PersonAutocompleteService {
+
+    public static final int MAX_LIMIT = 20;
+
+    /**
+     * 增量更新允许的最大变更条数，超过后整体重建
+     */
+    private static final int MAX_INCREMENTAL_CHANGES = 500;
+
+    private final GroupRepository groupRepository;
+    private final GroupChangeLog groupChangeLog;
+    private final PersonRepository personRepository;
+    private final PersonNodeLoader personNodeLoader;
+
+    @Value("${familytree.autocomplete-cache.max-groups:256}")
+    private int maxGroups;
+
+    // 按最近访问淘汰，超过容量的家族下次补全时重新构建
+    private BoundedLruCache<UUID, VersionedIndex> indexes;
+
+    @PostConstruct
+    public void init() {
+        indexes = new BoundedLruCache<>(maxGroups);
+    }
+
+    /**
+     * 按姓名、拼音全拼或首字母前缀补全，完全匹配和较短的姓名在前
+     *
+     * @param limit 返回人数，截断到 [1, MAX_LIMIT]
+     */
+    @Transactional(readOnly = true)
+    public List<PersonSuggestionDTO> complete(UUID groupId, String prefix, int limit) {
+        int size = Math.min(Math.max(limit, 1), MAX_LIMIT);
+        return getIndex(groupId).complete(prefix, size).stream()
+            .map(suggestion -> PersonSuggestionDTO.builder()
+                .id(suggestion.personId())
+                .fullName(suggestion.fullName())
+                .birthYear(suggestion.birthYear())
+                .primaryPhotoUrl(suggestion.primaryPhotoUrl())
+                .build())
+            .toList();
+    }
+
+    private PersonAutocompleteIndex getIndex(UUID groupId) {
+        int version = groupRepository.findVersionById(groupId)
+            .orElseThrow(() -> new RuntimeException("家族不存在"));
+        VersionedIndex cached = indexes.get(groupId);
+        if (cached != null && cached.version() == version) {
+            return cached.index();
+        }
+
+        PersonAutocompleteIndex index = cached != null && cached.version() < version
+            ? applyChanges(groupId, cached)
+            : null;
+        if (index == null) {
+            index = PersonAutocompleteIndex.build(personRepository.findNodeViewsByGroupId(groupId));
+        }
+        // 并发更新时保留版本较新的一份
+        indexes.merge(groupId, new VersionedIndex(index, version),
+            (existing, loaded) -> existing.version() > loaded.version() ? existing : loaded);
+        return index;
+    }
+
+    /**
+     * 按缓存版本之后的变更日志增量更新索引，无法增量时返回 null
+     */
+    private PersonAutocompleteIndex applyChanges(UUID groupId, VersionedIndex cached) {
+        Set<UUID> changedPersonIds = groupChangeLog.findChangedPersonIds(groupId, cached.version(), MAX_INCREMENTAL_CHANGES)
+            .orElse(null);
+        if (changedPersonIds == null) {
+            return null;
+        }
+        if (changedPersonIds.isEmpty()) {
+            return cached.index();
+        }
+        PersonAutocompleteIndex index = cached.index()
+            .update(changedPersonIds, personNodeLoader.load(groupId, changedPersonIds).values());
+        // 人数与数据库不一致说明日志有遗漏，改为整体重建
+        return index.size() == personRepository.countByGroupId(groupId) ? index : null;
+    }
+
+    private record VersionedIndex(PersonAutocompleteIndex index, int version) {}
+}
@@ -0,0 +1,55 @@
+package com.familytree.application.service;
+
+import com.familytree.domain.Relationship;
+import com.familytree.infrastructure.repository.PersonClosureRepository;
+import com.familytree.infrastructure.repository.PersonRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 祖先-后代闭包的增量维护
+ * 写入方在同一事务内调用：新增父母关系时合并两侧闭包，删除人物时重建其后代的祖先行
+ */
+@Component
+@RequiredArgsConstructor
+public class PersonClosureMaintainer {
+
+    // 重建时每批后代数量，避免 IN 列表超过数据库参数上限
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private final PersonClosureRepository personClosureRepository;
+    private final PersonRepository personRepository;
+
+    /**
+     * 新增关系后更新闭包，非父母关系忽略
+     */
+    public void onRelationshipCreated(Relationship relationship) {
+        switch (relationship.getType()) {
+            case PARENT -> personClosureRepository.linkParent(relationship.getGroupId(),
+                relationship.getFromPersonId(), relationship.getToPersonId());
+            case CHILD -> personClosureRepository.linkParent(relationship.getGroupId(),
+                relationship.getToPersonId(), relationship.getFromPersonId());
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * 删除人物前调用：移除经过该人物的闭包行，并按剩余关系重建其后代的祖先
+     */
+    public void onPersonDeleting(UUID groupId, UUID personId) {
+        List<UUID> descendantIds = personClosureRepository.findDescendantIds(groupId, personId);
+        personClosureRepository.deleteThroughPerson(groupId, personId);
+        if (descendantIds.isEmpty()) {
+            return;
+        }
+        int maxDistance = (int) personRepository.countByGroupId(groupId);
+        for (int from = 0; from < descendantIds.size(); from += REBUILD_BATCH_SIZE) {
+            List<UUID> batch = descendantIds.subList(from, Math.min(from + REBUILD_BATCH_SIZE, descendantIds.size()));
+            personClosureRepository.rebuildAncestors(groupId, batch, personId, maxDistance);
+        }
+    }
+}
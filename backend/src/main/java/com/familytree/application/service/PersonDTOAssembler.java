@@ -0,0 +1,246 @@
+package com.familytree.application.service;
+
+import com.familytree.application.dto.PersonDTO;
+import com.familytree.application.dto.PhotoDTO;
+import com.familytree.domain.Person;
+import com.familytree.domain.Photo;
+import com.familytree.domain.Relationship;
+import com.familytree.infrastructure.repository.PersonRepository;
+import com.familytree.infrastructure.repository.PhotoRepository;
+import com.familytree.infrastructure.repository.RelationshipRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 人物DTO批量组装器
+ * 照片、关系、父母的子女（推导兄弟姐妹）和配偶姓名各用一条集合查询取回，在内存中组装，
+ * 查询条数与人数无关；结果与逐个人物查询时一致。父母、子女只认 PARENT 关系，与原有接口相同。
+ * 推导出的兄弟姐妹按父母依次排列，同一父母的子女按人物ID排序：原先逐个父母查询时没有 ORDER BY，
+ * 顺序由执行计划决定，这里将其固定下来作为接口约定
+ */
+@Component
+@RequiredArgsConstructor
+public class PersonDTOAssembler {
+
+    /**
+     * IN 列表的最大长度；超过后改为按家族整体加载再在内存中分组，避免触及 JDBC 绑定参数上限
+     */
+    private static final int MAX_IN_LIST_SIZE = 5000;
+
+    /**
+     * 按 UUID 字节序比较，与 PostgreSQL uuid 类型的排序一致
+     */
+    static final Comparator<UUID> UUID_BYTE_ORDER = Comparator
+        .comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+        .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+    private final PersonRepository personRepository;
+    private final PhotoRepository photoRepository;
+    private final RelationshipRepository relationshipRepository;
+
+    public PersonDTO assemble(Person person) {
+        return assemble(person.getGroupId(), List.of(person)).get(0);
+    }
+
+    /**
+     * 批量组装同一家族内的人物DTO
+     *
+     * @return 与 persons 顺序一致的DTO列表
+     */
+    public List<PersonDTO> assemble(UUID groupId, List<Person> persons) {
+        if (persons.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Set<UUID> personIds = persons.stream()
+            .map(Person::getId)
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+        boolean wholeGroup = personIds.size() > MAX_IN_LIST_SIZE;
+
+        // 照片按人物分组，保持查询返回的顺序
+        List<Photo> photoRows = wholeGroup
+            ? photoRepository.findByGroupId(groupId)
+            : photoRepository.findByPersonIdIn(personIds);
+        Map<UUID, List<Photo>> photosByPerson = new HashMap<>();
+        for (Photo photo : photoRows) {
+            photosByPerson.computeIfAbsent(photo.getPersonId(), k -> new ArrayList<>()).add(photo);
+        }
+
+        // 每条关系挂到两端中属于本批的人物上
+        List<Relationship> relationshipRows = wholeGroup
+            ? relationshipRepository.findByGroupId(groupId)
+            : relationshipRepository.findByPersonIds(groupId, personIds);
+        Map<UUID, List<Relationship>> relationshipsByPerson = new HashMap<>();
+        for (Relationship relationship : relationshipRows) {
+            UUID fromId = relationship.getFromPersonId();
+            UUID toId = relationship.getToPersonId();
+            if (personIds.contains(fromId)) {
+                relationshipsByPerson.computeIfAbsent(fromId, k -> new ArrayList<>()).add(relationship);
+            }
+            if (!toId.equals(fromId) && personIds.contains(toId)) {
+                relationshipsByPerson.computeIfAbsent(toId, k -> new ArrayList<>()).add(relationship);
+            }
+        }
+
+        Map<UUID, List<UUID>> parentIdsByPerson = new HashMap<>();
+        Set<UUID> allParentIds = new LinkedHashSet<>();
+        for (Person person : persons) {
+            List<UUID> parentIds = relationshipsByPerson.getOrDefault(person.getId(), List.of()).stream()
+                .filter(r -> r.getType() == Relationship.RelationshipType.PARENT && r.getToPersonId().equals(person.getId()))
+                .map(Relationship::getFromPersonId)
+                .distinct()
+                .collect(Collectors.toList());
+            parentIdsByPerson.put(person.getId(), parentIds);
+            allParentIds.addAll(parentIds);
+        }
+        Map<UUID, List<UUID>> childrenByParent = loadChildren(groupId, allParentIds, wholeGroup, relationshipRows);
+
+        Map<UUID, String> spouseNames = loadSpouseNames(persons);
+
+        List<PersonDTO> result = new ArrayList<>(persons.size());
+        for (Person person : persons) {
+            List<Relationship> relationships = relationshipsByPerson.getOrDefault(person.getId(), List.of());
+            List<Photo> photos = photosByPerson.getOrDefault(person.getId(), List.of());
+            result.add(toDTO(person, photos, relationships, parentIdsByPerson.get(person.getId()), childrenByParent,
+                spouseNames));
+        }
+        return result;
+    }
+
+    /**
+     * 加载父母的所有子女（PARENT 关系），按父母分组；每位父母的子女按人物ID排序（见类注释中的顺序约定）
+     */
+    private Map<UUID, List<UUID>> loadChildren(UUID groupId, Set<UUID> parentIds, boolean wholeGroup,
+                                               List<Relationship> groupRelationships) {
+        Map<UUID, List<UUID>> childrenByParent = new HashMap<>();
+        if (parentIds.isEmpty()) {
+            return childrenByParent;
+        }
+        List<Relationship> rows;
+        if (wholeGroup) {
+            rows = groupRelationships;
+        } else if (parentIds.size() > MAX_IN_LIST_SIZE) {
+            rows = relationshipRepository.findByGroupId(groupId);
+        } else {
+            rows = relationshipRepository.findByGroupIdAndFromPersonIdInAndType(
+                groupId, parentIds, Relationship.RelationshipType.PARENT);
+        }
+        for (Relationship relationship : rows) {
+            if (relationship.getType() == Relationship.RelationshipType.PARENT
+                    && parentIds.contains(relationship.getFromPersonId())) {
+                childrenByParent.computeIfAbsent(relationship.getFromPersonId(), k -> new ArrayList<>())
+                    .add(relationship.getToPersonId());
+            }
+        }
+        childrenByParent.values().forEach(children -> children.sort(UUID_BYTE_ORDER));
+        return childrenByParent;
+    }
+
+    /**
+     * 当前配偶姓名：本批人物中没有的配偶一次性补查
+     */
+    private Map<UUID, String> loadSpouseNames(List<Person> persons) {
+        Map<UUID, String> names = new HashMap<>();
+        Set<UUID> missing = new HashSet<>();
+        Map<UUID, Person> byId = new HashMap<>(persons.size() * 2);
+        for (Person person : persons) {
+            byId.put(person.getId(), person);
+        }
+        for (Person person : persons) {
+            UUID spouseId = person.getCurrentSpouseId();
+            if (spouseId == null) {
+                continue;
+            }
+            Person spouse = byId.get(spouseId);
+            if (spouse != null) {
+                names.put(spouseId, spouse.getFullName());
+            } else {
+                missing.add(spouseId);
+            }
+        }
+        if (!missing.isEmpty()) {
+            for (Person spouse : personRepository.findAllById(missing)) {
+                names.put(spouse.getId(), spouse.getFullName());
+            }
+        }
+        return names;
+    }
+
+    private PersonDTO toDTO(Person person, List<Photo> photoRows, List<Relationship> relationships,
+                            List<UUID> parentIds, Map<UUID, List<UUID>> childrenByParent,
+                            Map<UUID, String> spouseNames) {
+        UUID personId = person.getId();
+        Photo primaryPhoto = photoRows.stream()
+            .filter(photo -> Boolean.TRUE.equals(photo.getIsPrimary()))
+            .findFirst()
+            .orElse(null);
+
+        List<PhotoDTO> photos = photoRows.stream()
+            .map(this::toPhotoDTO)
+            .collect(Collectors.toList());
+
+        List<UUID> childrenIds = relationships.stream()
+            .filter(r -> r.getType() == Relationship.RelationshipType.PARENT && r.getFromPersonId().equals(personId))
+            .map(Relationship::getToPersonId)
+            .distinct()
+            .collect(Collectors.toList());
+
+        List<UUID> spouseIds = relationships.stream()
+            .filter(r -> r.getType() == Relationship.RelationshipType.SPOUSE)
+            .map(r -> r.getFromPersonId().equals(personId) ? r.getToPersonId() : r.getFromPersonId())
+            .distinct()
+            .collect(Collectors.toList());
+
+        // 显式兄弟姐妹关系在前，其后是通过共同父母推导的兄弟姐妹
+        Set<UUID> siblingIds = new LinkedHashSet<>();
+        relationships.stream()
+            .filter(r -> r.getType() == Relationship.RelationshipType.SIBLING)
+            .map(r -> r.getFromPersonId().equals(personId) ? r.getToPersonId() : r.getFromPersonId())
+            .filter(id -> !id.equals(personId))
+            .forEach(siblingIds::add);
+        for (UUID parentId : parentIds) {
+            childrenByParent.getOrDefault(parentId, List.of()).stream()
+                .filter(id -> !id.equals(personId))
+                .forEach(siblingIds::add);
+        }
+
+        return PersonDTO.builder()
+            .id(personId)
+            .groupId(person.getGroupId())
+            .firstName(person.getFirstName())
+            .lastName(person.getLastName())
+            .fullName(person.getFullName())
+            .gender(person.getGender())
+            .birthDate(person.getBirthDate())
+            .deathDate(person.getDeathDate())
+            .birthPlace(person.getBirthPlace())
+            .currentSpouseId(person.getCurrentSpouseId())
+            .currentSpouseName(person.getCurrentSpouseId() != null ? spouseNames.get(person.getCurrentSpouseId()) : null)
+            .primaryPhotoUrl(primaryPhoto != null ? primaryPhoto.getUrl() : null)
+            .photos(photos)
+            .parentIds(parentIds)
+            .childrenIds(childrenIds)
+            .spouseIds(spouseIds)
+            .siblingIds(new ArrayList<>(siblingIds))
+            .createdAt(person.getCreatedAt())
+            .updatedAt(person.getUpdatedAt())
+            .version(person.getVersion())
+            .generation(person.getGeneration())
+            .build();
+    }
+
+    private PhotoDTO toPhotoDTO(Photo photo) {
+        return PhotoDTO.builder()
+            .id(photo.getId())
+            .personId(photo.getPersonId())
+            .url(photo.getUrl())
+            .description(photo.getDescription())
+            .takenAt(photo.getTakenAt())
+            .isPrimary(photo.getIsPrimary())
+            .createdAt(photo.getCreatedAt())
+            .build();
+    }
+}
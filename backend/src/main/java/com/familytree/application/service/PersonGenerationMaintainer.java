@@ -0,0 +1,42 @@
+package com.familytree.application.service;
+
+import com.familytree.domain.Relationship;
+import com.familytree.infrastructure.repository.PersonRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * 人物绝对代数（辈分）的增量维护
+ * 代数按父母关系的有向无环图分层：没有父母的人物为第 0 代，子女至少比每位父母大一代；
+ * 配偶视为同代，使嫁入/入赘的配偶与伴侣对齐。兄弟姐妹关系不参与（其父母关系已由建关系时同步），
+ * 否则叔侄等跨代婚姻会形成无法满足的约束。
+ * 写入方在同一事务内调用：新增关系只会使代数升高，沿受影响人物向下传播；删除人物可能使代数降低，
+ * 只重算能从该人物沿子女、配偶关系到达的人物（删除没有子女和配偶的人物时不涉及任何人）
+ */
+@Component
+@RequiredArgsConstructor
+public class PersonGenerationMaintainer {
+
+    private final PersonRepository personRepository;
+
+    /**
+     * 新增关系后更新代数，兄弟姐妹关系忽略
+     */
+    public void onRelationshipCreated(Relationship relationship) {
+        if (relationship.getType() == Relationship.RelationshipType.SIBLING) {
+            return;
+        }
+        int maxGeneration = (int) personRepository.countByGroupId(relationship.getGroupId());
+        personRepository.raiseGenerations(relationship.getFromPersonId(), relationship.getToPersonId(), maxGeneration);
+    }
+
+    /**
+     * 删除人物前调用：忽略该人物的关系，重新计算其子孙、配偶等受影响人物的代数
+     */
+    public void onPersonDeleting(UUID groupId, UUID personId) {
+        int maxGeneration = (int) personRepository.countByGroupId(groupId);
+        personRepository.recomputeGenerationsBelow(groupId, personId, maxGeneration);
+    }
+}
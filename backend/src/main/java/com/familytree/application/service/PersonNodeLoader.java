@@ -0,0 +1,57 @@
+package com.familytree.application.service;
+
+import com.familytree.infrastructure.repository.PersonRepository;
+import com.familytree.infrastructure.repository.projection.PersonNodeView;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * 树节点批量加载器
+ * 一条集合查询同时取回人物字段和主照片URL，避免逐个节点查询照片
+ */
+@Component
+@RequiredArgsConstructor
+public class PersonNodeLoader {
+
+    /**
+     * IN 列表的最大长度；超过后改为按家族整体加载再在内存中过滤，
+     * 保证无论树有多大都只发出一条查询，同时避免触及 JDBC 绑定参数上限
+     */
+    private static final int MAX_IN_LIST_SIZE = 5000;
+
+    private final PersonRepository personRepository;
+
+    /**
+     * 批量加载节点信息
+     *
+     * @param groupId   家族ID
+     * @param personIds 人物ID集合
+     * @return 人物ID到节点投影的映射（保持 personIds 的迭代顺序，不存在或不属于该家族的人物被忽略）
+     */
+    public Map<UUID, PersonNodeView> load(UUID groupId, Collection<UUID> personIds) {
+        if (personIds.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+
+        List<PersonNodeView> rows = personIds.size() > MAX_IN_LIST_SIZE
+            ? personRepository.findNodeViewsByGroupId(groupId)
+            : personRepository.findNodeViewsByIds(groupId, personIds);
+
+        // 同一人物存在多张主照片时只取第一张
+        Map<UUID, PersonNodeView> byId = new HashMap<>(rows.size() * 2);
+        for (PersonNodeView row : rows) {
+            byId.putIfAbsent(row.getId(), row);
+        }
+
+        Map<UUID, PersonNodeView> result = new LinkedHashMap<>(personIds.size() * 2);
+        for (UUID personId : personIds) {
+            PersonNodeView view = byId.get(personId);
+            if (view != null) {
+                result.put(personId, view);
+            }
+        }
+        return result;
+    }
+}
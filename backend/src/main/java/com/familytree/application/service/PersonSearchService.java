@@ -0,0 +1,142 @@
+package com.familytree.application.service;
+
+import com.familytree.application.dto.PersonBriefDTO;
+import com.familytree.application.dto.PersonSearchResultDTO;
+import com.familytree.application.search.PersonSearchIndex;
+import com.familytree.infrastructure.cache.BoundedLruCache;
+import com.familytree.infrastructure.repository.GroupRepository;
+import com.familytree.infrastructure.repository.PersonRepository;
+import com.familytree.infrastructure.repository.projection.PersonNameView;
+import com.familytree.infrastructure.repository.projection.PersonNodeView;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * 人物姓名检索
+ * 每个家族按版本缓存一份姓名索引；人物的新增、改名和删除都会递增家族版本，
+ * 版本变化后下一次检索时按变更日志判断：只修改了姓名以外的字段或只增删了关系时沿用原索引，否则重建
+ */
+@Service
+@RequiredArgsConstructor
+public class PersonSearchService {
+
+    public static final int MAX_LIMIT = 200;
+
+    /**
+     * 沿用原索引前允许检查的最大变更条数，超过后直接重建
+     */
+    private static final int MAX_REUSE_CHANGES = 500;
+
+    private final GroupRepository groupRepository;
+    private final GroupChangeLog groupChangeLog;
+    private final PersonRepository personRepository;
+    private final PersonNodeLoader personNodeLoader;
+
+    @Value("${familytree.search-cache.max-groups:256}")
+    private int maxGroups;
+
+    // 按最近访问淘汰，超过容量的家族下次检索时重新构建
+    private BoundedLruCache<UUID, VersionedIndex> indexes;
+
+    @PostConstruct
+    public void init() {
+        indexes = new BoundedLruCache<>(maxGroups);
+    }
+
+    /**
+     * 按姓名检索家族人物，支持姓名连写（如“张三”）、拼音全拼和首字母（如 zhangsan、zs）及模糊匹配，按相关度排序
+     *
+     * @param limit  返回人数，截断到 [1, MAX_LIMIT]
+     * @param offset 跳过的人数
+     */
+    @Transactional(readOnly = true)
+    public PersonSearchResultDTO search(UUID groupId, String keyword, int limit, int offset) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_LIMIT);
+        int skip = Math.max(offset, 0);
+        List<PersonSearchIndex.Hit> hits = getIndex(groupId).search(keyword);
+
+        List<PersonSearchIndex.Hit> page = hits.subList(Math.min(skip, hits.size()), Math.min(skip + pageSize, hits.size()));
+        List<UUID> personIds = page.stream().map(PersonSearchIndex.Hit::personId).toList();
+
+        // 一次查询获取本页人物及主照片
+        Map<UUID, PersonNodeView> personViews = personNodeLoader.load(groupId, personIds);
+        List<PersonBriefDTO> items = new ArrayList<>(page.size());
+        for (PersonSearchIndex.Hit hit : page) {
+            PersonNodeView person = personViews.get(hit.personId());
+            if (person == null) {
+                continue;
+            }
+            items.add(PersonBriefDTO.builder()
+                .id(person.getId())
+                .firstName(person.getFirstName())
+                .lastName(person.getLastName())
+                .fullName(person.getFullName())
+                .gender(person.getGender())
+                .birthDate(person.getBirthDate())
+                .deathDate(person.getDeathDate())
+                .primaryPhotoUrl(person.getPrimaryPhotoUrl())
+                .generation(person.getAbsoluteGeneration())
+                .score(hit.score())
+                .build());
+        }
+
+        return PersonSearchResultDTO.builder()
+            .keyword(keyword)
+            .total(hits.size())
+            .offset(skip)
+            .limit(pageSize)
+            .items(items)
+            .build();
+    }
+
+    /**
+     * 按姓名检索，只返回全部命中的人物ID（按相关度排序，不截断），供返回完整列表的旧检索接口使用
+     */
+    @Transactional(readOnly = true)
+    public List<UUID> searchIds(UUID groupId, String keyword) {
+        return getIndex(groupId).search(keyword).stream()
+            .map(PersonSearchIndex.Hit::personId)
+            .toList();
+    }
+
+    private PersonSearchIndex getIndex(UUID groupId) {
+        int version = groupRepository.findVersionById(groupId)
+            .orElseThrow(() -> new RuntimeException("家族不存在"));
+        VersionedIndex cached = indexes.get(groupId);
+        if (cached != null && cached.version() == version) {
+            return cached.index();
+        }
+
+        PersonSearchIndex index = cached != null && cached.version() < version && namesUnchanged(groupId, cached)
+            ? cached.index()
+            : PersonSearchIndex.build(personRepository.findNameViewsByGroupId(groupId));
+        // 并发重建时保留版本较新的一份
+        indexes.merge(groupId, new VersionedIndex(index, version),
+            (existing, loaded) -> existing.version() > loaded.version() ? existing : loaded);
+        return index;
+    }
+
+    /**
+     * 缓存版本之后的变更是否都不影响姓名：只有人物修改（且姓名未变）和关系增删
+     */
+    private boolean namesUnchanged(UUID groupId, VersionedIndex cached) {
+        Set<UUID> changedPersonIds = groupChangeLog.findChangedPersonIds(groupId, cached.version(), MAX_REUSE_CHANGES)
+            .orElse(null);
+        if (changedPersonIds == null) {
+            return false;
+        }
+        if (changedPersonIds.isEmpty()) {
+            return true;
+        }
+        // 已删除的人物查不到，新增的人物不在原索引中，两种情况都需要重建
+        List<PersonNameView> persons = personRepository.findNameViewsByIds(groupId, changedPersonIds);
+        return persons.size() == changedPersonIds.size() && cached.index().hasSameNames(persons);
+    }
+
+    private record VersionedIndex(PersonSearchIndex index, int version) {}
+}
@@ -1,24 +1,36 @@
 package com.familytree.application.service;
 
+import com.familytree.application.dto.CursorPageDTO;
+import com.familytree.application.dto.GenerationCountDTO;
+import com.familytree.application.dto.PersonBriefDTO;
 import com.familytree.application.dto.PersonDTO;
 import com.familytree.application.dto.PersonRelationsDTO;
-import com.familytree.application.dto.PhotoDTO;
 import com.familytree.application.dto.request.CreatePersonRequest;
 import com.familytree.application.dto.request.UpdatePersonRequest;
+import com.familytree.application.graph.GroupGraph;
+import com.familytree.domain.ChangeSet;
 import com.familytree.domain.Person;
+import com.familytree.domain.PersonFieldSet;
 import com.familytree.domain.Photo;
 import com.familytree.domain.Relationship;
 import com.familytree.infrastructure.repository.GroupMemberRepository;
 import com.familytree.infrastructure.repository.PersonRepository;
 import com.familytree.infrastructure.repository.PhotoRepository;
 import com.familytree.infrastructure.repository.RelationshipRepository;
+import com.familytree.infrastructure.repository.projection.PersonNodeView;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -31,6 +43,15 @@ public class PersonService {
     private final PhotoRepository photoRepository;
     private final RelationshipRepository relationshipRepository;
     private final GroupMemberRepository groupMemberRepository;
+    private final GroupChangeLog groupChangeLog;
+    private final GroupGraphService groupGraphService;
+    private final PersonClosureMaintainer personClosureMaintainer;
+    private final PersonGenerationMaintainer personGenerationMaintainer;
+    private final PersonDTOAssembler personDTOAssembler;
+    private final PersonNodeLoader personNodeLoader;
+    private final PersonSearchService personSearchService;
+
+    private static final int MAX_PAGE_SIZE = 500;
     
     @Transactional
     public PersonDTO createPerson(UUID userId, CreatePersonRequest request) {
@@ -44,10 +65,16 @@ public class PersonService {
             .birthPlace(request.getBirthPlace())
             .currentSpouseId(request.getCurrentSpouseId())
             .createdBy(userId)
+            .generation(0)
+            .descendantCount(0)
+            .ancestorCount(0)
             .version(0)
             .build();
         
         person = personRepository.save(person);
+        groupChangeLog.recordDirectWrite(person.getGroupId(),
+            List.of(GroupChangeLog.Entry.person(person.getId(), ChangeSet.ActionType.CREATE)));
+        groupGraphService.invalidate(person.getGroupId());
         return toDTO(person);
     }
     
@@ -60,16 +87,57 @@ public class PersonService {
     
     @Transactional(readOnly = true)
     public List<PersonDTO> getGroupPersons(UUID groupId) {
-        List<Person> persons = personRepository.findByGroupId(groupId);
-        return persons.stream()
-            .map(this::toDTO)
-            .collect(Collectors.toList());
+        return personDTOAssembler.assemble(groupId, personRepository.findByGroupId(groupId));
+    }
+    
+    /**
+     * 按 (创建时间, ID) 键集分页获取家族人物
+     * 游标记录上一页最后一人的排序键，翻页期间有人物增删也不会重复或遗漏其余人物；
+     * SUMMARY 只返回列表展示所需的字段，跳过照片列表和关系的组装
+     *
+     * @param cursor 上一页返回的 nextCursor，为空时从第一页开始
+     * @param limit  每页人数，超出范围时截断到 [1, MAX_PAGE_SIZE]
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<?> getGroupPersonPage(UUID groupId, String cursor, int limit, PersonFieldSet fields) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        // 多取一条用于判断是否还有下一页
+        List<Person> persons;
+        if (cursor == null || cursor.isEmpty()) {
+            persons = personRepository.findPageByGroupId(groupId, pageSize + 1);
+        } else {
+            PageKey key = decodeCursor(cursor);
+            persons = personRepository.findPageByGroupIdAfter(groupId, key.createdAt(), key.id(), pageSize + 1);
+        }
+
+        boolean hasMore = persons.size() > pageSize;
+        if (hasMore) {
+            persons = persons.subList(0, pageSize);
+        }
+        String nextCursor = hasMore ? encodeCursor(persons.get(persons.size() - 1)) : null;
+
+        if (fields == PersonFieldSet.FULL) {
+            return CursorPageDTO.<PersonDTO>builder()
+                .items(personDTOAssembler.assemble(groupId, persons))
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+        }
+        return CursorPageDTO.<PersonBriefDTO>builder()
+            .items(toBriefList(persons))
+            .nextCursor(nextCursor)
+            .hasMore(hasMore)
+            .build();
     }
     
     @Transactional
     public PersonDTO updatePerson(UUID personId, UpdatePersonRequest request) {
         Person person = personRepository.findById(personId)
             .orElseThrow(() -> new RuntimeException("人物不存在"));
+
+        // 关系图索引保存了性别（用于血统线判定），整体布局按出生日期排列同辈，二者变化才算结构变化
+        boolean structural = (request.getGender() != null && request.getGender() != person.getGender())
+            || (request.getBirthDate() != null && !request.getBirthDate().equals(person.getBirthDate()));
         
         if (request.getFirstName() != null) {
             person.setFirstName(request.getFirstName());
@@ -94,6 +162,14 @@ public class PersonService {
         }
         
         person = personRepository.save(person);
+        List<GroupChangeLog.Entry> changes =
+            List.of(GroupChangeLog.Entry.person(person.getId(), ChangeSet.ActionType.UPDATE));
+        if (structural) {
+            groupChangeLog.recordDirectWrite(person.getGroupId(), changes);
+            groupGraphService.invalidate(person.getGroupId());
+        } else {
+            groupChangeLog.recordContentWrite(person.getGroupId(), changes);
+        }
         return toDTO(person);
     }
     
@@ -102,6 +178,9 @@ public class PersonService {
         Person person = personRepository.findById(personId)
             .orElseThrow(() -> new RuntimeException("人物不存在"));
         
+        personClosureMaintainer.onPersonDeleting(person.getGroupId(), personId);
+        personGenerationMaintainer.onPersonDeleting(person.getGroupId(), personId);
+
         // 删除相关关系
         List<Relationship> relationships = relationshipRepository.findByPersonId(person.getGroupId(), personId);
         relationshipRepository.deleteAll(relationships);
@@ -111,92 +190,111 @@ public class PersonService {
         photoRepository.deleteAll(photos);
         
         personRepository.delete(person);
+
+        List<GroupChangeLog.Entry> changes = new ArrayList<>();
+        changes.add(GroupChangeLog.Entry.person(personId, ChangeSet.ActionType.DELETE));
+        for (Relationship relationship : relationships) {
+            changes.add(GroupChangeLog.Entry.relationship(relationship.getId(), ChangeSet.ActionType.DELETE));
+        }
+        groupChangeLog.recordDirectWrite(person.getGroupId(), changes);
+        groupGraphService.invalidate(person.getGroupId());
     }
     
+    /**
+     * 按绝对代数范围获取家族人物（走 group_id + generation 索引）
+     */
+    @Transactional(readOnly = true)
+    public List<PersonDTO> getPersonsByGeneration(UUID groupId, Integer minGeneration, Integer maxGeneration) {
+        int min = minGeneration != null ? minGeneration : 0;
+        int max = maxGeneration != null ? maxGeneration : Integer.MAX_VALUE;
+        if (min > max) {
+            throw new RuntimeException("代数范围不正确");
+        }
+        return personDTOAssembler.assemble(groupId,
+            personRepository.findByGroupIdAndGenerationBetweenOrderByGenerationAsc(groupId, min, max));
+    }
+
+    /**
+     * 统计家族每一代的人数
+     */
+    @Transactional(readOnly = true)
+    public List<GenerationCountDTO> getGenerationCounts(UUID groupId) {
+        return personRepository.countByGeneration(groupId).stream()
+            .map(row -> GenerationCountDTO.builder()
+                .generation(row.getGeneration())
+                .personCount(row.getPersonCount())
+                .build())
+            .collect(Collectors.toList());
+    }
+    
+    /**
+     * 按姓名检索人物，返回全部命中人物的完整信息（按相关度排序）；需要分页时使用 PersonSearchService.search
+     */
     @Transactional(readOnly = true)
     public List<PersonDTO> searchPersons(UUID groupId, String keyword) {
-        List<Person> persons = personRepository.searchByGroupIdAndName(groupId, keyword);
-        return persons.stream()
-            .map(this::toDTO)
+        List<UUID> personIds = personSearchService.searchIds(groupId, keyword);
+        Map<UUID, Person> byId = new HashMap<>();
+        personRepository.findAllById(personIds).forEach(p -> byId.put(p.getId(), p));
+        List<Person> persons = personIds.stream()
+            .map(byId::get)
+            .filter(p -> p != null)
             .collect(Collectors.toList());
+        return personDTOAssembler.assemble(groupId, persons);
     }
     
     private PersonDTO toDTO(Person person) {
-        Photo primaryPhoto = photoRepository.findByPersonIdAndIsPrimaryTrue(person.getId()).orElse(null);
-        
-        List<PhotoDTO> photos = photoRepository.findByPersonId(person.getId()).stream()
-            .map(this::toPhotoDTO)
-            .collect(Collectors.toList());
-        
-        // 获取关系
-        List<Relationship> relationships = relationshipRepository.findByPersonId(person.getGroupId(), person.getId());
-        
-        List<UUID> parentIds = relationships.stream()
-            .filter(r -> r.getType() == Relationship.RelationshipType.PARENT && r.getToPersonId().equals(person.getId()))
-            .map(Relationship::getFromPersonId)
-            .distinct()
-            .collect(Collectors.toList());
-        
-        List<UUID> childrenIds = relationships.stream()
-            .filter(r -> r.getType() == Relationship.RelationshipType.PARENT && r.getFromPersonId().equals(person.getId()))
-            .map(Relationship::getToPersonId)
-            .distinct()
-            .collect(Collectors.toList());
-        
-        List<UUID> spouseIds = relationships.stream()
-            .filter(r -> r.getType() == Relationship.RelationshipType.SPOUSE)
-            .map(r -> r.getFromPersonId().equals(person.getId()) ? r.getToPersonId() : r.getFromPersonId())
-            .distinct()
-            .collect(Collectors.toList());
+        return personDTOAssembler.assemble(person);
+    }
 
-        List<UUID> siblingIds = resolveSiblingIds(person.getGroupId(), person.getId(), parentIds, relationships);
-        
-        String currentSpouseName = null;
-        if (person.getCurrentSpouseId() != null) {
-            currentSpouseName = personRepository.findById(person.getCurrentSpouseId())
-                .map(Person::getFullName)
-                .orElse(null);
+    private List<PersonBriefDTO> toBriefList(List<Person> persons) {
+        if (persons.isEmpty()) {
+            return new ArrayList<>();
         }
-        
-        return PersonDTO.builder()
-            .id(person.getId())
-            .groupId(person.getGroupId())
-            .firstName(person.getFirstName())
-            .lastName(person.getLastName())
-            .fullName(person.getFullName())
-            .gender(person.getGender())
-            .birthDate(person.getBirthDate())
-            .deathDate(person.getDeathDate())
-            .birthPlace(person.getBirthPlace())
-            .currentSpouseId(person.getCurrentSpouseId())
-            .currentSpouseName(currentSpouseName)
-            .primaryPhotoUrl(primaryPhoto != null ? primaryPhoto.getUrl() : null)
-            .photos(photos)
-            .parentIds(parentIds)
-            .childrenIds(childrenIds)
-            .spouseIds(spouseIds)
-            .siblingIds(siblingIds)
-            .createdAt(person.getCreatedAt())
-            .updatedAt(person.getUpdatedAt())
-            .version(person.getVersion())
-            .build();
+        // 同一人物存在多张主照片时只取第一张
+        Map<UUID, String> primaryPhotoUrls = new HashMap<>();
+        photoRepository.findByPersonIdInAndIsPrimaryTrue(persons.stream().map(Person::getId).toList())
+            .forEach(photo -> primaryPhotoUrls.putIfAbsent(photo.getPersonId(), photo.getUrl()));
+
+        return persons.stream()
+            .map(p -> PersonBriefDTO.builder()
+                .id(p.getId())
+                .firstName(p.getFirstName())
+                .lastName(p.getLastName())
+                .fullName(p.getFullName())
+                .gender(p.getGender())
+                .birthDate(p.getBirthDate())
+                .deathDate(p.getDeathDate())
+                .primaryPhotoUrl(primaryPhotoUrls.get(p.getId()))
+                .generation(p.getGeneration())
+                .build())
+            .collect(Collectors.toList());
     }
-    
-    private PhotoDTO toPhotoDTO(Photo photo) {
-        return PhotoDTO.builder()
-            .id(photo.getId())
-            .personId(photo.getPersonId())
-            .url(photo.getUrl())
-            .description(photo.getDescription())
-            .takenAt(photo.getTakenAt())
-            .isPrimary(photo.getIsPrimary())
-            .createdAt(photo.getCreatedAt())
-            .build();
+
+    /**
+     * 分页游标：排序键 "创建时间|人物ID" 的 Base64URL 编码，对客户端不透明
+     */
+    private String encodeCursor(Person person) {
+        String key = person.getCreatedAt() + "|" + person.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private PageKey decodeCursor(String cursor) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = key.indexOf('|');
+            return new PageKey(LocalDateTime.parse(key.substring(0, separator)), UUID.fromString(key.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new RuntimeException("分页游标无效");
+        }
     }
 
+    private record PageKey(LocalDateTime createdAt, UUID id) {}
+
     /**
      * 获取人员关系详情
      * 返回某人的父母、配偶、子女、兄弟姐妹列表（包含完整信息）
+     * 关系取自缓存的家族关系图索引，涉及人物（含本人）的信息及主照片一次批量加载；
+     * 父母、子女和推导的兄弟姐妹只认 PARENT 关系（图索引另外合并了历史 CHILD 关系），与 {@link PersonDTOAssembler} 一致
      */
     @Transactional(readOnly = true)
     public PersonRelationsDTO getPersonRelations(UUID personId, UUID currentUserId) {
@@ -209,92 +307,112 @@ public class PersonService {
             throw new RuntimeException("您没有权限查看此人员信息");
         }
 
-        // 获取该人物的所有关系
-        List<Relationship> relationships = relationshipRepository.findByPersonId(person.getGroupId(), personId);
+        GroupGraph graph = groupGraphService.getGraph(person.getGroupId());
+        int v = graph.ordinalOf(personId);
 
-        // 获取父母ID
-        List<UUID> parentIds = relationships.stream()
-            .filter(r -> r.getType() == Relationship.RelationshipType.PARENT && r.getToPersonId().equals(personId))
-            .map(Relationship::getFromPersonId)
-            .distinct()
-            .collect(Collectors.toList());
+        List<UUID> parentIds = parentLinkIds(graph, graph.parents(), v);
+        List<UUID> childrenIds = parentLinkIds(graph, graph.children(), v);
+        List<UUID> spouseIds = neighborIds(graph, graph.spouses(), v);
+        List<UUID> siblingIds = resolveSiblingIds(graph, v);
 
-        // 获取子女ID
-        List<UUID> childrenIds = relationships.stream()
-            .filter(r -> r.getType() == Relationship.RelationshipType.PARENT && r.getFromPersonId().equals(personId))
-            .map(Relationship::getToPersonId)
-            .distinct()
-            .collect(Collectors.toList());
-
-        // 获取配偶ID
-        List<UUID> spouseIds = relationships.stream()
-            .filter(r -> r.getType() == Relationship.RelationshipType.SPOUSE)
-            .map(r -> r.getFromPersonId().equals(personId) ? r.getToPersonId() : r.getFromPersonId())
-            .distinct()
-            .collect(Collectors.toList());
-
-        List<UUID> siblingIds = resolveSiblingIds(person.getGroupId(), personId, parentIds, relationships);
-
-        // 构建返回DTO
-        Photo primaryPhoto = photoRepository.findByPersonIdAndIsPrimaryTrue(personId).orElse(null);
+        // 一次查询获取所有相关人物及主照片
+        Set<UUID> relatedIds = new LinkedHashSet<>();
+        relatedIds.add(personId);
+        relatedIds.addAll(parentIds);
+        relatedIds.addAll(spouseIds);
+        relatedIds.addAll(childrenIds);
+        relatedIds.addAll(siblingIds);
+        Map<UUID, PersonNodeView> personViews = personNodeLoader.load(person.getGroupId(), relatedIds);
+        PersonNodeView self = personViews.get(personId);
 
         return PersonRelationsDTO.builder()
             .personId(personId)
             .personName(person.getFullName())
-            .primaryPhotoUrl(primaryPhoto != null ? primaryPhoto.getUrl() : null)
-            .parents(toSummaryList(parentIds, "PARENT"))
-            .spouses(toSummaryList(spouseIds, "SPOUSE"))
-            .children(toSummaryList(childrenIds, "CHILD"))
-            .siblings(toSummaryList(siblingIds, "SIBLING"))
+            .primaryPhotoUrl(self != null ? self.getPrimaryPhotoUrl() : null)
+            .parents(toSummaryList(parentIds, personViews, "PARENT"))
+            .spouses(toSummaryList(spouseIds, personViews, "SPOUSE"))
+            .children(toSummaryList(childrenIds, personViews, "CHILD"))
+            .siblings(toSummaryList(siblingIds, personViews, "SIBLING"))
             .build();
     }
 
     /**
-     * 将人员ID列表转换为摘要DTO列表
+     * 将人员ID列表转换为摘要DTO列表（不存在的人物被忽略）
      */
-    private List<PersonRelationsDTO.PersonSummaryDTO> toSummaryList(List<UUID> personIds, String relationType) {
+    private List<PersonRelationsDTO.PersonSummaryDTO> toSummaryList(List<UUID> personIds,
+                                                                    Map<UUID, PersonNodeView> personViews,
+                                                                    String relationType) {
         return personIds.stream()
-            .map(id -> personRepository.findById(id).orElse(null))
+            .map(personViews::get)
             .filter(p -> p != null)
-            .map(p -> {
-                Photo photo = photoRepository.findByPersonIdAndIsPrimaryTrue(p.getId()).orElse(null);
-                return PersonRelationsDTO.PersonSummaryDTO.builder()
-                    .id(p.getId())
-                    .fullName(p.getFullName())
-                    .firstName(p.getFirstName())
-                    .lastName(p.getLastName())
-                    .gender(p.getGender() != null ? p.getGender().name() : "UNKNOWN")
-                    .birthDate(p.getBirthDate() != null ? p.getBirthDate().toString() : null)
-                    .deathDate(p.getDeathDate() != null ? p.getDeathDate().toString() : null)
-                    .primaryPhotoUrl(photo != null ? photo.getUrl() : null)
-                    .relationType(relationType)
-                    .build();
-            })
+            .map(p -> PersonRelationsDTO.PersonSummaryDTO.builder()
+                .id(p.getId())
+                .fullName(p.getFullName())
+                .firstName(p.getFirstName())
+                .lastName(p.getLastName())
+                .gender(p.getGender() != null ? p.getGender().name() : "UNKNOWN")
+                .birthDate(p.getBirthDate() != null ? p.getBirthDate().toString() : null)
+                .deathDate(p.getDeathDate() != null ? p.getDeathDate().toString() : null)
+                .primaryPhotoUrl(p.getPrimaryPhotoUrl())
+                .relationType(relationType)
+                .build())
             .collect(Collectors.toList());
     }
 
-    private List<UUID> resolveSiblingIds(
-            UUID groupId,
-            UUID personId,
-            List<UUID> parentIds,
-            List<Relationship> directRelationships) {
+    /**
+     * 邻接表中的相关人物ID（去重，保持关系顺序）；人物不在图中时返回空列表
+     */
+    private List<UUID> neighborIds(GroupGraph graph, GroupGraph.Adjacency adjacency, int v) {
+        if (v < 0) {
+            return new ArrayList<>();
+        }
+        Set<UUID> ids = new LinkedHashSet<>();
+        for (int i = adjacency.start(v); i < adjacency.end(v); i++) {
+            ids.add(graph.personId(adjacency.target(i)));
+        }
+        return new ArrayList<>(ids);
+    }
+
+    /**
+     * 父母或子女邻接表中由 PARENT 关系得到的人物ID（去重，保持关系顺序），忽略历史 CHILD 关系
+     */
+    private List<UUID> parentLinkIds(GroupGraph graph, GroupGraph.Adjacency adjacency, int v) {
+        if (v < 0) {
+            return new ArrayList<>();
+        }
+        Set<UUID> ids = new LinkedHashSet<>();
+        for (int i = adjacency.start(v); i < adjacency.end(v); i++) {
+            if (graph.edgeType(adjacency.edge(i)) == Relationship.RelationshipType.PARENT) {
+                ids.add(graph.personId(adjacency.target(i)));
+            }
+        }
+        return new ArrayList<>(ids);
+    }
 
+    /**
+     * 显式兄弟姐妹在前，其后依次是每位父母的其他子女（按人物ID排序），与 {@link PersonDTOAssembler} 相同
+     */
+    private List<UUID> resolveSiblingIds(GroupGraph graph, int v) {
+        if (v < 0) {
+            return new ArrayList<>();
+        }
         Set<UUID> siblingIds = new LinkedHashSet<>();
 
         // 显式兄弟姐妹关系
-        directRelationships.stream()
-            .filter(r -> r.getType() == Relationship.RelationshipType.SIBLING)
-            .map(r -> r.getFromPersonId().equals(personId) ? r.getToPersonId() : r.getFromPersonId())
-            .filter(id -> !id.equals(personId))
-            .forEach(siblingIds::add);
+        GroupGraph.Adjacency siblings = graph.siblings();
+        for (int i = siblings.start(v); i < siblings.end(v); i++) {
+            if (siblings.target(i) != v) {
+                siblingIds.add(graph.personId(siblings.target(i)));
+            }
+        }
 
         // 通过共同父母推导兄弟姐妹
-        for (UUID parentId : parentIds) {
-            relationshipRepository.findByGroupIdAndFromPersonIdAndType(
-                    groupId, parentId, Relationship.RelationshipType.PARENT)
-                .stream()
-                .map(Relationship::getToPersonId)
-                .filter(id -> !id.equals(personId))
+        GroupGraph.Adjacency children = graph.children();
+        for (UUID parentId : parentLinkIds(graph, graph.parents(), v)) {
+            int parent = graph.ordinalOf(parentId);
+            parentLinkIds(graph, children, parent).stream()
+                .filter(id -> !id.equals(graph.personId(v)))
+                .sorted(PersonDTOAssembler.UUID_BYTE_ORDER)
                 .forEach(siblingIds::add);
         }
 
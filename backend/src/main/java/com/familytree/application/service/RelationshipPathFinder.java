@@ -0,0 +1,195 @@
+package com.familytree.application.service;
+
+import com.familytree.application.graph.GroupGraph;
+import com.familytree.application.graph.ScratchPool;
+import com.familytree.application.graph.VisitedMarks;
+import com.familytree.domain.Relationship;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * 关系路径查找
+ * 在家族关系图索引上做双向 BFS，求两人之间步数最少的关系路径；
+ * 每轮扩展规模较小的一侧的一整层，两侧相遇的那一层中取总步数最小的相遇点。
+ * 按人物序号索引的数组放在池化的工作区中并以轮次标记访问，每次查询的开销只与访问到的人数有关
+ */
+@Component
+public class RelationshipPathFinder {
+
+    /**
+     * 每一步的关系类型，与邻接表顺序一致：下一位人物是当前人物的父母/子女/配偶/兄弟姐妹
+     */
+    public static final Relationship.RelationshipType[] STEP_TYPES = {
+        Relationship.RelationshipType.PARENT,
+        Relationship.RelationshipType.CHILD,
+        Relationship.RelationshipType.SPOUSE,
+        Relationship.RelationshipType.SIBLING
+    };
+
+    // 反向扩展时记录的是“从邻居走回当前人物”的关系：父母与子女互换
+    private static final byte[] INVERSE_STEP = {1, 0, 2, 3};
+
+    private final ScratchPool<Workspace> workspaces = new ScratchPool<>(Workspace::new);
+
+    /**
+     * 查找 from 到 to 的最短关系路径
+     *
+     * @return 路径，两人不连通时返回 null
+     */
+    public Path findPath(GroupGraph graph, int from, int to) {
+        if (from == to) {
+            return new Path(new int[]{from}, new int[0], new byte[0]);
+        }
+        Workspace workspace = workspaces.acquire();
+        try {
+            workspace.reset(graph.size());
+            return search(graph, from, to, workspace);
+        } finally {
+            workspaces.release(workspace);
+        }
+    }
+
+    private Path search(GroupGraph graph, int from, int to, Workspace workspace) {
+        GroupGraph.Adjacency[] adjacencies = {graph.parents(), graph.children(), graph.spouses(), graph.siblings()};
+
+        // 正向：prev 指向更靠近 from 的人物；反向：prev 指向更靠近 to 的人物
+        // via/step 为连接 prev 与该人物的关系边及其在最终路径方向上的关系类型；只有 visited 中的人物槽位有效
+        VisitedMarks[] visited = workspace.visited;
+        int[][] distance = workspace.distance;
+        int[][] prev = workspace.prev;
+        int[][] via = workspace.via;
+        byte[][] step = workspace.step;
+        visited[0].add(from);
+        visited[1].add(to);
+        distance[0][from] = 0;
+        distance[1][to] = 0;
+
+        int[][] frontier = {{from}, {to}};
+        int[] frontierSize = {1, 1};
+        int[] next = new int[16];
+
+        while (frontierSize[0] > 0 && frontierSize[1] > 0) {
+            int side = frontierSize[0] <= frontierSize[1] ? 0 : 1;
+            int other = 1 - side;
+            VisitedMarks seen = visited[side];
+            int[] dist = distance[side];
+            int bestLength = Integer.MAX_VALUE;
+            int meetFrom = -1;
+            int meetTo = -1;
+            int meetEdge = -1;
+            byte meetStep = 0;
+            int nextSize = 0;
+
+            for (int f = 0; f < frontierSize[side]; f++) {
+                int current = frontier[side][f];
+                for (int a = 0; a < adjacencies.length; a++) {
+                    GroupGraph.Adjacency adjacency = adjacencies[a];
+                    byte stepType = side == 0 ? (byte) a : INVERSE_STEP[a];
+                    for (int i = adjacency.start(current); i < adjacency.end(current); i++) {
+                        int related = adjacency.target(i);
+                        if (visited[other].contains(related)) {
+                            int length = dist[current] + 1 + distance[other][related];
+                            if (length < bestLength) {
+                                bestLength = length;
+                                meetFrom = current;
+                                meetTo = related;
+                                meetEdge = adjacency.edge(i);
+                                meetStep = stepType;
+                            }
+                        }
+                        if (seen.add(related)) {
+                            dist[related] = dist[current] + 1;
+                            prev[side][related] = current;
+                            via[side][related] = adjacency.edge(i);
+                            step[side][related] = stepType;
+                            if (nextSize == next.length) {
+                                next = Arrays.copyOf(next, nextSize * 2);
+                            }
+                            next[nextSize++] = related;
+                        }
+                    }
+                }
+            }
+
+            if (meetFrom >= 0) {
+                // 统一成 from 侧人物 → to 侧人物
+                int forwardEnd = side == 0 ? meetFrom : meetTo;
+                int backwardStart = side == 0 ? meetTo : meetFrom;
+                return buildPath(distance, prev, via, step, forwardEnd, backwardStart, meetEdge, meetStep, bestLength);
+            }
+
+            int[] expanded = frontier[side];
+            frontier[side] = Arrays.copyOf(next, nextSize);
+            frontierSize[side] = nextSize;
+            next = expanded.length >= 16 ? expanded : new int[16];
+        }
+        return null;
+    }
+
+    private Path buildPath(int[][] distance, int[][] prev, int[][] via, byte[][] step,
+                           int forwardEnd, int backwardStart, int meetEdge, byte meetStep, int length) {
+        int[] persons = new int[length + 1];
+        int[] edges = new int[length];
+        byte[] steps = new byte[length];
+
+        // 正向部分：从相遇点沿 prev 回溯到 from
+        int forwardLength = distance[0][forwardEnd];
+        int v = forwardEnd;
+        for (int k = forwardLength; k > 0; k--) {
+            persons[k] = v;
+            edges[k - 1] = via[0][v];
+            steps[k - 1] = step[0][v];
+            v = prev[0][v];
+        }
+        persons[0] = v;
+
+        persons[forwardLength + 1] = backwardStart;
+        edges[forwardLength] = meetEdge;
+        steps[forwardLength] = meetStep;
+
+        // 反向部分：从相遇点沿 prev 前进到 to
+        v = backwardStart;
+        for (int k = forwardLength + 1; k < length; k++) {
+            edges[k] = via[1][v];
+            steps[k] = step[1][v];
+            v = prev[1][v];
+            persons[k + 1] = v;
+        }
+        return new Path(persons, edges, steps);
+    }
+
+    /**
+     * 关系路径
+     *
+     * @param persons 途经人物序号（首尾为起点和终点）
+     * @param edges   相邻两人之间的关系边编号
+     * @param steps   每一步的关系类型（{@link #STEP_TYPES} 的下标）
+     */
+    public record Path(int[] persons, int[] edges, byte[] steps) {}
+
+    /**
+     * 一次查询的工作区：两侧的访问标记及按人物序号索引的距离、前驱、关系边和关系类型，
+     * 在查询之间复用，家族人数超过容量时才重新分配
+     */
+    private static final class Workspace {
+        private final VisitedMarks[] visited = {new VisitedMarks(), new VisitedMarks()};
+        private final int[][] distance = new int[2][];
+        private final int[][] prev = new int[2][];
+        private final int[][] via = new int[2][];
+        private final byte[][] step = new byte[2][];
+
+        private void reset(int size) {
+            if (visited[0].capacity() < size) {
+                for (int side = 0; side < 2; side++) {
+                    distance[side] = new int[size];
+                    prev[side] = new int[size];
+                    via[side] = new int[size];
+                    step[side] = new byte[size];
+                }
+            }
+            visited[0].reset(size);
+            visited[1].reset(size);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.familytree.application.service;
+
+import com.familytree.application.dto.TreeStreamEvent;
+
+import java.util.function.Consumer;
+
+/**
+ * 已完成校验与遍历、尚未输出的流式树结果
+ * 调用 {@link #writeTo(Consumer)} 时按批加载人物并逐条交给 sink
+ */
+@FunctionalInterface
+public interface TreeStream {
+
+    void writeTo(Consumer<TreeStreamEvent> sink);
+}
@@ -0,0 +1,10 @@
+package com.familytree.domain;
+
+/**
+ * 折叠分支相对于锚点人物的方向
+ */
+public enum CollapseDirection {
+    ANCESTORS,    // 父母一侧
+    DESCENDANTS,  // 子女一侧
+    RELATIVES     // 配偶/兄弟姐妹
+}
@@ -39,4 +39,12 @@ public class Group {
     @Version
     @Column(name = "version")
     private Integer version;
+
+    /**
+     * 最近一次结构变化（人物增删、关系增删、性别或出生日期修改）时的家族版本；
+     * 关系图索引和整体布局按此版本缓存，只修改姓名等字段时不会失效。由仓库的批量更新维护
+     */
+    @Column(name = "structure_version", insertable = false, updatable = false,
+            columnDefinition = "INTEGER NOT NULL DEFAULT 0")
+    private Integer structureVersion;
 }
@@ -0,0 +1,46 @@
+package com.familytree.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 家族变更日志
+ * 每次递增家族版本时记录本次写入涉及的人物/关系，用于向客户端下发增量
+ */
+@Entity
+@Table(name = "group_changes")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GroupChange {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "group_id", nullable = false)
+    private UUID groupId;
+
+    // 本次变更后的家族版本
+    @Column(name = "version", nullable = false)
+    private Integer version;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", length = 20)
+    private ChangeSet.EntityType entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private UUID entityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "action_type", length = 20)
+    private ChangeSet.ActionType actionType;
+
+    @CreationTimestamp
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+}
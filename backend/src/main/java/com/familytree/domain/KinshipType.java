@@ -0,0 +1,16 @@
+package com.familytree.domain;
+
+/**
+ * 血亲关系类型（B 相对于 A）
+ * 依据两人到最近共同祖先的代数判定
+ */
+public enum KinshipType {
+    SELF,               // 本人
+    ANCESTOR,           // B 是 A 的直系祖先
+    DESCENDANT,         // B 是 A 的直系后代
+    SIBLING,            // 兄弟姐妹（共同父母）
+    ANCESTOR_SIBLING,   // B 是 A 某位祖先的兄弟姐妹（如叔伯姑舅、叔祖）
+    SIBLING_DESCENDANT, // B 是 A 某位兄弟姐妹的后代（如侄甥、侄孙）
+    COUSIN,             // 堂表亲（cousinDegree ≥ 1）
+    NONE                // 没有已知的共同祖先
+}
@@ -46,6 +46,21 @@ public class Person {
     @Column(name = "current_spouse_id")
     private UUID currentSpouseId;
 
+    /**
+     * 家族内的绝对代数（辈分），由关系变化时的原生 SQL 维护，实体更新不写回
+     */
+    @Column(name = "generation", updatable = false)
+    private Integer generation;
+
+    /**
+     * 后代/祖先人数，随祖先-后代闭包一同维护，实体更新不写回
+     */
+    @Column(name = "descendant_count", updatable = false)
+    private Integer descendantCount;
+
+    @Column(name = "ancestor_count", updatable = false)
+    private Integer ancestorCount;
+
     @Column(name = "created_by")
     private UUID createdBy;
 
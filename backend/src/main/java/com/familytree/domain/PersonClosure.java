@@ -0,0 +1,50 @@
+package com.familytree.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * 祖先-后代闭包
+ * 每个祖先与后代组合一行（不含本人），distance 为两人之间最少相隔的代数；
+ * 由写入方在创建/删除父母关系时增量维护；历史数据在启动时由 DerivedDataBackfill 按家族自动回填，
+ * 也可用 scripts/sql/backfill_person_closure.sql 手动全量重建
+ */
+@Entity
+@Table(name = "person_closure", indexes = {
+    // 与 schema.sql 一致；线上由 ddl-auto: update 建表，按后代查祖先依赖此索引
+    @Index(name = "idx_person_closure_descendant", columnList = "descendant_id, distance"),
+    @Index(name = "idx_person_closure_group", columnList = "group_id")
+})
+@IdClass(PersonClosure.Key.class)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PersonClosure {
+    @Id
+    @Column(name = "ancestor_id", nullable = false)
+    private UUID ancestorId;
+
+    @Id
+    @Column(name = "descendant_id", nullable = false)
+    private UUID descendantId;
+
+    @Column(name = "group_id", nullable = false)
+    private UUID groupId;
+
+    @Column(name = "distance", nullable = false)
+    private Integer distance;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private UUID ancestorId;
+        private UUID descendantId;
+    }
+}
@@ -0,0 +1,9 @@
+package com.familytree.domain;
+
+/**
+ * 人物列表返回的字段范围
+ */
+public enum PersonFieldSet {
+    SUMMARY,  // 姓名、性别、生卒日期、主照片，只需一次人物查询和一次主照片查询
+    FULL      // 完整人物信息（含全部照片与关系ID列表）
+}
@@ -11,6 +11,10 @@ import java.util.UUID;
 @Entity
 @Table(name = "relationships", uniqueConstraints = {
     @UniqueConstraint(columnNames = {"group_id", "from_person_id", "to_person_id", "type"})
+}, indexes = {
+    // 与 schema.sql 一致；邻域遍历沿入边查找时使用 to_person_id 索引
+    @Index(name = "idx_relationships_from", columnList = "from_person_id"),
+    @Index(name = "idx_relationships_to", columnList = "to_person_id")
 })
 @Data
 @Builder
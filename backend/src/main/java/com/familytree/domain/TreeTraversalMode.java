@@ -0,0 +1,9 @@
+package com.familytree.domain;
+
+/**
+ * 树视图邻域遍历方式
+ */
+public enum TreeTraversalMode {
+    MEMORY,    // 在应用内基于家族关系图索引遍历
+    DATABASE   // 在 PostgreSQL 中用递归查询遍历，只取回可达子图
+}
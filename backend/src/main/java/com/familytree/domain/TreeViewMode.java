@@ -0,0 +1,9 @@
+package com.familytree.domain;
+
+/**
+ * 树视图范围
+ */
+public enum TreeViewMode {
+    FOCUS,  // 以焦点人物为中心、按深度展开的邻域
+    GROUP   // 整个家族：各连通分量分别布局后并排展示，忽略焦点人物、深度和血统线
+}
@@ -0,0 +1,54 @@
+package com.familytree.infrastructure.cache;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+
+/**
+ * 线程安全的本地 LRU 缓存
+ * 按访问顺序维护条目，超过容量时淘汰最久未访问的一个；读写和 compute/merge 都在同一把锁内完成，
+ * 因此重新映射函数应只做轻量的比较和选择，加载数据等耗时操作放在锁外
+ */
+public class BoundedLruCache<K, V> {
+
+    private final Map<K, V> entries;
+
+    public BoundedLruCache(int maxEntries) {
+        entries = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * 读取条目并标记为最近访问，不存在返回 null
+     */
+    public V get(K key) {
+        return entries.get(key);
+    }
+
+    public void put(K key, V value) {
+        entries.put(key, value);
+    }
+
+    /**
+     * 与 {@link Map#merge} 相同，新增条目时可能淘汰最久未访问的条目
+     */
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        return entries.merge(key, value, remappingFunction);
+    }
+
+    /**
+     * 与 {@link Map#compute} 相同，返回 null 时移除条目
+     */
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        return entries.compute(key, remappingFunction);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,121 @@
+package com.familytree.infrastructure.cache;
+
+import com.familytree.application.dto.TreeViewDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 树视图结果缓存（本地 LRU + Redis 两级）
+ * 缓存键包含家族版本号，家族数据变化时版本递增，旧条目自然不再被访问，
+ * 本地层按容量淘汰，Redis 层按 TTL 过期
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TreeViewCache {
+
+    private static final String REDIS_KEY_PREFIX = "familytree:tree-view:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${familytree.tree-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${familytree.tree-cache.local-max-entries:1000}")
+    private int localMaxEntries;
+
+    @Value("${familytree.tree-cache.redis-enabled:true}")
+    private boolean redisEnabled;
+
+    @Value("${familytree.tree-cache.redis-ttl:30m}")
+    private Duration redisTtl;
+
+    @Value("${familytree.tree-cache.redis-retry-interval:30s}")
+    private Duration redisRetryInterval;
+
+    // 节点数超过该值的视图（如不限节点数的整个家族视图）不缓存：每个条目都常驻本地并整体序列化到 Redis
+    @Value("${familytree.tree-cache.max-cached-nodes:5000}")
+    private int maxCachedNodes;
+
+    private BoundedLruCache<String, TreeViewDTO> localCache;
+
+    // Redis 不可用时暂停访问 Redis 的截止时间，避免每次请求都等待连接超时
+    private volatile long redisSuspendedUntil;
+
+    @PostConstruct
+    public void init() {
+        localCache = new BoundedLruCache<>(localMaxEntries);
+    }
+
+    /**
+     * 读取缓存，先查本地再查 Redis（Redis 命中时回填本地）
+     *
+     * @return 缓存的树视图，未命中返回 null
+     */
+    public TreeViewDTO get(String key) {
+        if (!enabled) {
+            return null;
+        }
+
+        TreeViewDTO view = localCache.get(key);
+        if (view != null || !isRedisAvailable()) {
+            return view;
+        }
+
+        try {
+            String json = redisTemplate.opsForValue().get(REDIS_KEY_PREFIX + key);
+            if (json == null) {
+                return null;
+            }
+            view = objectMapper.readValue(json, TreeViewDTO.class);
+            localCache.put(key, view);
+            return view;
+        } catch (Exception e) {
+            suspendRedis(e);
+            return null;
+        }
+    }
+
+    /**
+     * 写入两级缓存，节点数超过上限的视图不写入
+     */
+    public void put(String key, TreeViewDTO view) {
+        if (!enabled || nodeCount(view) > maxCachedNodes) {
+            return;
+        }
+
+        localCache.put(key, view);
+        if (!isRedisAvailable()) {
+            return;
+        }
+
+        try {
+            redisTemplate.opsForValue().set(REDIS_KEY_PREFIX + key, objectMapper.writeValueAsString(view), redisTtl);
+        } catch (Exception e) {
+            suspendRedis(e);
+        }
+    }
+
+    private static int nodeCount(TreeViewDTO view) {
+        int count = view.getNodes() != null ? view.getNodes().size() : 0;
+        return view.getCollapsedNodes() != null ? count + view.getCollapsedNodes().size() : count;
+    }
+
+    private boolean isRedisAvailable() {
+        return redisEnabled && System.currentTimeMillis() >= redisSuspendedUntil;
+    }
+
+    private void suspendRedis(Exception e) {
+        redisSuspendedUntil = System.currentTimeMillis() + redisRetryInterval.toMillis();
+        log.warn("Tree view cache: Redis unavailable, using local cache only for {}: {}",
+            redisRetryInterval, e.getMessage());
+    }
+}
@@ -0,0 +1,27 @@
+package com.familytree.infrastructure.repository;
+
+import com.familytree.domain.GroupChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface GroupChangeRepository extends JpaRepository<GroupChange, UUID> {
+
+    @Query("SELECT c FROM GroupChange c WHERE c.groupId = :groupId AND c.version > :sinceVersion ORDER BY c.version ASC")
+    List<GroupChange> findSinceVersion(@Param("groupId") UUID groupId,
+                                       @Param("sinceVersion") int sinceVersion,
+                                       Pageable pageable);
+
+    /**
+     * 该家族最早有记录的版本，早于此版本的历史不完整
+     */
+    @Query("SELECT MIN(c.version) FROM GroupChange c WHERE c.groupId = :groupId")
+    Optional<Integer> findMinVersionByGroupId(@Param("groupId") UUID groupId);
+}
@@ -2,11 +2,13 @@ package com.familytree.infrastructure.repository;
 
 import com.familytree.domain.Group;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -16,4 +18,30 @@ public interface GroupRepository extends JpaRepository<Group, UUID> {
     List<Group> findByMemberUserId(@Param("userId") UUID userId);
     
     List<Group> findByAdminId(UUID adminId);
+
+    @Query("SELECT g.version FROM Group g WHERE g.id = :groupId")
+    Optional<Integer> findVersionById(@Param("groupId") UUID groupId);
+
+    /**
+     * 锁定家族行，与同一家族的其他写入（会递增版本）串行执行
+     */
+    @Query(value = "SELECT id FROM groups WHERE id = :groupId FOR UPDATE", nativeQuery = true)
+    Optional<UUID> lockById(@Param("groupId") UUID groupId);
+
+    @Query("SELECT g.structureVersion FROM Group g WHERE g.id = :groupId")
+    Optional<Integer> findStructureVersionById(@Param("groupId") UUID groupId);
+
+    /**
+     * 直接写入（非合并请求）修改家族数据时递增版本，使按版本缓存的视图失效
+     */
+    @Modifying
+    @Query("UPDATE Group g SET g.version = g.version + 1 WHERE g.id = :groupId")
+    int incrementVersion(@Param("groupId") UUID groupId);
+
+    /**
+     * 把结构版本推进到当前版本，使按结构版本缓存的关系图索引和整体布局失效
+     */
+    @Modifying
+    @Query("UPDATE Group g SET g.structureVersion = g.version WHERE g.id = :groupId")
+    int markStructureChanged(@Param("groupId") UUID groupId);
 }
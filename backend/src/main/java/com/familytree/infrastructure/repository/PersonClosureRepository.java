@@ -0,0 +1,273 @@
+package com.familytree.infrastructure.repository;
+
+import com.familytree.domain.PersonClosure;
+import com.familytree.infrastructure.repository.projection.LinealRow;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface PersonClosureRepository extends JpaRepository<PersonClosure, PersonClosure.Key> {
+
+    /**
+     * 祖先（含本人，代数为 0），按代数升序
+     */
+    @Query(value = """
+        SELECT CAST(:personId AS uuid) AS "personId", 0 AS "generation"
+        UNION ALL
+        SELECT c.ancestor_id, c.distance
+        FROM person_closure c
+        WHERE c.group_id = :groupId AND c.descendant_id = :personId AND c.distance <= :generations
+        ORDER BY 2, 1
+        """, nativeQuery = true)
+    List<LinealRow> findAncestors(@Param("groupId") UUID groupId,
+                                  @Param("personId") UUID personId,
+                                  @Param("generations") int generations);
+
+    /**
+     * 后代（不含本人），按代数升序
+     */
+    @Query(value = """
+        SELECT c.descendant_id AS "personId", c.distance AS "generation"
+        FROM person_closure c
+        WHERE c.group_id = :groupId AND c.ancestor_id = :personId AND c.distance <= :generations
+        ORDER BY c.distance, c.descendant_id
+        """, nativeQuery = true)
+    List<LinealRow> findDescendants(@Param("groupId") UUID groupId,
+                                    @Param("personId") UUID personId,
+                                    @Param("generations") int generations);
+
+    @Query("SELECT c.descendantId FROM PersonClosure c WHERE c.groupId = :groupId AND c.ancestorId = :personId")
+    List<UUID> findDescendantIds(@Param("groupId") UUID groupId, @Param("personId") UUID personId);
+
+    @Query("SELECT c.distance FROM PersonClosure c " +
+           "WHERE c.groupId = :groupId AND c.ancestorId = :ancestorId AND c.descendantId = :descendantId")
+    Optional<Integer> findDistance(@Param("groupId") UUID groupId,
+                                   @Param("ancestorId") UUID ancestorId,
+                                   @Param("descendantId") UUID descendantId);
+
+    /**
+     * 新增父母关系 parent → child 后补齐闭包：
+     * parent 及其所有祖先 × child 及其所有后代，已存在的组合保留较小代数；
+     * 同一语句内按新插入的行（xmax = 0）累加两端人物的后代数/祖先数；
+     * 计数为空（ddl-auto 新增列后尚未回填）的人物保持为空，由启动回填按闭包整体重算
+     */
+    @Modifying
+    @Query(value = """
+        WITH linked AS (
+            INSERT INTO person_closure (group_id, ancestor_id, descendant_id, distance)
+            SELECT CAST(:groupId AS uuid), a.ancestor_id, d.descendant_id, MIN(a.distance + d.distance + 1)
+            FROM (
+                SELECT CAST(:parentId AS uuid) AS ancestor_id, 0 AS distance
+                UNION ALL
+                SELECT ancestor_id, distance FROM person_closure WHERE descendant_id = :parentId
+            ) a
+            CROSS JOIN (
+                SELECT CAST(:childId AS uuid) AS descendant_id, 0 AS distance
+                UNION ALL
+                SELECT descendant_id, distance FROM person_closure WHERE ancestor_id = :childId
+            ) d
+            WHERE a.ancestor_id <> d.descendant_id
+            GROUP BY a.ancestor_id, d.descendant_id
+            ON CONFLICT (ancestor_id, descendant_id)
+            DO UPDATE SET distance = LEAST(person_closure.distance, EXCLUDED.distance)
+            RETURNING ancestor_id, descendant_id, (xmax = 0) AS inserted
+        ),
+        counts AS (
+            SELECT person_id, SUM(descendants) AS descendants, SUM(ancestors) AS ancestors
+            FROM (
+                SELECT ancestor_id AS person_id, 1 AS descendants, 0 AS ancestors FROM linked WHERE inserted
+                UNION ALL
+                SELECT descendant_id, 0, 1 FROM linked WHERE inserted
+            ) t
+            GROUP BY person_id
+        )
+        UPDATE persons p
+        SET descendant_count = p.descendant_count + c.descendants,
+            ancestor_count = p.ancestor_count + c.ancestors
+        FROM counts c
+        WHERE p.id = c.person_id
+        """, nativeQuery = true)
+    int linkParent(@Param("groupId") UUID groupId,
+                   @Param("parentId") UUID parentId,
+                   @Param("childId") UUID childId);
+
+    /**
+     * 删除人物本人的闭包行，以及其所有后代的祖先行（这些后代经该人物的路径失效，需要重建）；
+     * 同时按删除的行扣减两端人物的后代数/祖先数
+     */
+    @Modifying
+    @Query(value = """
+        WITH removed AS (
+            DELETE FROM person_closure
+            WHERE group_id = :groupId
+            AND (ancestor_id = :personId
+                 OR descendant_id = :personId
+                 OR descendant_id IN (SELECT descendant_id FROM person_closure WHERE ancestor_id = :personId))
+            RETURNING ancestor_id, descendant_id
+        ),
+        counts AS (
+            SELECT person_id, SUM(descendants) AS descendants, SUM(ancestors) AS ancestors
+            FROM (
+                SELECT ancestor_id AS person_id, 1 AS descendants, 0 AS ancestors FROM removed
+                UNION ALL
+                SELECT descendant_id, 0, 1 FROM removed
+            ) t
+            GROUP BY person_id
+        )
+        UPDATE persons p
+        SET descendant_count = p.descendant_count - c.descendants,
+            ancestor_count = p.ancestor_count - c.ancestors
+        FROM counts c
+        WHERE p.id = c.person_id
+        """, nativeQuery = true)
+    int deleteThroughPerson(@Param("groupId") UUID groupId, @Param("personId") UUID personId);
+
+    /**
+     * 从关系表重建指定人物的祖先行，忽略 excludedPersonId 的关系（调用时该人物正被删除）。
+     * 递归项以 (后代, 祖先, 代数) 去重，maxDistance 取家族人数，数据中存在环时也会终止；
+     * 新插入的行同样累加到两端人物的后代数/祖先数
+     */
+    @Modifying
+    @Query(value = """
+        WITH RECURSIVE parent_links AS (
+            SELECT r.from_person_id AS parent_id, r.to_person_id AS child_id
+            FROM relationships r WHERE r.group_id = :groupId AND r.type = 'PARENT'
+            UNION ALL
+            SELECT r.to_person_id, r.from_person_id
+            FROM relationships r WHERE r.group_id = :groupId AND r.type = 'CHILD'
+        ),
+        live_links AS (
+            SELECT parent_id, child_id FROM parent_links
+            WHERE parent_id <> :excludedPersonId AND child_id <> :excludedPersonId
+        ),
+        walk(descendant_id, ancestor_id, distance) AS (
+            SELECT l.child_id, l.parent_id, 1
+            FROM live_links l
+            WHERE l.child_id IN (:descendantIds)
+            UNION
+            SELECT w.descendant_id, l.parent_id, w.distance + 1
+            FROM walk w
+            JOIN live_links l ON l.child_id = w.ancestor_id
+            WHERE w.distance < :maxDistance
+        ),
+        linked AS (
+            INSERT INTO person_closure (group_id, ancestor_id, descendant_id, distance)
+            SELECT CAST(:groupId AS uuid), w.ancestor_id, w.descendant_id, MIN(w.distance)
+            FROM walk w
+            WHERE w.ancestor_id <> w.descendant_id
+            GROUP BY w.ancestor_id, w.descendant_id
+            ON CONFLICT (ancestor_id, descendant_id)
+            DO UPDATE SET distance = LEAST(person_closure.distance, EXCLUDED.distance)
+            RETURNING ancestor_id, descendant_id, (xmax = 0) AS inserted
+        ),
+        counts AS (
+            SELECT person_id, SUM(descendants) AS descendants, SUM(ancestors) AS ancestors
+            FROM (
+                SELECT ancestor_id AS person_id, 1 AS descendants, 0 AS ancestors FROM linked WHERE inserted
+                UNION ALL
+                SELECT descendant_id, 0, 1 FROM linked WHERE inserted
+            ) t
+            GROUP BY person_id
+        )
+        UPDATE persons p
+        SET descendant_count = p.descendant_count + c.descendants,
+            ancestor_count = p.ancestor_count + c.ancestors
+        FROM counts c
+        WHERE p.id = c.person_id
+        """, nativeQuery = true)
+    int rebuildAncestors(@Param("groupId") UUID groupId,
+                         @Param("descendantIds") Collection<UUID> descendantIds,
+                         @Param("excludedPersonId") UUID excludedPersonId,
+                         @Param("maxDistance") int maxDistance);
+
+    /**
+     * 闭包与关系表不一致、需要重建的家族：两端人物都存在的直接父母组合数与闭包中代数为 1 的行数不同。
+     * 闭包上线前已有的关系、或增量维护遗漏的关系都会使两者不等
+     */
+    @Query(value = """
+        SELECT g.id FROM groups g
+        WHERE (
+            SELECT COUNT(*) FROM (
+                SELECT r.from_person_id AS parent_id, r.to_person_id AS child_id
+                FROM relationships r WHERE r.group_id = g.id AND r.type = 'PARENT'
+                UNION
+                SELECT r.to_person_id, r.from_person_id
+                FROM relationships r WHERE r.group_id = g.id AND r.type = 'CHILD'
+            ) l
+            JOIN persons pp ON pp.id = l.parent_id AND pp.group_id = g.id
+            JOIN persons pc ON pc.id = l.child_id AND pc.group_id = g.id
+            WHERE l.parent_id <> l.child_id
+        ) <> (
+            SELECT COUNT(*) FROM person_closure c WHERE c.group_id = g.id AND c.distance = 1
+        )
+        """, nativeQuery = true)
+    List<UUID> findGroupIdsWithStaleClosure();
+
+    /**
+     * 存在后代数或祖先数为空的人物的家族：计数列由 ddl-auto 新增时，已有人物的值为空
+     */
+    @Query(value = """
+        SELECT DISTINCT p.group_id FROM persons p
+        WHERE p.descendant_count IS NULL OR p.ancestor_count IS NULL
+        """, nativeQuery = true)
+    List<UUID> findGroupIdsWithUnsetCounts();
+
+    @Modifying
+    @Query(value = "DELETE FROM person_closure WHERE group_id = :groupId", nativeQuery = true)
+    int deleteByGroupId(@Param("groupId") UUID groupId);
+
+    /**
+     * 按关系表写入整个家族的闭包（调用前已清空该家族的闭包行），规则与 scripts/sql/backfill_person_closure.sql 相同；
+     * maxDistance 取家族人数，数据中存在环时也会终止
+     */
+    @Modifying
+    @Query(value = """
+        WITH RECURSIVE parent_links AS (
+            SELECT r.from_person_id AS parent_id, r.to_person_id AS child_id
+            FROM relationships r WHERE r.group_id = :groupId AND r.type = 'PARENT'
+            UNION
+            SELECT r.to_person_id, r.from_person_id
+            FROM relationships r WHERE r.group_id = :groupId AND r.type = 'CHILD'
+        ),
+        live_links AS (
+            SELECT l.parent_id, l.child_id
+            FROM parent_links l
+            JOIN persons pp ON pp.id = l.parent_id AND pp.group_id = :groupId
+            JOIN persons pc ON pc.id = l.child_id AND pc.group_id = :groupId
+        ),
+        walk(descendant_id, ancestor_id, distance) AS (
+            SELECT child_id, parent_id, 1 FROM live_links
+            UNION
+            SELECT w.descendant_id, l.parent_id, w.distance + 1
+            FROM walk w
+            JOIN live_links l ON l.child_id = w.ancestor_id
+            WHERE w.distance < :maxDistance
+        )
+        INSERT INTO person_closure (group_id, ancestor_id, descendant_id, distance)
+        SELECT CAST(:groupId AS uuid), w.ancestor_id, w.descendant_id, MIN(w.distance)
+        FROM walk w
+        WHERE w.ancestor_id <> w.descendant_id
+        GROUP BY w.ancestor_id, w.descendant_id
+        """, nativeQuery = true)
+    int insertGroupClosure(@Param("groupId") UUID groupId, @Param("maxDistance") int maxDistance);
+
+    /**
+     * 按闭包重算家族内每位人物的后代数/祖先数
+     */
+    @Modifying
+    @Query(value = """
+        UPDATE persons p
+        SET descendant_count = (SELECT COUNT(*) FROM person_closure c WHERE c.ancestor_id = p.id),
+            ancestor_count = (SELECT COUNT(*) FROM person_closure c WHERE c.descendant_id = p.id)
+        WHERE p.group_id = :groupId
+        """, nativeQuery = true)
+    int recountGroup(@Param("groupId") UUID groupId);
+}
@@ -1,11 +1,18 @@
 package com.familytree.infrastructure.repository;
 
 import com.familytree.domain.Person;
+import com.familytree.infrastructure.repository.projection.GenerationCountRow;
+import com.familytree.infrastructure.repository.projection.PersonGraphView;
+import com.familytree.infrastructure.repository.projection.PersonNameView;
+import com.familytree.infrastructure.repository.projection.PersonNodeView;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -14,43 +21,205 @@ import java.util.UUID;
 public interface PersonRepository extends JpaRepository<Person, UUID> {
     
     List<Person> findByGroupId(UUID groupId);
+
+    @Query("SELECT p.id AS id, p.gender AS gender FROM Person p WHERE p.groupId = :groupId")
+    List<PersonGraphView> findGraphViewsByGroupId(@Param("groupId") UUID groupId);
+
+    @Query("SELECT p.id AS id, p.firstName AS firstName, p.lastName AS lastName FROM Person p " +
+           "WHERE p.groupId = :groupId ORDER BY p.createdAt, p.id")
+    List<PersonNameView> findNameViewsByGroupId(@Param("groupId") UUID groupId);
+
+    @Query("SELECT p.id AS id, p.firstName AS firstName, p.lastName AS lastName FROM Person p " +
+           "WHERE p.groupId = :groupId AND p.id IN :ids")
+    List<PersonNameView> findNameViewsByIds(@Param("groupId") UUID groupId, @Param("ids") Collection<UUID> ids);
+
+    @Query("SELECT p.id AS id, p.firstName AS firstName, p.lastName AS lastName, p.gender AS gender, " +
+           "p.birthDate AS birthDate, p.deathDate AS deathDate, p.generation AS absoluteGeneration, " +
+           "p.descendantCount AS descendantCount, p.ancestorCount AS ancestorCount, ph.url AS primaryPhotoUrl " +
+           "FROM Person p LEFT JOIN Photo ph ON ph.personId = p.id AND ph.isPrimary = true " +
+           "WHERE p.groupId = :groupId AND p.id IN :ids")
+    List<PersonNodeView> findNodeViewsByIds(@Param("groupId") UUID groupId, @Param("ids") Collection<UUID> ids);
+
+    @Query("SELECT p.id AS id, p.firstName AS firstName, p.lastName AS lastName, p.gender AS gender, " +
+           "p.birthDate AS birthDate, p.deathDate AS deathDate, p.generation AS absoluteGeneration, " +
+           "p.descendantCount AS descendantCount, p.ancestorCount AS ancestorCount, ph.url AS primaryPhotoUrl " +
+           "FROM Person p LEFT JOIN Photo ph ON ph.personId = p.id AND ph.isPrimary = true " +
+           "WHERE p.groupId = :groupId")
+    List<PersonNodeView> findNodeViewsByGroupId(@Param("groupId") UUID groupId);
     
-    @Query("SELECT p FROM Person p WHERE p.groupId = :groupId AND (p.firstName ILIKE %:keyword% OR p.lastName ILIKE %:keyword%)")
-    List<Person> searchByGroupIdAndName(@Param("groupId") UUID groupId, @Param("keyword") String keyword);
-    
+    long countByGroupId(UUID groupId);
+
+    List<Person> findByGroupIdAndGenerationBetweenOrderByGenerationAsc(UUID groupId, Integer minGeneration, Integer maxGeneration);
+
+    /**
+     * 按 (created_at, id) 键集分页的第一页（走 group_id + created_at + id 索引）
+     */
+    @Query(value = """
+        SELECT * FROM persons
+        WHERE group_id = :groupId
+        ORDER BY created_at, id
+        LIMIT :limit
+        """, nativeQuery = true)
+    List<Person> findPageByGroupId(@Param("groupId") UUID groupId, @Param("limit") int limit);
+
+    /**
+     * 按 (created_at, id) 键集分页：取排在游标之后的人物
+     * 行值比较可直接作为索引条件定位起点，翻到后面的页也不必从头扫描
+     */
+    @Query(value = """
+        SELECT * FROM persons
+        WHERE group_id = :groupId
+        AND (created_at, id) > (:createdAt, :id)
+        ORDER BY created_at, id
+        LIMIT :limit
+        """, nativeQuery = true)
+    List<Person> findPageByGroupIdAfter(@Param("groupId") UUID groupId,
+                                        @Param("createdAt") LocalDateTime createdAt,
+                                        @Param("id") UUID id,
+                                        @Param("limit") int limit);
+
+    @Query("SELECT p.generation AS generation, COUNT(p) AS personCount FROM Person p " +
+           "WHERE p.groupId = :groupId GROUP BY p.generation ORDER BY p.generation")
+    List<GenerationCountRow> countByGeneration(@Param("groupId") UUID groupId);
+
+    /**
+     * 新增关系后从两端人物出发向下传播代数：子女至少比父母大一代，配偶同代；
+     * 只沿代数确实升高的人物继续扩展，最后写回每人的最大值。代数为空（尚未回填）的人物视为低于任何代数，一并写回；
+     * maxGeneration 取家族人数，数据中存在环（如与自己的后代成婚）时也会终止
+     */
+    @Modifying(flushAutomatically = true)
     @Query(value = """
-        WITH RECURSIVE ancestors AS (
-            SELECT p.*, 0 as depth, ARRAY[p.id] as path
+        WITH RECURSIVE raise(person_id, generation) AS (
+            SELECT p.id, COALESCE(p.generation, 0)
             FROM persons p
-            WHERE p.id = :personId
+            WHERE p.id IN (:fromPersonId, :toPersonId)
+            UNION
+            SELECT s.person_id, s.generation
+            FROM raise w
+            CROSS JOIN LATERAL (
+                SELECT r.to_person_id AS person_id,
+                       w.generation + CASE r.type WHEN 'PARENT' THEN 1 ELSE 0 END AS generation
+                FROM relationships r
+                WHERE r.from_person_id = w.person_id AND r.type IN ('PARENT', 'SPOUSE')
+                UNION ALL
+                SELECT r.from_person_id,
+                       w.generation + CASE r.type WHEN 'CHILD' THEN 1 ELSE 0 END
+                FROM relationships r
+                WHERE r.to_person_id = w.person_id AND r.type IN ('CHILD', 'SPOUSE')
+            ) s
+            JOIN persons p ON p.id = s.person_id
+            WHERE s.generation > COALESCE(p.generation, -1) AND s.generation < :maxGeneration
+        )
+        UPDATE persons p
+        SET generation = x.generation
+        FROM (SELECT person_id, MAX(generation) AS generation FROM raise GROUP BY person_id) x
+        WHERE p.id = x.person_id AND x.generation > COALESCE(p.generation, -1)
+        """, nativeQuery = true)
+    int raiseGenerations(@Param("fromPersonId") UUID fromPersonId,
+                         @Param("toPersonId") UUID toPersonId,
+                         @Param("maxGeneration") int maxGeneration);
+
+    /**
+     * 按现有关系重新计算整个家族的代数，忽略 excludedPersonId 的关系（调用时该人物正被删除）。
+     * 从每条父母关系的子女一侧（第 1 代）出发传播，未被传播到的人物为第 0 代；只写回发生变化的人物
+     */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+        WITH RECURSIVE links AS (
+            SELECT r.from_person_id AS upper_id, r.to_person_id AS lower_id,
+                   CASE r.type WHEN 'PARENT' THEN 1 ELSE 0 END AS weight
+            FROM relationships r
+            WHERE r.group_id = :groupId AND r.type IN ('PARENT', 'SPOUSE')
             UNION ALL
-            SELECT p.*, a.depth + 1, a.path || p.id
-            FROM persons p
-            JOIN relationships r ON p.id = r.from_person_id
-            JOIN ancestors a ON r.to_person_id = a.id
-            WHERE r.type = 'PARENT'
-            AND NOT p.id = ANY(a.path)
+            SELECT r.to_person_id, r.from_person_id,
+                   CASE r.type WHEN 'CHILD' THEN 1 ELSE 0 END
+            FROM relationships r
+            WHERE r.group_id = :groupId AND r.type IN ('CHILD', 'SPOUSE')
+        ),
+        live_links AS (
+            SELECT upper_id, lower_id, weight FROM links
+            WHERE upper_id <> :excludedPersonId AND lower_id <> :excludedPersonId
+        ),
+        walk(person_id, generation) AS (
+            SELECT lower_id, 1 FROM live_links WHERE weight = 1
+            UNION
+            SELECT l.lower_id, w.generation + l.weight
+            FROM walk w
+            JOIN live_links l ON l.upper_id = w.person_id
+            WHERE w.generation + l.weight < :maxGeneration
         )
-        SELECT * FROM ancestors ORDER BY depth
+        UPDATE persons p
+        SET generation = COALESCE(x.generation, 0)
+        FROM persons q
+        LEFT JOIN (SELECT person_id, MAX(generation) AS generation FROM walk GROUP BY person_id) x
+            ON x.person_id = q.id
+        WHERE p.id = q.id AND q.group_id = :groupId AND q.id <> :excludedPersonId
+        AND p.generation IS DISTINCT FROM COALESCE(x.generation, 0)
         """, nativeQuery = true)
-    List<Person> findAncestorsWithPath(@Param("personId") UUID personId);
-    
+    int recomputeGenerations(@Param("groupId") UUID groupId,
+                             @Param("excludedPersonId") UUID excludedPersonId,
+                             @Param("maxGeneration") int maxGeneration);
+
+    /**
+     * 删除人物前重新计算受其影响的人物的代数：只有沿“父母 → 子女”和配偶关系能从该人物到达的人物
+     * （子孙、配偶及配偶的子孙等）的代数可能由它推高，其余人物不变。
+     * 受影响人物先取其不受影响的父母 +1、配偶的代数作为起点（没有则为第 0 代），再只在受影响人物之间传播；
+     * 递归只走受影响的部分，代价与其规模成正比，而不是整个家族
+     */
+    @Modifying(flushAutomatically = true)
     @Query(value = """
-        WITH RECURSIVE descendants AS (
-            SELECT p.*, 0 as depth
-            FROM persons p
-            WHERE p.id = :personId
+        WITH RECURSIVE links AS (
+            SELECT r.from_person_id AS upper_id, r.to_person_id AS lower_id,
+                   CASE r.type WHEN 'PARENT' THEN 1 ELSE 0 END AS weight
+            FROM relationships r
+            WHERE r.group_id = :groupId AND r.type IN ('PARENT', 'SPOUSE')
             UNION ALL
-            SELECT p.*, d.depth + 1
-            FROM persons p
-            JOIN relationships r ON p.id = r.to_person_id
-            JOIN descendants d ON r.from_person_id = d.id
-            WHERE r.type = 'PARENT'
-            AND d.depth < :maxDepth
+            SELECT r.to_person_id, r.from_person_id,
+                   CASE r.type WHEN 'CHILD' THEN 1 ELSE 0 END
+            FROM relationships r
+            WHERE r.group_id = :groupId AND r.type IN ('CHILD', 'SPOUSE')
+        ),
+        live_links AS (
+            SELECT upper_id, lower_id, weight FROM links
+            WHERE upper_id <> :personId AND lower_id <> :personId
+        ),
+        affected(person_id) AS (
+            SELECT lower_id FROM links WHERE upper_id = :personId AND lower_id <> :personId
+            UNION
+            SELECT l.lower_id
+            FROM affected a
+            JOIN live_links l ON l.upper_id = a.person_id
+        ),
+        seeds AS (
+            SELECT a.person_id, COALESCE(MAX(u.generation + l.weight), 0) AS generation
+            FROM affected a
+            LEFT JOIN live_links l
+                ON l.lower_id = a.person_id AND l.upper_id NOT IN (SELECT person_id FROM affected)
+            LEFT JOIN persons u ON u.id = l.upper_id
+            GROUP BY a.person_id
+        ),
+        walk(person_id, generation) AS (
+            SELECT person_id, generation FROM seeds
+            UNION
+            SELECT l.lower_id, w.generation + l.weight
+            FROM walk w
+            JOIN live_links l ON l.upper_id = w.person_id
+            WHERE l.lower_id IN (SELECT person_id FROM affected)
+            AND w.generation + l.weight < :maxGeneration
         )
-        SELECT * FROM descendants WHERE depth > 0
+        UPDATE persons p
+        SET generation = x.generation
+        FROM (SELECT person_id, MAX(generation) AS generation FROM walk GROUP BY person_id) x
+        WHERE p.id = x.person_id AND p.group_id = :groupId
+        AND p.generation IS DISTINCT FROM x.generation
         """, nativeQuery = true)
-    List<Person> findDescendants(@Param("personId") UUID personId, @Param("maxDepth") int maxDepth);
-    
-    long countByGroupId(UUID groupId);
+    int recomputeGenerationsBelow(@Param("groupId") UUID groupId,
+                                  @Param("personId") UUID personId,
+                                  @Param("maxGeneration") int maxGeneration);
+
+    /**
+     * 存在代数为空的人物的家族：代数字段由 ddl-auto 新增时，已有人物的值为空
+     */
+    @Query(value = "SELECT DISTINCT p.group_id FROM persons p WHERE p.generation IS NULL", nativeQuery = true)
+    List<UUID> findGroupIdsWithUnsetGeneration();
 }
@@ -2,8 +2,11 @@ package com.familytree.infrastructure.repository;
 
 import com.familytree.domain.Photo;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -13,6 +16,13 @@ public interface PhotoRepository extends JpaRepository<Photo, UUID> {
     
     List<Photo> findByPersonId(UUID personId);
     
+    List<Photo> findByPersonIdIn(Collection<UUID> personIds);
+    
+    List<Photo> findByPersonIdInAndIsPrimaryTrue(Collection<UUID> personIds);
+    
+    @Query("SELECT ph FROM Photo ph WHERE ph.personId IN (SELECT p.id FROM Person p WHERE p.groupId = :groupId)")
+    List<Photo> findByGroupId(@Param("groupId") UUID groupId);
+    
     List<Photo> findByPersonIdOrderByCreatedAtDesc(UUID personId);
     
     Optional<Photo> findByPersonIdAndIsPrimaryTrue(UUID personId);
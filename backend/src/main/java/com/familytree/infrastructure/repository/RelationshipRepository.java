@@ -1,11 +1,13 @@
 package com.familytree.infrastructure.repository;
 
 import com.familytree.domain.Relationship;
+import com.familytree.infrastructure.repository.projection.NeighborhoodRow;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -30,14 +32,68 @@ public interface RelationshipRepository extends JpaRepository<Relationship, UUID
            "(r.fromPersonId = :personId OR r.toPersonId = :personId)")
     List<Relationship> findByPersonId(@Param("groupId") UUID groupId, @Param("personId") UUID personId);
     
+    @Query("SELECT r FROM Relationship r WHERE r.groupId = :groupId AND " +
+           "(r.fromPersonId IN :personIds OR r.toPersonId IN :personIds)")
+    List<Relationship> findByPersonIds(@Param("groupId") UUID groupId, @Param("personIds") Collection<UUID> personIds);
+    
     Optional<Relationship> findByGroupIdAndFromPersonIdAndToPersonIdAndType(
         UUID groupId, UUID fromPersonId, UUID toPersonId, Relationship.RelationshipType type);
 
     List<Relationship> findByGroupIdAndFromPersonIdAndType(
         UUID groupId, UUID fromPersonId, Relationship.RelationshipType type);
 
+    List<Relationship> findByGroupIdAndFromPersonIdInAndType(
+        UUID groupId, Collection<UUID> fromPersonIds, Relationship.RelationshipType type);
+
     List<Relationship> findByGroupIdAndToPersonIdAndType(
         UUID groupId, UUID toPersonId, Relationship.RelationshipType type);
     
+    /**
+     * 从焦点人物出发沿关系双向遍历（同时沿 from_person_id 与 to_person_id 方向），在 depth 处截断。
+     * distance 为最短跳数；generation 为代际差：PARENT 关系向子女 +1、向父母 -1，CHILD 关系相反，
+     * 配偶/兄弟姐妹为 0，多条最短路径的代际不同时取最小值（与 {@code LineageCalculator.traverse} 相同）。
+     * 每步按出边、入边两个分支分别走 (group_id, from_person_id) 唯一索引和 to_person_id 索引，
+     * 不走回上一步的人物和焦点人物（最短路径不会经过它们），每个人物取最短距离对应的记录，并附带两端均可达的出边。
+     */
+    @Query(value = """
+        WITH RECURSIVE walk(person_id, previous_id, distance, generation) AS (
+            SELECT CAST(:focusPersonId AS uuid), CAST(:focusPersonId AS uuid), 0, 0
+            UNION
+            SELECT n.person_id, w.person_id, w.distance + 1, w.generation + n.delta
+            FROM walk w
+            CROSS JOIN LATERAL (
+                SELECT r.to_person_id AS person_id,
+                       CASE r.type WHEN 'PARENT' THEN 1 WHEN 'CHILD' THEN -1 ELSE 0 END AS delta
+                FROM relationships r
+                WHERE r.group_id = :groupId AND r.from_person_id = w.person_id
+                UNION ALL
+                SELECT r.from_person_id,
+                       CASE r.type WHEN 'PARENT' THEN -1 WHEN 'CHILD' THEN 1 ELSE 0 END
+                FROM relationships r
+                WHERE r.to_person_id = w.person_id AND r.group_id = :groupId
+            ) n
+            WHERE w.distance < :depth
+            AND n.person_id <> w.previous_id
+            AND n.person_id <> CAST(:focusPersonId AS uuid)
+        ),
+        reached AS (
+            SELECT DISTINCT ON (person_id) person_id, distance, generation
+            FROM walk
+            ORDER BY person_id, distance, generation
+        )
+        SELECT a.person_id AS "id", p.gender AS "gender",
+               a.distance AS "distance", a.generation AS "generation",
+               r.id AS "edgeId", r.to_person_id AS "toPersonId", r.type AS "edgeType"
+        FROM reached a
+        JOIN persons p ON p.id = a.person_id
+        LEFT JOIN relationships r ON r.from_person_id = a.person_id
+            AND r.group_id = :groupId
+            AND r.to_person_id IN (SELECT person_id FROM reached)
+        ORDER BY a.distance
+        """, nativeQuery = true)
+    List<NeighborhoodRow> findNeighborhood(@Param("groupId") UUID groupId,
+                                           @Param("focusPersonId") UUID focusPersonId,
+                                           @Param("depth") int depth);
+    
     long countByGroupId(UUID groupId);
 }
@@ -0,0 +1,10 @@
+package com.familytree.infrastructure.repository.projection;
+
+/**
+ * 按绝对代数分组的人数统计行
+ */
+public interface GenerationCountRow {
+    Integer getGeneration();
+
+    Long getPersonCount();
+}
@@ -0,0 +1,12 @@
+package com.familytree.infrastructure.repository.projection;
+
+import java.util.UUID;
+
+/**
+ * 祖先/后代查询的结果行：人物及其与起点人物相隔的最少代数
+ */
+public interface LinealRow {
+    UUID getPersonId();
+
+    Integer getGeneration();
+}
@@ -0,0 +1,19 @@
+package com.familytree.infrastructure.repository.projection;
+
+import java.util.UUID;
+
+/**
+ * 数据库侧邻域遍历的结果行
+ * 每行是一个可达人物及其一条出边（出边另一端也在可达集合内）；没有出边的人物对应一行空边
+ */
+public interface NeighborhoodRow extends PersonGraphView {
+    Integer getDistance();
+
+    Integer getGeneration();
+
+    UUID getEdgeId();
+
+    UUID getToPersonId();
+
+    String getEdgeType();
+}
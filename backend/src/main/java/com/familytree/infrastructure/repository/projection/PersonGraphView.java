@@ -0,0 +1,14 @@
+package com.familytree.infrastructure.repository.projection;
+
+import com.familytree.domain.Person;
+
+import java.util.UUID;
+
+/**
+ * 构建关系图索引所需的人物最小字段投影
+ */
+public interface PersonGraphView {
+    UUID getId();
+
+    Person.Gender getGender();
+}
@@ -0,0 +1,14 @@
+package com.familytree.infrastructure.repository.projection;
+
+import java.util.UUID;
+
+/**
+ * 构建姓名检索索引所需的人物字段投影
+ */
+public interface PersonNameView {
+    UUID getId();
+
+    String getFirstName();
+
+    String getLastName();
+}
@@ -0,0 +1,38 @@
+package com.familytree.infrastructure.repository.projection;
+
+import com.familytree.domain.Person;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * 树视图节点所需的人物字段投影（含主照片URL）
+ */
+public interface PersonNodeView {
+    UUID getId();
+
+    String getFirstName();
+
+    String getLastName();
+
+    Person.Gender getGender();
+
+    LocalDate getBirthDate();
+
+    LocalDate getDeathDate();
+
+    Integer getAbsoluteGeneration();
+
+    Integer getDescendantCount();
+
+    Integer getAncestorCount();
+
+    String getPrimaryPhotoUrl();
+
+    default String getFullName() {
+        if (getLastName() != null && !getLastName().isEmpty()) {
+            return getLastName() + getFirstName();
+        }
+        return getFirstName();
+    }
+}
@@ -1,17 +1,32 @@
 package com.familytree.interfaces.controller;
 
+import com.familytree.application.dto.CompactTreeViewDTO;
+import com.familytree.application.dto.KinshipDTO;
 import com.familytree.application.dto.PersonNodeDTO;
+import com.familytree.application.dto.RelationshipPathDTO;
+import com.familytree.application.dto.TreeDeltaDTO;
 import com.familytree.application.dto.TreeViewDTO;
+import com.familytree.application.dto.TreeViewportDTO;
+import com.familytree.application.service.CompactTreeViewEncoder;
 import com.familytree.application.service.FamilyTreeService;
+import com.familytree.application.service.TreeStream;
 import com.familytree.application.dto.response.ApiResponse;
 import com.familytree.domain.LineageType;
+import com.familytree.domain.TreeTraversalMode;
+import com.familytree.domain.TreeViewMode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.UUID;
 
@@ -23,6 +38,8 @@ import java.util.UUID;
 public class FamilyTreeController {
     
     private final FamilyTreeService familyTreeService;
+    private final CompactTreeViewEncoder compactTreeViewEncoder;
+    private final ObjectMapper objectMapper;
     
     @GetMapping
     @Operation(summary = "获取家谱树视图")
@@ -32,8 +49,90 @@ public class FamilyTreeController {
             @RequestParam(defaultValue = "3") int depth,
             @RequestParam(required = false)
             @Parameter(description = "血统线筛选: FATHER_LINE=父系, MOTHER_LINE=母系, 不填=全部")
+            LineageType lineage,
+            @RequestParam(defaultValue = "MEMORY")
+            @Parameter(description = "遍历方式: MEMORY=应用内索引遍历, DATABASE=数据库递归查询（适合关系表远大于视图的家族）")
+            TreeTraversalMode traversal,
+            @RequestParam(defaultValue = "FOCUS")
+            @Parameter(description = "视图范围: FOCUS=焦点人物邻域, GROUP=整个家族（所有分支并排，忽略焦点、深度和血统线）")
+            TreeViewMode mode,
+            @RequestParam(required = false)
+            @Parameter(description = "节点数上限: 超出时只保留距焦点最近的人物，其余分支折叠为 collapsedNodes，以锚点人物为焦点重新请求即可展开")
+            Integer maxNodes) {
+        return ApiResponse.success(
+            familyTreeService.getTreeView(groupId, focusPersonId, depth, lineage, traversal, mode, maxNodes));
+    }
+    
+    @GetMapping(produces = CompactTreeViewDTO.MEDIA_TYPE)
+    @Operation(summary = "获取家谱树视图（紧凑格式）",
+        description = "Accept 为 " + CompactTreeViewDTO.MEDIA_TYPE + " 时返回：人物ID只下发一次，节点字段按列存放，边为本地编号对，不含 ApiResponse 包装")
+    public CompactTreeViewDTO getCompactTreeView(
+            @PathVariable UUID groupId,
+            @RequestParam(required = false) UUID focusPersonId,
+            @RequestParam(defaultValue = "3") int depth,
+            @RequestParam(required = false) LineageType lineage,
+            @RequestParam(defaultValue = "MEMORY") TreeTraversalMode traversal,
+            @RequestParam(defaultValue = "FOCUS") TreeViewMode mode,
+            @RequestParam(required = false) Integer maxNodes) {
+        return compactTreeViewEncoder.encode(
+            familyTreeService.getTreeView(groupId, focusPersonId, depth, lineage, traversal, mode, maxNodes));
+    }
+    
+    @GetMapping("/delta")
+    @Operation(summary = "获取家谱树视图增量", description = "返回自 sinceVersion 以来视图内新增或变化的节点与边；历史不可用时 full=true 并返回完整视图")
+    public ApiResponse<TreeDeltaDTO> getTreeDelta(
+            @PathVariable UUID groupId,
+            @RequestParam int sinceVersion,
+            @RequestParam(required = false) UUID focusPersonId,
+            @RequestParam(defaultValue = "3") int depth,
+            @RequestParam(required = false)
+            @Parameter(description = "血统线筛选: FATHER_LINE=父系, MOTHER_LINE=母系, 不填=全部")
             LineageType lineage) {
-        return ApiResponse.success(familyTreeService.getTreeView(groupId, focusPersonId, depth, lineage));
+        return ApiResponse.success(familyTreeService.getTreeDelta(groupId, sinceVersion, focusPersonId, depth, lineage));
+    }
+    
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "流式获取家谱树视图", description = "NDJSON 逐行输出 HEADER、NODE、EDGE、END，节点不含布局坐标，适合大深度导出")
+    public ResponseEntity<StreamingResponseBody> streamTreeView(
+            @PathVariable UUID groupId,
+            @RequestParam(required = false) UUID focusPersonId,
+            @RequestParam(defaultValue = "3") int depth,
+            @RequestParam(required = false)
+            @Parameter(description = "血统线筛选: FATHER_LINE=父系, MOTHER_LINE=母系, 不填=全部")
+            LineageType lineage) {
+        return ndjson(familyTreeService.streamTreeView(groupId, focusPersonId, depth, lineage));
+    }
+    
+    @GetMapping("/viewport")
+    @Operation(summary = "获取视口内的家谱节点", description = "基于家族整体布局按坐标范围查询，适合大家族的平移/缩放浏览")
+    public ApiResponse<TreeViewportDTO> getViewport(
+            @PathVariable UUID groupId,
+            @RequestParam double minX,
+            @RequestParam double minY,
+            @RequestParam double maxX,
+            @RequestParam double maxY,
+            @RequestParam(defaultValue = "1.0")
+            @Parameter(description = "缩放比例，低于 0.5 时省略照片与生卒日期")
+            double zoom) {
+        return ApiResponse.success(familyTreeService.getViewport(groupId, minX, minY, maxX, maxY, zoom));
+    }
+    
+    @GetMapping("/path")
+    @Operation(summary = "获取两人之间的关系路径", description = "返回步数最少的关系路径，每一步为 PARENT/CHILD/SPOUSE/SIBLING")
+    public ApiResponse<RelationshipPathDTO> getRelationshipPath(
+            @PathVariable UUID groupId,
+            @RequestParam UUID fromPersonId,
+            @RequestParam UUID toPersonId) {
+        return ApiResponse.success(familyTreeService.getRelationshipPath(groupId, fromPersonId, toPersonId));
+    }
+    
+    @GetMapping("/kinship")
+    @Operation(summary = "获取两人的血亲关系", description = "返回最近共同祖先、堂表亲等级与相差代数（B 相对于 A）")
+    public ApiResponse<KinshipDTO> getKinship(
+            @PathVariable UUID groupId,
+            @RequestParam UUID personAId,
+            @RequestParam UUID personBId) {
+        return ApiResponse.success(familyTreeService.getKinship(groupId, personAId, personBId));
     }
     
     @GetMapping("/persons/{personId}/ancestors")
@@ -42,7 +141,16 @@ public class FamilyTreeController {
             @PathVariable UUID groupId,
             @PathVariable UUID personId,
             @RequestParam(defaultValue = "5") int generations) {
-        return ApiResponse.success(familyTreeService.getAncestors(personId, generations));
+        return ApiResponse.success(familyTreeService.getAncestors(groupId, personId, generations));
+    }
+    
+    @GetMapping("/persons/{personId}/ancestor-distance")
+    @Operation(summary = "判断是否为祖先", description = "返回 ancestorId 与 personId 相隔的代数，不是祖先时 data 为空")
+    public ApiResponse<Integer> getAncestorDistance(
+            @PathVariable UUID groupId,
+            @PathVariable UUID personId,
+            @RequestParam UUID ancestorId) {
+        return ApiResponse.success(familyTreeService.getAncestorDistance(groupId, ancestorId, personId).orElse(null));
     }
     
     @GetMapping("/persons/{personId}/descendants")
@@ -51,6 +159,41 @@ public class FamilyTreeController {
             @PathVariable UUID groupId,
             @PathVariable UUID personId,
             @RequestParam(defaultValue = "3") int generations) {
-        return ApiResponse.success(familyTreeService.getDescendants(personId, generations));
+        return ApiResponse.success(familyTreeService.getDescendants(groupId, personId, generations));
+    }
+    
+    @GetMapping(value = "/persons/{personId}/ancestors/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "流式获取祖先")
+    public ResponseEntity<StreamingResponseBody> streamAncestors(
+            @PathVariable UUID groupId,
+            @PathVariable UUID personId,
+            @RequestParam(defaultValue = "5") int generations) {
+        return ndjson(familyTreeService.streamAncestors(groupId, personId, generations));
+    }
+    
+    @GetMapping(value = "/persons/{personId}/descendants/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "流式获取后代")
+    public ResponseEntity<StreamingResponseBody> streamDescendants(
+            @PathVariable UUID groupId,
+            @PathVariable UUID personId,
+            @RequestParam(defaultValue = "3") int generations) {
+        return ndjson(familyTreeService.streamDescendants(groupId, personId, generations));
+    }
+    
+    /**
+     * 每个事件序列化为一行 JSON，直接写入响应流（由容器缓冲区分块发送）
+     */
+    private ResponseEntity<StreamingResponseBody> ndjson(TreeStream stream) {
+        StreamingResponseBody body = out -> stream.writeTo(event -> {
+            try {
+                out.write(objectMapper.writeValueAsBytes(event));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(body);
     }
 }
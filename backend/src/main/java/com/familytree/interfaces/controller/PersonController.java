@@ -1,13 +1,21 @@
 package com.familytree.interfaces.controller;
 
+import com.familytree.application.dto.CursorPageDTO;
+import com.familytree.application.dto.GenerationCountDTO;
 import com.familytree.application.dto.PersonDTO;
 import com.familytree.application.dto.PersonRelationsDTO;
+import com.familytree.application.dto.PersonSearchResultDTO;
+import com.familytree.application.dto.PersonSuggestionDTO;
 import com.familytree.application.dto.request.CreatePersonRequest;
 import com.familytree.application.dto.request.UpdatePersonRequest;
 import com.familytree.application.dto.response.ApiResponse;
+import com.familytree.application.service.PersonAutocompleteService;
+import com.familytree.application.service.PersonSearchService;
 import com.familytree.application.service.PersonService;
+import com.familytree.domain.PersonFieldSet;
 import com.familytree.infrastructure.security.CurrentUser;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -25,6 +33,8 @@ import java.util.UUID;
 public class PersonController {
     
     private final PersonService personService;
+    private final PersonSearchService personSearchService;
+    private final PersonAutocompleteService personAutocompleteService;
     
     @PostMapping
     @Operation(summary = "创建人物")
@@ -46,6 +56,34 @@ public class PersonController {
         return ApiResponse.success(personService.getGroupPersons(groupId));
     }
     
+    @GetMapping("/group/{groupId}/page")
+    @Operation(summary = "分页获取家族人物列表",
+        description = "按创建时间键集分页；cursor 传上一页返回的 nextCursor，fields=SUMMARY 只返回姓名、性别、生卒日期和主照片")
+    public ApiResponse<CursorPageDTO<?>> getGroupPersonPage(
+            @PathVariable UUID groupId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(defaultValue = "SUMMARY")
+            @Parameter(description = "返回字段: SUMMARY=列表展示所需的轻量字段, FULL=完整人物信息")
+            PersonFieldSet fields) {
+        return ApiResponse.success(personService.getGroupPersonPage(groupId, cursor, limit, fields));
+    }
+    
+    @GetMapping("/group/{groupId}/generations")
+    @Operation(summary = "按代数获取家族人物", description = "按家族内的绝对代数（辈分）范围筛选，结果按代数升序")
+    public ApiResponse<List<PersonDTO>> getPersonsByGeneration(
+            @PathVariable UUID groupId,
+            @RequestParam(required = false) Integer minGeneration,
+            @RequestParam(required = false) Integer maxGeneration) {
+        return ApiResponse.success(personService.getPersonsByGeneration(groupId, minGeneration, maxGeneration));
+    }
+    
+    @GetMapping("/group/{groupId}/generation-counts")
+    @Operation(summary = "统计各代人数")
+    public ApiResponse<List<GenerationCountDTO>> getGenerationCounts(@PathVariable UUID groupId) {
+        return ApiResponse.success(personService.getGenerationCounts(groupId));
+    }
+    
     @PutMapping("/{personId}")
     @Operation(summary = "更新人物")
     public ApiResponse<PersonDTO> updatePerson(
@@ -69,6 +107,27 @@ public class PersonController {
         return ApiResponse.success(personService.searchPersons(groupId, keyword));
     }
 
+    @GetMapping("/group/{groupId}/search/ranked")
+    @Operation(summary = "按相关度搜索人物",
+        description = "支持姓名连写（如“张三”）、拼音全拼和首字母（如 zhangsan、zs）与模糊匹配，按完全相同、前缀、包含、相似的顺序排序，返回轻量字段")
+    public ApiResponse<PersonSearchResultDTO> searchPersonsRanked(
+            @PathVariable UUID groupId,
+            @RequestParam String keyword,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "0") int offset) {
+        return ApiResponse.success(personSearchService.search(groupId, keyword, limit, offset));
+    }
+
+    @GetMapping("/group/{groupId}/autocomplete")
+    @Operation(summary = "人物姓名补全",
+        description = "供人物选择框逐键调用：按姓名、拼音全拼或首字母前缀匹配，返回前 limit 人的ID、姓名、出生年份和主照片")
+    public ApiResponse<List<PersonSuggestionDTO>> autocompletePersons(
+            @PathVariable UUID groupId,
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "10") int limit) {
+        return ApiResponse.success(personAutocompleteService.complete(groupId, prefix, limit));
+    }
+
     @GetMapping("/{personId}/relations")
     @Operation(summary = "获取人员关系详情", description = "返回某人的父母、配偶、子女、兄弟姐妹列表")
     public ApiResponse<PersonRelationsDTO> getPersonRelations(
@@ -21,7 +21,8 @@ CREATE TABLE IF NOT EXISTS groups (
     admin_id UUID REFERENCES users(id),
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    version INTEGER DEFAULT 0
+    version INTEGER DEFAULT 0,
+    structure_version INTEGER NOT NULL DEFAULT 0
 );
 
 -- 3. 群组成员
@@ -45,6 +46,9 @@ CREATE TABLE IF NOT EXISTS persons (
     death_date DATE,
     birth_place VARCHAR(100),
     current_spouse_id UUID REFERENCES persons(id),
+    generation INTEGER DEFAULT 0,
+    descendant_count INTEGER DEFAULT 0,
+    ancestor_count INTEGER DEFAULT 0,
     created_by UUID REFERENCES users(id),
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
@@ -136,9 +140,31 @@ CREATE TABLE IF NOT EXISTS group_privacy_settings (
     UNIQUE(group_id)
 );
 
+-- 12. 家族变更日志（用于树视图增量同步）
+CREATE TABLE IF NOT EXISTS group_changes (
+    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+    group_id UUID REFERENCES groups(id) ON DELETE CASCADE,
+    version INTEGER NOT NULL,
+    entity_type VARCHAR(20) CHECK (entity_type IN ('PERSON', 'RELATIONSHIP', 'PHOTO')),
+    entity_id UUID NOT NULL,
+    action_type VARCHAR(20) CHECK (action_type IN ('CREATE', 'UPDATE', 'DELETE')),
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+-- 13. 祖先-后代闭包（每个祖先与后代组合一行，distance 为最少相隔代数）
+CREATE TABLE IF NOT EXISTS person_closure (
+    group_id UUID REFERENCES groups(id) ON DELETE CASCADE,
+    ancestor_id UUID REFERENCES persons(id) ON DELETE CASCADE,
+    descendant_id UUID REFERENCES persons(id) ON DELETE CASCADE,
+    distance INTEGER NOT NULL,
+    PRIMARY KEY (ancestor_id, descendant_id)
+);
+
 -- 索引优化
 CREATE INDEX IF NOT EXISTS idx_persons_group ON persons(group_id);
 CREATE INDEX IF NOT EXISTS idx_persons_name ON persons USING gin(first_name gin_trgm_ops, last_name gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_persons_group_generation ON persons(group_id, generation);
+CREATE INDEX IF NOT EXISTS idx_persons_group_created ON persons(group_id, created_at, id);
 CREATE INDEX IF NOT EXISTS idx_relationships_group ON relationships(group_id);
 CREATE INDEX IF NOT EXISTS idx_relationships_from ON relationships(from_person_id);
 CREATE INDEX IF NOT EXISTS idx_relationships_to ON relationships(to_person_id);
@@ -151,6 +177,9 @@ CREATE INDEX IF NOT EXISTS idx_workspaces_group ON workspaces(group_id);
 CREATE INDEX IF NOT EXISTS idx_workspaces_user ON workspaces(user_id);
 CREATE INDEX IF NOT EXISTS idx_merge_requests_group ON merge_requests(group_id);
 CREATE INDEX IF NOT EXISTS idx_merge_requests_workspace ON merge_requests(workspace_id);
+CREATE INDEX IF NOT EXISTS idx_group_changes_group_version ON group_changes(group_id, version);
+CREATE INDEX IF NOT EXISTS idx_person_closure_descendant ON person_closure(descendant_id, distance);
+CREATE INDEX IF NOT EXISTS idx_person_closure_group ON person_closure(group_id);
 
 -- GIN 索引用于 JSONB 查询
 CREATE INDEX IF NOT EXISTS idx_changesets_payload ON changesets USING GIN (payload);
@@ -0,0 +1,192 @@
+package com.familytree.application.graph;
+
+import com.familytree.application.service.LineageCalculator;
+import com.familytree.domain.LineageType;
+import com.familytree.domain.Person;
+import com.familytree.domain.Relationship;
+import com.familytree.support.RandomFamily;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 关系图索引的内存与单次请求分配量基准：稠密序号 + CSR 基本类型数组，对比原先以 UUID 为键的 Map 索引。
+ * 在 20 万人的合成家族上分别测量索引常驻堆大小，以及“有界 BFS + 血统线”一次请求在当前线程上的分配字节数
+ */
+@Tag("benchmark")
+class GroupGraphMemoryBenchmarkTest {
+
+    private static final int PERSONS = 200_000;
+    private static final int DEPTH = 3;
+    private static final int WARMUP_REQUESTS = 20;
+    private static final int MEASURED_REQUESTS = 50;
+
+    private final LineageCalculator lineageCalculator = new LineageCalculator();
+
+    @Test
+    void denseGraphRetainsAndAllocatesLessThanUuidMaps() {
+        RandomFamily family = RandomFamily.generate(2024, PERSONS);
+        Map<UUID, Person.Gender> genders = new HashMap<>(PERSONS * 2);
+        family.persons().forEach(p -> genders.put(p.getId(), p.getGender()));
+        int[] focuses = new Random(7).ints(WARMUP_REQUESTS + MEASURED_REQUESTS, 0, PERSONS).toArray();
+
+        long heapBefore = settledHeap();
+        UuidMapGraph mapGraph = UuidMapGraph.build(family.relationships());
+        long mapGraphBytes = settledHeap() - heapBefore;
+
+        heapBefore = settledHeap();
+        GroupGraph graph = family.graph();
+        long denseGraphBytes = settledHeap() - heapBefore;
+
+        long mapRequestBytes = allocatedPerRequest(focuses, focus -> {
+            UUID focusId = family.persons().get(focus).getId();
+            mapGraph.traverse(focusId, DEPTH, genders);
+        });
+        long denseRequestBytes = allocatedPerRequest(focuses, focus ->
+            lineageCalculator.traverse(graph.ordinalOf(family.persons().get(focus).getId()), graph, DEPTH, Set.of()));
+
+        System.out.printf("persons=%d edges=%d%n", graph.size(), graph.edgeCount());
+        System.out.printf("retained index: uuid maps %.1f MB, dense graph %.1f MB%n",
+            mapGraphBytes / 1e6, denseGraphBytes / 1e6);
+        System.out.printf("allocated per request: uuid maps %.1f MB, dense graph %.1f MB%n",
+            mapRequestBytes / 1e6, denseRequestBytes / 1e6);
+
+        assertThat(denseRequestBytes).isLessThan(mapRequestBytes);
+        assertThat(denseGraphBytes).isLessThan(mapGraphBytes);
+        // 保持两份索引在测量结束前可达
+        assertThat(mapGraph.incidentEdges).isNotEmpty();
+    }
+
+    private static long allocatedPerRequest(int[] focuses, java.util.function.IntConsumer request) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        for (int i = 0; i < WARMUP_REQUESTS; i++) {
+            request.accept(focuses[i]);
+        }
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = WARMUP_REQUESTS; i < focuses.length; i++) {
+            request.accept(focuses[i]);
+        }
+        return (threads.getThreadAllocatedBytes(threadId) - before) / MEASURED_REQUESTS;
+    }
+
+    private static long settledHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+        }
+        return used;
+    }
+
+    /**
+     * 原先的索引与遍历方式：按人物 UUID 组织关联关系列表，每次请求用 HashMap 记录距离、代际、性别和血统线
+     */
+    private static final class UuidMapGraph {
+
+        private record Edge(UUID from, UUID to, Relationship.RelationshipType type) {
+
+            UUID otherEnd(UUID personId) {
+                return from.equals(personId) ? to : from;
+            }
+        }
+
+        private final Map<UUID, List<Edge>> incidentEdges = new HashMap<>();
+        private final Map<UUID, List<UUID>> parents = new HashMap<>();
+
+        static UuidMapGraph build(List<Relationship> relationships) {
+            UuidMapGraph graph = new UuidMapGraph();
+            for (Relationship rel : relationships) {
+                Edge edge = new Edge(rel.getFromPersonId(), rel.getToPersonId(), rel.getType());
+                graph.incidentEdges.computeIfAbsent(edge.from(), k -> new ArrayList<>()).add(edge);
+                graph.incidentEdges.computeIfAbsent(edge.to(), k -> new ArrayList<>()).add(edge);
+                if (edge.type() == Relationship.RelationshipType.PARENT) {
+                    graph.parents.computeIfAbsent(edge.to(), k -> new ArrayList<>()).add(edge.from());
+                } else if (edge.type() == Relationship.RelationshipType.CHILD) {
+                    graph.parents.computeIfAbsent(edge.from(), k -> new ArrayList<>()).add(edge.to());
+                }
+            }
+            return graph;
+        }
+
+        Map<UUID, LineageType> traverse(UUID focusId, int depth, Map<UUID, Person.Gender> allGenders) {
+            Map<UUID, Integer> distance = new HashMap<>();
+            Map<UUID, Integer> generation = new HashMap<>();
+            distance.put(focusId, 0);
+            generation.put(focusId, 0);
+            Queue<UUID> queue = new LinkedList<>();
+            queue.offer(focusId);
+            while (!queue.isEmpty()) {
+                UUID current = queue.poll();
+                int currentDistance = distance.get(current);
+                if (currentDistance >= depth) {
+                    continue;
+                }
+                for (Edge edge : incidentEdges.getOrDefault(current, List.of())) {
+                    UUID related = edge.otherEnd(current);
+                    if (!distance.containsKey(related)) {
+                        distance.put(related, currentDistance + 1);
+                        generation.put(related, generation.get(current) + generationDelta(current, edge));
+                        queue.offer(related);
+                    }
+                }
+            }
+
+            // 性别映射只覆盖本次加载的人物
+            Map<UUID, Person.Gender> genders = new HashMap<>();
+            for (UUID personId : distance.keySet()) {
+                genders.put(personId, allGenders.get(personId));
+            }
+
+            Map<UUID, LineageType> lineage = new HashMap<>();
+            lineage.put(focusId, LineageType.SELF);
+            UUID father = parentByGender(focusId, genders, Person.Gender.MALE);
+            UUID mother = parentByGender(focusId, genders, Person.Gender.FEMALE);
+            if (father != null) {
+                mark(father, LineageType.FATHER_LINE, lineage);
+            }
+            if (mother != null) {
+                mark(mother, LineageType.MOTHER_LINE, lineage);
+            }
+            return lineage;
+        }
+
+        private static int generationDelta(UUID current, Edge edge) {
+            return switch (edge.type()) {
+                case PARENT -> edge.from().equals(current) ? 1 : -1;
+                case CHILD -> edge.from().equals(current) ? -1 : 1;
+                default -> 0;
+            };
+        }
+
+        private UUID parentByGender(UUID personId, Map<UUID, Person.Gender> genders, Person.Gender gender) {
+            for (UUID parentId : parents.getOrDefault(personId, List.of())) {
+                if (genders.get(parentId) == gender) {
+                    return parentId;
+                }
+            }
+            return null;
+        }
+
+        private void mark(UUID start, LineageType type, Map<UUID, LineageType> lineage) {
+            Queue<UUID> queue = new LinkedList<>();
+            queue.offer(start);
+            lineage.put(start, type);
+            while (!queue.isEmpty()) {
+                UUID current = queue.poll();
+                for (Edge edge : incidentEdges.getOrDefault(current, List.of())) {
+                    UUID related = edge.otherEnd(current);
+                    if (!lineage.containsKey(related)) {
+                        lineage.put(related, type);
+                        queue.offer(related);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.familytree.application.layout;
+
+import com.familytree.application.graph.GroupGraph;
+import com.familytree.infrastructure.repository.projection.PersonNodeView;
+import com.familytree.support.RandomFamily;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 整洁树布局的规模基准：人数从 12,500 逐级翻倍到 10 万，记录每人耗时。
+ * 除开始时的一次排序外算法为线性，每人耗时应大致持平；断言允许排序的 log n 因子与计时噪声
+ */
+@Tag("benchmark")
+class TidyTreeLayoutBenchmarkTest {
+
+    private static final int[] SIZES = {12_500, 25_000, 50_000, 100_000};
+    private static final int WARMUP_RUNS = 5;
+    private static final int MEASURED_RUNS = 7;
+
+    private final TidyTreeLayoutEngine engine = new TidyTreeLayoutEngine();
+
+    @Test
+    void layoutTimeGrowsLinearly() {
+        double[] nanosPerPerson = new double[SIZES.length];
+        for (int s = 0; s < SIZES.length; s++) {
+            RandomFamily family = RandomFamily.generate(2024 + s, SIZES[s]);
+            GroupGraph graph = family.graph();
+            int[] generation = RandomFamily.generations(graph);
+            List<PersonNodeView> persons = new ArrayList<>(family.persons());
+
+            for (int i = 0; i < WARMUP_RUNS; i++) {
+                engine.layout(graph, persons, generation);
+            }
+            long best = Long.MAX_VALUE;
+            for (int i = 0; i < MEASURED_RUNS; i++) {
+                long start = System.nanoTime();
+                engine.layout(graph, persons, generation);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            nanosPerPerson[s] = (double) best / SIZES[s];
+            System.out.printf("persons=%d best=%.1f ms per person=%.0f ns%n",
+                SIZES[s], best / 1e6, nanosPerPerson[s]);
+        }
+
+        // 人数增加 8 倍，每人耗时不应超过最小规模的 3 倍（平方级算法会是 8 倍）
+        assertThat(nanosPerPerson[SIZES.length - 1]).isLessThan(nanosPerPerson[0] * 3);
+    }
+}
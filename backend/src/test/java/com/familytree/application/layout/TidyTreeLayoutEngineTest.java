@@ -0,0 +1,169 @@
+package com.familytree.application.layout;
+
+import com.familytree.application.graph.GroupGraph;
+import com.familytree.domain.Person;
+import com.familytree.domain.Relationship;
+import com.familytree.infrastructure.repository.projection.PersonNodeView;
+import com.familytree.support.RandomFamily;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class TidyTreeLayoutEngineTest {
+
+    private static final double EPSILON = 1e-6;
+
+    private final TidyTreeLayoutEngine engine = new TidyTreeLayoutEngine();
+
+    @Test
+    void randomFamiliesHaveNoOverlapWithinAGeneration() {
+        for (long seed = 1; seed <= 30; seed++) {
+            RandomFamily family = RandomFamily.generate(seed, 1500);
+            GroupGraph graph = family.graph();
+            int[] generation = RandomFamily.generations(graph);
+
+            double[] x = engine.layout(graph, new ArrayList<>(family.persons()), generation);
+
+            assertNoOverlap(graph, x, generation, "seed " + seed);
+        }
+    }
+
+    @Test
+    void subsetOfPersonsHasNoOverlap() {
+        RandomFamily family = RandomFamily.generate(99, 3000);
+        GroupGraph graph = family.graph();
+        int[] generation = RandomFamily.generations(graph);
+        List<PersonNodeView> half = new ArrayList<>();
+        for (int i = 0; i < family.persons().size(); i += 2) {
+            half.add(family.persons().get(i));
+        }
+
+        double[] x = engine.layout(graph, half, generation);
+
+        Map<Integer, List<Double>> rows = new TreeMap<>();
+        for (PersonNodeView person : half) {
+            int v = graph.ordinalOf(person.getId());
+            rows.computeIfAbsent(generation[v], k -> new ArrayList<>()).add(x[v]);
+        }
+        rows.forEach((g, row) -> assertSpaced(row, "generation " + g));
+    }
+
+    /**
+     * 根下三个子女：两侧各有一棵宽子树，中间是叶子。
+     * 右侧子树在孙辈一层与左侧子树冲突而右移（apportion），位移由 moveSubtree 均摊，中间叶子保持等距
+     */
+    @Test
+    void shiftOfRightSubtreeIsSpreadOverSiblingsInBetween() {
+        FamilyBuilder family = new FamilyBuilder();
+        int root = family.person(1900);
+        int left = family.child(root, 1920);
+        int middle = family.child(root, 1922);
+        int right = family.child(root, 1924);
+        for (int i = 0; i < 4; i++) {
+            family.child(left, 1940 + i);
+            family.child(right, 1940 + i);
+        }
+        GroupGraph graph = family.graph();
+        int[] generation = RandomFamily.generations(graph);
+
+        double[] x = engine.layout(graph, family.persons(), generation);
+
+        int l = graph.ordinalOf(family.id(left));
+        int m = graph.ordinalOf(family.id(middle));
+        int r = graph.ordinalOf(family.id(right));
+        assertThat(x[m] - x[l]).isCloseTo(x[r] - x[m], within(EPSILON));
+        assertThat(x[r] - x[l]).isGreaterThan(2 * TreeLayoutEngine.HORIZONTAL_SPACING);
+        assertThat(x[graph.ordinalOf(family.id(root))]).isCloseTo(x[m], within(EPSILON));
+        assertNoOverlap(graph, x, generation, "hand-built");
+    }
+
+    @Test
+    void siblingsAreOrderedByBirthAndSpousesShareAUnit() {
+        FamilyBuilder family = new FamilyBuilder();
+        int father = family.person(1900);
+        int mother = family.person(1902);
+        family.spouse(father, mother);
+        int younger = family.child(father, 1930);
+        int elder = family.child(father, 1925);
+        GroupGraph graph = family.graph();
+        int[] generation = RandomFamily.generations(graph);
+
+        double[] x = engine.layout(graph, family.persons(), generation);
+
+        double fatherX = x[graph.ordinalOf(family.id(father))];
+        double motherX = x[graph.ordinalOf(family.id(mother))];
+        double elderX = x[graph.ordinalOf(family.id(elder))];
+        double youngerX = x[graph.ordinalOf(family.id(younger))];
+        assertThat(Math.abs(motherX - fatherX)).isCloseTo(TreeLayoutEngine.HORIZONTAL_SPACING, within(EPSILON));
+        assertThat(elderX).isLessThan(youngerX);
+        assertThat((elderX + youngerX) / 2).isCloseTo((fatherX + motherX) / 2, within(EPSILON));
+    }
+
+    private static void assertNoOverlap(GroupGraph graph, double[] x, int[] generation, String description) {
+        Map<Integer, List<Double>> rows = new TreeMap<>();
+        for (int v = 0; v < graph.size(); v++) {
+            rows.computeIfAbsent(generation[v], k -> new ArrayList<>()).add(x[v]);
+        }
+        rows.forEach((g, row) -> assertSpaced(row, description + ", generation " + g));
+    }
+
+    private static void assertSpaced(List<Double> row, String description) {
+        Collections.sort(row);
+        for (int i = 1; i < row.size(); i++) {
+            assertThat(row.get(i) - row.get(i - 1))
+                .as("%s: neighbours at %.1f and %.1f", description, row.get(i - 1), row.get(i))
+                .isGreaterThanOrEqualTo(TreeLayoutEngine.HORIZONTAL_SPACING - EPSILON);
+        }
+    }
+
+    /**
+     * 手工构造的小家族，人物按添加顺序编号
+     */
+    private static final class FamilyBuilder {
+        private final UUID groupId = UUID.randomUUID();
+        private final List<RandomFamily.Member> members = new ArrayList<>();
+        private final List<Relationship> relationships = new ArrayList<>();
+
+        int person(int birthYear) {
+            members.add(new RandomFamily.Member(UUID.randomUUID(), "名" + members.size(), "张",
+                Person.Gender.MALE, LocalDate.of(birthYear, 1, 1)));
+            return members.size() - 1;
+        }
+
+        int child(int parent, int birthYear) {
+            int child = person(birthYear);
+            relate(parent, child, Relationship.RelationshipType.PARENT);
+            return child;
+        }
+
+        void spouse(int a, int b) {
+            relate(a, b, Relationship.RelationshipType.SPOUSE);
+        }
+
+        private void relate(int from, int to, Relationship.RelationshipType type) {
+            relationships.add(Relationship.builder()
+                .id(UUID.randomUUID())
+                .groupId(groupId)
+                .fromPersonId(id(from))
+                .toPersonId(id(to))
+                .type(type)
+                .build());
+        }
+
+        UUID id(int index) {
+            return members.get(index).id();
+        }
+
+        List<PersonNodeView> persons() {
+            return new ArrayList<>(members);
+        }
+
+        GroupGraph graph() {
+            return GroupGraph.build(groupId, members, relationships);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.familytree.application.search;
+
+import com.familytree.domain.Person;
+import com.familytree.support.RandomFamily;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 增量更新与按同样人物顺序全量构建的索引应完全相同：人物槽位、键和 (键, 槽位) 的排列逐项一致
+ */
+class PersonAutocompleteIndexTest {
+
+    private static final String[] LAST_NAMES = {"张", "单", "曾", "欧阳", "Smith", ""};
+    private static final String[] FIRST_NAMES = {"三", "建国", "秀英", "乐", "长明", "John", "Alexander Maximilian"};
+
+    @Test
+    void updateMatchesRebuildAfterRandomChanges() {
+        for (long seed = 1; seed <= 5; seed++) {
+            Random random = new Random(seed);
+            // 槽位顺序：保留的人物按原顺序在前，新增或修改的人物追加在后
+            List<RandomFamily.Member> order = new ArrayList<>(RandomFamily.generate(seed, 200).persons());
+            PersonAutocompleteIndex index = PersonAutocompleteIndex.build(order);
+
+            for (int round = 0; round < 30; round++) {
+                Set<UUID> changed = new HashSet<>();
+                List<RandomFamily.Member> reloaded = new ArrayList<>();
+                for (int i = random.nextInt(6); i > 0 && !order.isEmpty(); i--) {
+                    RandomFamily.Member member = order.get(random.nextInt(order.size()));
+                    if (!changed.add(member.id())) {
+                        continue;
+                    }
+                    if (random.nextBoolean()) {
+                        RandomFamily.Member renamed = rename(member, random);
+                        reloaded.add(renamed);
+                        // 多张主照片时同一人物出现多行
+                        if (random.nextInt(4) == 0) {
+                            reloaded.add(renamed);
+                        }
+                    }
+                }
+                for (int i = random.nextInt(4); i > 0; i--) {
+                    RandomFamily.Member added = rename(new RandomFamily.Member(
+                        new UUID(seed, 1000L * round + i), "", "", Person.Gender.FEMALE, null), random);
+                    changed.add(added.id());
+                    reloaded.add(added);
+                }
+
+                index = index.update(changed, reloaded);
+                order.removeIf(member -> changed.contains(member.id()));
+                new LinkedHashSet<>(reloaded).forEach(order::add);
+
+                assertSameIndex(index, PersonAutocompleteIndex.build(order), "seed " + seed + ", round " + round);
+            }
+        }
+    }
+
+    private static RandomFamily.Member rename(RandomFamily.Member member, Random random) {
+        return new RandomFamily.Member(member.id(),
+            FIRST_NAMES[random.nextInt(FIRST_NAMES.length)],
+            LAST_NAMES[random.nextInt(LAST_NAMES.length)],
+            member.gender(),
+            member.birthDate());
+    }
+
+    private static void assertSameIndex(PersonAutocompleteIndex actual, PersonAutocompleteIndex expected, String step) {
+        for (String field : List.of("personIds", "fullNames", "birthYears", "photoUrls", "keyChars", "keyStarts", "keySlots")) {
+            assertThat(ReflectionTestUtils.getField(actual, field))
+                .as("%s: %s", step, field)
+                .isEqualTo(ReflectionTestUtils.getField(expected, field));
+        }
+        for (String prefix : List.of("z", "zh", "张", "欧阳", "j", "smith", "sm")) {
+            assertThat(actual.complete(prefix, 10)).as("%s: %s", step, prefix).isEqualTo(expected.complete(prefix, 10));
+        }
+    }
+}
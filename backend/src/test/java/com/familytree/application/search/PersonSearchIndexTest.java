@@ -0,0 +1,80 @@
+package com.familytree.application.search;
+
+import com.familytree.domain.Person;
+import com.familytree.support.RandomFamily;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PersonSearchIndexTest {
+
+    private static final UUID ZHANG_SANFENG = new UUID(1, 1);
+    private static final UUID LI_SI = new UUID(1, 2);
+
+    private final PersonSearchIndex index = PersonSearchIndex.build(List.of(
+        person(ZHANG_SANFENG, "三丰", "张"),
+        person(LI_SI, "四", "李")));
+
+    @Test
+    void sameNamesIgnoresWhitespaceButNotTheSurnameSplit() {
+        assertThat(index.hasSameNames(List.of(person(ZHANG_SANFENG, " 三丰", "张")))).isTrue();
+        assertThat(index.hasSameNames(List.of(person(ZHANG_SANFENG, "丰", "张三")))).isFalse();
+        assertThat(index.hasSameNames(List.of(person(LI_SI, "斯", "李")))).isFalse();
+        assertThat(index.hasSameNames(List.of(person(new UUID(1, 3), "四", "李")))).isFalse();
+    }
+
+    @Test
+    void shortPinyinQueriesMatchInsideTheSpelling() {
+        assertThat(index.search("sa")).extracting(PersonSearchIndex.Hit::personId).containsExactly(ZHANG_SANFENG);
+        assertThat(index.search("zh")).extracting(PersonSearchIndex.Hit::personId).containsExactly(ZHANG_SANFENG);
+        assertThat(index.search("si")).extracting(PersonSearchIndex.Hit::personId).containsExactly(LI_SI);
+        assertThat(index.search("i")).extracting(PersonSearchIndex.Hit::personId).containsExactly(LI_SI);
+    }
+
+    /**
+     * 倒排召回不能漏掉打分会命中的人物：任意拼音关键词的结果都应等于逐个检查拼音写法是否包含关键词
+     */
+    @Test
+    void pinyinRecallMatchesFullScan() {
+        RandomFamily family = RandomFamily.generate(5, 300);
+        PersonSearchIndex randomIndex = PersonSearchIndex.build(family.persons());
+        PinyinDictionary dictionary = PinyinDictionary.getDefault();
+        List<List<String>> spellings = family.persons().stream()
+            .map(p -> dictionary.spellingForms(PersonSearchIndex.normalize(p.lastName()),
+                PersonSearchIndex.normalize(p.firstName())))
+            .toList();
+
+        Set<String> queries = new HashSet<>();
+        for (List<String> forms : spellings) {
+            for (String form : forms) {
+                for (int length = 1; length <= 4; length++) {
+                    for (int i = 0; i + length <= form.length(); i++) {
+                        queries.add(form.substring(i, i + length));
+                    }
+                }
+            }
+        }
+        for (String query : queries) {
+            Set<UUID> expected = new HashSet<>();
+            for (int v = 0; v < spellings.size(); v++) {
+                if (spellings.get(v).stream().anyMatch(form -> form.contains(query))) {
+                    expected.add(family.persons().get(v).id());
+                }
+            }
+            Set<UUID> found = randomIndex.search(query).stream()
+                .map(PersonSearchIndex.Hit::personId)
+                .collect(Collectors.toSet());
+            assertThat(found).as(query).isEqualTo(expected);
+        }
+    }
+
+    private static RandomFamily.Member person(UUID id, String firstName, String lastName) {
+        return new RandomFamily.Member(id, firstName, lastName, Person.Gender.MALE, null);
+    }
+}
@@ -0,0 +1,165 @@
+package com.familytree.application.service;
+
+import com.familytree.domain.Group;
+import com.familytree.domain.Person;
+import com.familytree.domain.Relationship;
+import com.familytree.infrastructure.repository.GroupRepository;
+import com.familytree.infrastructure.repository.PersonClosureRepository;
+import com.familytree.infrastructure.repository.PersonRepository;
+import com.familytree.infrastructure.repository.RelationshipRepository;
+import com.familytree.support.PostgresRepositoryTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 已有关系但闭包为空、或代数/计数为空的家族（上线前的数据）在启动回填后应与增量维护的结果一致，已一致的家族不再改写
+ */
+@Import({DerivedDataBackfill.class, GroupChangeLog.class})
+class DerivedDataBackfillTest extends PostgresRepositoryTest {
+
+    @Autowired
+    private DerivedDataBackfill derivedDataBackfill;
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private RelationshipRepository relationshipRepository;
+
+    @Autowired
+    private PersonClosureRepository personClosureRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void rebuildsClosureOfGroupsCreatedBeforeIt() {
+        UUID groupId = groupRepository.saveAndFlush(Group.builder().name("张氏家族").build()).getId();
+        Person grandfather = createPerson(groupId, "大山");
+        Person father = createPerson(groupId, "建国");
+        Person mother = createPerson(groupId, "秀英");
+        Person son = createPerson(groupId, "三");
+        createRelationship(groupId, grandfather, father, Relationship.RelationshipType.PARENT);
+        createRelationship(groupId, father, son, Relationship.RelationshipType.PARENT);
+        // 历史 CHILD 关系：from=子女, to=父母
+        createRelationship(groupId, son, mother, Relationship.RelationshipType.CHILD);
+        createRelationship(groupId, father, mother, Relationship.RelationshipType.SPOUSE);
+        int version = groupRepository.findVersionById(groupId).orElseThrow();
+
+        assertThat(personClosureRepository.findGroupIdsWithStaleClosure()).containsExactly(groupId);
+        derivedDataBackfill.run(null);
+        entityManager.clear();
+
+        assertThat(personClosureRepository.findDistance(groupId, grandfather.getId(), son.getId())).contains(2);
+        assertThat(personClosureRepository.findDistance(groupId, mother.getId(), son.getId())).contains(1);
+        assertThat(personClosureRepository.findDistance(groupId, mother.getId(), father.getId())).isEmpty();
+        assertThat(personClosureRepository.count()).isEqualTo(4);
+        assertThat(personRepository.findById(grandfather.getId()).orElseThrow().getDescendantCount()).isEqualTo(2);
+        assertThat(personRepository.findById(son.getId()).orElseThrow().getAncestorCount()).isEqualTo(3);
+        assertThat(groupRepository.findVersionById(groupId)).contains(version + 1);
+
+        assertThat(personClosureRepository.findGroupIdsWithStaleClosure()).isEmpty();
+        derivedDataBackfill.run(null);
+        assertThat(groupRepository.findVersionById(groupId)).contains(version + 1);
+    }
+
+    @Test
+    void leavesIncrementallyMaintainedGroupsAlone() {
+        UUID groupId = groupRepository.saveAndFlush(Group.builder().name("李氏家族").build()).getId();
+        Person father = createPerson(groupId, "四");
+        Person son = createPerson(groupId, "小四");
+        createRelationship(groupId, father, son, Relationship.RelationshipType.PARENT);
+        personClosureRepository.linkParent(groupId, father.getId(), son.getId());
+
+        assertThat(personClosureRepository.findGroupIdsWithStaleClosure()).isEmpty();
+    }
+
+    @Test
+    void fillsUnsetGenerations() {
+        UUID groupId = groupRepository.saveAndFlush(Group.builder().name("王氏家族").build()).getId();
+        Person grandfather = createPerson(groupId, "大山", null);
+        Person father = createPerson(groupId, "建国", null);
+        Person mother = createPerson(groupId, "秀英", null);
+        Person son = createPerson(groupId, "三", null);
+        createRelationship(groupId, grandfather, father, Relationship.RelationshipType.PARENT);
+        createRelationship(groupId, father, mother, Relationship.RelationshipType.SPOUSE);
+        createRelationship(groupId, son, mother, Relationship.RelationshipType.CHILD);
+        personClosureRepository.insertGroupClosure(groupId, 4);
+        personClosureRepository.recountGroup(groupId);
+        int version = groupRepository.findVersionById(groupId).orElseThrow();
+
+        assertThat(personRepository.findGroupIdsWithUnsetGeneration()).containsExactly(groupId);
+        derivedDataBackfill.run(null);
+        entityManager.clear();
+
+        assertThat(personRepository.findById(grandfather.getId()).orElseThrow().getGeneration()).isZero();
+        assertThat(personRepository.findById(father.getId()).orElseThrow().getGeneration()).isEqualTo(1);
+        assertThat(personRepository.findById(mother.getId()).orElseThrow().getGeneration()).isEqualTo(1);
+        assertThat(personRepository.findById(son.getId()).orElseThrow().getGeneration()).isEqualTo(2);
+        assertThat(groupRepository.findVersionById(groupId)).contains(version + 1);
+        assertThat(personRepository.findGroupIdsWithUnsetGeneration()).isEmpty();
+    }
+
+    @Test
+    void fillsUnsetCounts() {
+        UUID groupId = groupRepository.saveAndFlush(Group.builder().name("赵氏家族").build()).getId();
+        Person grandfather = createPerson(groupId, "大山", 0, null);
+        Person father = createPerson(groupId, "建国", 1, null);
+        Person son = createPerson(groupId, "三", 2, null);
+        createRelationship(groupId, grandfather, father, Relationship.RelationshipType.PARENT);
+        createRelationship(groupId, father, son, Relationship.RelationshipType.PARENT);
+        // 闭包已完整，只有计数列为空
+        personClosureRepository.insertGroupClosure(groupId, 3);
+        int version = groupRepository.findVersionById(groupId).orElseThrow();
+
+        assertThat(personClosureRepository.findGroupIdsWithStaleClosure()).isEmpty();
+        assertThat(personClosureRepository.findGroupIdsWithUnsetCounts()).containsExactly(groupId);
+        derivedDataBackfill.run(null);
+        entityManager.clear();
+
+        assertThat(personRepository.findById(grandfather.getId()).orElseThrow().getDescendantCount()).isEqualTo(2);
+        assertThat(personRepository.findById(father.getId()).orElseThrow().getAncestorCount()).isEqualTo(1);
+        assertThat(personRepository.findById(son.getId()).orElseThrow().getAncestorCount()).isEqualTo(2);
+        assertThat(personRepository.findById(son.getId()).orElseThrow().getDescendantCount()).isZero();
+        assertThat(groupRepository.findVersionById(groupId)).contains(version + 1);
+        assertThat(personClosureRepository.findGroupIdsWithUnsetCounts()).isEmpty();
+    }
+
+    private Person createPerson(UUID groupId, String firstName) {
+        return createPerson(groupId, firstName, 0);
+    }
+
+    private Person createPerson(UUID groupId, String firstName, Integer generation) {
+        return createPerson(groupId, firstName, generation, 0);
+    }
+
+    private Person createPerson(UUID groupId, String firstName, Integer generation, Integer count) {
+        return personRepository.saveAndFlush(Person.builder()
+            .groupId(groupId)
+            .firstName(firstName)
+            .lastName("张")
+            .gender(Person.Gender.MALE)
+            .generation(generation)
+            .descendantCount(count)
+            .ancestorCount(count)
+            .build());
+    }
+
+    private void createRelationship(UUID groupId, Person from, Person to, Relationship.RelationshipType type) {
+        relationshipRepository.saveAndFlush(Relationship.builder()
+            .groupId(groupId)
+            .fromPersonId(from.getId())
+            .toPersonId(to.getId())
+            .type(type)
+            .build());
+    }
+}
@@ -0,0 +1,164 @@
+package com.familytree.application.service;
+
+import com.familytree.application.dto.PersonNodeDTO;
+import com.familytree.application.dto.RelationshipEdgeDTO;
+import com.familytree.application.dto.TreeDeltaDTO;
+import com.familytree.application.dto.TreeViewDTO;
+import com.familytree.application.graph.GroupGraph;
+import com.familytree.application.layout.TidyTreeLayoutEngine;
+import com.familytree.domain.ChangeSet;
+import com.familytree.domain.GroupChange;
+import com.familytree.domain.LineageType;
+import com.familytree.domain.Relationship;
+import com.familytree.infrastructure.cache.TreeViewCache;
+import com.familytree.infrastructure.repository.*;
+import com.familytree.infrastructure.repository.projection.PersonNodeView;
+import com.familytree.support.RandomFamily;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 树视图增量：把增量应用到旧版本的完整视图上，应当得到新版本的完整视图
+ */
+class FamilyTreeServiceDeltaTest {
+
+    private static final int DEPTH = 3;
+    private static final LineageType[] FILTERS = {null, LineageType.FATHER_LINE, LineageType.MOTHER_LINE};
+
+    private final GroupRepository groupRepository = mock(GroupRepository.class);
+    private final GroupChangeRepository groupChangeRepository = mock(GroupChangeRepository.class);
+    private final PersonNodeLoader personNodeLoader = mock(PersonNodeLoader.class);
+    private final GroupGraphService groupGraphService = mock(GroupGraphService.class);
+
+    private final FamilyTreeService familyTreeService = new FamilyTreeService(
+        groupRepository, new GroupChangeLog(groupRepository, groupChangeRepository), mock(PersonRepository.class), mock(PersonClosureRepository.class),
+        mock(RelationshipRepository.class), personNodeLoader, new LineageCalculator(), mock(RelationshipPathFinder.class),
+        mock(KinshipCalculator.class), new KinshipTermCalculator(), groupGraphService, mock(TreeViewCache.class),
+        new TidyTreeLayoutEngine(), mock(GroupLayoutService.class));
+
+    private int version;
+    private GroupGraph graph;
+
+    @Test
+    void deltaAppliedToPreviousViewEqualsCurrentView() {
+        int incremental = 0;
+        for (long seed = 1; seed <= 40; seed++) {
+            RandomFamily family = RandomFamily.generate(seed, 300);
+            Random random = new Random(seed);
+            List<Relationship> all = family.relationships();
+            Set<Relationship> created = new HashSet<>();
+            while (created.size() < 4) {
+                created.add(all.get(random.nextInt(all.size())));
+            }
+            List<Relationship> before = all.stream().filter(r -> !created.contains(r)).collect(Collectors.toList());
+            GroupGraph previousGraph = GroupGraph.build(family.groupId(), family.persons(), before);
+            GroupGraph currentGraph = family.graph();
+            stubPersons(family);
+            stubChanges(family.groupId(), created);
+
+            for (int f = 0; f < 5; f++) {
+                UUID focusId = family.persons().get(random.nextInt(family.persons().size())).id();
+                for (LineageType filter : FILTERS) {
+                    use(1, previousGraph);
+                    TreeViewDTO previous = familyTreeService.getTreeView(family.groupId(), focusId, DEPTH, filter);
+                    use(2, currentGraph);
+                    TreeViewDTO current = familyTreeService.getTreeView(family.groupId(), focusId, DEPTH, filter);
+                    TreeDeltaDTO delta = familyTreeService.getTreeDelta(family.groupId(), 1, focusId, DEPTH, filter);
+
+                    if (delta.getFull()) {
+                        assertThat(nodes(delta.getTree())).isEqualTo(nodes(current));
+                        continue;
+                    }
+                    incremental++;
+                    String description = "seed " + seed + ", focus " + focusId + ", filter " + filter;
+                    assertThat(apply(nodes(previous), delta)).as(description).isEqualTo(nodes(current));
+                    assertThat(apply(edges(previous), delta)).as(description).isEqualTo(edges(current));
+                }
+            }
+        }
+        assertThat(incremental).isGreaterThan(100);
+    }
+
+    @Test
+    void missingFocusFallsBackToFullView() {
+        RandomFamily family = RandomFamily.generate(7, 50);
+        stubPersons(family);
+        stubChanges(family.groupId(), Set.of(family.relationships().get(0)));
+        use(2, family.graph());
+
+        TreeDeltaDTO delta = familyTreeService.getTreeDelta(family.groupId(), 1, null, DEPTH, null);
+
+        assertThat(delta.getFull()).isTrue();
+    }
+
+    private void use(int version, GroupGraph graph) {
+        this.version = version;
+        this.graph = graph;
+    }
+
+    private void stubPersons(RandomFamily family) {
+        Map<UUID, PersonNodeView> persons = family.persons().stream()
+            .collect(Collectors.toMap(RandomFamily.Member::id, Function.identity()));
+        when(groupRepository.findVersionById(family.groupId())).thenAnswer(inv -> Optional.of(version));
+        when(groupGraphService.getGraph(family.groupId())).thenAnswer(inv -> graph);
+        when(personNodeLoader.load(eq(family.groupId()), anyCollection())).thenAnswer(inv -> {
+            Collection<UUID> ids = inv.getArgument(1);
+            Map<UUID, PersonNodeView> loaded = new HashMap<>();
+            ids.forEach(id -> loaded.put(id, persons.get(id)));
+            return loaded;
+        });
+    }
+
+    private void stubChanges(UUID groupId, Set<Relationship> created) {
+        List<GroupChange> changes = created.stream()
+            .map(r -> GroupChange.builder()
+                .groupId(groupId)
+                .version(2)
+                .entityType(ChangeSet.EntityType.RELATIONSHIP)
+                .entityId(r.getId())
+                .actionType(ChangeSet.ActionType.CREATE)
+                .build())
+            .collect(Collectors.toList());
+        when(groupChangeRepository.findMinVersionByGroupId(groupId)).thenReturn(Optional.of(2));
+        when(groupChangeRepository.findSinceVersion(eq(groupId), eq(1), any())).thenReturn(changes);
+    }
+
+    /**
+     * 节点按 ID 比较代际与血统线（增量节点不带布局坐标）
+     */
+    private static Map<UUID, String> nodes(TreeViewDTO view) {
+        Map<UUID, String> nodes = new HashMap<>();
+        for (PersonNodeDTO node : view.getNodes()) {
+            nodes.put(node.getId(), node.getGeneration() + "/" + node.getLineageType());
+        }
+        return nodes;
+    }
+
+    private static Set<UUID> edges(TreeViewDTO view) {
+        return view.getEdges().stream().map(RelationshipEdgeDTO::getId).collect(Collectors.toSet());
+    }
+
+    private static Map<UUID, String> apply(Map<UUID, String> nodes, TreeDeltaDTO delta) {
+        Map<UUID, String> result = new HashMap<>(nodes);
+        delta.getRemovedNodeIds().forEach(result::remove);
+        for (PersonNodeDTO node : delta.getUpsertedNodes()) {
+            result.put(node.getId(), node.getGeneration() + "/" + node.getLineageType());
+        }
+        return result;
+    }
+
+    private static Set<UUID> apply(Set<UUID> edges, TreeDeltaDTO delta) {
+        Set<UUID> result = new HashSet<>(edges);
+        delta.getRemovedEdgeIds().forEach(result::remove);
+        delta.getUpsertedEdges().forEach(edge -> result.add(edge.getId()));
+        return result;
+    }
+}
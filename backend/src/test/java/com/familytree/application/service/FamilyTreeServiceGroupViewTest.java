@@ -0,0 +1,114 @@
+package com.familytree.application.service;
+
+import com.familytree.application.dto.CollapsedNodeDTO;
+import com.familytree.application.dto.PersonNodeDTO;
+import com.familytree.application.dto.RelationshipEdgeDTO;
+import com.familytree.application.dto.TreeViewDTO;
+import com.familytree.application.graph.GroupGraph;
+import com.familytree.application.layout.GroupLayout;
+import com.familytree.application.layout.TidyTreeLayoutEngine;
+import com.familytree.application.layout.TreeLayoutEngine;
+import com.familytree.domain.TreeTraversalMode;
+import com.familytree.domain.TreeViewMode;
+import com.familytree.infrastructure.cache.TreeViewCache;
+import com.familytree.infrastructure.repository.*;
+import com.familytree.infrastructure.repository.projection.PersonNodeView;
+import com.familytree.support.RandomFamily;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 整个家族视图的节点上限：自上而下、从左到右保留人物，其余折叠到保留人物上，边只连接保留的人物
+ */
+class FamilyTreeServiceGroupViewTest {
+
+    private final GroupRepository groupRepository = mock(GroupRepository.class);
+    private final PersonNodeLoader personNodeLoader = mock(PersonNodeLoader.class);
+    private final GroupLayoutService groupLayoutService = mock(GroupLayoutService.class);
+
+    private final FamilyTreeService familyTreeService = new FamilyTreeService(
+        groupRepository, mock(GroupChangeLog.class), mock(PersonRepository.class), mock(PersonClosureRepository.class),
+        mock(RelationshipRepository.class), personNodeLoader, new LineageCalculator(), mock(RelationshipPathFinder.class),
+        mock(KinshipCalculator.class), new KinshipTermCalculator(), mock(GroupGraphService.class), mock(TreeViewCache.class),
+        new TidyTreeLayoutEngine(), groupLayoutService);
+
+    private RandomFamily family;
+    private GroupLayout layout;
+
+    @BeforeEach
+    void stubLayout() {
+        family = RandomFamily.generate(11, 400);
+        GroupGraph graph = family.graph();
+        int[] generation = RandomFamily.generations(graph);
+        double[] x = new TidyTreeLayoutEngine().layout(graph, new ArrayList<>(family.persons()), generation);
+        double[] y = new double[graph.size()];
+        boolean[] placed = new boolean[graph.size()];
+        for (int v = 0; v < graph.size(); v++) {
+            y[v] = generation[v] * TreeLayoutEngine.VERTICAL_SPACING;
+            placed[v] = true;
+        }
+        layout = new GroupLayout(graph, 1, placed, x, y, generation);
+
+        Map<UUID, PersonNodeView> persons = family.persons().stream()
+            .collect(Collectors.toMap(RandomFamily.Member::id, Function.identity()));
+        when(groupRepository.findVersionById(family.groupId())).thenReturn(Optional.of(1));
+        when(groupLayoutService.getLayout(family.groupId())).thenReturn(layout);
+        when(personNodeLoader.load(eq(family.groupId()), anyCollection())).thenAnswer(inv -> {
+            Collection<UUID> ids = inv.getArgument(1);
+            Map<UUID, PersonNodeView> loaded = new HashMap<>();
+            ids.forEach(id -> loaded.put(id, persons.get(id)));
+            return loaded;
+        });
+    }
+
+    @Test
+    void keepsTopOfTheFamilyWithinBudget() {
+        TreeViewDTO view = groupView(60);
+        GroupGraph graph = layout.getGraph();
+
+        assertThat(view.getNodes()).hasSize(60);
+        Set<UUID> kept = view.getNodes().stream().map(PersonNodeDTO::getId).collect(Collectors.toSet());
+        int deepestKept = view.getNodes().stream().mapToInt(PersonNodeDTO::getGeneration).max().orElseThrow();
+        for (int v = 0; v < graph.size(); v++) {
+            if (!kept.contains(graph.personId(v))) {
+                assertThat(layout.generation(v)).isGreaterThanOrEqualTo(deepestKept);
+            }
+        }
+        for (RelationshipEdgeDTO edge : view.getEdges()) {
+            assertThat(kept).contains(edge.getFromPersonId(), edge.getToPersonId());
+        }
+
+        assertThat(view.getCollapsedNodes()).isNotEmpty();
+        int hidden = 0;
+        for (CollapsedNodeDTO collapsed : view.getCollapsedNodes()) {
+            assertThat(kept).contains(collapsed.getAnchorPersonId());
+            hidden += collapsed.getHiddenCount();
+        }
+        assertThat(hidden).isPositive();
+        assertThat(view.getMaxNodes()).isEqualTo(60);
+    }
+
+    @Test
+    void withoutBudgetReturnsEveryone() {
+        TreeViewDTO view = groupView(null);
+
+        assertThat(view.getNodes()).hasSize(family.persons().size());
+        assertThat(view.getEdges()).hasSize(family.relationships().size());
+        assertThat(view.getCollapsedNodes()).isEmpty();
+    }
+
+    private TreeViewDTO groupView(Integer maxNodes) {
+        return familyTreeService.getTreeView(family.groupId(), null, 0, null,
+            TreeTraversalMode.MEMORY, TreeViewMode.GROUP, maxNodes);
+    }
+}
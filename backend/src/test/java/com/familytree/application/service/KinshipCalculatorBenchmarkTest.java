@@ -0,0 +1,109 @@
+package com.familytree.application.service;
+
+import com.familytree.application.graph.GroupGraph;
+import com.familytree.domain.Group;
+import com.familytree.infrastructure.repository.GroupRepository;
+import com.familytree.infrastructure.repository.PersonClosureRepository;
+import com.familytree.infrastructure.repository.PersonRepository;
+import com.familytree.infrastructure.repository.RelationshipRepository;
+import com.familytree.infrastructure.repository.projection.LinealRow;
+import com.familytree.support.PostgresRepositoryTest;
+import com.familytree.support.RandomFamily;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 最近共同祖先的两种算法对比：内存关系图索引上的双侧逐代搜索，与按闭包表分别查询两人祖先再取交集。
+ * 两者的代数之和应一致；前者不经过数据库，每次查询应明显更快
+ */
+@Tag("benchmark")
+class KinshipCalculatorBenchmarkTest extends PostgresRepositoryTest {
+
+    private static final int PERSONS = 5_000;
+    private static final int QUERIES = 2_000;
+    private static final int WARMUP_QUERIES = 500;
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private RelationshipRepository relationshipRepository;
+
+    @Autowired
+    private PersonClosureRepository personClosureRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private final KinshipCalculator kinshipCalculator = new KinshipCalculator();
+
+    @Test
+    void graphSearchAgreesWithClosureAndIsFaster() {
+        RandomFamily family = RandomFamily.generate(2024, PERSONS);
+        GroupGraph graph = family.graph();
+        UUID groupId = groupRepository.saveAndFlush(Group.builder().name("基准家族").build()).getId();
+        UUID[] personIds = family.persist(groupId, personRepository, relationshipRepository);
+        personClosureRepository.insertGroupClosure(groupId, graph.size());
+        // 清空持久化上下文，避免每次原生查询前对已写入的上万个实体做脏检查
+        entityManager.clear();
+
+        Random random = new Random(7);
+        int[][] pairs = new int[WARMUP_QUERIES + QUERIES][];
+        for (int q = 0; q < pairs.length; q++) {
+            pairs[q] = new int[]{random.nextInt(graph.size()), random.nextInt(graph.size())};
+        }
+
+        long graphNanos = 0;
+        long closureNanos = 0;
+        for (int q = 0; q < pairs.length; q++) {
+            int a = pairs[q][0];
+            int b = pairs[q][1];
+
+            long start = System.nanoTime();
+            KinshipCalculator.Kinship kinship = kinshipCalculator.find(graph, a, b);
+            long graphElapsed = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            int closureSum = closureSum(groupId, personIds[a], personIds[b], graph.size());
+            long closureElapsed = System.nanoTime() - start;
+
+            assertThat(kinship == null ? -1 : kinship.distanceA() + kinship.distanceB())
+                .as("%d ~ %d", a, b).isEqualTo(closureSum);
+            if (q >= WARMUP_QUERIES) {
+                graphNanos += graphElapsed;
+                closureNanos += closureElapsed;
+            }
+        }
+
+        System.out.printf("persons=%d queries=%d graph=%.1f us/query closure=%.1f us/query%n",
+            graph.size(), QUERIES, graphNanos / 1e3 / QUERIES, closureNanos / 1e3 / QUERIES);
+        assertThat(graphNanos).isLessThan(closureNanos);
+    }
+
+    /**
+     * 按闭包表求最近共同祖先的代数之和，没有共同祖先时返回 -1
+     */
+    private int closureSum(UUID groupId, UUID a, UUID b, int maxGenerations) {
+        Map<UUID, Integer> ancestorsA = new HashMap<>();
+        for (LinealRow row : personClosureRepository.findAncestors(groupId, a, maxGenerations)) {
+            ancestorsA.put(row.getPersonId(), row.getGeneration());
+        }
+        int best = -1;
+        for (LinealRow row : personClosureRepository.findAncestors(groupId, b, maxGenerations)) {
+            Integer distanceA = ancestorsA.get(row.getPersonId());
+            if (distanceA != null && (best < 0 || distanceA + row.getGeneration() < best)) {
+                best = distanceA + row.getGeneration();
+            }
+        }
+        return best;
+    }
+}
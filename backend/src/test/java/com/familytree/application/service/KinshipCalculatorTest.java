@@ -0,0 +1,93 @@
+package com.familytree.application.service;
+
+import com.familytree.application.graph.GroupGraph;
+import com.familytree.support.RandomFamily;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 按代交替的双侧搜索应与“分别求出两人全部祖先再取交集”的结果一致；
+ * 工作区在不同规模的家族之间复用，不应残留上一次查询的标记
+ */
+class KinshipCalculatorTest {
+
+    private final KinshipCalculator kinshipCalculator = new KinshipCalculator();
+
+    @Test
+    void matchesFullAncestorIntersection() {
+        for (long seed = 1; seed <= 30; seed++) {
+            GroupGraph graph = RandomFamily.generate(seed, seed % 2 == 0 ? 500 : 80).graph();
+            int[][] ancestors = new int[graph.size()][];
+            for (int v = 0; v < graph.size(); v++) {
+                ancestors[v] = ancestorDistances(graph, v);
+            }
+            Random random = new Random(seed);
+            for (int q = 0; q < 20; q++) {
+                int a = random.nextInt(graph.size());
+                int[] distanceA = ancestors[a];
+                for (int b = 0; b < graph.size(); b++) {
+                    int[] distanceB = ancestors[b];
+                    int bestSum = Integer.MAX_VALUE;
+                    int bestRemoval = Integer.MAX_VALUE;
+                    Set<Integer> common = new HashSet<>();
+                    for (int v = 0; v < graph.size(); v++) {
+                        if (distanceA[v] < 0 || distanceB[v] < 0) {
+                            continue;
+                        }
+                        int sum = distanceA[v] + distanceB[v];
+                        if (sum < bestSum) {
+                            bestSum = sum;
+                            bestRemoval = Integer.MAX_VALUE;
+                            common.clear();
+                        }
+                        if (sum == bestSum) {
+                            common.add(v);
+                            bestRemoval = Math.min(bestRemoval, Math.abs(distanceA[v] - distanceB[v]));
+                        }
+                    }
+
+                    KinshipCalculator.Kinship kinship = kinshipCalculator.find(graph, a, b);
+                    String description = "seed " + seed + ", " + a + " ~ " + b;
+                    if (common.isEmpty()) {
+                        assertThat(kinship).as(description).isNull();
+                        continue;
+                    }
+                    assertThat(kinship).as(description).isNotNull();
+                    assertThat(Arrays.stream(kinship.commonAncestors()).boxed().toList())
+                        .as(description).containsExactlyInAnyOrderElementsOf(common);
+                    int head = kinship.commonAncestors()[0];
+                    assertThat(kinship.distanceA()).as(description).isEqualTo(distanceA[head]);
+                    assertThat(kinship.distanceB()).as(description).isEqualTo(distanceB[head]);
+                    assertThat(kinship.removal()).as(description).isEqualTo(bestRemoval);
+                }
+            }
+        }
+    }
+
+    /**
+     * 向上 BFS 得到的祖先代数（本人为 0），非祖先为 -1
+     */
+    private static int[] ancestorDistances(GroupGraph graph, int person) {
+        int[] distance = new int[graph.size()];
+        Arrays.fill(distance, -1);
+        distance[person] = 0;
+        int[] queue = new int[graph.size()];
+        int size = 0;
+        queue[size++] = person;
+        GroupGraph.Adjacency parents = graph.parents();
+        for (int head = 0; head < size; head++) {
+            int current = queue[head];
+            for (int i = parents.start(current); i < parents.end(current); i++) {
+                int parent = parents.target(i);
+                if (distance[parent] < 0) {
+                    distance[parent] = distance[current] + 1;
+                    queue[size++] = parent;
+                }
+            }
+        }
+        return distance;
+    }
+}
@@ -0,0 +1,159 @@
+package com.familytree.application.service;
+
+import com.familytree.application.graph.GroupGraph;
+import com.familytree.domain.Person;
+import com.familytree.domain.Relationship;
+import com.familytree.support.RandomFamily;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 手工构造的家族上逐人核对称谓（焦点人物为“我”，1990 年生）：
+ * 父系、母系、配偶一方的亲属，同辈旁系按与“我”的长幼区分，出生日期未知时退回不分长幼的称谓，
+ * 表中没有的关系链拆成“已知称谓 + 的 + 其余部分”
+ */
+class KinshipTermCalculatorTest {
+
+    private static final Map<String, String> TERMS = new HashMap<>();
+
+    @BeforeAll
+    static void assignTerms() {
+        FamilyBuilder family = new FamilyBuilder();
+        family.person("爷爷", Person.Gender.MALE, 1930);
+        family.person("奶奶", Person.Gender.FEMALE, 1932);
+        family.person("外公", Person.Gender.MALE, 1933);
+        family.person("外婆", Person.Gender.FEMALE, 1935);
+        family.person("父亲", Person.Gender.MALE, 1960);
+        family.person("母亲", Person.Gender.FEMALE, 1962);
+        family.person("伯父", Person.Gender.MALE, 1955);
+        family.person("伯母", Person.Gender.FEMALE, 1956);
+        family.person("叔叔", Person.Gender.MALE, 1965);
+        family.person("姑姑", Person.Gender.FEMALE, 1967);
+        family.person("姑父", Person.Gender.MALE, 1966);
+        family.person("舅舅", Person.Gender.MALE, 1958);
+        family.person("舅妈", Person.Gender.FEMALE, 1959);
+        family.person("我", Person.Gender.MALE, 1990);
+        family.person("姐姐", Person.Gender.FEMALE, 1988);
+        family.person("兄弟（生日未知）", Person.Gender.MALE, null);
+        family.person("堂哥", Person.Gender.MALE, 1985);
+        family.person("堂兄弟（生日未知）", Person.Gender.MALE, null);
+        family.person("表妹", Person.Gender.FEMALE, 1995);
+        family.person("外甥", Person.Gender.MALE, 2012);
+        family.person("妻子", Person.Gender.FEMALE, 1991);
+        family.person("岳父", Person.Gender.MALE, 1963);
+        family.person("岳父的哥哥", Person.Gender.MALE, 1960);
+
+        family.couple("爷爷", "奶奶", "父亲", "伯父", "叔叔", "姑姑");
+        family.couple("外公", "外婆", "母亲", "舅舅");
+        family.couple("父亲", "母亲", "我", "姐姐", "兄弟（生日未知）");
+        family.couple("伯父", "伯母", "堂哥");
+        family.couple("姑父", "姑姑", "表妹");
+        family.couple("舅舅", "舅妈");
+        family.couple("我", "妻子");
+        family.parent("叔叔", "堂兄弟（生日未知）");
+        family.parent("姐姐", "外甥");
+        family.parent("岳父", "妻子");
+        family.relate("岳父", "岳父的哥哥", Relationship.RelationshipType.SIBLING);
+
+        GroupGraph graph = family.graph();
+        int focus = graph.ordinalOf(family.idOf("我"));
+        LineageCalculator.Traversal traversal = new LineageCalculator().traverse(focus, graph, 6, Set.of());
+        String[] terms = new KinshipTermCalculator().assignTerms(graph, focus, traversal.visited(),
+            traversal.visitedCount(), v -> family.birthDateOf(graph.personId(v)));
+        for (int v = 0; v < graph.size(); v++) {
+            TERMS.put(family.nameOf(graph.personId(v)), terms[v]);
+        }
+    }
+
+    @ParameterizedTest(name = "{0} -> {1}")
+    @CsvSource({
+        "我, 本人",
+        "父亲, 父亲",
+        "母亲, 母亲",
+        "爷爷, 爷爷",
+        "外婆, 外婆",
+        "伯父, 伯父",
+        "伯母, 伯母",
+        "叔叔, 叔叔",
+        "姑姑, 姑姑",
+        "姑父, 姑父",
+        "舅舅, 舅舅",
+        "舅妈, 舅妈",
+        "姐姐, 姐姐",
+        "堂哥, 堂哥",
+        "表妹, 表妹",
+        "外甥, 外甥",
+        "妻子, 妻子",
+        "岳父, 岳父",
+        // 长幼未知
+        "兄弟（生日未知）, 兄弟",
+        "堂兄弟（生日未知）, 堂兄弟",
+        // 表中没有的关系链
+        "岳父的哥哥, 岳父的哥哥",
+    })
+    void assignsTerm(String person, String expectedTerm) {
+        assertThat(TERMS.get(person)).isEqualTo(expectedTerm);
+    }
+
+    /**
+     * 按姓名构造家族（出生日期取当年 1 月 1 日）
+     */
+    private static final class FamilyBuilder {
+        private final List<RandomFamily.Member> persons = new ArrayList<>();
+        private final List<Relationship> relationships = new ArrayList<>();
+        private final Map<String, RandomFamily.Member> byName = new HashMap<>();
+        private final Map<UUID, RandomFamily.Member> byId = new HashMap<>();
+
+        void person(String name, Person.Gender gender, Integer birthYear) {
+            RandomFamily.Member member = new RandomFamily.Member(new UUID(1, persons.size()), name, "",
+                gender, birthYear == null ? null : LocalDate.of(birthYear, 1, 1));
+            persons.add(member);
+            byName.put(name, member);
+            byId.put(member.id(), member);
+        }
+
+        void couple(String husband, String wife, String... children) {
+            relate(husband, wife, Relationship.RelationshipType.SPOUSE);
+            for (String child : children) {
+                parent(husband, child);
+                parent(wife, child);
+            }
+        }
+
+        void parent(String parent, String child) {
+            relate(parent, child, Relationship.RelationshipType.PARENT);
+        }
+
+        void relate(String from, String to, Relationship.RelationshipType type) {
+            relationships.add(Relationship.builder()
+                .id(new UUID(2, relationships.size()))
+                .groupId(new UUID(0, 0))
+                .fromPersonId(idOf(from))
+                .toPersonId(idOf(to))
+                .type(type)
+                .build());
+        }
+
+        UUID idOf(String name) {
+            return byName.get(name).id();
+        }
+
+        String nameOf(UUID id) {
+            return byId.get(id).firstName();
+        }
+
+        LocalDate birthDateOf(UUID id) {
+            return byId.get(id).birthDate();
+        }
+
+        GroupGraph graph() {
+            return GroupGraph.build(new UUID(0, 0), persons, relationships);
+        }
+    }
+}
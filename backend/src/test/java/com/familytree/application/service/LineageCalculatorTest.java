@@ -0,0 +1,80 @@
+package com.familytree.application.service;
+
+import com.familytree.application.graph.GroupGraph;
+import com.familytree.domain.LineageType;
+import com.familytree.domain.Person;
+import com.familytree.support.BaselineLineage;
+import com.familytree.support.RandomFamily;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 与遍历合并的血统线计算（并查集合并分支）和关系图索引上的两次 BFS，
+ * 都应与改为关系图索引之前基于关系列表的原始算法（{@link BaselineLineage}）完全一致
+ */
+class LineageCalculatorTest {
+
+    private final LineageCalculator lineageCalculator = new LineageCalculator();
+
+    @Test
+    void lineageMatchesBaselineAlgorithmForEveryFocus() {
+        for (long seed = 1; seed <= 25; seed++) {
+            RandomFamily family = RandomFamily.generate(seed, 250);
+            GroupGraph graph = family.graph();
+            Map<UUID, Person.Gender> genders = new HashMap<>();
+            family.persons().forEach(p -> genders.put(p.id(), p.gender()));
+            int depth = (int) (seed % 5) + 1;
+            for (int focus = 0; focus < graph.size(); focus++) {
+                Map<UUID, LineageType> baseline = BaselineLineage.calculateLineageMap(
+                    graph.personId(focus), family.relationships(), genders);
+                byte[] expected = new byte[graph.size()];
+                for (int v = 0; v < graph.size(); v++) {
+                    expected[v] = (byte) baseline.getOrDefault(graph.personId(v), LineageType.UNKNOWN).ordinal();
+                }
+                LineageCalculator.Traversal traversal = lineageCalculator.traverse(focus, graph, depth, Set.of());
+
+                assertThat(traversal.lineage())
+                    .as("seed %d, focus %d", seed, focus)
+                    .isEqualTo(expected);
+                assertThat(lineageCalculator.calculateLineage(focus, graph))
+                    .as("seed %d, focus %d", seed, focus)
+                    .isEqualTo(expected);
+                assertThat(traversal.personDistance())
+                    .as("seed %d, focus %d", seed, focus)
+                    .isEqualTo(boundedDistances(graph, focus, depth));
+            }
+        }
+    }
+
+    /**
+     * 单源有界 BFS 的距离，深度外为 -1
+     */
+    private static int[] boundedDistances(GroupGraph graph, int focus, int depth) {
+        int[] distance = new int[graph.size()];
+        Arrays.fill(distance, -1);
+        distance[focus] = 0;
+        int[] queue = new int[graph.size()];
+        int size = 0;
+        queue[size++] = focus;
+        GroupGraph.Adjacency[] adjacencies = {graph.parents(), graph.children(), graph.spouses(), graph.siblings()};
+        for (int head = 0; head < size; head++) {
+            int current = queue[head];
+            if (distance[current] == depth) {
+                continue;
+            }
+            for (GroupGraph.Adjacency adjacency : adjacencies) {
+                for (int i = adjacency.start(current); i < adjacency.end(current); i++) {
+                    int related = adjacency.target(i);
+                    if (distance[related] < 0) {
+                        distance[related] = distance[current] + 1;
+                        queue[size++] = related;
+                    }
+                }
+            }
+        }
+        return distance;
+    }
+}
@@ -0,0 +1,160 @@
+package com.familytree.application.service;
+
+import com.familytree.domain.Group;
+import com.familytree.domain.Person;
+import com.familytree.domain.Relationship;
+import com.familytree.infrastructure.repository.GroupRepository;
+import com.familytree.infrastructure.repository.PersonClosureRepository;
+import com.familytree.infrastructure.repository.PersonRepository;
+import com.familytree.infrastructure.repository.RelationshipRepository;
+import com.familytree.support.PostgresRepositoryTest;
+import com.familytree.support.RandomFamily;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 增量维护的闭包和后代数/祖先数应与按关系表整体重建的结果一致：
+ * 已存在的组合（ON CONFLICT 更新的行）不重复计数，删除人物时扣减的行数与重建时补回的行数相抵
+ */
+@Import(PersonClosureMaintainer.class)
+class PersonClosureMaintainerTest extends PostgresRepositoryTest {
+
+    @Autowired
+    private PersonClosureMaintainer personClosureMaintainer;
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private RelationshipRepository relationshipRepository;
+
+    @Autowired
+    private PersonClosureRepository personClosureRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void existingPairsAreNotCountedTwice() {
+        UUID groupId = groupRepository.saveAndFlush(Group.builder().name("张氏家族").build()).getId();
+        Person grandfather = createPerson(groupId, "大山");
+        Person father = createPerson(groupId, "建国");
+        Person mother = createPerson(groupId, "秀英");
+        Person son = createPerson(groupId, "三");
+        // 父母同为祖父的子女：连接第二位父母时祖父 → 孙子的组合已存在
+        link(groupId, grandfather, father, Relationship.RelationshipType.PARENT);
+        link(groupId, grandfather, mother, Relationship.RelationshipType.PARENT);
+        link(groupId, father, son, Relationship.RelationshipType.PARENT);
+        link(groupId, son, mother, Relationship.RelationshipType.CHILD);
+        // 重复登记同一父母关系
+        link(groupId, mother, son, Relationship.RelationshipType.PARENT);
+
+        assertThat(counts(groupId))
+            .containsEntry(grandfather.getId(), List.of(3, 0))
+            .containsEntry(son.getId(), List.of(0, 3));
+        assertMatchesRebuild(groupId);
+
+        delete(groupId, father.getId());
+
+        assertThat(counts(groupId))
+            .containsEntry(grandfather.getId(), List.of(2, 0))
+            .containsEntry(mother.getId(), List.of(1, 1))
+            .containsEntry(son.getId(), List.of(0, 2));
+        assertMatchesRebuild(groupId);
+    }
+
+    @Test
+    void randomLinksAndDeletesMatchRebuild() {
+        for (long seed = 1; seed <= 3; seed++) {
+            UUID groupId = groupRepository.saveAndFlush(Group.builder().name("家族" + seed).build()).getId();
+            RandomFamily family = RandomFamily.generate(seed, 80);
+            List<UUID> remaining = new ArrayList<>(Arrays.asList(
+                family.persist(groupId, personRepository, relationshipRepository)));
+
+            Random random = new Random(seed);
+            List<Relationship> relationships = new ArrayList<>(relationshipRepository.findByGroupId(groupId));
+            Collections.shuffle(relationships, random);
+            relationships.forEach(personClosureMaintainer::onRelationshipCreated);
+            assertThat(personClosureRepository.count()).isPositive();
+            assertMatchesRebuild(groupId);
+
+            for (int d = 0; d < 8; d++) {
+                delete(groupId, remaining.remove(random.nextInt(remaining.size())));
+                assertMatchesRebuild(groupId);
+            }
+        }
+    }
+
+    private void link(UUID groupId, Person from, Person to, Relationship.RelationshipType type) {
+        personClosureMaintainer.onRelationshipCreated(relationshipRepository.saveAndFlush(Relationship.builder()
+            .groupId(groupId)
+            .fromPersonId(from.getId())
+            .toPersonId(to.getId())
+            .type(type)
+            .build()));
+    }
+
+    /**
+     * 与 PersonService.deletePerson 相同的顺序：先维护闭包，再删除关系和人物
+     */
+    private void delete(UUID groupId, UUID personId) {
+        personClosureMaintainer.onPersonDeleting(groupId, personId);
+        entityManager.clear();
+        relationshipRepository.deleteAll(relationshipRepository.findByPersonId(groupId, personId));
+        personRepository.deleteById(personId);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /**
+     * 增量结果与清空后整体重建的闭包行、后代数/祖先数逐项相同
+     */
+    private void assertMatchesRebuild(UUID groupId) {
+        Set<List<Object>> closure = closure(groupId);
+        Map<UUID, List<Integer>> counts = counts(groupId);
+
+        personClosureRepository.deleteByGroupId(groupId);
+        personClosureRepository.insertGroupClosure(groupId, counts.size());
+        personClosureRepository.recountGroup(groupId);
+
+        assertThat(closure).isEqualTo(closure(groupId));
+        assertThat(counts).isEqualTo(counts(groupId));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<List<Object>> closure(UUID groupId) {
+        List<Object[]> rows = entityManager.getEntityManager().createNativeQuery(
+                "SELECT ancestor_id, descendant_id, distance FROM person_closure WHERE group_id = :groupId")
+            .setParameter("groupId", groupId)
+            .getResultList();
+        return rows.stream().map(List::of).collect(Collectors.toSet());
+    }
+
+    private Map<UUID, List<Integer>> counts(UUID groupId) {
+        entityManager.clear();
+        return personRepository.findByGroupId(groupId).stream()
+            .collect(Collectors.toMap(Person::getId, p -> Arrays.asList(p.getDescendantCount(), p.getAncestorCount())));
+    }
+
+    private Person createPerson(UUID groupId, String firstName) {
+        return personRepository.saveAndFlush(Person.builder()
+            .groupId(groupId)
+            .firstName(firstName)
+            .lastName("张")
+            .gender(Person.Gender.MALE)
+            .generation(0)
+            .descendantCount(0)
+            .ancestorCount(0)
+            .build());
+    }
+}
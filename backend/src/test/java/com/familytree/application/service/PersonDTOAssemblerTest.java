@@ -0,0 +1,207 @@
+package com.familytree.application.service;
+
+import com.familytree.application.dto.PersonDTO;
+import com.familytree.application.dto.PersonRelationsDTO;
+import com.familytree.application.dto.PhotoDTO;
+import com.familytree.domain.Group;
+import com.familytree.domain.Person;
+import com.familytree.domain.Photo;
+import com.familytree.domain.Relationship;
+import com.familytree.infrastructure.repository.GroupMemberRepository;
+import com.familytree.infrastructure.repository.GroupRepository;
+import com.familytree.infrastructure.repository.PersonRepository;
+import com.familytree.infrastructure.repository.PhotoRepository;
+import com.familytree.infrastructure.repository.RelationshipRepository;
+import com.familytree.support.PostgresRepositoryTest;
+import com.familytree.support.RandomFamily;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 批量组装的人物DTO应与原先逐个人物查询的 toDTO 完全一致：
+ * 包括以历史 CHILD 关系存储的父母子女（不计入父母、子女）和不在本批中的当前配偶；
+ * 关系详情抽屉（取自关系图索引）列出的父母、配偶、子女和兄弟姐妹也应与DTO相同
+ */
+@Import({PersonDTOAssembler.class, GroupGraphService.class, PersonNodeLoader.class})
+class PersonDTOAssemblerTest extends PostgresRepositoryTest {
+
+    @Autowired
+    private PersonDTOAssembler personDTOAssembler;
+
+    @Autowired
+    private GroupGraphService groupGraphService;
+
+    @Autowired
+    private PersonNodeLoader personNodeLoader;
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private RelationshipRepository relationshipRepository;
+
+    @Autowired
+    private PhotoRepository photoRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void batchAssemblyMatchesPerPersonQueries() {
+        for (long seed = 1; seed <= 3; seed++) {
+            UUID groupId = groupRepository.saveAndFlush(Group.builder().name("家族" + seed).build()).getId();
+            RandomFamily family = RandomFamily.generate(seed, 200);
+            UUID[] ids = family.persist(groupId, personRepository, relationshipRepository);
+            assertThat(family.relationships())
+                .anyMatch(r -> r.getType() == Relationship.RelationshipType.CHILD);
+
+            Random random = new Random(seed);
+            List<Person> persons = personRepository.findByGroupId(groupId);
+            for (Person person : persons) {
+                if (random.nextInt(3) == 0) {
+                    person.setCurrentSpouseId(ids[random.nextInt(ids.length)]);
+                }
+                for (int i = random.nextInt(3); i > 0; i--) {
+                    photoRepository.save(Photo.builder()
+                        .personId(person.getId())
+                        .url("https://example.com/" + person.getId() + "/" + i)
+                        .isPrimary(i == 1)
+                        .build());
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+
+            // 本批只取一部分人物，当前配偶多数不在本批中
+            List<Person> batch = personRepository.findByGroupId(groupId).stream()
+                .filter(person -> random.nextBoolean())
+                .toList();
+            List<PersonDTO> assembled = personDTOAssembler.assemble(groupId, batch);
+            entityManager.clear();
+
+            assertThat(assembled).hasSize(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                assertThat(assembled.get(i))
+                    .as("seed %d, person %s", seed, batch.get(i).getId())
+                    .isEqualTo(perPersonDTO(batch.get(i)));
+            }
+
+            UUID userId = UUID.randomUUID();
+            GroupMemberRepository groupMemberRepository = mock(GroupMemberRepository.class);
+            when(groupMemberRepository.existsByGroupIdAndUserId(groupId, userId)).thenReturn(true);
+            PersonService personService = new PersonService(personRepository, photoRepository, relationshipRepository,
+                groupMemberRepository, mock(GroupChangeLog.class), groupGraphService, mock(PersonClosureMaintainer.class),
+                mock(PersonGenerationMaintainer.class), personDTOAssembler, personNodeLoader, mock(PersonSearchService.class));
+            for (PersonDTO dto : assembled) {
+                PersonRelationsDTO relations = personService.getPersonRelations(dto.getId(), userId);
+                assertThat(ids(relations.getParents())).as("parents of %s", dto.getId()).isEqualTo(dto.getParentIds());
+                assertThat(ids(relations.getChildren())).as("children of %s", dto.getId()).isEqualTo(dto.getChildrenIds());
+                assertThat(ids(relations.getSpouses())).as("spouses of %s", dto.getId()).isEqualTo(dto.getSpouseIds());
+                assertThat(ids(relations.getSiblings())).as("siblings of %s", dto.getId()).isEqualTo(dto.getSiblingIds());
+            }
+        }
+    }
+
+    private static List<UUID> ids(List<PersonRelationsDTO.PersonSummaryDTO> summaries) {
+        return summaries.stream().map(PersonRelationsDTO.PersonSummaryDTO::getId).toList();
+    }
+
+    /**
+     * 原 PersonService.toDTO：逐个人物查询照片、关系、父母的子女和配偶姓名。
+     * 与原实现的唯一区别是同一父母的子女按人物ID排序（原查询没有 ORDER BY，顺序未定义，组装器将其固定为约定）
+     */
+    private PersonDTO perPersonDTO(Person person) {
+        Photo primaryPhoto = photoRepository.findByPersonIdAndIsPrimaryTrue(person.getId()).orElse(null);
+
+        List<PhotoDTO> photos = photoRepository.findByPersonId(person.getId()).stream()
+            .map(photo -> PhotoDTO.builder()
+                .id(photo.getId())
+                .personId(photo.getPersonId())
+                .url(photo.getUrl())
+                .description(photo.getDescription())
+                .takenAt(photo.getTakenAt())
+                .isPrimary(photo.getIsPrimary())
+                .createdAt(photo.getCreatedAt())
+                .build())
+            .collect(Collectors.toList());
+
+        List<Relationship> relationships = relationshipRepository.findByPersonId(person.getGroupId(), person.getId());
+
+        List<UUID> parentIds = relationships.stream()
+            .filter(r -> r.getType() == Relationship.RelationshipType.PARENT && r.getToPersonId().equals(person.getId()))
+            .map(Relationship::getFromPersonId)
+            .distinct()
+            .collect(Collectors.toList());
+
+        List<UUID> childrenIds = relationships.stream()
+            .filter(r -> r.getType() == Relationship.RelationshipType.PARENT && r.getFromPersonId().equals(person.getId()))
+            .map(Relationship::getToPersonId)
+            .distinct()
+            .collect(Collectors.toList());
+
+        List<UUID> spouseIds = relationships.stream()
+            .filter(r -> r.getType() == Relationship.RelationshipType.SPOUSE)
+            .map(r -> r.getFromPersonId().equals(person.getId()) ? r.getToPersonId() : r.getFromPersonId())
+            .distinct()
+            .collect(Collectors.toList());
+
+        Set<UUID> siblingIds = new LinkedHashSet<>();
+        relationships.stream()
+            .filter(r -> r.getType() == Relationship.RelationshipType.SIBLING)
+            .map(r -> r.getFromPersonId().equals(person.getId()) ? r.getToPersonId() : r.getFromPersonId())
+            .filter(id -> !id.equals(person.getId()))
+            .forEach(siblingIds::add);
+        for (UUID parentId : parentIds) {
+            relationshipRepository.findByGroupIdAndFromPersonIdAndType(
+                    person.getGroupId(), parentId, Relationship.RelationshipType.PARENT)
+                .stream()
+                .map(Relationship::getToPersonId)
+                .sorted(PersonDTOAssembler.UUID_BYTE_ORDER)
+                .filter(id -> !id.equals(person.getId()))
+                .forEach(siblingIds::add);
+        }
+
+        String currentSpouseName = null;
+        if (person.getCurrentSpouseId() != null) {
+            currentSpouseName = personRepository.findById(person.getCurrentSpouseId())
+                .map(Person::getFullName)
+                .orElse(null);
+        }
+
+        return PersonDTO.builder()
+            .id(person.getId())
+            .groupId(person.getGroupId())
+            .firstName(person.getFirstName())
+            .lastName(person.getLastName())
+            .fullName(person.getFullName())
+            .gender(person.getGender())
+            .birthDate(person.getBirthDate())
+            .deathDate(person.getDeathDate())
+            .birthPlace(person.getBirthPlace())
+            .currentSpouseId(person.getCurrentSpouseId())
+            .currentSpouseName(currentSpouseName)
+            .primaryPhotoUrl(primaryPhoto != null ? primaryPhoto.getUrl() : null)
+            .photos(photos)
+            .parentIds(parentIds)
+            .childrenIds(childrenIds)
+            .spouseIds(spouseIds)
+            .siblingIds(new ArrayList<>(siblingIds))
+            .createdAt(person.getCreatedAt())
+            .updatedAt(person.getUpdatedAt())
+            .version(person.getVersion())
+            .generation(person.getGeneration())
+            .build();
+    }
+}
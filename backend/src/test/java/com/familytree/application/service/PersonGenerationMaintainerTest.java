@@ -0,0 +1,110 @@
+package com.familytree.application.service;
+
+import com.familytree.domain.Group;
+import com.familytree.domain.Person;
+import com.familytree.domain.Relationship;
+import com.familytree.infrastructure.repository.GroupRepository;
+import com.familytree.infrastructure.repository.PersonRepository;
+import com.familytree.infrastructure.repository.RelationshipRepository;
+import com.familytree.support.PostgresRepositoryTest;
+import com.familytree.support.RandomFamily;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 删除人物时只重算受影响人物的代数，结果应与按全部关系重算整个家族一致；代数为空的人物在新增关系时一并写回
+ */
+@Import(PersonGenerationMaintainer.class)
+class PersonGenerationMaintainerTest extends PostgresRepositoryTest {
+
+    private static final UUID NO_PERSON = new UUID(0, 0);
+
+    @Autowired
+    private PersonGenerationMaintainer personGenerationMaintainer;
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private RelationshipRepository relationshipRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void deletingRecomputesAffectedPersonsLikeFullRecompute() {
+        int changedByDeletes = 0;
+        for (long seed = 1; seed <= 4; seed++) {
+            UUID groupId = groupRepository.saveAndFlush(Group.builder().name("家族" + seed).build()).getId();
+            RandomFamily family = RandomFamily.generate(seed, 120);
+            List<UUID> remaining = new ArrayList<>(Arrays.asList(
+                family.persist(groupId, personRepository, relationshipRepository)));
+            personRepository.recomputeGenerations(groupId, NO_PERSON, remaining.size());
+
+            Random random = new Random(seed);
+            for (int d = 0; d < 10; d++) {
+                UUID personId = remaining.remove(random.nextInt(remaining.size()));
+                Map<UUID, Integer> before = generations(groupId);
+
+                personGenerationMaintainer.onPersonDeleting(groupId, personId);
+                relationshipRepository.deleteAll(relationshipRepository.findByPersonId(groupId, personId));
+                personRepository.deleteById(personId);
+                entityManager.flush();
+
+                Map<UUID, Integer> after = generations(groupId);
+                changedByDeletes += (int) after.entrySet().stream()
+                    .filter(e -> !e.getValue().equals(before.get(e.getKey())))
+                    .count();
+                assertThat(personRepository.recomputeGenerations(groupId, NO_PERSON, remaining.size()))
+                    .as("seed %d, deleted %s", seed, personId)
+                    .isZero();
+            }
+        }
+        assertThat(changedByDeletes).isPositive();
+    }
+
+    @Test
+    void newRelationshipFillsUnsetGenerations() {
+        UUID groupId = groupRepository.saveAndFlush(Group.builder().name("张氏家族").build()).getId();
+        Person father = createPerson(groupId, "建国", null);
+        Person son = createPerson(groupId, "三", null);
+        Relationship relationship = relationshipRepository.saveAndFlush(Relationship.builder()
+            .groupId(groupId)
+            .fromPersonId(father.getId())
+            .toPersonId(son.getId())
+            .type(Relationship.RelationshipType.PARENT)
+            .build());
+
+        personGenerationMaintainer.onRelationshipCreated(relationship);
+
+        assertThat(generations(groupId)).containsEntry(father.getId(), 0).containsEntry(son.getId(), 1);
+    }
+
+    private Map<UUID, Integer> generations(UUID groupId) {
+        entityManager.clear();
+        return personRepository.findByGroupId(groupId).stream()
+            .collect(Collectors.toMap(Person::getId, p -> p.getGeneration() == null ? -1 : p.getGeneration()));
+    }
+
+    private Person createPerson(UUID groupId, String firstName, Integer generation) {
+        return personRepository.saveAndFlush(Person.builder()
+            .groupId(groupId)
+            .firstName(firstName)
+            .lastName("张")
+            .gender(Person.Gender.MALE)
+            .generation(generation)
+            .descendantCount(0)
+            .ancestorCount(0)
+            .build());
+    }
+}
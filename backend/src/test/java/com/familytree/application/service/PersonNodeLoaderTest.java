@@ -0,0 +1,67 @@
+package com.familytree.application.service;
+
+import com.familytree.domain.Group;
+import com.familytree.domain.Person;
+import com.familytree.domain.Photo;
+import com.familytree.infrastructure.repository.GroupRepository;
+import com.familytree.infrastructure.repository.PersonRepository;
+import com.familytree.infrastructure.repository.PhotoRepository;
+import com.familytree.infrastructure.repository.projection.PersonNodeView;
+import com.familytree.support.PostgresRepositoryTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Import(PersonNodeLoader.class)
+class PersonNodeLoaderTest extends PostgresRepositoryTest {
+
+    @Autowired
+    private PersonNodeLoader personNodeLoader;
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private PhotoRepository photoRepository;
+
+    @Test
+    void loadsOnlyPersonsOfTheRequestedGroup() {
+        UUID groupA = createGroup("甲家族");
+        UUID groupB = createGroup("乙家族");
+        Person own = createPerson(groupA, "三", "张");
+        Person foreign = createPerson(groupB, "四", "李");
+        photoRepository.save(Photo.builder().personId(foreign.getId()).url("https://example.com/li.jpg").isPrimary(true).build());
+
+        Map<UUID, PersonNodeView> loaded = personNodeLoader.load(groupA, List.of(own.getId(), foreign.getId()));
+
+        assertThat(loaded).containsOnlyKeys(own.getId());
+        assertThat(personNodeLoader.load(groupA, List.of(foreign.getId()))).isEmpty();
+        assertThat(personNodeLoader.load(groupB, List.of(foreign.getId())).get(foreign.getId()).getPrimaryPhotoUrl())
+            .isEqualTo("https://example.com/li.jpg");
+    }
+
+    private UUID createGroup(String name) {
+        return groupRepository.save(Group.builder().name(name).build()).getId();
+    }
+
+    private Person createPerson(UUID groupId, String firstName, String lastName) {
+        return personRepository.save(Person.builder()
+            .groupId(groupId)
+            .firstName(firstName)
+            .lastName(lastName)
+            .gender(Person.Gender.MALE)
+            .generation(0)
+            .descendantCount(0)
+            .ancestorCount(0)
+            .build());
+    }
+}
@@ -0,0 +1,124 @@
+package com.familytree.application.service;
+
+import com.familytree.application.dto.PersonDTO;
+import com.familytree.application.dto.PersonSearchResultDTO;
+import com.familytree.domain.ChangeSet;
+import com.familytree.domain.Group;
+import com.familytree.domain.Person;
+import com.familytree.infrastructure.repository.*;
+import com.familytree.support.PostgresRepositoryTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 旧的 /search 接口返回全部命中人物，只有 /search/ranked 按 limit 截断并给出总数；
+ * 按变更日志沿用或重建的姓名索引在人物改名、新增、删除后仍与数据库一致
+ */
+@Import({PersonSearchService.class, GroupChangeLog.class, PersonNodeLoader.class, PersonDTOAssembler.class})
+class PersonSearchServiceTest extends PostgresRepositoryTest {
+
+    private static final int PERSON_COUNT = PersonSearchService.MAX_LIMIT + 50;
+
+    @Autowired
+    private PersonSearchService personSearchService;
+
+    @Autowired
+    private PersonDTOAssembler personDTOAssembler;
+
+    @Autowired
+    private GroupChangeLog groupChangeLog;
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private PhotoRepository photoRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void legacySearchReturnsEveryMatch() {
+        UUID groupId = groupRepository.saveAndFlush(Group.builder().name("张氏家族").build()).getId();
+        for (int i = 0; i < PERSON_COUNT; i++) {
+            createPerson(groupId, "名" + i, "张");
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        PersonService personService = new PersonService(personRepository, photoRepository, mock(RelationshipRepository.class),
+            mock(GroupMemberRepository.class), mock(GroupChangeLog.class), mock(GroupGraphService.class),
+            mock(PersonClosureMaintainer.class), mock(PersonGenerationMaintainer.class), personDTOAssembler,
+            mock(PersonNodeLoader.class), personSearchService);
+        List<PersonDTO> persons = personService.searchPersons(groupId, "张");
+        PersonSearchResultDTO ranked = personSearchService.search(groupId, "张", 1000, 0);
+
+        assertThat(persons).hasSize(PERSON_COUNT);
+        assertThat(persons).extracting(PersonDTO::getId).doesNotHaveDuplicates();
+        assertThat(ranked.getTotal()).isEqualTo(PERSON_COUNT);
+        assertThat(ranked.getItems()).hasSize(PersonSearchService.MAX_LIMIT);
+    }
+
+    @Test
+    void indexFollowsLoggedPersonChanges() {
+        UUID groupId = groupRepository.saveAndFlush(Group.builder().name("张氏家族").build()).getId();
+        Person zhangSan = createPerson(groupId, "三", "张");
+        Person liSi = createPerson(groupId, "四", "李");
+        record(groupId, GroupChangeLog.Entry.person(zhangSan.getId(), ChangeSet.ActionType.CREATE),
+            GroupChangeLog.Entry.person(liSi.getId(), ChangeSet.ActionType.CREATE));
+        assertThat(personSearchService.searchIds(groupId, "张三")).containsExactly(zhangSan.getId());
+
+        // 只修改姓名以外的字段：沿用原索引
+        Person updated = personRepository.findById(liSi.getId()).orElseThrow();
+        updated.setBirthPlace("北京");
+        personRepository.saveAndFlush(updated);
+        record(groupId, GroupChangeLog.Entry.person(liSi.getId(), ChangeSet.ActionType.UPDATE));
+        assertThat(personSearchService.searchIds(groupId, "李四")).containsExactly(liSi.getId());
+
+        // 改名
+        Person renamed = personRepository.findById(zhangSan.getId()).orElseThrow();
+        renamed.setFirstName("建国");
+        personRepository.saveAndFlush(renamed);
+        record(groupId, GroupChangeLog.Entry.person(zhangSan.getId(), ChangeSet.ActionType.UPDATE));
+        assertThat(personSearchService.searchIds(groupId, "张三")).isEmpty();
+        assertThat(personSearchService.searchIds(groupId, "张建国")).containsExactly(zhangSan.getId());
+
+        // 新增与删除
+        Person wangWu = createPerson(groupId, "五", "王");
+        personRepository.deleteById(liSi.getId());
+        personRepository.flush();
+        record(groupId, GroupChangeLog.Entry.person(wangWu.getId(), ChangeSet.ActionType.CREATE),
+            GroupChangeLog.Entry.person(liSi.getId(), ChangeSet.ActionType.DELETE));
+        assertThat(personSearchService.searchIds(groupId, "王五")).containsExactly(wangWu.getId());
+        assertThat(personSearchService.searchIds(groupId, "李四")).isEmpty();
+    }
+
+    private void record(UUID groupId, GroupChangeLog.Entry... entries) {
+        groupChangeLog.recordContentWrite(groupId, List.of(entries));
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    private Person createPerson(UUID groupId, String firstName, String lastName) {
+        return personRepository.save(Person.builder()
+            .groupId(groupId)
+            .firstName(firstName)
+            .lastName(lastName)
+            .gender(Person.Gender.MALE)
+            .generation(0)
+            .descendantCount(0)
+            .ancestorCount(0)
+            .build());
+    }
+}
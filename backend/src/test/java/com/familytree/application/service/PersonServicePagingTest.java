@@ -0,0 +1,113 @@
+package com.familytree.application.service;
+
+import com.familytree.application.dto.CursorPageDTO;
+import com.familytree.application.dto.PersonBriefDTO;
+import com.familytree.domain.Group;
+import com.familytree.domain.Person;
+import com.familytree.domain.PersonFieldSet;
+import com.familytree.infrastructure.repository.*;
+import com.familytree.support.PostgresRepositoryTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 键集分页：创建时间相同的人物按 ID 排序，翻页期间穿插新增和删除，
+ * 始终存在的人物恰好出现一次，翻页前删除的人物不出现，之后新增的人物出现在末尾
+ */
+class PersonServicePagingTest extends PostgresRepositoryTest {
+
+    private static final LocalDateTime IMPORTED_AT = LocalDateTime.of(2024, 1, 1, 8, 0);
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private PhotoRepository photoRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void pagesThroughConcurrentInsertsAndDeletesWithoutRepeats() {
+        PersonService personService = new PersonService(personRepository, photoRepository, mock(RelationshipRepository.class),
+            mock(GroupMemberRepository.class), mock(GroupChangeLog.class), mock(GroupGraphService.class),
+            mock(PersonClosureMaintainer.class), mock(PersonGenerationMaintainer.class), mock(PersonDTOAssembler.class),
+            mock(PersonNodeLoader.class), mock(PersonSearchService.class));
+        UUID groupId = groupRepository.saveAndFlush(Group.builder().name("张氏家族").build()).getId();
+        List<UUID> imported = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            imported.add(createPerson(groupId, "批量" + i).getId());
+        }
+        // 批量导入的人物创建时间相同，只能靠 ID 区分先后
+        entityManager.getEntityManager()
+            .createNativeQuery("UPDATE persons SET created_at = :createdAt WHERE group_id = :groupId")
+            .setParameter("createdAt", IMPORTED_AT)
+            .setParameter("groupId", groupId)
+            .executeUpdate();
+        entityManager.clear();
+
+        Random random = new Random(7);
+        List<UUID> seen = new ArrayList<>();
+        Set<UUID> deletedUnseen = new HashSet<>();
+        Set<UUID> deletedSeen = new HashSet<>();
+        List<UUID> added = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            CursorPageDTO<?> page = personService.getGroupPersonPage(groupId, cursor, 6, PersonFieldSet.SUMMARY);
+            page.getItems().forEach(item -> seen.add(((PersonBriefDTO) item).getId()));
+            cursor = page.getNextCursor();
+            assertThat(page.getHasMore()).isEqualTo(cursor != null);
+
+            // 每翻一页：删除一位尚未返回和一位已返回的人物，再新增一位
+            List<UUID> unseen = imported.stream()
+                .filter(id -> !seen.contains(id) && !deletedUnseen.contains(id))
+                .toList();
+            if (!unseen.isEmpty()) {
+                UUID id = unseen.get(random.nextInt(unseen.size()));
+                personRepository.deleteById(id);
+                deletedUnseen.add(id);
+            }
+            UUID returned = seen.get(random.nextInt(seen.size()));
+            if (imported.contains(returned) && deletedSeen.add(returned)) {
+                personRepository.deleteById(returned);
+            }
+            added.add(createPerson(groupId, "新增" + pages).getId());
+            entityManager.clear();
+            pages++;
+        } while (cursor != null && pages < 100);
+
+        assertThat(cursor).isNull();
+        assertThat(seen).doesNotHaveDuplicates();
+        assertThat(seen).doesNotContainAnyElementsOf(deletedUnseen);
+        List<UUID> expected = new ArrayList<>(imported);
+        expected.removeAll(deletedUnseen);
+        // 最后一页之后新增的人物不在本次翻页结果内
+        expected.addAll(added.subList(0, added.size() - 1));
+        assertThat(seen).containsExactlyInAnyOrderElementsOf(expected);
+        assertThat(seen.subList(0, imported.size() - deletedUnseen.size()))
+            .containsExactlyInAnyOrderElementsOf(imported.stream().filter(id -> !deletedUnseen.contains(id)).toList());
+    }
+
+    private Person createPerson(UUID groupId, String firstName) {
+        return personRepository.saveAndFlush(Person.builder()
+            .groupId(groupId)
+            .firstName(firstName)
+            .lastName("张")
+            .gender(Person.Gender.MALE)
+            .generation(0)
+            .descendantCount(0)
+            .ancestorCount(0)
+            .build());
+    }
+}
@@ -0,0 +1,104 @@
+package com.familytree.application.service;
+
+import com.familytree.application.graph.GroupGraph;
+import com.familytree.domain.Relationship;
+import com.familytree.support.RandomFamily;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 双向 BFS 求出的路径长度应与单源 BFS 的最短距离一致，且路径上每一步都对应一条真实的关系边；
+ * 工作区在不同规模的家族之间复用，不应残留上一次查询的标记
+ */
+class RelationshipPathFinderTest {
+
+    private final RelationshipPathFinder pathFinder = new RelationshipPathFinder();
+
+    @Test
+    void pathLengthMatchesSingleSourceBfs() {
+        for (long seed = 1; seed <= 30; seed++) {
+            // 大小交替，使复用的工作区时而扩容、时而只用到一部分
+            GroupGraph graph = RandomFamily.generate(seed, seed % 2 == 0 ? 400 : 60).graph();
+            Random random = new Random(seed);
+            for (int q = 0; q < 20; q++) {
+                int from = random.nextInt(graph.size());
+                int[] distance = distances(graph, from);
+                for (int to = 0; to < graph.size(); to++) {
+                    RelationshipPathFinder.Path path = pathFinder.findPath(graph, from, to);
+                    String description = "seed " + seed + ", " + from + " -> " + to;
+                    if (distance[to] < 0) {
+                        assertThat(path).as(description).isNull();
+                        continue;
+                    }
+                    assertThat(path).as(description).isNotNull();
+                    assertThat(path.edges()).as(description).hasSize(distance[to]);
+                    assertValidPath(graph, path, from, to, description);
+                }
+            }
+        }
+    }
+
+    private static void assertValidPath(GroupGraph graph, RelationshipPathFinder.Path path, int from, int to,
+                                         String description) {
+        int[] persons = path.persons();
+        assertThat(persons[0]).as(description).isEqualTo(from);
+        assertThat(persons[persons.length - 1]).as(description).isEqualTo(to);
+        for (int k = 0; k < path.edges().length; k++) {
+            int current = persons[k];
+            int next = persons[k + 1];
+            int edge = path.edges()[k];
+            assertThat(Arrays.asList(graph.edgeFrom(edge), graph.edgeTo(edge)))
+                .as(description).containsExactlyInAnyOrder(current, next);
+            assertThat(neighborVia(graph, RelationshipPathFinder.STEP_TYPES[path.steps()[k]], current, edge))
+                .as(description).isEqualTo(next);
+        }
+    }
+
+    /**
+     * 按关系类型在邻接表中找到经由 edge 的邻居，找不到时返回 -1
+     */
+    private static int neighborVia(GroupGraph graph, Relationship.RelationshipType type, int current, int edge) {
+        GroupGraph.Adjacency adjacency = switch (type) {
+            case PARENT -> graph.parents();
+            case CHILD -> graph.children();
+            case SPOUSE -> graph.spouses();
+            case SIBLING -> graph.siblings();
+        };
+        for (int i = adjacency.start(current); i < adjacency.end(current); i++) {
+            if (adjacency.edge(i) == edge) {
+                return adjacency.target(i);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 单源 BFS 的距离，不连通为 -1
+     */
+    private static int[] distances(GroupGraph graph, int from) {
+        int[] distance = new int[graph.size()];
+        Arrays.fill(distance, -1);
+        distance[from] = 0;
+        int[] queue = new int[graph.size()];
+        int size = 0;
+        queue[size++] = from;
+        GroupGraph.Adjacency[] adjacencies = {graph.parents(), graph.children(), graph.spouses(), graph.siblings()};
+        for (int head = 0; head < size; head++) {
+            int current = queue[head];
+            for (GroupGraph.Adjacency adjacency : adjacencies) {
+                for (int i = adjacency.start(current); i < adjacency.end(current); i++) {
+                    int related = adjacency.target(i);
+                    if (distance[related] < 0) {
+                        distance[related] = distance[current] + 1;
+                        queue[size++] = related;
+                    }
+                }
+            }
+        }
+        return distance;
+    }
+}
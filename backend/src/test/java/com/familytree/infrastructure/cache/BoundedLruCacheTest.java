@@ -0,0 +1,37 @@
+package com.familytree.infrastructure.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BoundedLruCacheTest {
+
+    @Test
+    void evictsLeastRecentlyUsedEntry() {
+        BoundedLruCache<String, Integer> cache = new BoundedLruCache<>(2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");
+        cache.merge("c", 3, (existing, loaded) -> loaded);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("a")).isEqualTo(1);
+        assertThat(cache.get("b")).isNull();
+        assertThat(cache.get("c")).isEqualTo(3);
+    }
+
+    @Test
+    void replacingExistingEntryDoesNotEvict() {
+        BoundedLruCache<String, Integer> cache = new BoundedLruCache<>(2);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.merge("b", 3, (existing, loaded) -> Math.max(existing, loaded));
+        cache.compute("a", (key, existing) -> existing + 10);
+
+        assertThat(cache.get("a")).isEqualTo(11);
+        assertThat(cache.get("b")).isEqualTo(3);
+
+        cache.compute("a", (key, existing) -> null);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,47 @@
+package com.familytree.infrastructure.cache;
+
+import com.familytree.application.dto.PersonNodeDTO;
+import com.familytree.application.dto.TreeViewDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class TreeViewCacheTest {
+
+    private final TreeViewCache treeViewCache = new TreeViewCache(mock(StringRedisTemplate.class), new ObjectMapper());
+
+    @BeforeEach
+    void configure() {
+        ReflectionTestUtils.setField(treeViewCache, "enabled", true);
+        ReflectionTestUtils.setField(treeViewCache, "localMaxEntries", 10);
+        ReflectionTestUtils.setField(treeViewCache, "redisEnabled", false);
+        ReflectionTestUtils.setField(treeViewCache, "maxCachedNodes", 100);
+        treeViewCache.init();
+    }
+
+    @Test
+    void skipsViewsOverTheNodeLimit() {
+        treeViewCache.put("small", view(100));
+        treeViewCache.put("large", view(101));
+
+        assertThat(treeViewCache.get("small")).isNotNull();
+        assertThat(treeViewCache.get("large")).isNull();
+    }
+
+    private static TreeViewDTO view(int nodeCount) {
+        List<PersonNodeDTO> nodes = new ArrayList<>(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            nodes.add(PersonNodeDTO.builder().id(UUID.randomUUID()).build());
+        }
+        return TreeViewDTO.builder().nodes(nodes).build();
+    }
+}
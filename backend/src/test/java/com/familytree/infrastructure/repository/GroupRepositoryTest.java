@@ -0,0 +1,34 @@
+package com.familytree.infrastructure.repository;
+
+import com.familytree.domain.Group;
+import com.familytree.support.PostgresRepositoryTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GroupRepositoryTest extends PostgresRepositoryTest {
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Test
+    void contentWritesLeaveStructureVersionBehind() {
+        UUID groupId = groupRepository.saveAndFlush(Group.builder().name("张氏家族").build()).getId();
+        assertThat(groupRepository.findStructureVersionById(groupId)).contains(0);
+
+        groupRepository.incrementVersion(groupId);
+        groupRepository.incrementVersion(groupId);
+        int version = groupRepository.findVersionById(groupId).orElseThrow();
+        assertThat(groupRepository.findStructureVersionById(groupId)).contains(0);
+
+        groupRepository.markStructureChanged(groupId);
+        assertThat(groupRepository.findStructureVersionById(groupId)).contains(version);
+
+        groupRepository.incrementVersion(groupId);
+        assertThat(groupRepository.findVersionById(groupId)).contains(version + 1);
+        assertThat(groupRepository.findStructureVersionById(groupId)).contains(version);
+    }
+}
@@ -0,0 +1,130 @@
+package com.familytree.infrastructure.repository;
+
+import com.familytree.application.graph.GroupGraph;
+import com.familytree.application.service.LineageCalculator;
+import com.familytree.domain.Group;
+import com.familytree.domain.Person;
+import com.familytree.domain.Relationship;
+import com.familytree.infrastructure.repository.projection.NeighborhoodRow;
+import com.familytree.support.PostgresRepositoryTest;
+import com.familytree.support.RandomFamily;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 数据库侧的邻域遍历（DATABASE 模式）应与内存遍历（MEMORY 模式）得到相同的人物、距离、代际和关系
+ */
+class RelationshipRepositoryTest extends PostgresRepositoryTest {
+
+    @Autowired
+    private GroupRepository groupRepository;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private RelationshipRepository relationshipRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private final LineageCalculator lineageCalculator = new LineageCalculator();
+
+    @Test
+    void neighborhoodMatchesInMemoryTraversal() {
+        for (long seed = 1; seed <= 3; seed++) {
+            UUID groupId = groupRepository.saveAndFlush(Group.builder().name("家族" + seed).build()).getId();
+            RandomFamily.generate(seed, 150).persist(groupId, personRepository, relationshipRepository);
+            entityManager.clear();
+            GroupGraph graph = GroupGraph.build(groupId, personRepository.findGraphViewsByGroupId(groupId),
+                relationshipRepository.findByGroupId(groupId));
+
+            Random random = new Random(seed);
+            for (int i = 0; i < 15; i++) {
+                int focus = random.nextInt(graph.size());
+                int depth = 1 + random.nextInt(5);
+                String step = "seed " + seed + ", focus " + focus + ", depth " + depth;
+                List<NeighborhoodRow> rows = relationshipRepository.findNeighborhood(groupId, graph.personId(focus), depth);
+                LineageCalculator.Traversal traversal = lineageCalculator.traverse(focus, graph, depth, Set.of());
+
+                assertThat(rows.get(0).getId()).as(step).isEqualTo(graph.personId(focus));
+                Map<UUID, List<Integer>> reached = new HashMap<>();
+                Set<UUID> edgeIds = new HashSet<>();
+                for (NeighborhoodRow row : rows) {
+                    reached.put(row.getId(), List.of(row.getDistance(), row.getGeneration()));
+                    if (row.getEdgeId() != null) {
+                        edgeIds.add(row.getEdgeId());
+                    }
+                }
+
+                Map<UUID, List<Integer>> expected = new HashMap<>();
+                for (int k = 0; k < traversal.visitedCount(); k++) {
+                    int v = traversal.visited()[k];
+                    expected.put(graph.personId(v),
+                        List.of(traversal.personDistance()[v], traversal.personGeneration()[v]));
+                }
+                Set<UUID> expectedEdgeIds = new HashSet<>();
+                for (int e = 0; e < graph.edgeCount(); e++) {
+                    if (traversal.personDistance()[graph.edgeFrom(e)] >= 0
+                            && traversal.personDistance()[graph.edgeTo(e)] >= 0) {
+                        expectedEdgeIds.add(graph.edgeId(e));
+                    }
+                }
+
+                assertThat(reached).as(step).isEqualTo(expected);
+                assertThat(edgeIds).as(step).isEqualTo(expectedEdgeIds);
+            }
+        }
+    }
+
+    @Test
+    void generationTakesTheLowestShortestPath() {
+        UUID groupId = groupRepository.saveAndFlush(Group.builder().name("张氏家族").build()).getId();
+        Person focus = createPerson(groupId, "三");
+        Person father = createPerson(groupId, "建国");
+        Person wife = createPerson(groupId, "秀英");
+        Person other = createPerson(groupId, "四");
+        // other 既是父亲的子女（代际 0），又是妻子的父母（代际 -1），两条路径都经过两步
+        createRelationship(groupId, father, focus, Relationship.RelationshipType.PARENT);
+        createRelationship(groupId, focus, wife, Relationship.RelationshipType.SPOUSE);
+        createRelationship(groupId, father, other, Relationship.RelationshipType.PARENT);
+        createRelationship(groupId, other, wife, Relationship.RelationshipType.PARENT);
+        entityManager.clear();
+        GroupGraph graph = GroupGraph.build(groupId, personRepository.findGraphViewsByGroupId(groupId),
+            relationshipRepository.findByGroupId(groupId));
+
+        List<NeighborhoodRow> rows = relationshipRepository.findNeighborhood(groupId, focus.getId(), 2);
+        LineageCalculator.Traversal traversal = lineageCalculator.traverse(graph.ordinalOf(focus.getId()), graph, 2, Set.of());
+
+        NeighborhoodRow row = rows.stream().filter(r -> r.getId().equals(other.getId())).findFirst().orElseThrow();
+        assertThat(row.getDistance()).isEqualTo(2);
+        assertThat(row.getGeneration()).isEqualTo(-1);
+        assertThat(traversal.personGeneration()[graph.ordinalOf(other.getId())]).isEqualTo(-1);
+    }
+
+    private Person createPerson(UUID groupId, String firstName) {
+        return personRepository.saveAndFlush(Person.builder()
+            .groupId(groupId)
+            .firstName(firstName)
+            .lastName("张")
+            .gender(Person.Gender.MALE)
+            .generation(0)
+            .descendantCount(0)
+            .ancestorCount(0)
+            .build());
+    }
+
+    private void createRelationship(UUID groupId, Person from, Person to, Relationship.RelationshipType type) {
+        relationshipRepository.saveAndFlush(Relationship.builder()
+            .groupId(groupId)
+            .fromPersonId(from.getId())
+            .toPersonId(to.getId())
+            .type(type)
+            .build());
+    }
+}
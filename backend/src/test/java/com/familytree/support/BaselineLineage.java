@@ -0,0 +1,92 @@
+package com.familytree.support;
+
+import com.familytree.domain.LineageType;
+import com.familytree.domain.Person;
+import com.familytree.domain.Relationship;
+
+import java.util.*;
+
+/**
+ * 基于关系列表和 UUID Map 的原始血统线算法（改为关系图索引之前的 LineageCalculator.calculateLineageMap），
+ * 原样保留作为测试参考实现，不经过关系图索引
+ */
+public final class BaselineLineage {
+
+    private BaselineLineage() {
+    }
+
+    /**
+     * 计算每个人物相对于焦点人物的血统线，未标记的人物不在结果中（即 UNKNOWN）
+     */
+    public static Map<UUID, LineageType> calculateLineageMap(
+            UUID focusPersonId,
+            List<Relationship> relationships,
+            Map<UUID, Person.Gender> genderMap) {
+
+        Map<UUID, LineageType> lineageMap = new HashMap<>();
+        lineageMap.put(focusPersonId, LineageType.SELF);
+
+        UUID fatherId = findParentByGender(focusPersonId, relationships, genderMap, Person.Gender.MALE);
+        UUID motherId = findParentByGender(focusPersonId, relationships, genderMap, Person.Gender.FEMALE);
+
+        if (fatherId != null) {
+            markLineageBFS(fatherId, LineageType.FATHER_LINE, relationships, lineageMap);
+        }
+        if (motherId != null) {
+            markLineageBFS(motherId, LineageType.MOTHER_LINE, relationships, lineageMap);
+        }
+        return lineageMap;
+    }
+
+    private static void markLineageBFS(
+            UUID startPersonId,
+            LineageType lineageType,
+            List<Relationship> relationships,
+            Map<UUID, LineageType> lineageMap) {
+
+        Queue<UUID> queue = new LinkedList<>();
+        queue.offer(startPersonId);
+        lineageMap.put(startPersonId, lineageType);
+
+        while (!queue.isEmpty()) {
+            UUID currentId = queue.poll();
+            for (Relationship rel : relationships) {
+                UUID relatedId = null;
+                if (rel.getFromPersonId().equals(currentId)) {
+                    relatedId = rel.getToPersonId();
+                } else if (rel.getToPersonId().equals(currentId)) {
+                    relatedId = rel.getFromPersonId();
+                }
+                if (relatedId != null && !lineageMap.containsKey(relatedId)) {
+                    lineageMap.put(relatedId, lineageType);
+                    queue.offer(relatedId);
+                }
+            }
+        }
+    }
+
+    private static UUID findParentByGender(
+            UUID personId,
+            List<Relationship> relationships,
+            Map<UUID, Person.Gender> genderMap,
+            Person.Gender targetGender) {
+
+        for (Relationship rel : relationships) {
+            // PARENT 关系：from = 父母, to = 子女
+            if (rel.getType() == Relationship.RelationshipType.PARENT
+                    && rel.getToPersonId().equals(personId)) {
+                if (genderMap.get(rel.getFromPersonId()) == targetGender) {
+                    return rel.getFromPersonId();
+                }
+            }
+            // CHILD 关系：from = 子女, to = 父母（兼容历史数据）
+            else if (rel.getType() == Relationship.RelationshipType.CHILD
+                    && rel.getFromPersonId().equals(personId)) {
+                if (genderMap.get(rel.getToPersonId()) == targetGender) {
+                    return rel.getToPersonId();
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,296 @@
+package com.familytree.support;
+
+import com.familytree.application.graph.GroupGraph;
+import com.familytree.domain.Person;
+import com.familytree.domain.Relationship;
+import com.familytree.infrastructure.repository.PersonRepository;
+import com.familytree.infrastructure.repository.RelationshipRepository;
+import com.familytree.infrastructure.repository.projection.PersonGraphView;
+import com.familytree.infrastructure.repository.projection.PersonNameView;
+import com.familytree.infrastructure.repository.projection.PersonNodeView;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * 测试用的随机家族
+ * 从若干始祖向下繁衍，包含配偶、同父母与同父异母/同母异父的兄弟姐妹、父母之间没有配偶关系的子女、
+ * 单亲子女、显式兄弟姐妹关系、历史 CHILD 关系（from=子女, to=父母）、性别未知的人物，
+ * 以及与其他人没有任何关系的孤立人物；同一种子总是生成同一个家族
+ */
+public final class RandomFamily {
+
+    private static final String[] LAST_NAMES = {"张", "王", "李", "赵", "刘", "陈", "单", "曾", "欧阳", "司马"};
+    private static final String[] GIVEN_CHARS = {"伟", "芳", "娜", "敏", "静", "强", "磊", "军", "洋", "勇", "艳", "杰", "涛", "明", "超", "秀", "霞", "平", "刚", "桂"};
+
+    private final UUID groupId;
+    private final List<Member> persons;
+    private final List<Relationship> relationships;
+
+    private RandomFamily(UUID groupId, List<Member> persons, List<Relationship> relationships) {
+        this.groupId = groupId;
+        this.persons = persons;
+        this.relationships = relationships;
+    }
+
+    /**
+     * 生成约 size 人的家族
+     */
+    public static RandomFamily generate(long seed, int size) {
+        Random random = new Random(seed);
+        UUID groupId = new UUID(seed, 0);
+        List<Member> persons = new ArrayList<>(size);
+        List<Relationship> relationships = new ArrayList<>();
+        List<List<Integer>> spousesOf = new ArrayList<>();
+        List<List<Integer>> childrenOf = new ArrayList<>();
+        int[] birthYear = new int[size];
+
+        while (persons.size() < size) {
+            int n = persons.size();
+            double roll = random.nextDouble();
+            if (n < 2 || roll < 0.04) {
+                // 始祖或孤立人物
+                birthYear[n] = 1800 + random.nextInt(150);
+                add(persons, spousesOf, childrenOf, random, randomGender(random), birthYear[n]);
+            } else if (roll < 0.30) {
+                // 为已有人物添加配偶（可多次婚配，产生同父异母/同母异父的子女）
+                int p = random.nextInt(n);
+                Person.Gender gender = opposite(persons.get(p).gender(), random);
+                birthYear[n] = birthYear[p] + random.nextInt(11) - 5;
+                int s = add(persons, spousesOf, childrenOf, random, gender, birthYear[n]);
+                spousesOf.get(p).add(s);
+                spousesOf.get(s).add(p);
+                relationships.add(random.nextBoolean()
+                    ? relationship(groupId, relationships, persons, p, s, Relationship.RelationshipType.SPOUSE)
+                    : relationship(groupId, relationships, persons, s, p, Relationship.RelationshipType.SPOUSE));
+            } else {
+                // 子女：另一位父母可以是配偶、非配偶的他人，或者没有
+                int p = random.nextInt(n);
+                int other = -1;
+                double kind = random.nextDouble();
+                if (kind < 0.65 && !spousesOf.get(p).isEmpty()) {
+                    other = spousesOf.get(p).get(random.nextInt(spousesOf.get(p).size()));
+                } else if (kind < 0.80) {
+                    int candidate = random.nextInt(n);
+                    other = candidate != p ? candidate : -1;
+                }
+                int base = other >= 0 ? Math.max(birthYear[p], birthYear[other]) : birthYear[p];
+                birthYear[n] = base + 18 + random.nextInt(25);
+                int c = add(persons, spousesOf, childrenOf, random, randomGender(random), birthYear[n]);
+                for (int parent : other >= 0 ? new int[]{p, other} : new int[]{p}) {
+                    relationships.add(random.nextDouble() < 0.05
+                        ? relationship(groupId, relationships, persons, c, parent, Relationship.RelationshipType.CHILD)
+                        : relationship(groupId, relationships, persons, parent, c, Relationship.RelationshipType.PARENT));
+                }
+                List<Integer> siblings = childrenOf.get(p);
+                if (!siblings.isEmpty() && random.nextDouble() < 0.3) {
+                    int sibling = siblings.get(random.nextInt(siblings.size()));
+                    relationships.add(relationship(groupId, relationships, persons, sibling, c, Relationship.RelationshipType.SIBLING));
+                }
+                childrenOf.get(p).add(c);
+                if (other >= 0) {
+                    childrenOf.get(other).add(c);
+                }
+            }
+        }
+        return new RandomFamily(groupId, persons, relationships);
+    }
+
+    private static int add(List<Member> persons, List<List<Integer>> spousesOf, List<List<Integer>> childrenOf,
+                           Random random, Person.Gender gender, int birthYear) {
+        int index = persons.size();
+        String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+        StringBuilder firstName = new StringBuilder();
+        for (int i = 1 + random.nextInt(2); i > 0; i--) {
+            firstName.append(GIVEN_CHARS[random.nextInt(GIVEN_CHARS.length)]);
+        }
+        LocalDate birthDate = random.nextDouble() < 0.1
+            ? null
+            : LocalDate.of(birthYear, 1 + random.nextInt(12), 1 + random.nextInt(28));
+        persons.add(new Member(new UUID(random.nextLong(), index), firstName.toString(), lastName, gender, birthDate));
+        spousesOf.add(new ArrayList<>());
+        childrenOf.add(new ArrayList<>());
+        return index;
+    }
+
+    private static Person.Gender randomGender(Random random) {
+        double roll = random.nextDouble();
+        return roll < 0.05 ? Person.Gender.UNKNOWN : roll < 0.525 ? Person.Gender.MALE : Person.Gender.FEMALE;
+    }
+
+    private static Person.Gender opposite(Person.Gender gender, Random random) {
+        return switch (gender) {
+            case MALE -> Person.Gender.FEMALE;
+            case FEMALE -> Person.Gender.MALE;
+            case UNKNOWN -> randomGender(random);
+        };
+    }
+
+    private static Relationship relationship(UUID groupId, List<Relationship> relationships, List<Member> persons,
+                                             int from, int to, Relationship.RelationshipType type) {
+        return Relationship.builder()
+            .id(new UUID(~groupId.getMostSignificantBits(), relationships.size()))
+            .groupId(groupId)
+            .fromPersonId(persons.get(from).id())
+            .toPersonId(persons.get(to).id())
+            .type(type)
+            .build();
+    }
+
+    public UUID groupId() {
+        return groupId;
+    }
+
+    public List<Member> persons() {
+        return persons;
+    }
+
+    public List<Relationship> relationships() {
+        return relationships;
+    }
+
+    public GroupGraph graph() {
+        return GroupGraph.build(groupId, persons, relationships);
+    }
+
+    /**
+     * 写入数据库（人物和关系ID由数据库生成，代数与后代数/祖先数均为 0，不写闭包）
+     *
+     * @return 按 {@link #graph()} 的人物序号索引的数据库人物ID
+     */
+    public UUID[] persist(UUID groupId, PersonRepository personRepository, RelationshipRepository relationshipRepository) {
+        List<Person> saved = new ArrayList<>(persons.size());
+        for (Member member : persons) {
+            saved.add(Person.builder()
+                .groupId(groupId)
+                .firstName(member.firstName())
+                .lastName(member.lastName())
+                .gender(member.gender())
+                .birthDate(member.birthDate())
+                .generation(0)
+                .descendantCount(0)
+                .ancestorCount(0)
+                .build());
+        }
+        personRepository.saveAll(saved);
+
+        Map<UUID, UUID> databaseIds = new HashMap<>();
+        for (int i = 0; i < persons.size(); i++) {
+            databaseIds.put(persons.get(i).id(), saved.get(i).getId());
+        }
+        List<Relationship> savedRelationships = new ArrayList<>(relationships.size());
+        for (Relationship relationship : relationships) {
+            savedRelationships.add(Relationship.builder()
+                .groupId(groupId)
+                .fromPersonId(databaseIds.get(relationship.getFromPersonId()))
+                .toPersonId(databaseIds.get(relationship.getToPersonId()))
+                .type(relationship.getType())
+                .build());
+        }
+        relationshipRepository.saveAllAndFlush(savedRelationships);
+
+        GroupGraph graph = graph();
+        UUID[] personIds = new UUID[graph.size()];
+        for (int v = 0; v < graph.size(); v++) {
+            personIds[v] = databaseIds.get(graph.personId(v));
+        }
+        return personIds;
+    }
+
+    /**
+     * 按人物序号索引的代际：与整体布局相同，每个连通分量 BFS（父母 -1，子女 +1，配偶/兄弟姐妹 0）后顶部对齐到 0
+     */
+    public static int[] generations(GroupGraph graph) {
+        int n = graph.size();
+        int[] generation = new int[n];
+        boolean[] visited = new boolean[n];
+        int[] order = new int[n];
+        int size = 0;
+        GroupGraph.Adjacency[] adjacencies = {graph.parents(), graph.children(), graph.spouses(), graph.siblings()};
+        int[] deltas = {-1, 1, 0, 0};
+        for (int root = 0; root < n; root++) {
+            if (visited[root]) {
+                continue;
+            }
+            int componentStart = size;
+            visited[root] = true;
+            order[size++] = root;
+            int minGeneration = 0;
+            for (int head = componentStart; head < size; head++) {
+                int current = order[head];
+                for (int a = 0; a < adjacencies.length; a++) {
+                    for (int i = adjacencies[a].start(current); i < adjacencies[a].end(current); i++) {
+                        int related = adjacencies[a].target(i);
+                        if (!visited[related]) {
+                            visited[related] = true;
+                            generation[related] = generation[current] + deltas[a];
+                            minGeneration = Math.min(minGeneration, generation[related]);
+                            order[size++] = related;
+                        }
+                    }
+                }
+            }
+            for (int i = componentStart; i < size; i++) {
+                generation[order[i]] -= minGeneration;
+            }
+        }
+        return generation;
+    }
+
+    /**
+     * 随机家族中的人物，同时充当各种人物投影
+     */
+    public record Member(UUID id, String firstName, String lastName, Person.Gender gender, LocalDate birthDate)
+            implements PersonGraphView, PersonNameView, PersonNodeView {
+
+        @Override
+        public UUID getId() {
+            return id;
+        }
+
+        @Override
+        public String getFirstName() {
+            return firstName;
+        }
+
+        @Override
+        public String getLastName() {
+            return lastName;
+        }
+
+        @Override
+        public Person.Gender getGender() {
+            return gender;
+        }
+
+        @Override
+        public LocalDate getBirthDate() {
+            return birthDate;
+        }
+
+        @Override
+        public LocalDate getDeathDate() {
+            return null;
+        }
+
+        @Override
+        public Integer getAbsoluteGeneration() {
+            return null;
+        }
+
+        @Override
+        public Integer getDescendantCount() {
+            return null;
+        }
+
+        @Override
+        public Integer getAncestorCount() {
+            return null;
+        }
+
+        @Override
+        public String getPrimaryPhotoUrl() {
+            return null;
+        }
+    }
+}
@@ -1,5 +1,5 @@
 import request from './request'
-import type { Person, PersonRelations } from '@/types'
+import type { CursorPage, GenerationCount, Person, PersonBrief, PersonRelations, PersonSearchResult, PersonSuggestion } from '@/types'
 
 export interface CreatePersonRequest {
   groupId: string
@@ -43,10 +43,35 @@ export const personApi = {
     return request.delete(`/persons/${personId}`)
   },
   
+  getGroupPersonPage: (groupId: string, cursor?: string, limit: number = 50): Promise<CursorPage<PersonBrief>> => {
+    return request.get(`/persons/group/${groupId}/page`, { params: { cursor, limit, fields: 'SUMMARY' } })
+  },
+  
+  getGroupPersonFullPage: (groupId: string, cursor?: string, limit: number = 50): Promise<CursorPage<Person>> => {
+    return request.get(`/persons/group/${groupId}/page`, { params: { cursor, limit, fields: 'FULL' } })
+  },
+  
+  getPersonsByGeneration: (groupId: string, minGeneration?: number, maxGeneration?: number): Promise<Person[]> => {
+    return request.get(`/persons/group/${groupId}/generations`, { params: { minGeneration, maxGeneration } })
+  },
+  
+  getGenerationCounts: (groupId: string): Promise<GenerationCount[]> => {
+    return request.get(`/persons/group/${groupId}/generation-counts`)
+  },
+  
   searchPersons: (groupId: string, keyword: string): Promise<Person[]> => {
     return request.get(`/persons/group/${groupId}/search`, { params: { keyword } })
   },
 
+  searchPersonsRanked: (groupId: string, keyword: string, limit: number = 20, offset: number = 0): Promise<PersonSearchResult> => {
+    return request.get(`/persons/group/${groupId}/search/ranked`, { params: { keyword, limit, offset } })
+  },
+
+  // 人物选择框逐键补全：姓名、拼音全拼或首字母前缀
+  autocompletePersons: (groupId: string, prefix: string, limit: number = 10): Promise<PersonSuggestion[]> => {
+    return request.get(`/persons/group/${groupId}/autocomplete`, { params: { prefix, limit } })
+  },
+
   getPersonRelations: (personId: string): Promise<PersonRelations> => {
     return request.get(`/persons/${personId}/relations`)
   }
@@ -30,6 +30,11 @@ request.interceptors.response.use(
   (response) => {
     const { data } = response
     
+    // 协商得到的紧凑格式不含 ApiResponse 包装
+    if (String(response.headers['content-type'] ?? '').startsWith('application/vnd.familytree.')) {
+      return data
+    }
+    
     if (data.code !== 200) {
       showToast(data.message || '请求失败')
       return Promise.reject(new Error(data.message))
@@ -1,10 +1,98 @@
 import request from './request'
-import type { TreeView, PersonNode, LineageType } from '@/types'
+import type { CompactTreeView, TreeView, TreeDelta, TreeViewport, RelationshipPath, Kinship, PersonNode, RelationshipEdge, LineageType } from '@/types'
+
+export const COMPACT_TREE_MEDIA_TYPE = 'application/vnd.familytree.tree-compact+json'
+
+const pick = <T>(dictionary: string[], index: number): T | undefined =>
+  (index >= 0 ? dictionary[index] : undefined) as T | undefined
+
+export function expandCompactTreeView(compact: CompactTreeView): TreeView {
+  const { dictionaries, ids } = compact
+  const nodes: PersonNode[] = []
+  for (let i = 0; i < compact.nodeCount; i++) {
+    const firstName = compact.firstNames[i]
+    const lastName = compact.lastNames[i] ?? undefined
+    nodes.push({
+      id: ids[i],
+      firstName,
+      lastName,
+      fullName: lastName ? lastName + firstName : firstName,
+      gender: pick<PersonNode['gender']>(dictionaries.gender, compact.genders[i]) ?? 'UNKNOWN',
+      birthDate: compact.birthDates[i] ?? undefined,
+      deathDate: compact.deathDates[i] ?? undefined,
+      primaryPhotoUrl: compact.primaryPhotoUrls[i] ?? undefined,
+      generation: compact.generations[i],
+      absoluteGeneration: compact.absoluteGenerations[i] ?? undefined,
+      x: compact.xs[i],
+      y: compact.ys[i],
+      lineageType: pick<LineageType>(dictionaries.lineageType, compact.lineageTypes[i]) ?? 'UNKNOWN',
+      kinshipTerm: compact.kinshipTerms?.[i] ?? undefined
+    })
+  }
+  const edges: RelationshipEdge[] = compact.edgeIds.map((id, i) => ({
+    id,
+    fromPersonId: ids[compact.edgeFrom[i]],
+    toPersonId: ids[compact.edgeTo[i]],
+    type: pick<RelationshipEdge['type']>(dictionaries.relationshipType, compact.edgeTypes[i]) ?? 'PARENT'
+  }))
+  return {
+    version: compact.version,
+    viewMode: compact.viewMode,
+    focusPersonId: compact.focus != null ? ids[compact.focus] : '',
+    focusPersonName: compact.focusPersonName ?? '',
+    depth: compact.depth ?? 0,
+    filterLineageType: compact.filterLineageType,
+    nodes,
+    edges,
+    maxNodes: compact.maxNodes,
+    collapsedNodes: compact.collapsedNodes
+  }
+}
 
 export const treeApi = {
-  getTreeView: (groupId: string, focusPersonId?: string, depth: number = 3, lineage?: LineageType): Promise<TreeView> => {
+  // maxNodes 为节点数上限，超出部分折叠为 collapsedNodes；以折叠节点的 anchorPersonId 为焦点重新请求即可展开
+  getTreeView: (groupId: string, focusPersonId?: string, depth: number = 3, lineage?: LineageType, maxNodes?: number): Promise<TreeView> => {
     return request.get(`/groups/${groupId}/tree`, {
-      params: { focusPersonId, depth, lineage }
+      params: { focusPersonId, depth, lineage, maxNodes }
+    })
+  },
+  
+  // 紧凑格式传输，客户端还原为 TreeView；参数与 getTreeView 相同
+  getCompactTreeView: async (groupId: string, focusPersonId?: string, depth: number = 3, lineage?: LineageType, maxNodes?: number): Promise<TreeView> => {
+    const compact: CompactTreeView = await request.get(`/groups/${groupId}/tree`, {
+      params: { focusPersonId, depth, lineage, maxNodes },
+      headers: { Accept: COMPACT_TREE_MEDIA_TYPE }
+    })
+    return expandCompactTreeView(compact)
+  },
+  
+  getGroupTreeView: (groupId: string): Promise<TreeView> => {
+    return request.get(`/groups/${groupId}/tree`, {
+      params: { mode: 'GROUP' }
+    })
+  },
+  
+  getTreeDelta: (groupId: string, sinceVersion: number, focusPersonId?: string, depth: number = 3, lineage?: LineageType): Promise<TreeDelta> => {
+    return request.get(`/groups/${groupId}/tree/delta`, {
+      params: { sinceVersion, focusPersonId, depth, lineage }
+    })
+  },
+  
+  getViewport: (groupId: string, minX: number, minY: number, maxX: number, maxY: number, zoom: number = 1): Promise<TreeViewport> => {
+    return request.get(`/groups/${groupId}/tree/viewport`, {
+      params: { minX, minY, maxX, maxY, zoom }
+    })
+  },
+  
+  getRelationshipPath: (groupId: string, fromPersonId: string, toPersonId: string): Promise<RelationshipPath> => {
+    return request.get(`/groups/${groupId}/tree/path`, {
+      params: { fromPersonId, toPersonId }
+    })
+  },
+  
+  getKinship: (groupId: string, personAId: string, personBId: string): Promise<Kinship> => {
+    return request.get(`/groups/${groupId}/tree/kinship`, {
+      params: { personAId, personBId }
     })
   },
   
@@ -18,5 +106,12 @@ export const treeApi = {
     return request.get(`/groups/${groupId}/tree/persons/${personId}/descendants`, {
       params: { generations }
     })
+  },
+
+  // 返回 ancestorId 与 personId 相隔的代数，不是祖先时为 null
+  getAncestorDistance: (groupId: string, personId: string, ancestorId: string): Promise<number | null> => {
+    return request.get(`/groups/${groupId}/tree/persons/${personId}/ancestor-distance`, {
+      params: { ancestorId }
+    })
   }
 }
@@ -40,6 +40,52 @@ export interface Person {
   createdAt: string
   updatedAt: string
   version: number
+  generation?: number // 家族内的绝对代数（辈分）
+}
+
+// 人物列表的轻量字段（fields=SUMMARY）
+export interface PersonBrief {
+  id: string
+  firstName: string
+  lastName?: string
+  fullName: string
+  gender: 'MALE' | 'FEMALE' | 'UNKNOWN'
+  birthDate?: string
+  deathDate?: string
+  primaryPhotoUrl?: string
+  generation?: number
+  score?: number // 检索相关度，仅检索结果返回
+}
+
+// 按相关度排序的姓名检索结果
+export interface PersonSearchResult {
+  keyword: string
+  total: number
+  offset: number
+  limit: number
+  items: PersonBrief[]
+}
+
+// 人物选择框的补全候选
+export interface PersonSuggestion {
+  id: string
+  fullName: string
+  birthYear?: number
+  primaryPhotoUrl?: string
+}
+
+export type PersonFieldSet = 'SUMMARY' | 'FULL'
+
+// 游标分页结果：nextCursor 原样传回获取下一页，没有更多数据时为空
+export interface CursorPage<T> {
+  items: T[]
+  nextCursor?: string
+  hasMore: boolean
+}
+
+export interface GenerationCount {
+  generation: number
+  personCount: number
 }
 
 export interface Photo {
@@ -151,13 +197,128 @@ export const LINEAGE_FILTERS: LineageFilter[] = [
   }
 ]
 
+export type TreeViewMode = 'FOCUS' | 'GROUP'
+
 export interface TreeView {
+  version?: number
+  viewMode?: TreeViewMode // GROUP 为整个家族视图，此时没有焦点人物
   focusPersonId: string
   focusPersonName: string
   depth: number
   filterLineageType?: LineageType
   nodes: PersonNode[]
   edges: RelationshipEdge[]
+  maxNodes?: number
+  collapsedNodes?: CollapsedNode[] // 超出节点上限被省略的分支
+}
+
+// 超出节点上限时代替被省略分支的合成节点
+export interface CollapsedNode {
+  id: string // collapsed:锚点人物ID:方向
+  anchorPersonId: string
+  direction: 'ANCESTORS' | 'DESCENDANTS' | 'RELATIVES'
+  hiddenCount: number
+  descendantCount?: number // 锚点人物的后代总数
+  ancestorCount?: number
+  generation: number
+  x: number
+  y: number
+}
+
+// 紧凑列式树视图（Accept: application/vnd.familytree.tree-compact+json）
+export interface CompactTreeView {
+  groupId: string
+  version?: number
+  viewMode?: TreeViewMode
+  focus?: number
+  focusPersonName?: string
+  depth?: number
+  filterLineageType?: LineageType
+  dictionaries: Record<'gender' | 'lineageType' | 'relationshipType', string[]>
+  ids: string[]
+  nodeCount: number
+  firstNames: string[]
+  lastNames: (string | null)[]
+  genders: number[]
+  birthDates: (string | null)[]
+  deathDates: (string | null)[]
+  primaryPhotoUrls: (string | null)[]
+  generations: number[]
+  absoluteGenerations: (number | null)[]
+  xs: number[]
+  ys: number[]
+  lineageTypes: number[]
+  kinshipTerms?: (string | null)[] | null
+  edgeIds: string[]
+  edgeFrom: number[]
+  edgeTo: number[]
+  edgeTypes: number[]
+  maxNodes?: number
+  collapsedNodes?: CollapsedNode[]
+}
+
+export interface TreeDelta {
+  groupId: string
+  sinceVersion: number
+  version: number
+  full: boolean
+  tree?: TreeView
+  upsertedNodes?: PersonNode[]
+  upsertedEdges?: RelationshipEdge[]
+  removedNodeIds?: string[]
+  removedEdgeIds?: string[]
+}
+
+export interface TreeViewport {
+  groupId: string
+  version: number
+  minX: number
+  minY: number
+  maxX: number
+  maxY: number
+  zoom: number
+  nodes: PersonNode[]
+  edges: RelationshipEdge[]
+}
+
+export interface RelationshipPathStep {
+  fromPersonId: string
+  toPersonId: string
+  relationshipId: string
+  // toPersonId 是 fromPersonId 的父母/子女/配偶/兄弟姐妹
+  type: 'PARENT' | 'CHILD' | 'SPOUSE' | 'SIBLING'
+}
+
+export interface RelationshipPath {
+  groupId: string
+  fromPersonId: string
+  toPersonId: string
+  found: boolean
+  length?: number
+  persons: PersonNode[]
+  steps: RelationshipPathStep[]
+}
+
+export type KinshipType =
+  | 'SELF'
+  | 'ANCESTOR'
+  | 'DESCENDANT'
+  | 'SIBLING'
+  | 'ANCESTOR_SIBLING'
+  | 'SIBLING_DESCENDANT'
+  | 'COUSIN'
+  | 'NONE'
+
+export interface Kinship {
+  groupId: string
+  personAId: string
+  personBId: string
+  type: KinshipType
+  commonAncestors: PersonNode[]
+  distanceA?: number
+  distanceB?: number
+  cousinDegree?: number
+  removal?: number
 }
 
 export interface PersonNode {
@@ -170,9 +331,11 @@ export interface PersonNode {
   deathDate?: string
   primaryPhotoUrl?: string
   generation: number
+  absoluteGeneration?: number // 家族内的绝对代数（辈分）
   x?: number
   y?: number
   lineageType: LineageType
+  kinshipTerm?: string // 相对于焦点人物的称谓，仅树视图返回
 }
 
 export interface RelationshipEdge {